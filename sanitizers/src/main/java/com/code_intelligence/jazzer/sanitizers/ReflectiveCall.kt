@@ -31,24 +31,33 @@ object ReflectiveCall {
 
     @MethodHooks(
         MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Class", targetMethod = "forName", targetMethodDescriptor = "(Ljava/lang/String;)Ljava/lang/Class;"),
-        MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Class", targetMethod = "forName", targetMethodDescriptor = "(Ljava/lang/String;ZLjava/lang/ClassLoader;)Ljava/lang/Class;"),
         MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.ClassLoader", targetMethod = "loadClass", targetMethodDescriptor = "(Ljava/lang/String;)Ljava/lang/Class;"),
-        MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.ClassLoader", targetMethod = "loadClass", targetMethodDescriptor = "(Ljava/lang/String;Z)Ljava/lang/Class;"),
     )
     @JvmStatic
-    fun loadClassHook(method: MethodHandle?, alwaysNull: Any?, args: Array<Any?>, hookId: Int) {
-        val className = args[0] as? String ?: return
+    fun loadClassHook(thisObject: Any?, className: String?, hookId: Int) {
+        className ?: return
         Jazzer.guideTowardsEquality(className, HONEYPOT_CLASS_NAME, hookId)
     }
 
+    @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Class", targetMethod = "forName", targetMethodDescriptor = "(Ljava/lang/String;ZLjava/lang/ClassLoader;)Ljava/lang/Class;")
+    @JvmStatic
+    fun forNameWithLoaderHook(alwaysNull: Any?, className: String?, initialize: Boolean, loader: ClassLoader?, hookId: Int) {
+        loadClassHook(alwaysNull, className, hookId)
+    }
+
+    @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.ClassLoader", targetMethod = "loadClass", targetMethodDescriptor = "(Ljava/lang/String;Z)Ljava/lang/Class;")
+    @JvmStatic
+    fun loadClassWithResolveHook(thisObject: Any?, className: String?, resolve: Boolean, hookId: Int) {
+        loadClassHook(thisObject, className, hookId)
+    }
+
     @MethodHooks(
         MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Class", targetMethod = "forName", targetMethodDescriptor = "(Ljava/lang/Module;Ljava/lang/String;)Ljava/lang/Class;"),
         MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.ClassLoader", targetMethod = "loadClass", targetMethodDescriptor = "(Ljava/lang/Module;Ljava/lang/String;)Ljava/lang/Class;"),
     )
     @JvmStatic
-    fun loadClassWithModuleHook(method: MethodHandle?, alwaysNull: Any?, args: Array<Any?>, hookId: Int) {
-        val className = args[1] as? String ?: return
-        Jazzer.guideTowardsEquality(className, HONEYPOT_CLASS_NAME, hookId)
+    fun loadClassWithModuleHook(thisObject: Any?, module: Any?, className: String?, hookId: Int) {
+        loadClassHook(thisObject, className, hookId)
     }
 
     @MethodHooks(
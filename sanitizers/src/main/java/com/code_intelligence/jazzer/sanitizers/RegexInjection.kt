@@ -49,50 +49,72 @@ object RegexInjection {
         targetMethodDescriptor = "(Ljava/lang/String;I)Ljava/util/regex/Pattern;",
     )
     @JvmStatic
-    fun compileWithFlagsHook(method: MethodHandle, alwaysNull: Any?, args: Array<Any?>, hookId: Int): Any? {
-        val pattern = args[0] as String?
-        val hasCanonEqFlag = ((args[1] as Int) and Pattern.CANON_EQ) != 0
-        return hookInternal(method, pattern, hasCanonEqFlag, hookId, *args)
+    fun compileWithFlagsHook(alwaysNull: Any?, regex: String?, flags: Int, hookId: Int): Pattern {
+        val hasCanonEqFlag = (flags and Pattern.CANON_EQ) != 0
+        return hookInternal(regex, hasCanonEqFlag, hookId) { Pattern.compile(regex, flags) }
     }
 
-    @MethodHooks(
-        MethodHook(
-            type = HookType.REPLACE,
-            targetClassName = "java.util.regex.Pattern",
-            targetMethod = "compile",
-            targetMethodDescriptor = "(Ljava/lang/String;)Ljava/util/regex/Pattern;",
-        ),
-        MethodHook(
-            type = HookType.REPLACE,
-            targetClassName = "java.util.regex.Pattern",
-            targetMethod = "matches",
-            targetMethodDescriptor = "(Ljava/lang/String;Ljava/lang/CharSequence;)Z",
-        ),
+    @MethodHook(
+        type = HookType.REPLACE,
+        targetClassName = "java.util.regex.Pattern",
+        targetMethod = "compile",
+        targetMethodDescriptor = "(Ljava/lang/String;)Ljava/util/regex/Pattern;",
+    )
+    @JvmStatic
+    fun compileHook(alwaysNull: Any?, regex: String?, hookId: Int): Pattern {
+        return hookInternal(regex, false, hookId) { Pattern.compile(regex) }
+    }
+
+    @MethodHook(
+        type = HookType.REPLACE,
+        targetClassName = "java.util.regex.Pattern",
+        targetMethod = "matches",
+        targetMethodDescriptor = "(Ljava/lang/String;Ljava/lang/CharSequence;)Z",
+    )
+    @JvmStatic
+    fun patternMatchesHook(alwaysNull: Any?, regex: String?, input: CharSequence?, hookId: Int): Boolean {
+        return hookInternal(regex, false, hookId) { Pattern.matches(regex, input) }
+    }
+
+    // The hooks on String methods invoke the same Pattern methods the original methods delegate to.
+    @MethodHook(
+        type = HookType.REPLACE,
+        targetClassName = "java.lang.String",
+        targetMethod = "matches",
+        targetMethodDescriptor = "(Ljava/lang/String;)Z",
+    )
+    @JvmStatic
+    fun stringMatchesHook(thisObject: String, regex: String?, hookId: Int): Boolean {
+        return hookInternal(regex, false, hookId) { Pattern.matches(regex, thisObject) }
+    }
+
+    @MethodHook(
+        type = HookType.REPLACE,
+        targetClassName = "java.lang.String",
+        targetMethod = "replaceAll",
+        targetMethodDescriptor = "(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;",
     )
     @JvmStatic
-    fun patternHook(method: MethodHandle, alwaysNull: Any?, args: Array<Any?>, hookId: Int): Any? {
-        return hookInternal(method, args[0] as String?, false, hookId, *args)
+    fun replaceAllHook(thisObject: String, regex: String?, replacement: String?, hookId: Int): String {
+        return hookInternal(regex, false, hookId) {
+            Pattern.compile(regex).matcher(thisObject).replaceAll(replacement)
+        }
+    }
+
+    @MethodHook(
+        type = HookType.REPLACE,
+        targetClassName = "java.lang.String",
+        targetMethod = "replaceFirst",
+        targetMethodDescriptor = "(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;",
+    )
+    @JvmStatic
+    fun replaceFirstHook(thisObject: String, regex: String?, replacement: String?, hookId: Int): String {
+        return hookInternal(regex, false, hookId) {
+            Pattern.compile(regex).matcher(thisObject).replaceFirst(replacement)
+        }
     }
 
     @MethodHooks(
-        MethodHook(
-            type = HookType.REPLACE,
-            targetClassName = "java.lang.String",
-            targetMethod = "matches",
-            targetMethodDescriptor = "(Ljava/lang/String;)Z",
-        ),
-        MethodHook(
-            type = HookType.REPLACE,
-            targetClassName = "java.lang.String",
-            targetMethod = "replaceAll",
-            targetMethodDescriptor = "(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;",
-        ),
-        MethodHook(
-            type = HookType.REPLACE,
-            targetClassName = "java.lang.String",
-            targetMethod = "replaceFirst",
-            targetMethodDescriptor = "(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;",
-        ),
         MethodHook(
             type = HookType.REPLACE,
             targetClassName = "java.lang.String",
@@ -108,16 +130,15 @@ object RegexInjection {
     )
     @JvmStatic
     fun stringHook(method: MethodHandle, thisObject: Any?, args: Array<Any?>, hookId: Int): Any? {
-        return hookInternal(method, args[0] as String?, false, hookId, thisObject, *args)
+        return hookInternal(args[0] as String?, false, hookId) { method.invokeWithArguments(thisObject, *args) }
     }
 
-    private fun hookInternal(
-        method: MethodHandle,
+    private inline fun <T> hookInternal(
         pattern: String?,
         hasCanonEqFlag: Boolean,
         hookId: Int,
-        vararg args: Any?,
-    ): Any? {
+        invokeOriginal: () -> T,
+    ): T {
         if (hasCanonEqFlag && pattern != null) {
             // With CANON_EQ enabled, Pattern.compile allocates an array with a size that is
             // (super-)exponential in the number of consecutive Unicode combining marks. We use a mild case
@@ -139,7 +160,7 @@ memory allocations, even when wrapped with Pattern.quote(...).""",
             }
         }
         try {
-            return method.invokeWithArguments(*args).also {
+            return invokeOriginal().also {
                 // Only submit a fuzzer hint if no exception has been thrown.
                 if (!hasCanonEqFlag && pattern != null) {
                     Jazzer.guideTowardsContainment(pattern, FORCE_PATTERN_SYNTAX_EXCEPTION_PATTERN, hookId)
@@ -114,15 +114,9 @@ public final class RegexRoadblocks {
               "java.util.regex.Pattern$XGrapheme",
           })
   public static void
-  nodeMatchHook(MethodHandle method, Object node, Object[] args, int hookId, Boolean matched) {
-    if (matched || node == null)
-      return;
-    Matcher matcher = (Matcher) args[0];
-    if (matcher == null)
-      return;
-    int i = (int) args[1];
-    CharSequence seq = (CharSequence) args[2];
-    if (seq == null)
+  nodeMatchHook(
+      Object node, Matcher matcher, int i, CharSequence seq, int hookId, boolean matched) {
+    if (matched || node == null || matcher == null || seq == null)
       return;
 
     if (SLICE_NODE != null && SLICE_NODE.isInstance(node)) {
@@ -190,10 +184,6 @@ public final class RegexRoadblocks {
       targetMethod = "Single",
       targetMethodDescriptor = "(I)Ljava/util/regex/Pattern$BmpCharPredicate;",
       additionalClassesToHook = {"java.util.regex.Pattern"})
-  @MethodHook(type = HookType.AFTER, targetClassName = "java.util.regex.Pattern",
-      targetMethod = "SingleI",
-      targetMethodDescriptor = "(II)Ljava/util/regex/Pattern$CharPredicate;",
-      additionalClassesToHook = {"java.util.regex.Pattern"})
   @MethodHook(type = HookType.AFTER, targetClassName = "java.util.regex.Pattern",
       targetMethod = "SingleS",
       targetMethodDescriptor = "(I)Ljava/util/regex/Pattern$CharPredicate;",
@@ -203,10 +193,19 @@ public final class RegexRoadblocks {
       targetMethodDescriptor = "(I)Ljava/util/regex/Pattern$CharPredicate;",
       additionalClassesToHook = {"java.util.regex.Pattern"})
   public static void
-  singleHook(MethodHandle method, Object node, Object[] args, int hookId, Object predicate) {
+  singleHook(Object alwaysNull, int c, int hookId, Object predicate) {
     if (predicate == null)
       return;
-    PREDICATE_SOLUTIONS.get().put(predicate, (char) (int) args[0]);
+    PREDICATE_SOLUTIONS.get().put(predicate, (char) c);
+  }
+
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.util.regex.Pattern",
+      targetMethod = "SingleI",
+      targetMethodDescriptor = "(II)Ljava/util/regex/Pattern$CharPredicate;",
+      additionalClassesToHook = {"java.util.regex.Pattern"})
+  public static void
+  singleIHook(Object alwaysNull, int lower, int upper, int hookId, Object predicate) {
+    singleHook(alwaysNull, lower, hookId, predicate);
   }
 
   // Java 8 uses classes extending CharProperty instead of lambdas implementing CharPredicate to
@@ -250,10 +249,10 @@ public final class RegexRoadblocks {
       targetMethodDescriptor = "(II)Ljava/util/regex/Pattern$CharProperty;",
       additionalClassesToHook = {"java.util.regex.Pattern"})
   public static void
-  rangeHook(MethodHandle method, Object node, Object[] args, int hookId, Object predicate) {
+  rangeHook(Object alwaysNull, int lower, int upper, int hookId, Object predicate) {
     if (predicate == null)
       return;
-    PREDICATE_SOLUTIONS.get().put(predicate, (char) (int) args[0]);
+    PREDICATE_SOLUTIONS.get().put(predicate, (char) lower);
   }
 
   @MethodHook(type = HookType.AFTER, targetClassName = "java.util.regex.Pattern$CharPredicate",
@@ -261,28 +260,31 @@ public final class RegexRoadblocks {
       targetMethodDescriptor =
           "(Ljava/util/regex/Pattern$CharPredicate;)Ljava/util/regex/Pattern$CharPredicate;",
       additionalClassesToHook = {"java.util.regex.Pattern"})
-  // Java 8 uses anonymous classes extending CharProperty instead of lambdas implementing
-  // CharPredicate to match single characters, so also hook union for those. Even though the classes
-  // of the parameters will be different, the actual implementation of the hook is the same in this
-  // case.
-  @MethodHook(type = HookType.AFTER, targetClassName = "java.util.regex.Pattern",
-      targetMethod = "union",
-      targetMethodDescriptor =
-          "(Ljava/util/regex/Pattern$CharProperty;Ljava/util/regex/Pattern$CharProperty;)Ljava/util/regex/Pattern$CharProperty;",
-      additionalClassesToHook = {"java.util.regex.Pattern"})
   public static void
-  unionHook(
-      MethodHandle method, Object thisObject, Object[] args, int hookId, Object unionPredicate) {
+  unionHook(Object thisObject, Object other, int hookId, Object unionPredicate) {
     if (unionPredicate == null)
       return;
     Character solution = predicateSolution(thisObject);
     if (solution == null)
-      solution = predicateSolution(args[0]);
+      solution = predicateSolution(other);
     if (solution == null)
       return;
     PREDICATE_SOLUTIONS.get().put(unionPredicate, solution);
   }
 
+  // Java 8 uses anonymous classes extending CharProperty instead of lambdas implementing
+  // CharPredicate to match single characters, so also hook union for those.
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.util.regex.Pattern",
+      targetMethod = "union",
+      targetMethodDescriptor =
+          "(Ljava/util/regex/Pattern$CharProperty;Ljava/util/regex/Pattern$CharProperty;)Ljava/util/regex/Pattern$CharProperty;",
+      additionalClassesToHook = {"java.util.regex.Pattern"})
+  public static void
+  java8UnionHook(
+      Object alwaysNull, Object first, Object second, int hookId, Object unionPredicate) {
+    unionHook(first, second, hookId, unionPredicate);
+  }
+
   private static Character predicateSolution(Object charPredicate) {
     return PREDICATE_SOLUTIONS.get().computeIfAbsent(charPredicate, unused -> {
       if (BIT_CLASS != null && BIT_CLASS.isInstance(charPredicate)) {
@@ -23,6 +23,8 @@ import com.code_intelligence.jazzer.api.Jazzer;
 import com.code_intelligence.jazzer.api.MethodHook;
 import java.lang.invoke.MethodHandle;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 import net.sf.jsqlparser.JSQLParserException;
@@ -63,6 +65,21 @@ public class SqlInjection {
               "org.h2.jdbc.JdbcSQLFeatureNotSupportedException")
           .collect(toSet()));
 
+  // Applications usually execute the same few queries over and over again, which would otherwise be
+  // parsed on every execution. The limit is large enough to hold all constant queries of typical
+  // applications while the fuzzer keeps generating new queries from its inputs.
+  // Package-private for tests.
+  static final int MAX_CACHED_QUERIES = 1024;
+  static final Map<String, Boolean> queryValidityCache =
+      new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+          return size() > MAX_CACHED_QUERIES;
+        }
+      };
+  // Non-final so that benchmarks can compare against validating every query.
+  static boolean cacheQueryValidity = true;
+
   @MethodHook(
       type = HookType.REPLACE, targetClassName = "java.sql.Statement", targetMethod = "execute")
   @MethodHook(type = HookType.REPLACE, targetClassName = "java.sql.Statement",
@@ -88,8 +105,7 @@ public class SqlInjection {
       Jazzer.guideTowardsContainment(query, CHARACTERS_TO_ESCAPE, hookId);
     }
     try {
-      return method.invokeWithArguments(
-          Stream.concat(Stream.of(thisObject), Arrays.stream(arguments)).toArray());
+      return invokeOriginal(method, thisObject, arguments);
     } catch (Throwable throwable) {
       // If we already validated the query string and know it's correct,
       // The exception is likely thrown by a non-existent table or something
@@ -103,7 +119,43 @@ public class SqlInjection {
     }
   }
 
+  private static Object invokeOriginal(MethodHandle method, Object thisObject, Object[] arguments)
+      throws Throwable {
+    // All hooked methods take at most two arguments. Invoking the handle directly avoids the
+    // argument array copies made by invokeWithArguments.
+    switch (arguments.length) {
+      case 0:
+        return method.invoke(thisObject);
+      case 1:
+        return method.invoke(thisObject, arguments[0]);
+      case 2:
+        return method.invoke(thisObject, arguments[0], arguments[1]);
+      default:
+        return method.invokeWithArguments(
+            Stream.concat(Stream.of(thisObject), Arrays.stream(arguments)).toArray());
+    }
+  }
+
   private static boolean isValidSql(String sql) {
+    if (!cacheQueryValidity) {
+      return parsesAsValidSql(sql);
+    }
+    Boolean cached;
+    synchronized (queryValidityCache) {
+      cached = queryValidityCache.get(sql);
+    }
+    if (cached != null) {
+      return cached;
+    }
+    // Parse outside the lock, a query validated concurrently is merely parsed twice.
+    boolean isValid = parsesAsValidSql(sql);
+    synchronized (queryValidityCache) {
+      queryValidityCache.put(sql, isValid);
+    }
+    return isValid;
+  }
+
+  private static boolean parsesAsValidSql(String sql) {
     try {
       CCJSqlParserUtil.parseStatements(sql);
       return true;
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.sanitizers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.lang.invoke.MethodType.methodType;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.code_intelligence.jazzer.api.FuzzerSecurityIssueHigh;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.sql.SQLSyntaxErrorException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SqlInjectionTest {
+  private static final String VALID_QUERY = "SELECT * FROM users WHERE name = 'jazzer'";
+  private static final String INVALID_QUERY = "SELECT * FROM users WHERE name = 'jazzer' OR";
+
+  /** Stands in for a {@link java.sql.Statement} whose database rejects every query. */
+  public static final class FailingStatement {
+    public boolean execute(String query) throws SQLSyntaxErrorException {
+      throw new SQLSyntaxErrorException("rejected: " + query);
+    }
+  }
+
+  private static final MethodHandle EXECUTE;
+
+  static {
+    try {
+      EXECUTE = MethodHandles.lookup().findVirtual(
+          FailingStatement.class, "execute", methodType(boolean.class, String.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private static void execute(String query) throws Throwable {
+    // Without the Jazzer runtime on the classpath, findings are thrown directly by the hook.
+    SqlInjection.checkSqlExecute(EXECUTE, new FailingStatement(), new Object[] {query}, 1234);
+  }
+
+  @BeforeEach
+  public void clearCache() {
+    synchronized (SqlInjection.queryValidityCache) {
+      SqlInjection.queryValidityCache.clear();
+    }
+  }
+
+  @Test
+  public void testCachedValidQueryIsNotReported() {
+    // The second execution uses the cached validity.
+    for (int i = 0; i < 2; i++) {
+      assertThrows(SQLSyntaxErrorException.class, () -> execute(VALID_QUERY));
+      assertThat(SqlInjection.queryValidityCache).containsExactly(VALID_QUERY, true);
+    }
+  }
+
+  @Test
+  public void testCachedInvalidQueryIsReported() {
+    for (int i = 0; i < 2; i++) {
+      assertThrows(FuzzerSecurityIssueHigh.class, () -> execute(INVALID_QUERY));
+      assertThat(SqlInjection.queryValidityCache).containsExactly(INVALID_QUERY, false);
+    }
+  }
+
+  @Test
+  public void testLeastRecentlyUsedQueryIsEvicted() {
+    assertThrows(SQLSyntaxErrorException.class, () -> execute(VALID_QUERY));
+    assertThrows(FuzzerSecurityIssueHigh.class, () -> execute(INVALID_QUERY));
+    for (int i = 0; i < SqlInjection.MAX_CACHED_QUERIES - 2; i++) {
+      String query = "SELECT " + i;
+      assertThrows(SQLSyntaxErrorException.class, () -> execute(query));
+    }
+    assertThat(SqlInjection.queryValidityCache).hasSize(SqlInjection.MAX_CACHED_QUERIES);
+
+    // Using the valid query makes the invalid one the least recently used.
+    assertThrows(SQLSyntaxErrorException.class, () -> execute(VALID_QUERY));
+    assertThrows(SQLSyntaxErrorException.class, () -> execute("SELECT 'new'"));
+    assertThat(SqlInjection.queryValidityCache).hasSize(SqlInjection.MAX_CACHED_QUERIES);
+    assertThat(SqlInjection.queryValidityCache).containsKey(VALID_QUERY);
+    assertThat(SqlInjection.queryValidityCache).doesNotContainKey(INVALID_QUERY);
+
+    // An evicted query is validated again.
+    assertThrows(FuzzerSecurityIssueHigh.class, () -> execute(INVALID_QUERY));
+    assertThat(SqlInjection.queryValidityCache).containsEntry(INVALID_QUERY, false);
+  }
+}
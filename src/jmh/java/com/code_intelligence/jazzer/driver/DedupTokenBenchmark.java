@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of computing the dedup token of a finding, both for findings that are
+ * reported over and over again with the same stack trace (as with {@code --keep_going}) and for
+ * findings with distinct stack traces.
+ *
+ * <p>For repeated findings, the cost of the token computed before preprocessing is compared to
+ * that of preprocessing the finding followed by computing its token.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class DedupTokenBenchmark {
+  // Larger than the number of cached tokens.
+  private static final int NUM_DISTINCT_FINDINGS = 4096;
+
+  @Param({"16", "128"}) int stackDepth;
+
+  private Throwable[] repeatedFindings;
+  private Throwable[] distinctFindings;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    repeatedFindings = new Throwable[NUM_DISTINCT_FINDINGS];
+    distinctFindings = new Throwable[NUM_DISTINCT_FINDINGS];
+    for (int i = 0; i < NUM_DISTINCT_FINDINGS; i++) {
+      // Distinct Throwable instances with equal stack traces.
+      repeatedFindings[i] = throwAt(stackDepth, 0);
+      distinctFindings[i] = throwAt(stackDepth, i);
+    }
+  }
+
+  private static Throwable throwAt(int depth, int line) {
+    StackTraceElement[] stackTrace = new StackTraceElement[depth];
+    for (int i = 0; i < depth; i++) {
+      // The JVM interns the class and method names of stack trace elements it creates.
+      stackTrace[i] = new StackTraceElement(("com.example.Class" + i).intern(),
+          ("method" + i).intern(), "Class.java", i == 0 ? line : i);
+    }
+    IllegalStateException finding = new IllegalStateException("message " + line);
+    finding.setStackTrace(stackTrace);
+    return finding;
+  }
+
+  @Benchmark
+  public long repeatedFinding() {
+    next = (next + 1) % NUM_DISTINCT_FINDINGS;
+    return ExceptionUtils.computeDedupToken(repeatedFindings[next]);
+  }
+
+  @Benchmark
+  public long distinctFindings() {
+    next = (next + 1) % NUM_DISTINCT_FINDINGS;
+    return ExceptionUtils.computeDedupToken(distinctFindings[next]);
+  }
+
+  @Benchmark
+  public long repeatedFindingBeforePreprocessing() {
+    next = (next + 1) % NUM_DISTINCT_FINDINGS;
+    return ExceptionUtils.computeDedupTokenBeforePreprocessing(repeatedFindings[next]);
+  }
+
+  @Benchmark
+  public long repeatedFindingAfterPreprocessing() {
+    next = (next + 1) % NUM_DISTINCT_FINDINGS;
+    return ExceptionUtils.computeDedupToken(
+        ExceptionUtils.preprocessThrowable(repeatedFindings[next]));
+  }
+}
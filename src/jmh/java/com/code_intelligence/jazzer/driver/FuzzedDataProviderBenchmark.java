@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cost of consuming integral values from a {@link FuzzedDataProviderImpl} via JNI
+ * and via Foreign Function & Memory API downcalls, which are used when native access is enabled on
+ * JDK 22+.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class FuzzedDataProviderBenchmark {
+  @State(Scope.Thread)
+  public static class DataState {
+    @Param({"10", "100"}) int numValues;
+
+    FuzzedDataProviderImpl data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      byte[] bytes = new byte[numValues * Long.BYTES];
+      new SplittableRandom(1337).nextBytes(bytes);
+      data = FuzzedDataProviderImpl.withJavaData(bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      data.close();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ForeignState {
+    @Setup(Level.Trial)
+    public void setUp() {
+      if (!FuzzedDataProviderForeignCalls.isAvailable()) {
+        throw new IllegalStateException("Requires JDK 22+ and native access to be enabled");
+      }
+    }
+  }
+
+  @Benchmark
+  public long consumeInts(DataState state) {
+    state.data.reset();
+    long sum = 0;
+    for (int i = 0; i < state.numValues; i++) {
+      sum += state.data.consumeInt();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @Fork(jvmArgsAppend = {"--enable-native-access=ALL-UNNAMED"})
+  public long consumeIntsForeign(DataState state, ForeignState unused) {
+    return consumeInts(state);
+  }
+
+  @Benchmark
+  public long consumeIntsInRange(DataState state) {
+    state.data.reset();
+    long sum = 0;
+    for (int i = 0; i < state.numValues; i++) {
+      sum += state.data.consumeInt(-1000, 1000);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @Fork(jvmArgsAppend = {"--enable-native-access=ALL-UNNAMED"})
+  public long consumeIntsInRangeForeign(DataState state, ForeignState unused) {
+    return consumeIntsInRange(state);
+  }
+
+  @Benchmark
+  public long consumeLongs(DataState state) {
+    state.data.reset();
+    long sum = 0;
+    for (int i = 0; i < state.numValues; i++) {
+      sum += state.data.consumeLong();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @Fork(jvmArgsAppend = {"--enable-native-access=ALL-UNNAMED"})
+  public long consumeLongsForeign(DataState state, ForeignState unused) {
+    return consumeLongs(state);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import com.code_intelligence.jazzer.mutation.ArgumentsMutator;
+import com.code_intelligence.jazzer.mutation.annotation.NotNull;
+import com.code_intelligence.jazzer.mutation.annotation.WithLength;
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sun.misc.Unsafe;
+
+/**
+ * Compares the cost of a single custom mutator round trip (read the input from native memory,
+ * mutate it, write it back to native memory) between the byte array copying path previously used
+ * by {@link FuzzTargetRunner} and the {@link NativeMemoryInputStream}/{@link
+ * NativeMemoryOutputStream} path.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+public class MutatorStreamsBenchmark {
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+  private static final long BYTE_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+  private static final int MAX_SIZE = 4096;
+
+  @Param({"byteArray", "list"}) String target;
+
+  private ArgumentsMutator mutator;
+  private long inputPtr;
+  private int inputSize;
+  private long outputPtr;
+  private long seed;
+
+  private final NativeMemoryInputStream nativeInput = new NativeMemoryInputStream();
+  private final NativeMemoryOutputStream nativeOutput = new NativeMemoryOutputStream();
+
+  @SuppressWarnings("unused")
+  public static void byteArrayTarget(@NotNull @WithLength(min = 512) byte[] data) {}
+
+  @SuppressWarnings("unused")
+  public static void listTarget(@NotNull List<@NotNull Integer> list, @NotNull String string) {}
+
+  @Setup(Level.Trial)
+  public void setUp() throws NoSuchMethodException {
+    Class<?>[] parameterTypes = target.equals("byteArray") ? new Class<?>[] {byte[].class}
+                                                           : new Class<?>[] {List.class, String.class};
+    mutator = ArgumentsMutator
+                  .forMethod(MutatorStreamsBenchmark.class.getMethod(
+                      target + "Target", parameterTypes))
+                  .orElseThrow(IllegalStateException::new);
+    inputPtr = UNSAFE.allocateMemory(MAX_SIZE);
+    outputPtr = UNSAFE.allocateMemory(MAX_SIZE);
+
+    // Produce a representative, non-trivial input by mutating repeatedly.
+    mutator.init(1337);
+    for (int i = 0; i < 100; i++) {
+      mutator.mutate(i);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    mutator.write(out);
+    byte[] input = out.toByteArray();
+    inputSize = Math.min(input.length, MAX_SIZE);
+    UNSAFE.copyMemory(input, BYTE_ARRAY_OFFSET, null, inputPtr, inputSize);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    UNSAFE.freeMemory(inputPtr);
+    UNSAFE.freeMemory(outputPtr);
+  }
+
+  @Benchmark
+  public int copyingStreams() {
+    byte[] buf = new byte[inputSize];
+    UNSAFE.copyMemory(null, inputPtr, buf, BYTE_ARRAY_OFFSET, inputSize);
+    mutator.read(new ByteArrayInputStream(buf));
+    mutator.mutate(seed++);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    mutator.write(baos);
+    byte[] mutatedBytes = baos.toByteArray();
+    int newSize = Math.min(mutatedBytes.length, MAX_SIZE);
+    UNSAFE.copyMemory(mutatedBytes, BYTE_ARRAY_OFFSET, null, outputPtr, newSize);
+    return newSize;
+  }
+
+  @Benchmark
+  public int nativeMemoryStreams() {
+    mutator.read(nativeInput.reset(inputPtr, inputSize));
+    mutator.mutate(seed++);
+    mutator.write(nativeOutput.reset(outputPtr, MAX_SIZE));
+    return nativeOutput.size();
+  }
+}
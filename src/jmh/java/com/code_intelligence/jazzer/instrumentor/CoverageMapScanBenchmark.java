@@ -0,0 +1,175 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.instrumentor;
+
+import java.lang.reflect.Field;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sun.misc.Unsafe;
+
+/**
+ * Measures the per-execution cost of collecting features from and clearing a coverage map as a
+ * function of the number of registered counters, with only a few counters hit per execution.
+ *
+ * <p>{@link #fullScan} mirrors what libFuzzer does after every execution: It visits the entire
+ * registered region in 8-byte words, looks at the individual counters of non-zero words and clears
+ * the whole region afterwards. {@link #touchedBlocksScan} is a prototype of a coverage map that
+ * additionally maintains a bitmap of 64-byte blocks touched during the current execution and only
+ * visits and clears those.
+ *
+ * <p>The prototype is not used by Jazzer: libFuzzer itself collects the features and clears the
+ * counters, so the bitmap would have to be maintained and consulted by libFuzzer's TracePC. That
+ * change has to be made in Jazzer's libFuzzer fork, which is consumed as {@code jazzer_libfuzzer}.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class CoverageMapScanBenchmark {
+  private static final Unsafe UNSAFE;
+
+  static {
+    Unsafe unsafe;
+    try {
+      Field f = Unsafe.class.getDeclaredField("theUnsafe");
+      f.setAccessible(true);
+      unsafe = (Unsafe) f.get(null);
+    } catch (IllegalAccessException | NoSuchFieldException e) {
+      e.printStackTrace();
+      System.exit(1);
+      // Not reached.
+      unsafe = null;
+    }
+    UNSAFE = unsafe;
+  }
+
+  private static final int BLOCK_SHIFT = 6;
+
+  @Param({"4096", "65536", "1048576"}) int numCounters;
+
+  @Param({"300"}) int numTouchedCounters;
+
+  private long countersAddress;
+  private long[] touchedBlocks;
+  private int[] touchedIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    countersAddress = UNSAFE.allocateMemory(numCounters);
+    UNSAFE.setMemory(countersAddress, numCounters, (byte) 0);
+    touchedBlocks = new long[((numCounters >>> BLOCK_SHIFT) + 63) >>> 6];
+    // Edges hit by a single input tend to be clustered, so draw them from a small number of
+    // regions of the map.
+    SplittableRandom random = new SplittableRandom(1337);
+    touchedIds = new int[numTouchedCounters];
+    int regionStart = 0;
+    for (int i = 0; i < numTouchedCounters; i++) {
+      if (i % 20 == 0) {
+        regionStart = random.nextInt(Math.max(1, numCounters - 256));
+      }
+      touchedIds[i] = regionStart + random.nextInt(Math.min(256, numCounters));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    UNSAFE.freeMemory(countersAddress);
+  }
+
+  private void recordCoverage(int id) {
+    long address = countersAddress + id;
+    byte counter = UNSAFE.getByte(address);
+    UNSAFE.putByte(address, (byte) (counter == -1 ? 1 : counter + 1));
+  }
+
+  private void recordCoverageAndBlock(int id) {
+    recordCoverage(id);
+    int block = id >>> BLOCK_SHIFT;
+    touchedBlocks[block >>> 6] |= 1L << block;
+  }
+
+  @Benchmark
+  public long fullScan() {
+    for (int id : touchedIds) {
+      recordCoverage(id);
+    }
+    long features = 0;
+    for (long offset = 0; offset < numCounters; offset += Long.BYTES) {
+      long word = UNSAFE.getLong(countersAddress + offset);
+      if (word != 0) {
+        features += collectFeatures(word);
+      }
+    }
+    UNSAFE.setMemory(countersAddress, numCounters, (byte) 0);
+    return features;
+  }
+
+  @Benchmark
+  public long touchedBlocksScan() {
+    for (int id : touchedIds) {
+      recordCoverageAndBlock(id);
+    }
+    long features = 0;
+    for (int i = 0; i < touchedBlocks.length; i++) {
+      long bits = touchedBlocks[i];
+      if (bits == 0) {
+        continue;
+      }
+      touchedBlocks[i] = 0;
+      while (bits != 0) {
+        int block = (i << 6) | Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+        long blockAddress = countersAddress + ((long) block << BLOCK_SHIFT);
+        for (int offset = 0; offset < 1 << BLOCK_SHIFT; offset += Long.BYTES) {
+          long word = UNSAFE.getLong(blockAddress + offset);
+          if (word != 0) {
+            features += collectFeatures(word);
+            UNSAFE.putLong(blockAddress + offset, 0);
+          }
+        }
+      }
+    }
+    return features;
+  }
+
+  private static long collectFeatures(long word) {
+    long features = 0;
+    for (int i = 0; i < Long.BYTES; i++) {
+      int counter = (int) (word >>> (8 * i)) & 0xFF;
+      if (counter != 0) {
+        // libFuzzer maps every counter value to one of eight buckets.
+        features += 32 - Integer.numberOfLeadingZeros(counter);
+      }
+    }
+    return features;
+  }
+}
@@ -25,6 +25,12 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.openjdk.jmh.annotations.*;
 
+/**
+ * Measures the overhead of the edge coverage instrumentation with the real {@link CoverageMap} for
+ * all combinations of {@link CoverageCounterUpdate} and the static method and inline Unsafe
+ * strategies, which can be selected via {@code --coverage_counter_update} and
+ * {@code --coverage_inline_unsafe}. Run this on every JDK of interest to pick the fastest one.
+ */
 @Warmup(iterations = 10, time = 3)
 @Measurement(iterations = 10, time = 3)
 @Fork(value = 3)
@@ -33,6 +39,11 @@ import org.openjdk.jmh.annotations.*;
 @State(Scope.Benchmark)
 @SuppressWarnings("unused")
 public class EdgeCoverageInstrumentation {
+  @Param({"NEVER_ZERO", "NEVER_ZERO_BRANCHFREE", "SATURATING", "WRAPPING"})
+  CoverageCounterUpdate counterUpdate;
+
+  @Param({"false", "true"}) boolean inlineUnsafe;
+
   private MethodHandle exampleMethod;
 
   @Setup
@@ -47,7 +58,10 @@ public class EdgeCoverageInstrumentation {
     dumpBytecode(outDir, EdgeCoverageTarget.class.getName(), originalBytecode);
 
     byte[] patchedBytecode = applyInstrumentation(originalBytecode);
-    dumpBytecode(outDir, EdgeCoverageTarget.class.getName() + ".patched", patchedBytecode);
+    dumpBytecode(outDir,
+        EdgeCoverageTarget.class.getName() + "." + counterUpdate + (inlineUnsafe ? ".inline" : "")
+            + ".patched",
+        patchedBytecode);
 
     Class<?> patchedClass = bytecodeToClass(EdgeCoverageTarget.class.getName(), patchedBytecode);
     Object obj = lookup().findConstructor(patchedClass, methodType(void.class)).invoke();
@@ -55,7 +69,9 @@ public class EdgeCoverageInstrumentation {
   }
 
   private byte[] applyInstrumentation(byte[] bytecode) {
-    return new EdgeCoverageInstrumentor(new StaticMethodStrategy(), CoverageMap.class, 0)
+    EdgeCoverageStrategy strategy = inlineUnsafe ? new InlineUnsafeStrategy(counterUpdate)
+                                                 : new StaticMethodStrategy(counterUpdate);
+    return new EdgeCoverageInstrumentor(strategy, CoverageMap.class, 0)
         .instrument(EdgeCoverageTarget.class.getName().replace('.', '/'), bytecode);
   }
 
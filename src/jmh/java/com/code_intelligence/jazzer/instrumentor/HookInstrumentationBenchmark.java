@@ -0,0 +1,144 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.instrumentor;
+
+import com.code_intelligence.jazzer.sanitizers.Constants;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the hook instrumentation with all hooks Jazzer applies by default,
+ * i.e., the hooks for all trace types and all sanitizers, on all classes of a real-world jar found
+ * on the benchmark's classpath.
+ *
+ * <p>{@link #sharedHookIndex} reuses a single {@link HookIndex} for the entire corpus, as the agent
+ * does, whereas {@link #hookIndexPerClass} builds a new one for every class.
+ */
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+public class HookInstrumentationBenchmark {
+  private static final List<String> TRACE_HOOK_NAMES =
+      Arrays.asList("com.code_intelligence.jazzer.runtime.TraceCmpHooks",
+          "com.code_intelligence.jazzer.runtime.TraceDivHooks",
+          "com.code_intelligence.jazzer.runtime.TraceIndirHooks",
+          "com.code_intelligence.jazzer.runtime.NativeLibHooks");
+
+  @Param({"org.objectweb.asm.ClassReader", "kotlin.collections.CollectionsKt"})
+  String classInJar;
+
+  private final List<String> classNames = new ArrayList<>();
+  private final List<byte[]> classes = new ArrayList<>();
+  private List<Hook> hooks;
+  private HookIndex hookIndex;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    Set<String> hookClassNames = new HashSet<>(TRACE_HOOK_NAMES);
+    hookClassNames.addAll(Constants.SANITIZER_HOOK_NAMES);
+    hooks = Hooks.Companion.loadHooks(Collections.emptyList(), hookClassNames).get(0).getHooks();
+    hookIndex = new HookIndex(hooks);
+
+    File jar = new File(
+        Class.forName(classInJar).getProtectionDomain().getCodeSource().getLocation().toURI());
+    try (JarFile jarFile = new JarFile(jar)) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        JarEntry entry = entries.nextElement();
+        String name = entry.getName();
+        if (!name.endsWith(".class") || name.endsWith("module-info.class")
+            || name.startsWith("META-INF/")) {
+          continue;
+        }
+        String internalClassName = name.substring(0, name.length() - ".class".length());
+        byte[] bytecode;
+        try (InputStream in = jarFile.getInputStream(entry)) {
+          bytecode = readAllBytes(in);
+        }
+        // Only benchmark classes that can be instrumented.
+        try {
+          new ClassInstrumentor(internalClassName, bytecode).hooks(hookIndex, null);
+        } catch (RuntimeException e) {
+          continue;
+        }
+        classNames.add(internalClassName);
+        classes.add(bytecode);
+      }
+    }
+    System.out.printf(
+        "%nCorpus: %d classes from %s, %d hooks%n", classes.size(), jar, hooks.size());
+  }
+
+  @Benchmark
+  public int sharedHookIndex() {
+    int result = 0;
+    for (int i = 0; i < classes.size(); i++) {
+      ClassInstrumentor instrumentor = new ClassInstrumentor(classNames.get(i), classes.get(i));
+      instrumentor.hooks(hookIndex, null);
+      result += instrumentor.getInstrumentedBytecode().length;
+    }
+    return result;
+  }
+
+  @Benchmark
+  public int hookIndexPerClass() {
+    int result = 0;
+    for (int i = 0; i < classes.size(); i++) {
+      ClassInstrumentor instrumentor = new ClassInstrumentor(classNames.get(i), classes.get(i));
+      instrumentor.hooks(hooks, null);
+      result += instrumentor.getInstrumentedBytecode().length;
+    }
+    return result;
+  }
+
+  private static byte[] readAllBytes(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+}
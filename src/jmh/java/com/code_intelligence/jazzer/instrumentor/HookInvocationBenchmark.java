@@ -0,0 +1,119 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.instrumentor;
+
+import com.code_intelligence.jazzer.api.HookType;
+import com.code_intelligence.jazzer.api.MethodHook;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntBinaryOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead of a hooked call to {@link Integer#compare(int, int)} with a hook using
+ * the classic signature, which receives the arguments and the return value boxed into an {@code
+ * Object[]}, and with a hook using typed parameters.
+ *
+ * <p>Run with {@code -prof gc} to obtain the allocation rate per hooked call.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class HookInvocationBenchmark {
+  public static class Hooks {
+    public static int sink;
+
+    @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.Integer",
+        targetMethod = "compare", targetMethodDescriptor = "(II)I")
+    public static void
+    classicHook(MethodHandle method, Object alwaysNull, Object[] arguments, int hookId,
+        Object returnValue) {
+      sink += (Integer) arguments[0] ^ (Integer) arguments[1] ^ (Integer) returnValue ^ hookId;
+    }
+
+    @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.Integer",
+        targetMethod = "compare", targetMethodDescriptor = "(II)I")
+    public static void
+    typedHook(Object alwaysNull, int left, int right, int hookId, int returnValue) {
+      sink += left ^ right ^ returnValue ^ hookId;
+    }
+  }
+
+  private IntBinaryOperator unhooked;
+  private IntBinaryOperator classic;
+  private IntBinaryOperator typed;
+  // Non-final so that the calls can't be constant folded.
+  private int left = 1;
+  private int right = 2;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    unhooked = new HookInvocationTarget();
+    classic = instrumentTarget("classicHook");
+    typed = instrumentTarget("typedHook");
+  }
+
+  @Benchmark
+  public int noHook() {
+    return unhooked.applyAsInt(left, right);
+  }
+
+  @Benchmark
+  public int classicHook() {
+    return classic.applyAsInt(left, right);
+  }
+
+  @Benchmark
+  public int typedHook() {
+    return typed.applyAsInt(left, right);
+  }
+
+  private static IntBinaryOperator instrumentTarget(String hookMethodName) throws Exception {
+    Method hookMethod = null;
+    for (Method method : Hooks.class.getMethods()) {
+      if (method.getName().equals(hookMethodName)) {
+        hookMethod = method;
+      }
+    }
+    Hook hook = Hook.Companion.createAndVerifyHook(
+        hookMethod, hookMethod.getAnnotation(MethodHook.class), "java.lang.Integer");
+
+    String className = HookInvocationTarget.class.getName();
+    ClassInstrumentor instrumentor = new ClassInstrumentor(className.replace('.', '/'),
+        PatchTestUtils.classToBytecode(HookInvocationTarget.class));
+    instrumentor.hooks(Collections.singletonList(hook), null);
+    return (IntBinaryOperator) PatchTestUtils
+        .bytecodeToClass(className, instrumentor.getInstrumentedBytecode())
+        .getConstructor()
+        .newInstance();
+  }
+}
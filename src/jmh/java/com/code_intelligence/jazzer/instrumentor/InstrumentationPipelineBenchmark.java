@@ -0,0 +1,156 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.instrumentor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the full instrumentation applied to every class by the agent, once as
+ * three separate decode/encode cycles for coverage, data flow tracing and hooks and once as the
+ * single pass performed by {@link ClassInstrumentor#fullInstrumentation}.
+ *
+ * <p>The corpus consists of all classes of a real-world jar found on the benchmark's classpath.
+ * Besides the time per corpus, the {@code bytes} secondary result reports the amount of original
+ * bytecode instrumented per second.
+ */
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+public class InstrumentationPipelineBenchmark {
+  private static final Set<InstrumentationType> INSTRUMENTATIONS =
+      EnumSet.complementOf(EnumSet.of(InstrumentationType.COV));
+
+  @Param({"org.objectweb.asm.ClassReader", "kotlin.collections.CollectionsKt"})
+  String classInJar;
+
+  private final List<String> classNames = new ArrayList<>();
+  private final List<byte[]> classes = new ArrayList<>();
+  private final EdgeCoverageStrategy strategy = new StaticMethodStrategy();
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Bytes {
+    public long bytes;
+  }
+
+  @Setup(Level.Trial)
+  public void loadCorpus() throws Exception {
+    File jar = new File(
+        Class.forName(classInJar).getProtectionDomain().getCodeSource().getLocation().toURI());
+    long totalSize = 0;
+    try (JarFile jarFile = new JarFile(jar)) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        JarEntry entry = entries.nextElement();
+        String name = entry.getName();
+        if (!name.endsWith(".class") || name.endsWith("module-info.class")
+            || name.startsWith("META-INF/")) {
+          continue;
+        }
+        String internalClassName = name.substring(0, name.length() - ".class".length());
+        byte[] bytecode;
+        try (InputStream in = jarFile.getInputStream(entry)) {
+          bytecode = readAllBytes(in);
+        }
+        // Only benchmark classes that both pipelines can instrument.
+        try {
+          instrumentSeparately(internalClassName, bytecode);
+          instrumentInSinglePass(internalClassName, bytecode);
+        } catch (RuntimeException e) {
+          continue;
+        }
+        classNames.add(internalClassName);
+        classes.add(bytecode);
+        totalSize += bytecode.length;
+      }
+    }
+    System.out.printf("%nCorpus: %d classes (%d bytes) from %s%n", classes.size(), totalSize, jar);
+  }
+
+  @Benchmark
+  public int separatePasses(Bytes bytes) {
+    int result = 0;
+    for (int i = 0; i < classes.size(); i++) {
+      result += instrumentSeparately(classNames.get(i), classes.get(i)).length;
+      bytes.bytes += classes.get(i).length;
+    }
+    return result;
+  }
+
+  @Benchmark
+  public int singlePass(Bytes bytes) {
+    int result = 0;
+    for (int i = 0; i < classes.size(); i++) {
+      result += instrumentInSinglePass(classNames.get(i), classes.get(i)).length;
+      bytes.bytes += classes.get(i).length;
+    }
+    return result;
+  }
+
+  private byte[] instrumentSeparately(String internalClassName, byte[] bytecode) {
+    ClassInstrumentor instrumentor = new ClassInstrumentor(internalClassName, bytecode);
+    instrumentor.coverage(0, strategy);
+    instrumentor.traceDataFlow(INSTRUMENTATIONS);
+    instrumentor.hooks(Collections.emptyList(), null);
+    return instrumentor.getInstrumentedBytecode();
+  }
+
+  private byte[] instrumentInSinglePass(String internalClassName, byte[] bytecode) {
+    ClassInstrumentor instrumentor = new ClassInstrumentor(internalClassName, bytecode);
+    instrumentor.fullInstrumentation(
+        0, strategy, INSTRUMENTATIONS, Collections.emptyList(), null);
+    return instrumentor.getInstrumentedBytecode();
+  }
+
+  private static byte[] readAllBytes(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+}
@@ -22,3 +22,11 @@ JMH_TEST_ARGS = [
     "-r 1s",
     "-w 1s",
 ]
+
+# Benchmarks that use the Foreign Function & Memory API require JDK 22+ and have names ending in
+# "Foreign". They are excluded from the regular benchmark tests and instead run by separate test
+# targets tagged "manual", which have to be run with a JDK 22+, e.g.:
+#   JAVA_HOME=/path/to/jdk22 bazel test --java_runtime_version=local_jdk <target>
+JMH_EXCLUDE_FOREIGN_ARGS = ["-e Foreign"]
+
+JMH_FOREIGN_TEST_ARGS = JMH_TEST_ARGS + ["Foreign"]
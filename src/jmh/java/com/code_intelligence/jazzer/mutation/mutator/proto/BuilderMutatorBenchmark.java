@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator.proto;
+
+import com.code_intelligence.jazzer.mutation.annotation.NotNull;
+import com.code_intelligence.jazzer.mutation.api.ChainedMutatorFactory;
+import com.code_intelligence.jazzer.mutation.api.MutatorFactory;
+import com.code_intelligence.jazzer.mutation.api.SerializingInPlaceMutator;
+import com.code_intelligence.jazzer.mutation.engine.SeededPseudoRandom;
+import com.code_intelligence.jazzer.mutation.mutator.collection.CollectionMutators;
+import com.code_intelligence.jazzer.mutation.mutator.lang.LangMutators;
+import com.code_intelligence.jazzer.mutation.support.TypeHolder;
+import com.code_intelligence.jazzer.protobuf.Proto2.TestProtobuf;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of mutating and serializing a generated protobuf message with many
+ * fields, with fields accessed via their generated accessors or via the reflection API of {@link
+ * com.google.protobuf.Message.Builder}.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+public class BuilderMutatorBenchmark {
+  @Param({"false", "true"}) boolean useGeneratedAccessors;
+
+  private SerializingInPlaceMutator<TestProtobuf.Builder> mutator;
+  private TestProtobuf.Builder builder;
+  private SeededPseudoRandom prng;
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    MutatorFactory factory = new ChainedMutatorFactory(LangMutators.newFactory(),
+        CollectionMutators.newFactory(), new ByteStringMutatorFactory(),
+        new MessageMutatorFactory(), new BuilderMutatorFactory(useGeneratedAccessors));
+    mutator = (SerializingInPlaceMutator<TestProtobuf.Builder>) factory.createInPlaceOrThrow(
+        new TypeHolder<TestProtobuf.@NotNull Builder>() {}.annotatedType());
+    prng = new SeededPseudoRandom(1337);
+    builder = TestProtobuf.newBuilder();
+    mutator.initInPlace(builder, prng);
+  }
+
+  @Benchmark
+  public int mutateAndSerialize() throws IOException {
+    mutator.mutateInPlace(builder, prng);
+    out.reset();
+    mutator.writeExclusive(builder, out);
+    return out.size();
+  }
+}
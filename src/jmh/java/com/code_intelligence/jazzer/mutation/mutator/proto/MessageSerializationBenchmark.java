@@ -0,0 +1,126 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator.proto;
+
+import static com.code_intelligence.jazzer.mutation.combinator.MutatorCombinators.mutateThenMapToImmutable;
+
+import com.code_intelligence.jazzer.mutation.annotation.NotNull;
+import com.code_intelligence.jazzer.mutation.api.ChainedMutatorFactory;
+import com.code_intelligence.jazzer.mutation.api.MutatorFactory;
+import com.code_intelligence.jazzer.mutation.api.SerializingMutator;
+import com.code_intelligence.jazzer.mutation.mutator.collection.CollectionMutators;
+import com.code_intelligence.jazzer.mutation.mutator.lang.LangMutators;
+import com.code_intelligence.jazzer.mutation.support.TypeHolder;
+import com.code_intelligence.jazzer.protobuf.Proto2.TestProtobuf;
+import com.code_intelligence.jazzer.protobuf.Proto2.TestSubProtobuf;
+import com.google.protobuf.Message;
+import com.google.protobuf.Message.Builder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of reading and writing nested messages with the mutator created for a
+ * {@link Message} parameter, compared to a mutator that maps the builder mutator to messages via
+ * {@link Message#toBuilder()} and {@link Builder#build()}.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+public class MessageSerializationBenchmark {
+  @Param({"1", "4"}) int depth;
+
+  @Param({"4"}) int width;
+
+  private SerializingMutator<TestProtobuf> messageMutator;
+  private SerializingMutator<TestProtobuf> mappedBuilderMutator;
+  private TestProtobuf message;
+  private byte[] serialized;
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    MutatorFactory factory = new ChainedMutatorFactory(LangMutators.newFactory(),
+        CollectionMutators.newFactory(), ProtoMutators.newFactory());
+    messageMutator = (SerializingMutator<TestProtobuf>) factory.createOrThrow(
+        new TypeHolder<@NotNull TestProtobuf>() {}.annotatedType());
+    SerializingMutator<Builder> builderMutator =
+        (SerializingMutator<Builder>) factory.createOrThrow(
+            new TypeHolder<TestProtobuf.@NotNull Builder>() {}.annotatedType());
+    mappedBuilderMutator = mutateThenMapToImmutable(
+        builderMutator, builder -> (TestProtobuf) builder.build(), TestProtobuf::toBuilder);
+    message = nestedMessage(depth);
+    serialized = message.toByteArray();
+  }
+
+  private TestProtobuf nestedMessage(int depth) {
+    TestProtobuf.Builder builder = TestProtobuf.newBuilder()
+                                       .setI32(depth)
+                                       .setI64(Long.MAX_VALUE - depth)
+                                       .setStr("depth " + depth)
+                                       .setD(Math.PI);
+    for (int i = 0; i < width; i++) {
+      builder.addRepI32(i).addRepStr("element " + i);
+      TestSubProtobuf.Builder subproto = TestSubProtobuf.newBuilder().setSubprotoI32(i);
+      if (depth > 1) {
+        subproto.setParent(nestedMessage(depth - 1));
+      }
+      builder.addRepSubproto(subproto);
+    }
+    return builder.build();
+  }
+
+  @Benchmark
+  public int writeMessage() throws IOException {
+    out.reset();
+    messageMutator.writeExclusive(message, out);
+    return out.size();
+  }
+
+  @Benchmark
+  public int writeMappedBuilder() throws IOException {
+    out.reset();
+    mappedBuilderMutator.writeExclusive(message, out);
+    return out.size();
+  }
+
+  @Benchmark
+  public TestProtobuf readMessage() throws IOException {
+    return messageMutator.readExclusive(new ByteArrayInputStream(serialized));
+  }
+
+  @Benchmark
+  public TestProtobuf readMappedBuilder() throws IOException {
+    return mappedBuilderMutator.readExclusive(new ByteArrayInputStream(serialized));
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator.proto;
+
+import com.code_intelligence.jazzer.mutation.annotation.NotNull;
+import com.code_intelligence.jazzer.mutation.api.SerializingMutator;
+import com.code_intelligence.jazzer.mutation.engine.SeededPseudoRandom;
+import com.code_intelligence.jazzer.mutation.engine.SeededPseudoRandom.Generator;
+import com.code_intelligence.jazzer.mutation.mutator.Mutators;
+import com.code_intelligence.jazzer.mutation.support.TypeHolder;
+import com.code_intelligence.jazzer.protobuf.Proto2.TestProtobuf;
+import java.lang.reflect.AnnotatedType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the number of mutations per second for representative fuzz test parameter types with
+ * the different {@link Generator}s of {@link SeededPseudoRandom}.
+ *
+ * <p>Every mutation uses a new seed, as fuzz tests do. With {@code reseed} set to false, a new
+ * {@link SeededPseudoRandom} is allocated for every mutation instead of reseeding a single one.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+public class MutationThroughputBenchmark {
+  @Param({"int", "String", "List<Integer>", "byte[]", "TestProtobuf"}) String type;
+  @Param({"SPLITMIX64", "XOSHIRO256_STAR_STAR"}) Generator generator;
+  @Param({"true", "false"}) boolean reseed;
+
+  private SerializingMutator<Object> mutator;
+  private Object value;
+  private SeededPseudoRandom prng;
+  private long seed;
+
+  @Setup(Level.Trial)
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    mutator = (SerializingMutator<Object>) Mutators.newFactory().createOrThrow(annotatedType());
+    prng = new SeededPseudoRandom(1337, generator);
+    value = mutator.init(prng);
+  }
+
+  private AnnotatedType annotatedType() {
+    switch (type) {
+      case "int":
+        return new TypeHolder<@NotNull Integer>() {}.annotatedType();
+      case "String":
+        return new TypeHolder<@NotNull String>() {}.annotatedType();
+      case "List<Integer>":
+        return new TypeHolder<@NotNull List<@NotNull Integer>>() {}.annotatedType();
+      case "byte[]":
+        return new TypeHolder<byte @NotNull[]>() {}.annotatedType();
+      case "TestProtobuf":
+        return new TypeHolder<TestProtobuf.@NotNull Builder>() {}.annotatedType();
+      default:
+        throw new IllegalArgumentException("Unsupported type: " + type);
+    }
+  }
+
+  @Benchmark
+  public Object mutate() {
+    if (reseed) {
+      prng.reseed(seed++);
+    } else {
+      prng = new SeededPseudoRandom(seed++, generator);
+    }
+    value = mutator.mutate(value, prng);
+    return value;
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator.proto;
+
+import com.code_intelligence.jazzer.mutation.annotation.NotNull;
+import com.code_intelligence.jazzer.mutation.api.CachingMutatorFactory;
+import com.code_intelligence.jazzer.mutation.api.MutatorFactory;
+import com.code_intelligence.jazzer.mutation.api.SerializingMutator;
+import com.code_intelligence.jazzer.mutation.mutator.Mutators;
+import com.code_intelligence.jazzer.mutation.support.TypeHolder;
+import com.code_intelligence.jazzer.protobuf.Proto2.RepeatedRecursiveMessageField2;
+import com.code_intelligence.jazzer.protobuf.Proto2.TestProtobuf;
+import java.lang.reflect.AnnotatedType;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time it takes to construct the mutator for a protobuf message with many fields and
+ * for a recursive message, as is done for every fuzz test parameter, with and without a {@link
+ * CachingMutatorFactory} shared between constructions.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class MutatorConstructionBenchmark {
+  private static final AnnotatedType LARGE_MESSAGE =
+      new TypeHolder<TestProtobuf.@NotNull Builder>() {}.annotatedType();
+  private static final AnnotatedType RECURSIVE_MESSAGE =
+      new TypeHolder<RepeatedRecursiveMessageField2.@NotNull Builder>() {}.annotatedType();
+
+  @Param({"false", "true"}) boolean cached;
+
+  private MutatorFactory cachingFactory;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    cachingFactory = new CachingMutatorFactory(Mutators.newFactory());
+  }
+
+  private MutatorFactory factory() {
+    return cached ? cachingFactory : Mutators.newFactory();
+  }
+
+  @Benchmark
+  public SerializingMutator<?> largeMessage() {
+    return factory().createOrThrow(LARGE_MESSAGE);
+  }
+
+  @Benchmark
+  public SerializingMutator<?> recursiveMessage() {
+    return factory().createOrThrow(RECURSIVE_MESSAGE);
+  }
+}
@@ -60,14 +60,11 @@ public class FuzzerCallbacksBenchmark {
     FuzzerCallbacksOptimizedCritical.traceCmpInt(state.arg1, state.arg2, state.pc);
   }
 
-  // Uncomment to benchmark Project Panama-backed implementation (requires JDK 16+).
-  //  @Benchmark
-  //  @Fork(jvmArgsAppend = {"--enable-native-access=ALL-UNNAMED", "--add-modules",
-  //            "jdk.incubator.foreign"})
-  //  public void
-  //  traceCmpIntPanama(TraceCmpIntState state) throws Throwable {
-  //    FuzzerCallbacksPanama.traceCmpInt(state.arg1, state.arg2, state.pc);
-  //  }
+  @Benchmark
+  @Fork(jvmArgsAppend = {"--enable-native-access=ALL-UNNAMED"})
+  public void traceCmpIntForeign(TraceCmpIntState state) throws Throwable {
+    FuzzerCallbacksPanama.traceCmpInt(state.arg1, state.arg2, state.pc);
+  }
 
   @State(Scope.Benchmark)
   public static class TraceSwitchState {
@@ -117,14 +114,11 @@ public class FuzzerCallbacksBenchmark {
     FuzzerCallbacksOptimizedNonCritical.traceSwitch(state.val, state.cases, state.pc);
   }
 
-  // Uncomment to benchmark Project Panama-backed implementation (requires JDK 16+).
-  //  @Benchmark
-  //  @Fork(jvmArgsAppend = {"--enable-native-access=ALL-UNNAMED", "--add-modules",
-  //            "jdk.incubator.foreign"})
-  //  public void
-  //  traceCmpSwitchPanama(TraceSwitchState state) throws Throwable {
-  //    FuzzerCallbacksPanama.traceCmpSwitch(state.val, state.cases, state.pc);
-  //  }
+  @Benchmark
+  @Fork(jvmArgsAppend = {"--enable-native-access=ALL-UNNAMED"})
+  public void traceCmpSwitchForeign(TraceSwitchState state) throws Throwable {
+    FuzzerCallbacksPanama.traceCmpSwitch(state.val, state.cases, state.pc);
+  }
 
   @State(Scope.Benchmark)
   public static class TraceMemcmpState {
@@ -164,6 +158,12 @@ public class FuzzerCallbacksBenchmark {
     FuzzerCallbacksOptimizedNonCritical.traceMemcmp(state.array1, state.array2, 1, state.pc);
   }
 
+  @Benchmark
+  @Fork(jvmArgsAppend = {"--enable-native-access=ALL-UNNAMED"})
+  public void traceMemcmpForeign(TraceMemcmpState state) throws Throwable {
+    FuzzerCallbacksPanama.traceMemcmp(state.array1, state.array2, 1, state.pc);
+  }
+
   @State(Scope.Benchmark)
   public static class TraceStrstrState {
     @Param({"10", "100", "1000"}) int length;
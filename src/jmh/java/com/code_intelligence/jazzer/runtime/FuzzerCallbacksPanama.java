@@ -14,46 +14,64 @@
 
 package com.code_intelligence.jazzer.runtime;
 
+import com.code_intelligence.jazzer.utils.ForeignDowncalls;
 import com.github.fmeum.rules_jni.RulesJni;
 import java.lang.invoke.MethodHandle;
-import java.lang.invoke.MethodType;
-import jdk.incubator.foreign.CLinker;
-import jdk.incubator.foreign.FunctionDescriptor;
-import jdk.incubator.foreign.MemoryAddress;
-import jdk.incubator.foreign.MemoryLayout;
-import jdk.incubator.foreign.MemorySegment;
-import jdk.incubator.foreign.ResourceScope;
-import jdk.incubator.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandles;
 
 /**
- * Pure-Java implementation of the fuzzer callbacks backed by Project Panama (requires JDK 16+).
- * To include the implementation in the benchmark on a supported JDK, uncomment the relevant lines
- * in BUILD.bazel.
+ * Pure-Java implementation of the fuzzer callbacks backed by critical downcalls of the Foreign
+ * Function & Memory API, which requires JDK 22+ and native access to be enabled.
  */
 public class FuzzerCallbacksPanama {
   static {
     RulesJni.loadLibrary("fuzzer_callbacks", FuzzerCallbacks.class);
   }
 
-  private static final MethodHandle traceCmp4 = CLinker.getInstance().downcallHandle(
-      SymbolLookup.loaderLookup().lookup("__sanitizer_cov_trace_cmp4").get(),
-      MethodType.methodType(void.class, int.class, int.class),
-      FunctionDescriptor.ofVoid(CLinker.C_INT, CLinker.C_INT));
-  private static final MethodHandle traceSwitch = CLinker.getInstance().downcallHandle(
-      SymbolLookup.loaderLookup().lookup("__sanitizer_cov_trace_switch").get(),
-      MethodType.methodType(void.class, long.class, MemoryAddress.class),
-      FunctionDescriptor.ofVoid(CLinker.C_LONG, CLinker.C_POINTER));
+  private static final ForeignDowncalls DOWNCALLS =
+      ForeignDowncalls.forCaller(FuzzerCallbacksPanama.class);
+  private static final long[] ADDRESSES = getCallbackAddresses();
+
+  private static final MethodHandle traceCmp4 = bind(0, false, "JAVA_INT", "JAVA_INT");
+  // Critical downcalls with heap access can read arrays without copying or pinning them.
+  private static final MethodHandle traceSwitch = MethodHandles.filterArguments(
+      bind(1, true, "JAVA_LONG", "ADDRESS"), 1, ofArray(long[].class));
+  private static final MethodHandle compareBytes = MethodHandles.filterArguments(
+      bind(2, true, "JAVA_LONG", "ADDRESS", "ADDRESS", "JAVA_LONG", "JAVA_LONG", "JAVA_INT"), 1,
+      ofArray(byte[].class), ofArray(byte[].class));
 
   static void traceCmpInt(int arg1, int arg2, int pc) throws Throwable {
     traceCmp4.invokeExact(arg1, arg2);
   }
 
   static void traceCmpSwitch(long val, long[] cases, int pc) throws Throwable {
-    try (ResourceScope scope = ResourceScope.newConfinedScope()) {
-      MemorySegment nativeCopy = MemorySegment.allocateNative(
-          MemoryLayout.sequenceLayout(cases.length, CLinker.C_LONG), scope);
-      nativeCopy.copyFrom(MemorySegment.ofArray(cases));
-      traceSwitch.invokeExact(val, nativeCopy.address());
+    traceSwitch.invokeExact(val, cases);
+  }
+
+  static void traceMemcmp(byte[] b1, byte[] b2, int result, int pc) throws Throwable {
+    compareBytes.invokeExact((long) pc, b1, b2, (long) b1.length, (long) b2.length, result);
+  }
+
+  private static MethodHandle bind(int index, boolean allowHeapAccess, String... argLayoutNames) {
+    if (DOWNCALLS == null) {
+      throw new IllegalStateException("Requires JDK 22+ and --enable-native-access=ALL-UNNAMED");
+    }
+    try {
+      return DOWNCALLS.bind(ADDRESSES[index], allowHeapAccess, null, argLayoutNames);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
     }
   }
+
+  private static MethodHandle ofArray(Class<?> arrayClass) {
+    try {
+      return DOWNCALLS.ofArray(arrayClass);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // Returns the addresses of __sanitizer_cov_trace_cmp4, __sanitizer_cov_trace_switch and
+  // __sanitizer_weak_hook_compare_bytes, in this order.
+  private static native long[] getCallbackAddresses();
 }
@@ -0,0 +1,103 @@
+// Copyright 2023 Code Intelligence GmbH
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.code_intelligence.jazzer.runtime;
+
+package com.code_intelligence.jazzer.runtime;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cost of passing the comparisons of a single fuzz target execution to libFuzzer one
+ * call at a time, via JNI or Foreign Function & Memory API downcalls, with the buffered mode of
+ * {@link TraceDataFlowNativeCallbacks} enabled via {@code --trace_buffering}.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class TraceDataFlowBufferingBenchmark {
+  @State(Scope.Thread)
+  public static class ExecutionState {
+    @Param({"10", "100", "1000"}) int numComparisons;
+
+    int[] args1;
+    int[] args2;
+    int[] pcs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      SplittableRandom random = new SplittableRandom(1337);
+      args1 = random.ints(numComparisons).toArray();
+      args2 = random.ints(numComparisons).toArray();
+      pcs = random.ints(numComparisons, 0, 1 << 16).toArray();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class BufferingState {
+    @Setup(Level.Trial)
+    public void setUp() {
+      // Buffers the callbacks invoked on the benchmark thread.
+      TraceDataFlowNativeCallbacks.enableBuffering();
+    }
+  }
+
+  @Benchmark
+  public void direct(ExecutionState state) {
+    for (int i = 0; i < state.numComparisons; i++) {
+      TraceDataFlowNativeCallbacks.traceCmpInt(state.args1[i], state.args2[i], state.pcs[i]);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ForeignState {
+    @Setup(Level.Trial)
+    public void setUp() {
+      if (!TraceDataFlowForeignCallbacks.isAvailable()) {
+        throw new IllegalStateException("Requires JDK 22+ and native access to be enabled");
+      }
+    }
+  }
+
+  // Uses the Foreign Function & Memory API downcalls instead of JNI.
+  @Benchmark
+  @Fork(jvmArgsAppend = {"--enable-native-access=ALL-UNNAMED"})
+  public void directForeign(ExecutionState state, ForeignState unused) {
+    direct(state);
+  }
+
+  @Benchmark
+  public void buffered(ExecutionState state, BufferingState unused) {
+    for (int i = 0; i < state.numComparisons; i++) {
+      TraceDataFlowNativeCallbacks.traceCmpInt(state.args1[i], state.args2[i], state.pcs[i]);
+    }
+    // Happens at the end of every execution.
+    TraceDataFlowNativeCallbacks.flushBuffer();
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the callback invoked by the hook for a failed {@link String#equals}
+ * call, comparing the previous encoding via {@link String#substring} and {@link
+ * String#getBytes(Charset)} with the allocation-free encoding into per-thread scratch buffers used
+ * by {@link TraceDataFlowNativeCallbacks#traceStrcmp}.
+ *
+ * <p>Run with {@code -prof gc} to verify that {@link #scratchBuffers} does not allocate.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Thread)
+public class TraceStrcmpBenchmark {
+  private static final Charset CESU8 = Charset.forName("CESU8");
+
+  @Param({"ascii", "nonAscii"}) String charset;
+
+  @Param({"16", "256"}) int length;
+
+  private String s1;
+  private String s2;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    StringBuilder sb = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      sb.append(charset.equals("ascii") ? (char) ('a' + i % 26) : (char) ('\u00e0' + i % 26));
+    }
+    s1 = sb.toString();
+    // Let the strings differ in their last char so that a real String#equals would fail late.
+    sb.setCharAt(length - 1, 'Z');
+    s2 = sb.toString();
+  }
+
+  @Benchmark
+  public void substringAndGetBytes() {
+    TraceDataFlowNativeCallbacks.traceMemcmp(encode(s1), encode(s2), 1, 1234);
+  }
+
+  @Benchmark
+  public void scratchBuffers() {
+    TraceDataFlowNativeCallbacks.traceStrcmp(s1, s2, 1, 1234);
+  }
+
+  private static byte[] encode(String str) {
+    return str.substring(0, Math.min(str.length(), 64)).getBytes(CESU8);
+  }
+}
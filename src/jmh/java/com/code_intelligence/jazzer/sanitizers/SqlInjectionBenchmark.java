@@ -0,0 +1,108 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.sanitizers;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of executing queries against an in-memory H2 database through the {@link
+ * SqlInjection} hook on {@link Statement#execute(String)}, with and without caching the validity of
+ * queries.
+ *
+ * <p>{@code repeatedQueries} executes the same few queries over and over again, as DAO-heavy fuzz
+ * targets do. {@code distinctQueries} executes a new query every time, which is the worst case for
+ * the cache.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class SqlInjectionBenchmark {
+  private static final String[] QUERIES = {
+      "SELECT id, name FROM pet WHERE id = 1",
+      "SELECT COUNT(*) FROM pet",
+      "UPDATE pet SET name = 'Oscar' WHERE id = 1",
+      "SELECT p.id, p.name FROM pet p WHERE p.name LIKE 'O%' ORDER BY p.id LIMIT 10",
+  };
+
+  @Param({"true", "false"}) boolean cacheQueryValidity;
+
+  private Connection connection;
+  private Statement statement;
+  private MethodHandle execute;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    SqlInjection.cacheQueryValidity = cacheQueryValidity;
+    JdbcDataSource dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+    connection = dataSource.getConnection();
+    statement = connection.createStatement();
+    statement.execute("CREATE TABLE IF NOT EXISTS pet (id IDENTITY PRIMARY KEY, name VARCHAR(50))");
+    statement.execute("INSERT INTO pet (name) VALUES ('Oscar')");
+    execute = MethodHandles.publicLookup().findVirtual(
+        Statement.class, "execute", MethodType.methodType(boolean.class, String.class));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    statement.close();
+    connection.close();
+  }
+
+  @Benchmark
+  public Object repeatedQueries() throws Throwable {
+    next = (next + 1) % QUERIES.length;
+    return SqlInjection.checkSqlExecute(execute, statement, new Object[] {QUERIES[next]}, 1234);
+  }
+
+  @Benchmark
+  public Object distinctQueries() throws Throwable {
+    next++;
+    return SqlInjection.checkSqlExecute(
+        execute, statement, new Object[] {"SELECT name FROM pet WHERE id = " + next}, 1234);
+  }
+
+  @Benchmark
+  public boolean unhooked() throws SQLException {
+    next = (next + 1) % QUERIES.length;
+    return statement.execute(QUERIES[next]);
+  }
+}
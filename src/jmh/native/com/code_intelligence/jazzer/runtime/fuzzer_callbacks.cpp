@@ -20,6 +20,7 @@
 #include "com_code_intelligence_jazzer_runtime_FuzzerCallbacks.h"
 #include "com_code_intelligence_jazzer_runtime_FuzzerCallbacksOptimizedCritical.h"
 #include "com_code_intelligence_jazzer_runtime_FuzzerCallbacksOptimizedNonCritical.h"
+#include "com_code_intelligence_jazzer_runtime_FuzzerCallbacksPanama.h"
 #include "com_code_intelligence_jazzer_runtime_FuzzerCallbacksWithPc.h"
 #include "src/main/native/com/code_intelligence/jazzer/driver/sanitizer_hooks_with_pc.h"
 
@@ -211,3 +212,18 @@ JavaCritical_com_code_1intelligence_jazzer_runtime_FuzzerCallbacksOptimizedCriti
   __sanitizer_weak_hook_memmem(idToPc(id), nullptr, 0, needle, needle_length,
                                nullptr);
 }
+
+jlongArray
+Java_com_code_1intelligence_jazzer_runtime_FuzzerCallbacksPanama_getCallbackAddresses(
+    JNIEnv *env, jclass cls) {
+  const jlong addresses[] = {
+      reinterpret_cast<jlong>(&__sanitizer_cov_trace_cmp4),
+      reinterpret_cast<jlong>(&__sanitizer_cov_trace_switch),
+      reinterpret_cast<jlong>(&__sanitizer_weak_hook_compare_bytes),
+  };
+  constexpr jsize num_addresses = sizeof(addresses) / sizeof(addresses[0]);
+  jlongArray result = env->NewLongArray(num_addresses);
+  if (result == nullptr) return nullptr;
+  env->SetLongArrayRegion(result, 0, num_addresses, addresses);
+  return result;
+}
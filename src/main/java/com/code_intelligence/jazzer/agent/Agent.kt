@@ -17,15 +17,19 @@
 package com.code_intelligence.jazzer.agent
 
 import com.code_intelligence.jazzer.driver.Opt
+import com.code_intelligence.jazzer.instrumentor.CoverageCounterUpdate
 import com.code_intelligence.jazzer.instrumentor.CoverageRecorder
 import com.code_intelligence.jazzer.instrumentor.Hooks
+import com.code_intelligence.jazzer.instrumentor.InlineUnsafeStrategy
 import com.code_intelligence.jazzer.instrumentor.InstrumentationType
+import com.code_intelligence.jazzer.instrumentor.StaticMethodStrategy
 import com.code_intelligence.jazzer.sanitizers.Constants
 import com.code_intelligence.jazzer.utils.ClassNameGlobber
 import com.code_intelligence.jazzer.utils.Log
 import com.code_intelligence.jazzer.utils.ManifestUtils
 import java.lang.instrument.Instrumentation
 import java.nio.file.Paths
+import kotlin.io.path.createDirectories
 import kotlin.io.path.exists
 import kotlin.io.path.isDirectory
 
@@ -47,6 +51,10 @@ fun installInternal(
     idSyncFile: String = Opt.idSyncFile.get(),
     dumpClassesDir: String = Opt.dumpClassesDir.get(),
     additionalClassesExcludes: List<String> = Opt.additionalClassesExcludes.get(),
+    coverageCounterUpdate: String = Opt.coverageCounterUpdate.get(),
+    coverageInlineUnsafe: Boolean = Opt.coverageInlineUnsafe.get(),
+    instrumentationCacheDir: String = Opt.instrumentationCacheDir.get(),
+    eagerInstrumentation: Boolean = Opt.eagerInstrumentation.get(),
 ) {
     val allCustomHookNames = (Constants.SANITIZER_HOOK_NAMES + userHookNames).toSet()
     check(allCustomHookNames.isNotEmpty()) { "No hooks registered; expected at least the built-in hooks" }
@@ -110,6 +118,12 @@ fun installInternal(
     } else {
         MemSyncCoverageIdStrategy()
     }
+    val counterUpdate = CoverageCounterUpdate.fromOptionValue(coverageCounterUpdate)
+    val edgeCoverageStrategy = if (coverageInlineUnsafe) {
+        InlineUnsafeStrategy(counterUpdate)
+    } else {
+        StaticMethodStrategy(counterUpdate)
+    }
 
     // If we don't append the JARs containing the custom hooks to the bootstrap class loader,
     // third-party hooks not contained in the agent JAR will not be able to instrument Java standard
@@ -119,6 +133,29 @@ fun installInternal(
     Hooks.appendHooksToBootstrapClassLoaderSearch(instrumentation, customHookNames.toSet())
     val (includedHooks, customHooks) = Hooks.loadHooks(additionalClassesExcludes, includedHookNames.toSet(), customHookNames.toSet())
 
+    val instrumentationCache = instrumentationCacheDir.takeUnless { it.isEmpty() }?.let {
+        val jazzerFingerprint = InstrumentationCache.jazzerFingerprint()
+        if (jazzerFingerprint == null) {
+            Log.warn("Not caching instrumented classes as Jazzer hasn't been loaded from a jar file")
+            return@let null
+        }
+        val path = Paths.get(it).toAbsolutePath().createDirectories()
+        Log.info("Caching instrumented classes in $path")
+        // Everything that influences the instrumented bytecode of a class, other than its original bytecode and its
+        // coverage IDs.
+        val configFingerprint = listOf(
+            jazzerFingerprint,
+            instrumentationTypes.sorted().joinToString(","),
+            (includedHooks.hooks + customHooks.hooks).joinToString(";") {
+                "$it ${it.targetMethodDescriptor} ${it.hookMethodDescriptor}"
+            },
+            conditionalHooks.toString(),
+            counterUpdate.name,
+            coverageInlineUnsafe.toString(),
+        ).joinToString("\n")
+        InstrumentationCache(path, configFingerprint)
+    }
+
     val runtimeInstrumentor = RuntimeInstrumentor(
         instrumentation,
         classNameGlobber,
@@ -130,8 +167,13 @@ fun installInternal(
         conditionalHooks,
         customHooks.additionalHookClassNameGlobber,
         coverageIdSynchronizer,
+        edgeCoverageStrategy,
+        instrumentationCache,
         dumpClassesDirPath,
     )
+    if (eagerInstrumentation) {
+        runtimeInstrumentor.instrumentEagerly()
+    }
 
     // These classes are e.g. dependencies of the RuntimeInstrumentor or hooks and thus were loaded
     // before the instrumentor was ready. Since we haven't enabled it yet, they can safely be
@@ -0,0 +1,148 @@
+// Copyright 2023 Code Intelligence GmbH
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.code_intelligence.jazzer.agent
+
+import com.code_intelligence.jazzer.utils.Log
+import java.io.File
+import java.io.IOException
+import java.net.URISyntaxException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.security.MessageDigest
+
+/**
+ * An on-disk cache of instrumented bytecode that can be shared by concurrent Jazzer processes.
+ *
+ * Every entry lives in its own file in [cacheDir], named after a SHA-256 hash of the original bytecode of a class, the
+ * kind of instrumentation applied to it and [configFingerprint], which has to capture every setting that influences
+ * instrumentation (instrumentation types, hooks, coverage strategy, Jazzer version), as well as the first coverage ID
+ * assigned to the class. Since the edge IDs are baked into the instrumented bytecode, an entry is only reused if the
+ * [CoverageIdStrategy] assigns the class the same ID range again, which is the case for restarts of the same fuzz
+ * target and for all processes sharing an ID sync file.
+ *
+ * Entries are written to a temporary file that is then atomically moved into place, so readers never observe
+ * partially written entries and concurrent writers of the same entry simply race to store identical content.
+ */
+class InstrumentationCache(private val cacheDir: Path, private val configFingerprint: String) {
+
+    class Entry(val numEdgeIds: Int, val bytecode: ByteArray)
+
+    @Volatile
+    private var reportedWriteFailure = false
+
+    /**
+     * Returns a key for the result of instrumenting [originalBytecode], which can then be looked up or stored together
+     * with the first coverage ID assigned to the class.
+     */
+    fun keyFor(internalClassName: String, originalBytecode: ByteArray, fullInstrumentation: Boolean): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+        digest.update(configFingerprint.toByteArray())
+        digest.update(0.toByte())
+        digest.update(internalClassName.toByteArray())
+        digest.update((if (fullInstrumentation) 1 else 0).toByte())
+        digest.update(originalBytecode)
+        return digest.digest().joinToString("") { "%02x".format(it) }
+    }
+
+    /**
+     * Returns the cached result for [key], instrumented with edge IDs starting at [firstEdgeId], or `null` if no valid
+     * entry exists.
+     */
+    fun load(key: String, firstEdgeId: Int): Entry? {
+        val entryFile = entryFile(key, firstEdgeId)
+        val content = try {
+            Files.readAllBytes(entryFile)
+        } catch (e: NoSuchFileException) {
+            return null
+        } catch (e: IOException) {
+            Log.warn("Failed to read instrumentation cache entry $entryFile", e)
+            return null
+        }
+        if (content.size < HEADER_SIZE) {
+            return null
+        }
+        val buffer = ByteBuffer.wrap(content)
+        if (buffer.int != MAGIC) {
+            return null
+        }
+        val numEdgeIds = buffer.int
+        val bytecodeLength = buffer.int
+        if (numEdgeIds < 0 || bytecodeLength != buffer.remaining()) {
+            return null
+        }
+        return Entry(numEdgeIds, content.copyOfRange(HEADER_SIZE, content.size))
+    }
+
+    fun store(key: String, firstEdgeId: Int, entry: Entry) {
+        val entryFile = entryFile(key, firstEdgeId)
+        var tempFile: Path? = null
+        try {
+            tempFile = Files.createTempFile(cacheDir, entryFile.fileName.toString(), ".tmp")
+            FileChannel.open(tempFile, StandardOpenOption.WRITE).use { channel ->
+                val header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(entry.numEdgeIds)
+                    .putInt(entry.bytecode.size)
+                header.flip()
+                val content = ByteBuffer.wrap(entry.bytecode)
+                while (header.hasRemaining() || content.hasRemaining()) {
+                    channel.write(arrayOf(header, content))
+                }
+            }
+            Files.move(tempFile, entryFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING)
+        } catch (e: IOException) {
+            tempFile?.let { runCatching { Files.deleteIfExists(it) } }
+            // Failing to populate the cache only affects performance, so only warn about it once.
+            if (!reportedWriteFailure) {
+                reportedWriteFailure = true
+                Log.warn("Failed to write instrumentation cache entry $entryFile", e)
+            }
+        }
+    }
+
+    private fun entryFile(key: String, firstEdgeId: Int) = cacheDir.resolve("$key-$firstEdgeId$ENTRY_SUFFIX")
+
+    companion object {
+        private const val MAGIC = 0x4a5a4943 // "JZIC"
+        private const val HEADER_SIZE = 3 * Int.SIZE_BYTES
+        private const val ENTRY_SUFFIX = ".jzic"
+
+        /**
+         * Returns a string that changes whenever the Jazzer classes performing the instrumentation change, based on
+         * the location, size and modification time of the containing jar, or `null` if they haven't been loaded from a
+         * jar file (e.g. from a nested jar or a directory), in which case changes can't be detected.
+         */
+        fun jazzerFingerprint(): String? {
+            val location = InstrumentationCache::class.java.protectionDomain?.codeSource?.location ?: return null
+            val file = try {
+                File(location.toURI())
+            } catch (e: URISyntaxException) {
+                return null
+            } catch (e: IllegalArgumentException) {
+                // Thrown for URIs that don't refer to a file, e.g. with the jar: or jrt: scheme.
+                return null
+            }
+            if (!file.isFile) {
+                return null
+            }
+            return "${file.absolutePath}:${file.length()}:${file.lastModified()}"
+        }
+    }
+}
@@ -16,16 +16,23 @@ package com.code_intelligence.jazzer.agent
 
 import com.code_intelligence.jazzer.instrumentor.ClassInstrumentor
 import com.code_intelligence.jazzer.instrumentor.CoverageRecorder
+import com.code_intelligence.jazzer.instrumentor.EdgeCoverageStrategy
 import com.code_intelligence.jazzer.instrumentor.Hook
+import com.code_intelligence.jazzer.instrumentor.HookIndex
+import com.code_intelligence.jazzer.instrumentor.InlineUnsafeStrategy
 import com.code_intelligence.jazzer.instrumentor.InstrumentationType
 import com.code_intelligence.jazzer.utils.ClassNameGlobber
 import com.code_intelligence.jazzer.utils.Log
 import io.github.classgraph.ClassGraph
+import sun.misc.Unsafe
 import java.io.File
 import java.lang.instrument.ClassFileTransformer
 import java.lang.instrument.Instrumentation
 import java.nio.file.Path
+import java.security.MessageDigest
 import java.security.ProtectionDomain
+import java.util.concurrent.ConcurrentHashMap
+import java.util.stream.Collectors
 import kotlin.math.roundToInt
 import kotlin.system.exitProcess
 import kotlin.time.measureTimedValue
@@ -48,9 +55,27 @@ class RuntimeInstrumentor(
     // defined in. At some point we might want to track the list of classes per custom hook rather than globally.
     private val additionalClassesToHookInstrument: ClassNameGlobber,
     private val coverageIdSynchronizer: CoverageIdStrategy,
+    private val edgeCoverageStrategy: EdgeCoverageStrategy,
+    private val instrumentationCache: InstrumentationCache?,
     private val dumpClassesDir: Path?,
 ) : ClassFileTransformer {
 
+    // Built once rather than for every instrumented class.
+    private val allHookIndex = HookIndex(includedHooks + customHooks)
+    private val customHookIndex = HookIndex(customHooks)
+
+    // Populated by instrumentEagerly and keyed by internal class name.
+    private val eagerlyInstrumentedClasses = ConcurrentHashMap<String, EagerlyInstrumentedClass>()
+
+    // Inline Unsafe accesses additionally require instrumented modules to read jdk.unsupported. Computed lazily as
+    // Class.getModule only exists on Java 9+ and this is only accessed from the module-aware transform.
+    private val requiredModules by lazy {
+        listOfNotNull(
+            RuntimeInstrumentor::class.java.module,
+            Unsafe::class.java.module.takeIf { edgeCoverageStrategy is InlineUnsafeStrategy },
+        )
+    }
+
     @kotlin.time.ExperimentalTime
     override fun transform(
         loader: ClassLoader?,
@@ -132,7 +157,8 @@ class RuntimeInstrumentor(
         classfileBuffer: ByteArray,
     ): ByteArray? {
         try {
-            if (module != null && !module.canRead(RuntimeInstrumentor::class.java.module)) {
+            val extraReads = if (module != null) requiredModules.filterNot(module::canRead).toSet() else emptySet()
+            if (module != null && extraReads.isNotEmpty()) {
                 // Make all other modules read our (unnamed) module, which allows them to access the classes needed by the
                 // instrumentations, e.g. CoverageMap. If a module can't be modified, it should not be instrumented as the
                 // injected bytecode might throw NoClassDefFoundError.
@@ -144,7 +170,7 @@ class RuntimeInstrumentor(
                 }
                 instrumentation.redefineModule(
                     module,
-                    setOf(RuntimeInstrumentor::class.java.module), // extraReads
+                    extraReads,
                     emptyMap(),
                     emptyMap(),
                     emptySet(),
@@ -175,6 +201,12 @@ class RuntimeInstrumentor(
             additionalClassesToHookInstrument.includes(internalClassName) -> Pair(false, false)
             else -> return null
         }
+        if (fullInstrumentation && maybeClassfileBuffer != null) {
+            // Each precomputed result is handed out at most once, which also frees its memory.
+            eagerlyInstrumentedClasses.remove(internalClassName)
+                ?.takeIf { it.originalSha256.contentEquals(sha256(maybeClassfileBuffer)) }
+                ?.let { return it.instrumentedBytecode }
+        }
         val className = internalClassName.replace('/', '.')
         val classfileBuffer = maybeClassfileBuffer ?: ClassGraph()
             .enableSystemJarsAndModules()
@@ -208,37 +240,186 @@ class RuntimeInstrumentor(
         return instrumentedBytecode
     }
 
-    private fun instrument(internalClassName: String, bytecode: ByteArray, fullInstrumentation: Boolean): ByteArray {
-        val classWithHooksEnabledField = if (conditionalHooks) {
+    private val classWithHooksEnabledField
+        get() = if (conditionalHooks) {
             // Let the hook instrumentation emit additional logic that checks the value of the
             // hooksEnabled field on this class and skips the hook if it is false.
             "com/code_intelligence/jazzer/runtime/JazzerInternal"
         } else {
             null
         }
+
+    private fun instrument(internalClassName: String, bytecode: ByteArray, fullInstrumentation: Boolean): ByteArray {
+        val cacheKey = instrumentationCache?.keyFor(internalClassName, bytecode, fullInstrumentation)
         return ClassInstrumentor(internalClassName, bytecode).run {
             if (fullInstrumentation) {
-                // Coverage instrumentation must be performed before any other code updates
-                // or there will be additional coverage points injected if any calls are inserted
-                // and JaCoCo will produce a broken coverage report.
+                var cachedEntry: InstrumentationCache.Entry? = null
+                var firstEdgeId = 0
+                var numEdgeIds = 0
                 coverageIdSynchronizer.withIdForClass(internalClassName) { firstId ->
-                    coverage(firstId).also { actualNumEdgeIds ->
-                        CoverageRecorder.recordInstrumentedClass(
-                            internalClassName,
-                            bytecode,
-                            firstId,
-                            actualNumEdgeIds,
-                        )
-                    }
+                    firstEdgeId = firstId
+                    // Cache entries are only valid for the ID range they were instrumented with.
+                    cachedEntry = cacheKey?.let { instrumentationCache!!.load(it, firstId) }
+                    numEdgeIds = cachedEntry?.numEdgeIds ?: instrumentFully(firstId)
+                    CoverageRecorder.recordInstrumentedClass(
+                        internalClassName,
+                        bytecode,
+                        firstId,
+                        numEdgeIds,
+                    )
+                    numEdgeIds
+                }
+                cachedEntry?.let {
+                    // Instrumenting the class would grow the coverage map to cover its edge IDs, which has to be done
+                    // explicitly for cached bytecode so that libFuzzer knows about the counters.
+                    ClassInstrumentor.reserveEdgeIds(firstEdgeId + numEdgeIds)
+                    return it.bytecode
+                }
+                cacheKey?.let {
+                    instrumentationCache!!.store(it, firstEdgeId, InstrumentationCache.Entry(numEdgeIds, instrumentedBytecode))
                 }
-                // Hook instrumentation must be performed after data flow tracing as the injected
-                // bytecode would trigger the GEP callbacks for byte[].
-                traceDataFlow(instrumentationTypes)
-                hooks(includedHooks + customHooks, classWithHooksEnabledField)
             } else {
-                hooks(customHooks, classWithHooksEnabledField)
+                // Classes that are only instrumented with hooks don't use any coverage IDs.
+                cacheKey?.let { key -> instrumentationCache!!.load(key, NO_EDGE_IDS)?.let { return it.bytecode } }
+                hooks(customHookIndex, classWithHooksEnabledField)
+                cacheKey?.let {
+                    instrumentationCache!!.store(it, NO_EDGE_IDS, InstrumentationCache.Entry(0, instrumentedBytecode))
+                }
             }
             instrumentedBytecode
         }
     }
+
+    private fun instrumentWithReservedEdgeIds(
+        internalClassName: String,
+        bytecode: ByteArray,
+        firstEdgeId: Int,
+        numEdgeIds: Int,
+    ): ByteArray {
+        val cacheKey = instrumentationCache?.keyFor(internalClassName, bytecode, true)
+        cacheKey?.let { key -> instrumentationCache!!.load(key, firstEdgeId)?.let { return it.bytecode } }
+        return ClassInstrumentor(internalClassName, bytecode).run {
+            val actualNumEdgeIds = instrumentFully(firstEdgeId)
+            check(actualNumEdgeIds == numEdgeIds) {
+                "$internalClassName has $actualNumEdgeIds edges, but $numEdgeIds edges were reserved"
+            }
+            cacheKey?.let {
+                instrumentationCache!!.store(it, firstEdgeId, InstrumentationCache.Entry(numEdgeIds, instrumentedBytecode))
+            }
+            instrumentedBytecode
+        }
+    }
+
+    private fun ClassInstrumentor.instrumentFully(firstEdgeId: Int) = fullInstrumentation(
+        firstEdgeId,
+        edgeCoverageStrategy,
+        instrumentationTypes,
+        allHookIndex,
+        classWithHooksEnabledField,
+    )
+
+    /**
+     * Instruments all classes on the classpath that are selected for full instrumentation ahead of time, using all
+     * available cores, so that [transform] only has to hand out the precomputed bytecode when they are loaded.
+     *
+     * Coverage IDs are reserved for all classes up front, in the order of their names, which keeps them deterministic
+     * across runs regardless of the order in which classes are loaded later. Classes that are loaded with bytecode
+     * differing from the one found on the classpath, as well as classes beyond the budget of [withinEdgeIdBudget], are
+     * instrumented lazily as usual.
+     */
+    @OptIn(kotlin.time.ExperimentalTime::class)
+    fun instrumentEagerly() {
+        val (numClasses, duration) = measureTimedValue {
+            ClassGraph()
+                .ignoreClassVisibility()
+                // Never instrument ourselves, see transform.
+                .rejectPackages("com.code_intelligence.jazzer")
+                .scan()
+                .use { scanResult ->
+                    val classInfos = scanResult.allClasses
+                        .filter { classesToFullyInstrument.includes(it.name) }
+                        .sortedBy { it.name }
+                    // Loading and counting edges is parallelized on the common fork-join pool.
+                    val classes = classInfos.parallelStream()
+                        .map { classInfo ->
+                            val internalClassName = classInfo.name.replace('.', '/')
+                            val bytecode = classInfo.resource.load()
+                            EagerClass(internalClassName, bytecode, ClassInstrumentor.countEdges(bytecode))
+                        }
+                        .collect(Collectors.toList())
+                    val eagerClasses = withinEdgeIdBudget(classes)
+                    var nextEdgeId = 0
+                    for (eagerClass in eagerClasses) {
+                        coverageIdSynchronizer.withIdForClass(eagerClass.internalClassName) { firstId ->
+                            eagerClass.firstEdgeId = firstId
+                            CoverageRecorder.recordInstrumentedClass(
+                                eagerClass.internalClassName,
+                                eagerClass.bytecode,
+                                firstId,
+                                eagerClass.numEdgeIds,
+                            )
+                            eagerClass.numEdgeIds
+                        }
+                        nextEdgeId = maxOf(nextEdgeId, eagerClass.firstEdgeId + eagerClass.numEdgeIds)
+                    }
+                    // Growing the coverage map is not thread-safe, so do it once for all classes before instrumenting
+                    // them concurrently.
+                    ClassInstrumentor.reserveEdgeIds(nextEdgeId)
+                    eagerClasses.parallelStream().forEach { eagerClass ->
+                        try {
+                            val instrumentedBytecode = instrumentWithReservedEdgeIds(
+                                eagerClass.internalClassName,
+                                eagerClass.bytecode,
+                                eagerClass.firstEdgeId,
+                                eagerClass.numEdgeIds,
+                            )
+                            eagerlyInstrumentedClasses[eagerClass.internalClassName] =
+                                EagerlyInstrumentedClass(sha256(eagerClass.bytecode), instrumentedBytecode)
+                        } catch (t: Throwable) {
+                            Log.warn("Failed to eagerly instrument ${eagerClass.internalClassName}, deferring", t)
+                        }
+                    }
+                    eagerClasses.size
+                }
+        }
+        Log.info("Instrumented $numClasses classes eagerly (took ${duration.inWholeMilliseconds} ms)")
+    }
+
+    /**
+     * Returns the longest prefix of [classes] whose edge IDs fit into half of the coverage map.
+     *
+     * Reserving edge IDs for all classes matched by a broad `--instrumentation_includes` pattern could exceed the
+     * maximum size of the coverage map, which terminates the fuzzer, even though most of these classes may never be
+     * loaded. The remaining classes, as well as the other half of the coverage map, are left to lazy instrumentation.
+     */
+    private fun withinEdgeIdBudget(classes: List<EagerClass>): List<EagerClass> {
+        val edgeIdBudget = ClassInstrumentor.maxNumEdgeIds / 2
+        var numEdgeIds = 0
+        val numClasses = classes.indexOfFirst { eagerClass ->
+            numEdgeIds += eagerClass.numEdgeIds
+            numEdgeIds > edgeIdBudget
+        }
+        if (numClasses == -1) {
+            return classes
+        }
+        Log.warn(
+            "Instrumenting only $numClasses of ${classes.size} classes eagerly as all of them would need more than " +
+                "$edgeIdBudget coverage counters, the remaining classes are instrumented when they are loaded. " +
+                "Restrict --instrumentation_includes to the classes under test to instrument all of them eagerly.",
+        )
+        return classes.subList(0, numClasses)
+    }
+
+    private class EagerClass(val internalClassName: String, val bytecode: ByteArray, val numEdgeIds: Int) {
+        var firstEdgeId = 0
+    }
+
+    private class EagerlyInstrumentedClass(val originalSha256: ByteArray, val instrumentedBytecode: ByteArray)
+
+    companion object {
+        // The first edge ID under which cache entries for classes that are only instrumented with hooks are stored.
+        private const val NO_EDGE_IDS = -1
+
+        private fun sha256(bytecode: ByteArray): ByteArray = MessageDigest.getInstance("SHA-256").digest(bytecode)
+    }
 }
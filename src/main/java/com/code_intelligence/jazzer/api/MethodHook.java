@@ -115,6 +115,27 @@ import java.lang.invoke.MethodType;
  * will be wrapped into their corresponding wrapper type (e.g. {@link Boolean}).
  * If the original method has return type {@code void}, this value will be
  * {@code null}.
+ * </ul>
+ * <dt><span class="strong">Typed parameters</span>
+ * <dd>
+ * If {@link #targetMethodDescriptor()} is specified, the hook may alternatively
+ * receive the arguments and the return value of the target method with their
+ * original types instead of a {@link java.lang.invoke.MethodHandle} and an
+ * {@code Object[]}. This avoids allocating an array and boxing primitive values
+ * on every invocation of the target method. For example, an
+ * {@link HookType#AFTER} hook for {@link String#equals(Object)} could be
+ * declared as follows:
+ * <pre>{@code
+ * public static void hook(Object thisObject, Object arg0, int hookId, boolean returnValue)
+ * }</pre>
+ * The first parameter receives the {@code this} object as described above,
+ * followed by one parameter per parameter of the target method and the hook id.
+ * {@link HookType#AFTER} hooks for target methods that do not return
+ * {@code void} additionally receive the return value as the last parameter.
+ * Parameters with a primitive type must match the type in the descriptor
+ * exactly, reference types may also be declared as {@link Object}. Return
+ * types are subject to the same rules as for the signatures above.
+ * </dl>
  * <p>
  * Multiple {@link HookType#BEFORE} and {@link HookType#AFTER} hooks are
  * allowed to reference the same target method. Exclusively one
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+import com.code_intelligence.jazzer.runtime.CoverageMap;
+import com.code_intelligence.jazzer.utils.Log;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Merges corpus directories in the current process as an alternative to libFuzzer's
+ * {@code -merge=1}, which spawns a new JVM, and thus instruments all classes again, whenever an
+ * input crashes and inspects the coverage of every input from scratch on every run.
+ *
+ * <p>Every input is executed once and its coverage features are recorded in a {@link MergeIndex}.
+ * The inputs in the first corpus directory are kept and a small subset of the inputs in the other
+ * directories that covers all features not covered by them is selected greedily and copied into the
+ * first directory. Inputs recorded in the index in a previous run, which may have been interrupted
+ * by a crash, are not executed again.
+ *
+ * <p>Of libFuzzer's other flags, only {@code -timeout} is honored: An input that runs for longer
+ * brings down the process after its start has been recorded and is thus skipped when the merge is
+ * resumed.
+ */
+final class CorpusMerger {
+  // The number of inputs read from disk ahead of their execution.
+  private static final int PREFETCHED_INPUTS = 64;
+  private static final int PROGRESS_INTERVAL = 10000;
+  // Default values of libFuzzer's -timeout and -timeout_exitcode flags.
+  private static final long DEFAULT_TIMEOUT_SECONDS = 1200;
+  private static final int TIMEOUT_EXIT_CODE = 70;
+
+  private final Path outputDir;
+  private final List<Path> inputDirs;
+  private final Path indexPath;
+  private final Path idSyncFile;
+  private final boolean isTemporaryIndex;
+  // 0 if executions don't time out.
+  private final long timeoutSeconds;
+  // The input currently being executed, null between executions. Checked by the watchdog.
+  private volatile Execution currentExecution;
+
+  private final IntConsumer featureCollector = this::addFeature;
+  private int[] features = new int[1024];
+  private int numFeatures;
+
+  private CorpusMerger(Path outputDir, List<Path> inputDirs, Path indexPath, Path idSyncFile,
+      boolean isTemporaryIndex, long timeoutSeconds) {
+    this.outputDir = outputDir;
+    this.inputDirs = inputDirs;
+    this.indexPath = indexPath;
+    this.idSyncFile = idSyncFile;
+    this.isTemporaryIndex = isTemporaryIndex;
+    this.timeoutSeconds = timeoutSeconds;
+  }
+
+  /**
+   * Prepares an in-process merge of the corpus directories among the libFuzzer arguments
+   * {@code args}. Has to be called before the agent is installed.
+   *
+   * @return the merger or {@link Optional#empty()} if the arguments are invalid, in which case an
+   *     error has been logged
+   */
+  static Optional<CorpusMerger> create(List<String> args) {
+    List<Path> dirs = args.subList(1, args.size())
+                          .stream()
+                          .filter(arg -> !arg.startsWith("-"))
+                          .map(Paths::get)
+                          .map(dir -> dir.toAbsolutePath().normalize())
+                          .collect(toList());
+    if (dirs.size() < 2) {
+      Log.error("-merge=1 requires an output corpus directory and at least one input corpus "
+          + "directory");
+      return Optional.empty();
+    }
+    for (Path dir : dirs) {
+      if (!Files.isDirectory(dir)) {
+        Log.error("Corpus directory " + dir + " does not exist");
+        return Optional.empty();
+      }
+    }
+
+    // As with libFuzzer, the last occurrence of a flag wins and a non-positive timeout disables it.
+    Optional<String> timeoutArg = lastFlagValue(args, "-timeout=");
+    long timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
+    if (timeoutArg.isPresent()) {
+      try {
+        timeoutSeconds = Math.max(0, Long.parseLong(timeoutArg.get()));
+      } catch (NumberFormatException e) {
+        Log.error("-timeout must be an integer, got: " + timeoutArg.get());
+        return Optional.empty();
+      }
+    }
+    if (lastFlagValue(args, "-rss_limit_mb=").isPresent()) {
+      Log.warn("-rss_limit_mb is ignored by --in_process_merge, inputs that exhaust native memory "
+          + "bring down the process and are skipped when the merge is run again");
+    }
+
+    boolean isTemporaryIndex = Opt.mergeIndex.get().isEmpty();
+    Path indexPath = isTemporaryIndex
+        ? Paths.get(System.getProperty("java.io.tmpdir"),
+            "jazzer-merge-" + sha1(dirs.stream().map(Path::toString).collect(joining("\n")))
+                + ".idx")
+        : Paths.get(Opt.mergeIndex.get()).toAbsolutePath();
+    // Coverage IDs are assigned to classes in the order in which they are loaded, which generally
+    // differs between a merge and its resumption. The IDs are thus kept in sync via a file next to
+    // the index, which invalidates the recorded features if it is lost.
+    Path idSyncFile = Paths.get(indexPath + ".ids");
+    try {
+      if (!Files.exists(idSyncFile)) {
+        Files.deleteIfExists(indexPath);
+        Files.createFile(idSyncFile);
+      }
+    } catch (IOException e) {
+      Log.error("Failed to create " + idSyncFile, e);
+      return Optional.empty();
+    }
+    if (!Opt.idSyncFile.setIfDefault(idSyncFile.toString())) {
+      Log.warn("--id_sync_file is set explicitly, the coverage recorded in " + indexPath
+          + " is only valid if the file is kept between runs");
+    }
+
+    return Optional.of(
+        new CorpusMerger(dirs.get(0), dirs.subList(1, dirs.size()), indexPath, idSyncFile,
+            isTemporaryIndex, timeoutSeconds));
+  }
+
+  private static Optional<String> lastFlagValue(List<String> args, String prefix) {
+    return args.stream()
+        .filter(arg -> arg.startsWith(prefix))
+        .reduce((first, second) -> second)
+        .map(arg -> arg.substring(prefix.length()));
+  }
+
+  /**
+   * Executes the fuzz target on all inputs not yet recorded in the index and copies the selected
+   * inputs into the output directory.
+   *
+   * @return the exit code of the merge
+   */
+  int merge() {
+    List<Path> outputFiles;
+    List<Path> inputFiles;
+    try {
+      outputFiles = listFiles(Stream.of(outputDir));
+      inputFiles = listFiles(inputDirs.stream());
+    } catch (IOException e) {
+      Log.error("Failed to list corpus files", e);
+      return 1;
+    }
+    Log.info(String.format("in-process merge: %d files in %s, %d files in %d other directories",
+        outputFiles.size(), outputDir, inputFiles.size(), inputDirs.size()));
+
+    List<Path> files = new ArrayList<>(outputFiles);
+    files.addAll(inputFiles);
+    List<MergeIndex.Entry> outputEntries = new ArrayList<>();
+    List<MergeIndex.Entry> inputEntries = new ArrayList<>();
+    int numExecuted = 0;
+    int numCrashed = 0;
+    Thread watchdog = null;
+    try (MergeIndex index = MergeIndex.open(indexPath)) {
+      Log.info("Recording coverage in " + indexPath);
+      initializeFuzzTarget();
+      watchdog = startWatchdog();
+
+      BlockingQueue<Input> inputs = prefetch(files, index);
+      for (int i = 0; i < files.size(); i++) {
+        Input input = inputs.take();
+        if (input.error != null) {
+          Log.warn("Failed to read " + input.path, input.error);
+          continue;
+        }
+        MergeIndex.Entry entry = input.recorded;
+        if (entry == null) {
+          entry = index.recordStarted(input.path.toString(), input.size, input.lastModified);
+          currentExecution = new Execution(input.path);
+          FuzzTargetRunner.runOne(input.data);
+          currentExecution = null;
+          numFeatures = 0;
+          CoverageMap.drainFeatures(featureCollector);
+          index.recordFeatures(entry, features, numFeatures);
+          numExecuted++;
+        } else if (!entry.isComplete()) {
+          numCrashed++;
+        }
+        (i < outputFiles.size() ? outputEntries : inputEntries).add(entry);
+        if ((i + 1) % PROGRESS_INTERVAL == 0) {
+          Log.info(String.format("in-process merge: %d/%d files processed, %d executed",
+              i + 1, files.size(), numExecuted));
+        }
+      }
+    } catch (IOException e) {
+      Log.error("Failed to record coverage in " + indexPath, e);
+      return 1;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return 1;
+    } finally {
+      if (watchdog != null) {
+        watchdog.interrupt();
+      }
+    }
+    if (numCrashed > 0) {
+      Log.warn(String.format(
+          "in-process merge: skipped %d files that crashed the fuzzer in a previous run",
+          numCrashed));
+    }
+
+    List<MergeIndex.Entry> selected = MergeIndex.selectCover(outputEntries, inputEntries);
+    int numAdded = 0;
+    for (MergeIndex.Entry entry : selected) {
+      try {
+        byte[] data = Files.readAllBytes(Paths.get(entry.path));
+        Path target = outputDir.resolve(sha1(data));
+        if (!Files.exists(target)) {
+          Files.write(target, data);
+          numAdded++;
+        }
+      } catch (IOException e) {
+        Log.error("Failed to copy " + entry.path + " into " + outputDir, e);
+        return 1;
+      }
+    }
+    Log.info(String.format("in-process merge: %d new files added to %s", numAdded, outputDir));
+
+    if (isTemporaryIndex) {
+      // The agent may still need the ID file to instrument classes loaded during shutdown.
+      indexPath.toFile().deleteOnExit();
+      idSyncFile.toFile().deleteOnExit();
+    }
+    return 0;
+  }
+
+  private static void initializeFuzzTarget() {
+    // Initialize the fuzz target outside the measurement of the first input and discard the
+    // coverage of its initialization, just like libFuzzer does.
+    try {
+      Class.forName(FuzzTargetRunner.class.getName(), true, FuzzTargetRunner.class.getClassLoader());
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+    CoverageMap.drainFeatures(feature -> {});
+  }
+
+  /**
+   * Starts a thread that terminates the process if an input runs for longer than the timeout. The
+   * start of its execution has already been written to the index, so it is skipped when the merge
+   * is resumed, just like an input that crashed the process.
+   *
+   * @return the thread, which stops when interrupted, or {@code null} if there is no timeout
+   */
+  private Thread startWatchdog() {
+    if (timeoutSeconds == 0) {
+      return null;
+    }
+    long timeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+    Thread watchdog = new Thread(() -> {
+      try {
+        while (true) {
+          Execution execution = currentExecution;
+          if (execution == null) {
+            TimeUnit.SECONDS.sleep(1);
+            continue;
+          }
+          long remainingNanos = execution.startNanos + timeoutNanos - System.nanoTime();
+          if (remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(Math.min(remainingNanos, TimeUnit.SECONDS.toNanos(1)));
+            continue;
+          }
+          Log.error(String.format(
+              "in-process merge: %s timed out after %d seconds, it is skipped when the merge is "
+                  + "run again",
+              execution.path, timeoutSeconds));
+          // The fuzz target is still running and may hold locks needed by shutdown hooks, so don't
+          // run them, just like libFuzzer exits without cleanup on a timeout.
+          Runtime.getRuntime().halt(TIMEOUT_EXIT_CODE);
+        }
+      } catch (InterruptedException e) {
+        // The merge has finished.
+      }
+    }, "jazzer-merge-watchdog");
+    watchdog.setDaemon(true);
+    watchdog.start();
+    return watchdog;
+  }
+
+  private static final class Execution {
+    final Path path;
+    final long startNanos = System.nanoTime();
+
+    Execution(Path path) {
+      this.path = path;
+    }
+  }
+
+  private void addFeature(int feature) {
+    if (numFeatures == features.length) {
+      features = Arrays.copyOf(features, 2 * features.length);
+    }
+    features[numFeatures++] = feature;
+  }
+
+  private static List<Path> listFiles(Stream<Path> dirs) throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (Path dir : (Iterable<Path>) dirs::iterator) {
+      try (Stream<Path> dirFiles = Files.walk(dir)) {
+        dirFiles.filter(Files::isRegularFile).sorted().forEach(files::add);
+      }
+    }
+    return files;
+  }
+
+  private static final class Input {
+    final Path path;
+    long size;
+    long lastModified;
+    // The entry recorded for the input in a previous run, if any. If this is null, data holds the
+    // contents of the input.
+    MergeIndex.Entry recorded;
+    byte[] data;
+    Exception error;
+
+    Input(Path path) {
+      this.path = path;
+    }
+  }
+
+  /**
+   * Reads the inputs in {@code files} in order on a separate thread so that reading them overlaps
+   * with executing the fuzz target. The fuzz target itself can't be executed concurrently as the
+   * coverage map is shared by all threads.
+   */
+  private static BlockingQueue<Input> prefetch(List<Path> files, MergeIndex index) {
+    BlockingQueue<Input> inputs = new ArrayBlockingQueue<>(PREFETCHED_INPUTS);
+    Thread reader = new Thread(() -> {
+      try {
+        for (Path file : files) {
+          inputs.put(read(file, index));
+        }
+      } catch (InterruptedException e) {
+        // The merge has been aborted.
+      }
+    }, "jazzer-merge-reader");
+    reader.setDaemon(true);
+    reader.start();
+    return inputs;
+  }
+
+  private static Input read(Path file, MergeIndex index) {
+    Input input = new Input(file);
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      input.size = attributes.size();
+      input.lastModified = attributes.lastModifiedTime().toMillis();
+      input.recorded = index.lookup(file.toString(), input.size, input.lastModified);
+      if (input.recorded == null) {
+        input.data = Files.readAllBytes(file);
+      }
+    } catch (IOException | RuntimeException e) {
+      input.error = e;
+    }
+    return input;
+  }
+
+  private static String sha1(String string) {
+    return sha1(string.getBytes(UTF_8));
+  }
+
+  private static String sha1(byte[] data) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 not available", e);
+    }
+    String unpadded = new BigInteger(1, digest.digest(data)).toString(16);
+    return String.join("", Collections.nCopies(40 - unpadded.length(), "0")) + unpadded;
+  }
+}
@@ -46,9 +46,15 @@ public class Driver {
         Log.error("--coverage_dump is not supported on Android");
         return 1;
       }
+      if (Opt.coverageInlineUnsafe.get()) {
+        Log.error("--coverage_inline_unsafe is not supported on Android");
+        return 1;
+      }
     }
 
-    if (spawnsSubprocesses) {
+    // An in-process merge doesn't spawn subprocesses even though the native launcher assumed so.
+    boolean inProcessMerge = Opt.inProcessMerge.get() && args.contains("-merge=1");
+    if (spawnsSubprocesses && !inProcessMerge) {
       if (!Opt.coverageReport.get().isEmpty()) {
         Log.error("--coverage_report is not supported with -fork, -jobs, or -merge");
         return 1;
@@ -83,10 +89,19 @@ public class Driver {
       idSyncFile.toFile().deleteOnExit();
     }
 
-    if (args.stream().anyMatch("-merge_inner=1" ::equals)) {
+    // Findings are irrelevant for an in-process merge in the same way as for a libFuzzer merge.
+    if (inProcessMerge || args.stream().anyMatch("-merge_inner=1" ::equals)) {
       Opt.mergeInner.setIfDefault(true);
     }
 
+    Optional<CorpusMerger> corpusMerger = Optional.empty();
+    if (inProcessMerge) {
+      corpusMerger = CorpusMerger.create(args);
+      if (!corpusMerger.isPresent()) {
+        return 1;
+      }
+    }
+
     // Jazzer's hooks use deterministic randomness and thus require a seed. Search for the last
     // occurrence of a "-seed" argument as that is the one that is used by libFuzzer. If none is
     // set, generate one and pass it to libFuzzer so that a fuzzing run can be reproduced simply by
@@ -113,6 +128,12 @@ public class Driver {
         Log.error("--dump_classes_dir must be set with --instrument_only");
         exit(1);
       }
+      // Offline instrumentation is used for Android, where the coverage map can only be grown by
+      // the CoverageMap.recordCoverage* methods, which inline Unsafe accesses bypass.
+      if (Opt.coverageInlineUnsafe.get()) {
+        Log.error("--coverage_inline_unsafe is not supported with --instrument_only");
+        exit(1);
+      }
       boolean instrumentationSuccess = OfflineInstrumentor.instrumentJars(Opt.instrumentOnly.get());
       if (!instrumentationSuccess) {
         exit(1);
@@ -125,7 +146,8 @@ public class Driver {
     if (!Opt.autofuzz.get().isEmpty()) {
       AgentInstaller.install(Opt.hooks.get());
       FuzzTargetHolder.fuzzTarget = FuzzTargetHolder.AUTOFUZZ_FUZZ_TARGET;
-      return FuzzTargetRunner.startLibFuzzer(args);
+      return corpusMerger.isPresent() ? corpusMerger.get().merge()
+                                      : FuzzTargetRunner.startLibFuzzer(args);
     }
 
     String targetClassName = FuzzTargetFinder.findFuzzTargetClassName();
@@ -139,6 +161,10 @@ public class Driver {
     if (JUnitRunner.isSupported()) {
       Optional<JUnitRunner> runner = JUnitRunner.create(targetClassName, args);
       if (runner.isPresent()) {
+        if (inProcessMerge) {
+          Log.error("--in_process_merge is not supported for @FuzzTest fuzz tests");
+          return 1;
+        }
         return runner.get().run();
       }
     }
@@ -147,7 +173,8 @@ public class Driver {
     // in it on "Class.forName(targetClassName)", but only during native fuzzing.
     AgentInstaller.install(Opt.hooks.get());
     FuzzTargetHolder.fuzzTarget = FuzzTargetFinder.findFuzzTarget(targetClassName);
-    return FuzzTargetRunner.startLibFuzzer(args);
+    return corpusMerger.isPresent() ? corpusMerger.get().merge()
+                                    : FuzzTargetRunner.startLibFuzzer(args);
   }
 
   private static String getDefaultRssLimitMbArg() {
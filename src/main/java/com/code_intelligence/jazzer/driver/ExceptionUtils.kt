@@ -27,58 +27,134 @@ private val JAZZER_PACKAGE_PREFIX = "com.code_intelligence.jazzer."
 private val PUBLIC_JAZZER_PACKAGES = setOf("api", "replay", "sanitizers")
 
 private val StackTraceElement.isInternalFrame: Boolean
-    get() = if (!className.startsWith(JAZZER_PACKAGE_PREFIX)) {
-        false
-    } else {
-        val jazzerSubPackage =
-            className.substring(JAZZER_PACKAGE_PREFIX.length).split(".", limit = 2)[0]
-        jazzerSubPackage !in PUBLIC_JAZZER_PACKAGES
-    }
+    get() = className.startsWith(JAZZER_PACKAGE_PREFIX) &&
+        PUBLIC_JAZZER_PACKAGES.none { isInJazzerSubPackage(className, it) }
 
-private fun hash(throwable: Throwable, passToRootCause: Boolean): ByteArray =
-    MessageDigest.getInstance("SHA-256").run {
-        // It suffices to hash the stack trace of the deepest cause as the higher-level causes only
-        // contain part of the stack trace (plus possibly a different exception type).
-        var rootCause = throwable
-        if (passToRootCause) {
-            while (true) {
-                rootCause = rootCause.cause ?: break
-            }
-        }
-        update(rootCause.javaClass.name.toByteArray())
-        rootCause.stackTrace
-            .takeWhile { !it.isInternalFrame }
-            .filterNot {
-                it.className.startsWith("jdk.internal.") ||
-                    it.className.startsWith("java.lang.reflect.") ||
-                    it.className.startsWith("sun.reflect.") ||
-                    it.className.startsWith("java.lang.invoke.")
-            }
-            .forEach { update(it.toString().toByteArray()) }
-        if (throwable.suppressed.isNotEmpty()) {
+private fun isInJazzerSubPackage(className: String, subPackage: String): Boolean {
+    val subPackageEnd = JAZZER_PACKAGE_PREFIX.length + subPackage.length
+    return className.startsWith(subPackage, JAZZER_PACKAGE_PREFIX.length) &&
+        (className.length == subPackageEnd || className[subPackageEnd] == '.')
+}
+
+private val StackTraceElement.isReflectionFrame: Boolean
+    get() = className.startsWith("jdk.internal.") ||
+        className.startsWith("java.lang.reflect.") ||
+        className.startsWith("sun.reflect.") ||
+        className.startsWith("java.lang.invoke.")
+
+/**
+ * The parts of a [Throwable] that determine its dedup token: the class of the root cause, its stack frames that are
+ * neither Jazzer-internal nor part of reflective calls and, recursively, the suppressed exceptions.
+ *
+ * Comparing and hashing keys only involves the interned names and line numbers of the frames, which is much cheaper
+ * than computing the token itself.
+ */
+private class DedupKey(
+    private val exceptionClass: Class<*>,
+    private val frames: List<StackTraceElement>,
+    private val suppressed: List<DedupKey>,
+) {
+    private val hashCode = 31 * (31 * exceptionClass.hashCode() + frames.hashCode()) + suppressed.hashCode()
+
+    override fun equals(other: Any?) = other is DedupKey &&
+        hashCode == other.hashCode &&
+        exceptionClass == other.exceptionClass &&
+        frames == other.frames &&
+        suppressed == other.suppressed
+
+    override fun hashCode() = hashCode
+
+    fun hash(): ByteArray = MessageDigest.getInstance("SHA-256").run {
+        update(exceptionClass.name.toByteArray())
+        frames.forEach { update(it.toString().toByteArray()) }
+        if (suppressed.isNotEmpty()) {
             update("suppressed".toByteArray())
-            for (suppressed in throwable.suppressed) {
-                update(hash(suppressed, passToRootCause))
+            for (suppressedKey in suppressed) {
+                update(suppressedKey.hash())
             }
         }
         digest()
     }
+}
 
 /**
- * Computes a hash of the stack trace of [throwable] without messages.
+ * Returns the [DedupKey] of [throwable].
  *
- * The hash can be used to deduplicate stack traces obtained on crashes. By not including the
- * messages, this hash should not depend on the precise crashing input.
+ * If [stackTrace] is not `null`, it is used in place of the stack trace of [throwable] in case that is the root cause.
+ * With [mimicDropInternalFrames], the key is computed as if [dropInternalFrames] had been applied to [throwable].
  */
-fun computeDedupToken(throwable: Throwable): Long {
-    var passToRootCause = true
+private fun dedupKey(
+    throwable: Throwable,
+    passToRootCause: Boolean,
+    stackTrace: Array<StackTraceElement>? = null,
+    mimicDropInternalFrames: Boolean = false,
+): DedupKey {
+    // It suffices to hash the stack trace of the deepest cause as the higher-level causes only
+    // contain part of the stack trace (plus possibly a different exception type).
+    var rootCause = throwable
+    if (passToRootCause) {
+        while (true) {
+            rootCause = rootCause.cause ?: break
+        }
+    }
+    val rootCauseStackTrace = if (rootCause === throwable && stackTrace != null) stackTrace else rootCause.stackTrace
+    val frames = rootCauseStackTrace
+        .asSequence()
+        .takeWhile { !it.isInternalFrame }
+        .filterNot { it.isReflectionFrame }
+        .toList()
+    // dropInternalFrames replaces the stack traces of the suppressed exceptions of a finding with the finding's own
+    // stack trace.
+    val suppressedStackTrace =
+        if (mimicDropInternalFrames && throwable.suppressed.isNotEmpty()) throwable.stackTrace else null
+    val suppressed = throwable.suppressed.map { dedupKey(it, passToRootCause, suppressedStackTrace) }
+    return DedupKey(rootCause.javaClass, frames, suppressed)
+}
+
+private const val MAX_CACHED_DEDUP_TOKENS = 1024
+
+// Findings are usually reported many times over with the same stack trace, in particular with --keep_going. Caching
+// the tokens by their keys avoids recomputing a cryptographic hash over the string representations of all frames.
+private val dedupTokenCache = object : LinkedHashMap<DedupKey, Long>(16, 0.75f, true) {
+    override fun removeEldestEntry(eldest: MutableMap.MutableEntry<DedupKey, Long>?) =
+        size > MAX_CACHED_DEDUP_TOKENS
+}
+
+private fun dedupToken(key: DedupKey): Long = synchronized(dedupTokenCache) {
+    dedupTokenCache.getOrPut(key) { ByteBuffer.wrap(key.hash()).long }
+}
+
+private fun passToRootCause(throwable: Throwable): Boolean {
     if (throwable is FuzzerSecurityIssueLow && throwable.cause is StackOverflowError) {
         // Special handling for StackOverflowErrors as processed by preprocessThrowable:
         // Only consider the repeated part of the stack trace and ignore the original stack trace in
         // the cause.
-        passToRootCause = false
+        return false
+    }
+    return true
+}
+
+/**
+ * Computes a hash of the stack trace of [throwable] without messages.
+ *
+ * The hash can be used to deduplicate stack traces obtained on crashes. By not including the
+ * messages, this hash should not depend on the precise crashing input.
+ */
+fun computeDedupToken(throwable: Throwable): Long =
+    dedupToken(dedupKey(throwable, passToRootCause(throwable)))
+
+/**
+ * Returns the result of [computeDedupToken] on the result of [preprocessThrowable] applied to [throwable], but without
+ * modifying [throwable] or copying any stack traces, or `null` if [throwable] would be replaced by a different
+ * [Throwable] during preprocessing.
+ *
+ * This allows findings that have already been reported to be rejected cheaply.
+ */
+fun computeDedupTokenBeforePreprocessing(throwable: Throwable): Long? {
+    if (throwable is VirtualMachineError) {
+        return null
     }
-    return ByteBuffer.wrap(hash(throwable, passToRootCause)).long
+    return dedupToken(dedupKey(throwable, passToRootCause(throwable), mimicDropInternalFrames = true))
 }
 
 /**
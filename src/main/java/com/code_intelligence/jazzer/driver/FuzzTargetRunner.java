@@ -31,10 +31,9 @@ import com.code_intelligence.jazzer.instrumentor.CoverageRecorder;
 import com.code_intelligence.jazzer.mutation.ArgumentsMutator;
 import com.code_intelligence.jazzer.runtime.FuzzTargetRunnerNatives;
 import com.code_intelligence.jazzer.runtime.JazzerInternal;
+import com.code_intelligence.jazzer.runtime.TraceDataFlowNativeCallbacks;
 import com.code_intelligence.jazzer.utils.Log;
 import com.code_intelligence.jazzer.utils.UnsafeProvider;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
@@ -88,6 +87,9 @@ public final class FuzzTargetRunner {
       Log.error("--nodedup is not supported with --ignore or --keep_going");
       exit(1);
     }
+    if (Opt.metrics.get() && IS_ANDROID) {
+      Log.warn("--metrics is not supported on Android");
+    }
   }
 
   private static final String OPENTEST4J_TEST_ABORTED_EXCEPTION =
@@ -115,8 +117,15 @@ public final class FuzzTargetRunner {
   private static final boolean emitDedupToken = Opt.dedup.get();
   private static final long keepGoing = Opt.keepGoing.get();
   private static final long crossOverFrequency = Opt.experimentalCrossOverFrequency.get();
+  private static final boolean useTraceBuffering = Opt.traceBuffering.get();
+  private static final boolean collectMetrics = Opt.metrics.get() && !IS_ANDROID;
   private static final FuzzedDataProviderImpl fuzzedDataProvider =
       FuzzedDataProviderImpl.withNativeData();
+  // Reused by the experimental mutator to read inputs from and write mutations to native memory
+  // directly, without intermediate byte arrays.
+  private static final NativeMemoryInputStream nativeInput = new NativeMemoryInputStream();
+  private static final NativeMemoryInputStream nativeInput2 = new NativeMemoryInputStream();
+  private static final NativeMemoryOutputStream nativeOutput = new NativeMemoryOutputStream();
   private static final MethodHandle fuzzTargetMethod;
   private static final boolean useFuzzedDataProvider;
   // Reused in every iteration analogous to JUnit's PER_CLASS lifecycle.
@@ -169,6 +178,11 @@ public final class FuzzTargetRunner {
       mutator = null;
     }
 
+    if (useTraceBuffering) {
+      // runOne is called on the current thread, which also executes the fuzz target.
+      TraceDataFlowNativeCallbacks.enableBuffering();
+    }
+
     if (useHooks) {
       // libFuzzer will clear the coverage map after this method returns and keeps no record of the
       // coverage accumulated so far (e.g. by static initializers). We record it here to keep it
@@ -176,11 +190,15 @@ public final class FuzzTargetRunner {
       CoverageRecorder.updateCoveredIdsWithCoverageMap();
     }
 
+    if (collectMetrics) {
+      Metrics.start(Opt.metricsInterval.get());
+    }
+
     Runtime.getRuntime().addShutdownHook(new Thread(FuzzTargetRunner::shutdown));
   }
 
   /**
-   * A test-only convenience wrapper around {@link #runOne(long, int)}.
+   * A convenience wrapper around {@link #runOne(long, int)} for tests and {@link CorpusMerger}.
    */
   static int runOne(byte[] data) {
     long dataPtr = UNSAFE.allocateMemory(data.length);
@@ -205,22 +223,35 @@ public final class FuzzTargetRunner {
     Throwable finding = null;
     byte[] data;
     Object argument;
+    long startTime = 0;
+    long startAllocatedBytes = 0;
+    if (useTraceBuffering) {
+      // libFuzzer has reset its data flow maps before calling this method, which would also have
+      // dropped the values of callbacks invoked since the last execution if they hadn't been
+      // buffered.
+      TraceDataFlowNativeCallbacks.clearBuffer();
+    }
+    if (collectMetrics) {
+      startAllocatedBytes = Metrics.currentThreadAllocatedBytes();
+      startTime = System.nanoTime();
+    }
     if (useExperimentalMutator) {
-      // TODO: Instead of copying the native data and then reading it in, consider the following
-      //  optimizations if they turn out to be worthwhile in benchmarks:
-      //  1. Let libFuzzer pass in a null pointer if the byte array hasn't changed since the last
-      //     call to our custom mutator and skip the read entirely.
-      //  2. Implement a InputStream backed by Unsafe to avoid the copyToArray overhead.
-      byte[] buf = copyToArray(dataPtr, dataLength);
-      boolean readExactly = mutator.read(new ByteArrayInputStream(buf));
-
-      // All inputs constructed by the mutator framework can be read exactly, existing corpus files
-      // may not be valid for the current fuzz target anymore, though. In this case, print a warning
-      // once.
-      if (!(invalidCorpusFileWarningShown || readExactly || isFixedLibFuzzerInput(buf))) {
-        invalidCorpusFileWarningShown = true;
-        Log.warn("Some files in the seed corpus do not match the fuzz target signature. "
-            + "This indicates that they were generated with a different signature and may cause issues reproducing previous findings.");
+      // libFuzzer usually executes the input our custom mutator has just produced next. In that
+      // case, the mutator still holds the corresponding arguments and we can skip deserializing
+      // them. libFuzzer copies the input before executing it, so it can only be recognized by its
+      // contents, not its address.
+      if (!mutator.reuseArgumentsIfSerializedAs(dataLength, fingerprint(dataPtr, dataLength))) {
+        boolean readExactly = mutator.read(nativeInput.reset(dataPtr, dataLength));
+
+        // All inputs constructed by the mutator framework can be read exactly, existing corpus
+        // files may not be valid for the current fuzz target anymore, though. In this case, print
+        // a warning once.
+        if (!(invalidCorpusFileWarningShown || readExactly
+                || isFixedLibFuzzerInput(dataPtr, dataLength))) {
+          invalidCorpusFileWarningShown = true;
+          Log.warn("Some files in the seed corpus do not match the fuzz target signature. "
+              + "This indicates that they were generated with a different signature and may cause issues reproducing previous findings.");
+        }
       }
       data = null;
       argument = null;
@@ -232,6 +263,7 @@ public final class FuzzTargetRunner {
       data = copyToArray(dataPtr, dataLength);
       argument = data;
     }
+    long invokeTime = collectMetrics ? System.nanoTime() : 0;
     try {
       if (useExperimentalMutator) {
         // No need to detach as we are currently reading in the mutator state from bytes in every
@@ -245,6 +277,13 @@ public final class FuzzTargetRunner {
     } catch (Throwable uncaughtFinding) {
       finding = uncaughtFinding;
     }
+    if (useTraceBuffering) {
+      // libFuzzer evaluates the data flow information as soon as this method returns.
+      TraceDataFlowNativeCallbacks.flushBuffer();
+    }
+    if (collectMetrics) {
+      Metrics.recordExecution(startTime, invokeTime, startAllocatedBytes);
+    }
 
     // When using libFuzzer's -merge flag, only the coverage of the current input is relevant, not
     // whether it is crashing. Since every crash would cause a restart of the process and thus the
@@ -266,11 +305,26 @@ public final class FuzzTargetRunner {
     if (finding == null || finding.getClass().getName().equals(OPENTEST4J_TEST_ABORTED_EXCEPTION)) {
       return LIBFUZZER_CONTINUE;
     }
+    long findingStartTime = collectMetrics ? System.nanoTime() : 0;
     if (useHooks) {
+      if (emitDedupToken) {
+        // Reject findings that have been reported before (e.g. with --keep_going) without
+        // preprocessing them, which copies and rewrites the stack traces of their causes.
+        Long knownToken = ExceptionUtils.computeDedupTokenBeforePreprocessing(finding);
+        if (knownToken != null && ignoredTokens.contains(knownToken)) {
+          if (collectMetrics) {
+            Metrics.recordFinding(findingStartTime);
+          }
+          return LIBFUZZER_CONTINUE;
+        }
+      }
       finding = ExceptionUtils.preprocessThrowable(finding);
     }
 
     long dedupToken = emitDedupToken ? ExceptionUtils.computeDedupToken(finding) : 0;
+    if (collectMetrics) {
+      Metrics.recordFinding(findingStartTime);
+    }
     if (emitDedupToken && !ignoredTokens.add(dedupToken)) {
       return LIBFUZZER_CONTINUE;
     }
@@ -333,18 +387,26 @@ public final class FuzzTargetRunner {
     return LIBFUZZER_CONTINUE;
   }
 
-  private static boolean isFixedLibFuzzerInput(byte[] input) {
+  private static boolean isFixedLibFuzzerInput(long dataPtr, int dataLength) {
     // Detect special libFuzzer inputs which can not be processed by the mutator framework.
     // libFuzzer always uses an empty input, and one with a single line feed (10) to indicate
     // end of initial corpus file processing.
-    return input.length == 0 || (input.length == 1 && input[0] == 10);
+    return dataLength == 0 || (dataLength == 1 && UNSAFE.getByte(dataPtr) == 10);
   }
 
   // Called via JNI, being passed data from LLVMFuzzerCustomMutator.
   @SuppressWarnings("unused")
   private static int mutateOne(long data, int size, int maxSize, int seed) {
+    if (!collectMetrics) {
+      mutate(data, size, seed);
+      return writeToMemory(mutator, data, maxSize);
+    }
+    long startAllocatedBytes = Metrics.currentThreadAllocatedBytes();
+    long startTime = System.nanoTime();
     mutate(data, size, seed);
-    return writeToMemory(mutator, data, maxSize);
+    int newSize = writeToMemory(mutator, data, maxSize);
+    Metrics.recordMutation(startTime, startAllocatedBytes);
+    return newSize;
   }
 
   private static void mutate(long data, int size, int seed) {
@@ -354,8 +416,7 @@ public final class FuzzTargetRunner {
     if (size == 1 && UNSAFE.getByte(data) == '\n') {
       mutator.init(seed);
     } else {
-      // TODO: See the comment on earlier calls to read for potential optimizations.
-      mutator.read(new ByteArrayInputStream(copyToArray(data, size)));
+      mutator.read(nativeInput.reset(data, size));
       mutator.mutate(seed);
     }
   }
@@ -372,27 +433,54 @@ public final class FuzzTargetRunner {
     // the list of default mutators, so ~1/12 of the time. This also seems too
     // much and is reduced to a configurable frequency, default 1/100, here,
     // mutate is used in the other cases.
-    if (crossOverFrequency != 0 && crossOverCount++ % crossOverFrequency == 0) {
-      mutator.crossOver(new ByteArrayInputStream(copyToArray(data1, size1)),
-          new ByteArrayInputStream(copyToArray(data2, size2)), seed);
+    long startAllocatedBytes = collectMetrics ? Metrics.currentThreadAllocatedBytes() : 0;
+    long startTime = collectMetrics ? System.nanoTime() : 0;
+    boolean crossedOver = crossOverFrequency != 0 && crossOverCount++ % crossOverFrequency == 0;
+    if (crossedOver) {
+      mutator.crossOver(nativeInput.reset(data1, size1), nativeInput2.reset(data2, size2), seed);
     } else {
       mutate(data1, size1, seed);
     }
-    return writeToMemory(mutator, out, maxOutSize);
+    int newSize = writeToMemory(mutator, out, maxOutSize);
+    if (collectMetrics) {
+      if (crossedOver) {
+        Metrics.recordCrossOver(startTime, startAllocatedBytes);
+      } else {
+        Metrics.recordMutation(startTime, startAllocatedBytes);
+      }
+    }
+    return newSize;
   }
 
   @SuppressWarnings("SameParameterValue")
   private static int writeToMemory(ArgumentsMutator mutator, long out, int maxOutSize) {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    // TODO: Instead of writing to a byte array and then copying that array's contents into
-    //  memory, consider introducing an OutputStream backed by Unsafe.
-    mutator.write(baos);
-    byte[] mutatedBytes = baos.toByteArray();
-    int newSize = Math.min(mutatedBytes.length, maxOutSize);
-    UNSAFE.copyMemory(mutatedBytes, BYTE_ARRAY_OFFSET, null, out, newSize);
+    // The mutator has fully read its input at this point, so it is safe to overwrite it in case
+    // out aliases the input buffer.
+    mutator.write(nativeOutput.reset(out, maxOutSize));
+    int newSize = nativeOutput.size();
+    // A truncated input no longer corresponds to the current arguments.
+    if (!nativeOutput.isTruncated()) {
+      mutator.rememberSerializedArguments(newSize, fingerprint(out, newSize));
+    }
     return newSize;
   }
 
+  /**
+   * Computes a cheap, non-cryptographic 64-bit hash of a region of native memory that depends on
+   * every byte in it.
+   */
+  private static long fingerprint(long ptr, int length) {
+    long hash = 0xCBF29CE484222325L ^ length;
+    int i = 0;
+    for (; i + Long.BYTES <= length; i += Long.BYTES) {
+      hash = Long.rotateLeft(hash ^ UNSAFE.getLong(ptr + i), 29) * 0x9E3779B97F4A7C15L;
+    }
+    for (; i < length; i++) {
+      hash = (hash ^ UNSAFE.getByte(ptr + i)) * 0x100000001B3L;
+    }
+    return hash ^ (hash >>> 32);
+  }
+
   /*
    * Starts libFuzzer via LLVMFuzzerRunDriver.
    */
@@ -437,6 +525,10 @@ public final class FuzzTargetRunner {
   }
 
   private static void shutdown() {
+    if (collectMetrics) {
+      Metrics.report();
+    }
+
     if (!Opt.coverageDump.get().isEmpty() || !Opt.coverageReport.get().isEmpty()) {
       if (!Opt.coverageDump.get().isEmpty()) {
         CoverageRecorder.dumpJacocoCoverage(Opt.coverageDump.get());
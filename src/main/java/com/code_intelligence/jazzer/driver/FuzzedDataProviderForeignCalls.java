@@ -0,0 +1,181 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import com.code_intelligence.jazzer.utils.ForeignDowncalls;
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Invokes the native functions that consume integral values in {@link FuzzedDataProviderImpl} via
+ * downcall handles of the Foreign Function & Memory API instead of JNI.
+ *
+ * <p>The native functions can't access the fields of {@link FuzzedDataProviderImpl} and instead
+ * receive the data pointer and the number of remaining bytes as arguments. The caller is
+ * responsible for updating the number of remaining bytes. Methods that create Java objects, such as
+ * those consuming arrays or strings, need a {@code JNIEnv} and thus stay on JNI.
+ */
+final class FuzzedDataProviderForeignCalls {
+  // The indices of the function pointers returned by
+  // FuzzedDataProviderImpl#getForeignFunctionAddresses.
+  private static final int BYTE = 0;
+  private static final int BYTE_IN_RANGE = 1;
+  private static final int SHORT = 2;
+  private static final int SHORT_IN_RANGE = 3;
+  private static final int CHAR = 4;
+  private static final int CHAR_IN_RANGE = 5;
+  private static final int INT = 6;
+  private static final int INT_IN_RANGE = 7;
+  private static final int LONG = 8;
+  private static final int LONG_IN_RANGE = 9;
+  private static final int NUM_FUNCTIONS = 10;
+
+  private static final MethodHandle[] HANDLES = bindHandles();
+  // Kept in separate static final fields so that the JIT can treat them as constants.
+  private static final MethodHandle consumeByte = handle(BYTE);
+  private static final MethodHandle consumeByteInRange = handle(BYTE_IN_RANGE);
+  private static final MethodHandle consumeShort = handle(SHORT);
+  private static final MethodHandle consumeShortInRange = handle(SHORT_IN_RANGE);
+  private static final MethodHandle consumeChar = handle(CHAR);
+  private static final MethodHandle consumeCharInRange = handle(CHAR_IN_RANGE);
+  private static final MethodHandle consumeInt = handle(INT);
+  private static final MethodHandle consumeIntInRange = handle(INT_IN_RANGE);
+  private static final MethodHandle consumeLong = handle(LONG);
+  private static final MethodHandle consumeLongInRange = handle(LONG_IN_RANGE);
+
+  private FuzzedDataProviderForeignCalls() {}
+
+  static boolean isAvailable() {
+    return HANDLES != null;
+  }
+
+  static byte consumeByte(long dataPtr, int remainingBytes) {
+    try {
+      return (byte) consumeByte.invokeExact(dataPtr, remainingBytes);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static byte consumeByteInRange(long dataPtr, int remainingBytes, byte min, byte max) {
+    try {
+      return (byte) consumeByteInRange.invokeExact(dataPtr, remainingBytes, min, max);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static short consumeShort(long dataPtr, int remainingBytes) {
+    try {
+      return (short) consumeShort.invokeExact(dataPtr, remainingBytes);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static short consumeShortInRange(long dataPtr, int remainingBytes, short min, short max) {
+    try {
+      return (short) consumeShortInRange.invokeExact(dataPtr, remainingBytes, min, max);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static char consumeChar(long dataPtr, int remainingBytes) {
+    try {
+      return (char) consumeChar.invokeExact(dataPtr, remainingBytes);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static char consumeCharInRange(long dataPtr, int remainingBytes, char min, char max) {
+    try {
+      return (char) consumeCharInRange.invokeExact(dataPtr, remainingBytes, min, max);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static int consumeInt(long dataPtr, int remainingBytes) {
+    try {
+      return (int) consumeInt.invokeExact(dataPtr, remainingBytes);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static int consumeIntInRange(long dataPtr, int remainingBytes, int min, int max) {
+    try {
+      return (int) consumeIntInRange.invokeExact(dataPtr, remainingBytes, min, max);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static long consumeLong(long dataPtr, int remainingBytes) {
+    try {
+      return (long) consumeLong.invokeExact(dataPtr, remainingBytes);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static long consumeLongInRange(long dataPtr, int remainingBytes, long min, long max) {
+    try {
+      return (long) consumeLongInRange.invokeExact(dataPtr, remainingBytes, min, max);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  private static MethodHandle handle(int index) {
+    return HANDLES != null ? HANDLES[index] : null;
+  }
+
+  /**
+   * Returns the downcall handles indexed by the constants above, or {@code null} if the running JVM
+   * doesn't support critical downcalls or native access hasn't been enabled.
+   */
+  private static MethodHandle[] bindHandles() {
+    ForeignDowncalls downcalls = ForeignDowncalls.forCaller(FuzzedDataProviderForeignCalls.class);
+    if (downcalls == null) {
+      return null;
+    }
+    try {
+      // The data pointer is passed as a long.
+      long[] addresses = FuzzedDataProviderImpl.getForeignFunctionAddresses();
+      MethodHandle[] handles = new MethodHandle[NUM_FUNCTIONS];
+      bindIntegral(downcalls, addresses, handles, BYTE, "JAVA_BYTE");
+      bindIntegral(downcalls, addresses, handles, SHORT, "JAVA_SHORT");
+      bindIntegral(downcalls, addresses, handles, CHAR, "JAVA_CHAR");
+      bindIntegral(downcalls, addresses, handles, INT, "JAVA_INT");
+      bindIntegral(downcalls, addresses, handles, LONG, "JAVA_LONG");
+      return handles;
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      return null;
+    }
+  }
+
+  private static void bindIntegral(ForeignDowncalls downcalls, long[] addresses,
+      MethodHandle[] handles, int index, String layoutName) throws ReflectiveOperationException {
+    handles[index] =
+        downcalls.bind(addresses[index], false, layoutName, "JAVA_LONG", "JAVA_INT");
+    // The in range variant always directly follows the variant without bounds.
+    handles[index + 1] = downcalls.bind(
+        addresses[index + 1], false, layoutName, "JAVA_LONG", "JAVA_INT", layoutName, layoutName);
+  }
+}
@@ -27,6 +27,9 @@ public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable
 
   private static native void nativeInit();
 
+  // Initialized after nativeInit() has registered getForeignFunctionAddresses.
+  private static final boolean USE_FOREIGN_CALLS = FuzzedDataProviderForeignCalls.isAvailable();
+
   private final byte[] javaData;
   private long originalDataPtr;
   private int originalRemainingBytes;
@@ -136,11 +139,26 @@ public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable
     return nativeCopy;
   }
 
-  @Override public native boolean consumeBoolean();
+  @Override
+  public boolean consumeBoolean() {
+    if (USE_FOREIGN_CALLS) {
+      // Same as ConsumeBool in fuzzed_data_provider.cpp.
+      return (consumeByte() & 1) != 0;
+    }
+    return consumeBoolean0();
+  }
 
   @Override public native boolean[] consumeBooleans(int maxLength);
 
-  @Override public native byte consumeByte();
+  @Override
+  public byte consumeByte() {
+    if (USE_FOREIGN_CALLS) {
+      byte result = FuzzedDataProviderForeignCalls.consumeByte(dataPtr, remainingBytes);
+      consumeBytesForRange(0xFFL);
+      return result;
+    }
+    return consumeByte0();
+  }
 
   @Override
   public byte consumeByte(byte min, byte max) {
@@ -151,7 +169,15 @@ public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable
     return consumeByteUnchecked(min, max);
   }
 
-  @Override public native short consumeShort();
+  @Override
+  public short consumeShort() {
+    if (USE_FOREIGN_CALLS) {
+      short result = FuzzedDataProviderForeignCalls.consumeShort(dataPtr, remainingBytes);
+      consumeBytesForRange(0xFFFFL);
+      return result;
+    }
+    return consumeShort0();
+  }
 
   @Override
   public short consumeShort(short min, short max) {
@@ -164,7 +190,15 @@ public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable
 
   @Override public native short[] consumeShorts(int maxLength);
 
-  @Override public native int consumeInt();
+  @Override
+  public int consumeInt() {
+    if (USE_FOREIGN_CALLS) {
+      int result = FuzzedDataProviderForeignCalls.consumeInt(dataPtr, remainingBytes);
+      consumeBytesForRange(0xFFFFFFFFL);
+      return result;
+    }
+    return consumeInt0();
+  }
 
   @Override
   public int consumeInt(int min, int max) {
@@ -177,7 +211,15 @@ public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable
 
   @Override public native int[] consumeInts(int maxLength);
 
-  @Override public native long consumeLong();
+  @Override
+  public long consumeLong() {
+    if (USE_FOREIGN_CALLS) {
+      long result = FuzzedDataProviderForeignCalls.consumeLong(dataPtr, remainingBytes);
+      consumeBytesForRange(-1L);
+      return result;
+    }
+    return consumeLong0();
+  }
 
   @Override
   public long consumeLong(long min, long max) {
@@ -220,7 +262,15 @@ public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable
 
   @Override public native double consumeProbabilityDouble();
 
-  @Override public native char consumeChar();
+  @Override
+  public char consumeChar() {
+    if (USE_FOREIGN_CALLS) {
+      char result = FuzzedDataProviderForeignCalls.consumeChar(dataPtr, remainingBytes);
+      consumeBytesForRange(0xFFFFL);
+      return result;
+    }
+    return consumeChar0();
+  }
 
   @Override
   public char consumeChar(char min, char max) {
@@ -231,7 +281,18 @@ public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable
     return consumeCharUnchecked(min, max);
   }
 
-  @Override public native char consumeCharNoSurrogates();
+  @Override
+  public char consumeCharNoSurrogates() {
+    if (USE_FOREIGN_CALLS) {
+      // Same as ConsumeCharInternal in fuzzed_data_provider.cpp.
+      char result = consumeChar();
+      if (result >= 0xd800 && result < 0xe000) {
+        result -= 0xd800;
+      }
+      return result;
+    }
+    return consumeCharNoSurrogates0();
+  }
 
   @Override public native String consumeAsciiString(int maxLength);
 
@@ -247,11 +308,84 @@ public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable
 
   @Override public native int remainingBytes();
 
-  private native byte consumeByteUnchecked(byte min, byte max);
-  private native short consumeShortUnchecked(short min, short max);
-  private native char consumeCharUnchecked(char min, char max);
-  private native int consumeIntUnchecked(int min, int max);
-  private native long consumeLongUnchecked(long min, long max);
+  private byte consumeByteUnchecked(byte min, byte max) {
+    if (USE_FOREIGN_CALLS) {
+      byte result =
+          FuzzedDataProviderForeignCalls.consumeByteInRange(dataPtr, remainingBytes, min, max);
+      consumeBytesForRange((long) max - min);
+      return result;
+    }
+    return consumeByteUnchecked0(min, max);
+  }
+
+  private short consumeShortUnchecked(short min, short max) {
+    if (USE_FOREIGN_CALLS) {
+      short result =
+          FuzzedDataProviderForeignCalls.consumeShortInRange(dataPtr, remainingBytes, min, max);
+      consumeBytesForRange((long) max - min);
+      return result;
+    }
+    return consumeShortUnchecked0(min, max);
+  }
+
+  private char consumeCharUnchecked(char min, char max) {
+    if (USE_FOREIGN_CALLS) {
+      char result =
+          FuzzedDataProviderForeignCalls.consumeCharInRange(dataPtr, remainingBytes, min, max);
+      consumeBytesForRange((long) max - min);
+      return result;
+    }
+    return consumeCharUnchecked0(min, max);
+  }
+
+  private int consumeIntUnchecked(int min, int max) {
+    if (USE_FOREIGN_CALLS) {
+      int result =
+          FuzzedDataProviderForeignCalls.consumeIntInRange(dataPtr, remainingBytes, min, max);
+      consumeBytesForRange((long) max - min);
+      return result;
+    }
+    return consumeIntUnchecked0(min, max);
+  }
+
+  private long consumeLongUnchecked(long min, long max) {
+    if (USE_FOREIGN_CALLS) {
+      long result =
+          FuzzedDataProviderForeignCalls.consumeLongInRange(dataPtr, remainingBytes, min, max);
+      // The range is interpreted as an unsigned value.
+      consumeBytesForRange(max - min);
+      return result;
+    }
+    return consumeLongUnchecked0(min, max);
+  }
+
+  /**
+   * Updates the number of remaining bytes after an integral value with the given range has been
+   * consumed via {@link FuzzedDataProviderForeignCalls}. Must be kept in sync with
+   * ConsumeIntegralInRangeImpl in fuzzed_data_provider.cpp, which consumes a byte from the end of
+   * the data for every started 8 bits of the range.
+   */
+  private void consumeBytesForRange(long range) {
+    int numBytes = (Long.SIZE - Long.numberOfLeadingZeros(range) + Byte.SIZE - 1) / Byte.SIZE;
+    remainingBytes -= Math.min(remainingBytes, numBytes);
+  }
+
+  // Returns the addresses of the native functions that are bound by
+  // FuzzedDataProviderForeignCalls.
+  static native long[] getForeignFunctionAddresses();
+
+  private native boolean consumeBoolean0();
+  private native byte consumeByte0();
+  private native short consumeShort0();
+  private native char consumeChar0();
+  private native char consumeCharNoSurrogates0();
+  private native int consumeInt0();
+  private native long consumeLong0();
+  private native byte consumeByteUnchecked0(byte min, byte max);
+  private native short consumeShortUnchecked0(short min, short max);
+  private native char consumeCharUnchecked0(char min, char max);
+  private native int consumeIntUnchecked0(int min, int max);
+  private native long consumeLongUnchecked0(long min, long max);
   private native float consumeRegularFloatUnchecked(float min, float max);
   private native double consumeRegularDoubleUnchecked(double min, double max);
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+/**
+ * Metrics about the executions and mutations performed by the fuzzer, registered with the platform
+ * MBean server as {@code com.code_intelligence.jazzer:type=FuzzerMetrics} if {@code --metrics} is
+ * set.
+ *
+ * <p>All latencies are given in nanoseconds, all counts are totals since the fuzzer started.
+ */
+public interface FuzzerMetricsMXBean {
+  /** Time spent preparing the arguments of the fuzz target, e.g. deserializing them. */
+  LatencyHistogram.Summary getInputNanos();
+
+  /** Time spent in the fuzz target, including the hooks it triggers. */
+  LatencyHistogram.Summary getTargetNanos();
+
+  /** Time spent preprocessing and deduplicating findings. */
+  LatencyHistogram.Summary getFindingNanos();
+
+  /** Time spent mutating an input and writing it back to libFuzzer. */
+  LatencyHistogram.Summary getMutateNanos();
+
+  /** Time spent crossing over two inputs and writing the result back to libFuzzer. */
+  LatencyHistogram.Summary getCrossOverNanos();
+
+  /**
+   * Bytes allocated by the fuzzing thread while preparing arguments and executing the fuzz target,
+   * or -1 if the JVM does not support measuring allocations.
+   */
+  long getExecutionAllocatedBytes();
+
+  /**
+   * Bytes allocated by the fuzzing thread while mutating and crossing over inputs, or -1 if the JVM
+   * does not support measuring allocations.
+   */
+  long getMutationAllocatedBytes();
+
+  long getStringCompareHooks();
+
+  long getByteArrayCompareHooks();
+
+  long getMapGetHooks();
+
+  /** The number of coverage counters currently registered with libFuzzer. */
+  int getCoverageCounters();
+}
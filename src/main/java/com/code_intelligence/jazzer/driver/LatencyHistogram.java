@@ -0,0 +1,189 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative latencies in nanoseconds with a fixed memory footprint and constant
+ * recording cost, modelled after HdrHistogram.
+ *
+ * <p>Every range [2^k, 2^(k+1)) of values is split into {@link #SUB_BUCKETS} buckets of equal
+ * width, so values are reported with a relative error of at most 1 / {@link #SUB_BUCKETS}.
+ *
+ * <p>Values must only be recorded by one thread at a time, but the histogram can be read
+ * concurrently from any thread.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // Values below SUB_BUCKETS are recorded exactly, every further power of two up to 2^63 gets
+  // SUB_BUCKETS buckets.
+  private static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a single value, negative values are recorded as 0.
+   */
+  void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    // There is only a single writer, so lazySet is sufficient and avoids the cost of a full fence.
+    int index = bucketIndex(value);
+    counts.lazySet(index, counts.get(index) + 1);
+    count.lazySet(count.get() + 1);
+    sum.lazySet(sum.get() + value);
+    if (value > max.get()) {
+      max.lazySet(value);
+    }
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public double getMean() {
+    long currentCount = count.get();
+    return currentCount == 0 ? 0 : (double) sum.get() / currentCount;
+  }
+
+  /**
+   * Returns the largest value that is equivalent to the value below which the given percentage of
+   * recorded values fall, or 0 if no values have been recorded.
+   *
+   * @param percentile a number in [0, 100]
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be in [0, 100], got " + percentile);
+    }
+    // Counts may be updated while they are read, so sum them up rather than using count.
+    long[] snapshot = new long[NUM_BUCKETS];
+    long total = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= target) {
+        return Math.min(highestEquivalentValue(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Returns the current count, mean, maximum and common percentiles of the recorded values.
+   */
+  public Summary summarize() {
+    return new Summary(getCount(), getMean(), getValueAtPercentile(50), getValueAtPercentile(90),
+        getValueAtPercentile(99), getValueAtPercentile(99.9), getMax());
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    // The top SUB_BUCKET_BITS + 1 bits of value, the highest of which is always set.
+    int mantissa = (int) (value >>> shift);
+    return (shift + 1) * SUB_BUCKETS + mantissa - SUB_BUCKETS;
+  }
+
+  static long highestEquivalentValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+    return ((mantissa + 1) << shift) - 1;
+  }
+
+  /**
+   * An immutable summary of a {@link LatencyHistogram}, exposed as composite data over JMX.
+   */
+  public static final class Summary {
+    private final long count;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    Summary(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+      this.count = count;
+      this.mean = mean;
+      this.p50 = p50;
+      this.p90 = p90;
+      this.p99 = p99;
+      this.p999 = p999;
+      this.max = max;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public double getMean() {
+      return mean;
+    }
+
+    public long getP50() {
+      return p50;
+    }
+
+    public long getP90() {
+      return p90;
+    }
+
+    public long getP99() {
+      return p99;
+    }
+
+    public long getP999() {
+      return p999;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    String toJson() {
+      return String.format(Locale.ROOT,
+          "{\"count\":%d,\"mean\":%.1f,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"p999\":%d,\"max\":%d}",
+          count, mean, p50, p90, p99, p999, max);
+    }
+  }
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+
+/**
+ * An append-only file that records the coverage features of every input executed during an
+ * in-process merge, so that a merge interrupted by a crash can be resumed without executing the
+ * inputs that have already been recorded.
+ *
+ * <p>The file consists of a header followed by records of two kinds:
+ * <ul>
+ *   <li>{@code 'S'}: The execution of an input identified by path, size and modification time has
+ *   started.</li>
+ *   <li>{@code 'F'}: The execution of the input started by the preceding record finished and covered
+ *   the listed features, which are stored in increasing order as variable-length deltas.</li>
+ * </ul>
+ * An input whose start record isn't followed by a features record brought down the process and is
+ * not executed again, just like libFuzzer's {@code -merge} skips crashing inputs.
+ */
+final class MergeIndex implements Closeable {
+  private static final byte[] MAGIC = "JAZZER_MERGE_INDEX_1\n".getBytes(UTF_8);
+  private static final int STARTED = 'S';
+  private static final int FEATURES = 'F';
+
+  /** An input recorded in the index. */
+  static final class Entry {
+    final String path;
+    final long size;
+    final long lastModified;
+    // The features in increasing order, delta and varint encoded. null if the input didn't finish
+    // executing.
+    private byte[] encodedFeatures;
+    private int numFeatures;
+
+    Entry(String path, long size, long lastModified) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+
+    boolean isComplete() {
+      return encodedFeatures != null;
+    }
+
+    int numFeatures() {
+      return numFeatures;
+    }
+
+    void forEachFeature(IntConsumer consumer) {
+      int feature = 0;
+      int pos = 0;
+      while (pos < encodedFeatures.length) {
+        int delta = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = encodedFeatures[pos++];
+          delta |= (b & 0x7F) << shift;
+          shift += 7;
+        } while (b < 0);
+        feature += delta;
+        consumer.accept(feature);
+      }
+    }
+
+    private int countFeaturesNotIn(BitSet features) {
+      int[] count = new int[1];
+      forEachFeature(feature -> {
+        if (!features.get(feature)) {
+          count[0]++;
+        }
+      });
+      return count[0];
+    }
+
+    @Override
+    public String toString() {
+      return path;
+    }
+  }
+
+  private final Map<String, Entry> recordedEntries;
+  private final OutputStream out;
+
+  private MergeIndex(Map<String, Entry> recordedEntries, OutputStream out) {
+    this.recordedEntries = recordedEntries;
+    this.out = out;
+  }
+
+  /**
+   * Opens the index at {@code path} for appending, creating it if it doesn't exist. A partially
+   * written or malformed record at the end of the file, as left behind by a crash, is discarded
+   * together with everything following it.
+   */
+  static MergeIndex open(Path path) throws IOException {
+    Map<String, Entry> entries = new HashMap<>();
+    long validLength = 0;
+    if (Files.exists(path)) {
+      try (CountingInputStream in = new CountingInputStream(
+               new BufferedInputStream(Files.newInputStream(path)), Files.size(path))) {
+        validLength = readRecords(in, entries);
+      }
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+             StandardOpenOption.WRITE)) {
+      channel.truncate(validLength);
+    }
+    OutputStream out = new BufferedOutputStream(
+        Files.newOutputStream(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    if (validLength == 0) {
+      out.write(MAGIC);
+    }
+    return new MergeIndex(entries, out);
+  }
+
+  /**
+   * Reads all complete records from {@code in} into {@code entries} and returns the number of bytes
+   * they take up.
+   */
+  private static long readRecords(CountingInputStream in, Map<String, Entry> entries)
+      throws IOException {
+    byte[] magic = new byte[MAGIC.length];
+    try {
+      in.readFully(magic);
+    } catch (EOFException e) {
+      return 0;
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (magic[i] != MAGIC[i]) {
+        throw new IOException("Not a merge index or created by a different version of Jazzer");
+      }
+    }
+
+    long validLength = in.position;
+    Entry lastStarted = null;
+    long lastStartedPosition = 0;
+    int tag = -1;
+    try {
+      while ((tag = in.read()) != -1) {
+        if (tag == STARTED) {
+          lastStartedPosition = validLength;
+          byte[] path = in.readFully(readVarInt(in));
+          lastStarted = new Entry(new String(path, UTF_8), readVarLong(in), readVarLong(in));
+          entries.put(lastStarted.path, lastStarted);
+        } else if (tag == FEATURES && lastStarted != null && !lastStarted.isComplete()) {
+          int numFeatures = readVarInt(in);
+          byte[] encodedFeatures = in.readFully(readVarInt(in));
+          lastStarted.numFeatures = numFeatures;
+          lastStarted.encodedFeatures = encodedFeatures;
+        } else {
+          // Not the start of a valid record, drop the rest of the file.
+          break;
+        }
+        validLength = in.position;
+      }
+    } catch (EOFException | MalformedRecordException e) {
+      if (tag == FEATURES) {
+        // The input finished executing, but its features were only written partially or are
+        // corrupted. Drop its start record as well so that it is executed again rather than
+        // skipped.
+        entries.remove(lastStarted.path);
+        validLength = lastStartedPosition;
+      }
+      // Otherwise, a start record was cut off or corrupted, which is dropped.
+    }
+    return validLength;
+  }
+
+  /**
+   * Returns the recorded entry for the input at {@code path} if it hasn't changed since it was
+   * recorded, otherwise {@code null}. Safe to call concurrently with the methods that record new
+   * entries.
+   */
+  Entry lookup(String path, long size, long lastModified) {
+    Entry entry = recordedEntries.get(path);
+    if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+      return null;
+    }
+    return entry;
+  }
+
+  /**
+   * Records that the execution of an input is about to start and writes this record, as well as all
+   * previous ones, to the file before returning so that the input is skipped when resuming after it
+   * brings down the process.
+   *
+   * <p>The records are handed to the operating system, but not synced to disk, as that would slow
+   * down the merge considerably. They are thus lost if the machine rather than the process crashes,
+   * in which case the affected inputs are executed again.
+   */
+  Entry recordStarted(String path, long size, long lastModified) throws IOException {
+    byte[] pathBytes = path.getBytes(UTF_8);
+    out.write(STARTED);
+    writeVarLong(out, pathBytes.length);
+    out.write(pathBytes);
+    writeVarLong(out, size);
+    writeVarLong(out, lastModified);
+    out.flush();
+    return new Entry(path, size, lastModified);
+  }
+
+  /**
+   * Records the features covered by {@code entry}, which must be the entry most recently returned
+   * by {@link #recordStarted(String, long, long)}. The first {@code numFeatures} elements of
+   * {@code features} have to be in increasing order.
+   *
+   * <p>The record is only buffered, it is written out together with the next start record.
+   */
+  void recordFeatures(Entry entry, int[] features, int numFeatures) throws IOException {
+    entry.numFeatures = numFeatures;
+    entry.encodedFeatures = encodeFeatures(features, numFeatures);
+    out.write(FEATURES);
+    writeVarLong(out, numFeatures);
+    writeVarLong(out, entry.encodedFeatures.length);
+    out.write(entry.encodedFeatures);
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  /**
+   * Greedily selects a small subset of {@code candidates} such that its entries, together with
+   * the entries in {@code kept}, cover all features covered by any of them.
+   *
+   * <p>In every step, the candidate adding the most features not covered yet is selected, with ties
+   * broken in favor of smaller inputs. Since the number of new features of a candidate can only
+   * decrease as the selection grows, stale counts are used as upper bounds and only recomputed for
+   * the candidate that would be selected next.
+   */
+  static List<Entry> selectCover(Collection<Entry> kept, Collection<Entry> candidates) {
+    BitSet coveredFeatures = new BitSet();
+    for (Entry entry : kept) {
+      if (entry.isComplete()) {
+        entry.forEachFeature(coveredFeatures::set);
+      }
+    }
+
+    PriorityQueue<Candidate> queue = new PriorityQueue<>(
+        Comparator.<Candidate>comparingInt(candidate -> candidate.newFeatures)
+            .reversed()
+            .thenComparingLong(candidate -> candidate.entry.size)
+            .thenComparing(candidate -> candidate.entry.path));
+    for (Entry entry : candidates) {
+      if (entry.isComplete() && entry.numFeatures > 0) {
+        queue.add(new Candidate(entry));
+      }
+    }
+
+    List<Entry> selected = new ArrayList<>();
+    while (!queue.isEmpty()) {
+      Candidate candidate = queue.poll();
+      int newFeatures = candidate.entry.countFeaturesNotIn(coveredFeatures);
+      if (newFeatures == 0) {
+        continue;
+      }
+      if (newFeatures < candidate.newFeatures) {
+        candidate.newFeatures = newFeatures;
+        queue.add(candidate);
+        continue;
+      }
+      candidate.entry.forEachFeature(coveredFeatures::set);
+      selected.add(candidate.entry);
+    }
+    return selected;
+  }
+
+  private static final class Candidate {
+    final Entry entry;
+    // An upper bound on the number of features the entry would add to the selection.
+    int newFeatures;
+
+    Candidate(Entry entry) {
+      this.entry = entry;
+      this.newFeatures = entry.numFeatures;
+    }
+  }
+
+  static byte[] encodeFeatures(int[] features, int numFeatures) {
+    // Every delta takes up at most 5 bytes.
+    byte[] buffer = new byte[5 * numFeatures];
+    int pos = 0;
+    int previous = 0;
+    for (int i = 0; i < numFeatures; i++) {
+      int delta = features[i] - previous;
+      previous = features[i];
+      while ((delta & ~0x7F) != 0) {
+        buffer[pos++] = (byte) ((delta & 0x7F) | 0x80);
+        delta >>>= 7;
+      }
+      buffer[pos++] = (byte) delta;
+    }
+    byte[] encoded = new byte[pos];
+    System.arraycopy(buffer, 0, encoded, 0, pos);
+    return encoded;
+  }
+
+  private static void writeVarLong(OutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static long readVarLong(InputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.read();
+      if (b == -1) {
+        throw new EOFException();
+      }
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new MalformedRecordException("Malformed varint in merge index");
+  }
+
+  private static int readVarInt(InputStream in) throws IOException {
+    long value = readVarLong(in);
+    if (value < 0 || value > Integer.MAX_VALUE) {
+      throw new MalformedRecordException("Malformed length in merge index");
+    }
+    return (int) value;
+  }
+
+  private static final class MalformedRecordException extends IOException {
+    MalformedRecordException(String message) {
+      super(message);
+    }
+  }
+
+  private static final class CountingInputStream extends FilterInputStream {
+    private final long size;
+    long position = 0;
+
+    CountingInputStream(InputStream in, long size) {
+      super(in);
+      this.size = size;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1) {
+        position++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read != -1) {
+        position += read;
+      }
+      return read;
+    }
+
+    void readFully(byte[] b) throws IOException {
+      int off = 0;
+      while (off < b.length) {
+        int read = read(b, off, b.length - off);
+        if (read == -1) {
+          throw new EOFException();
+        }
+        off += read;
+      }
+    }
+
+    /**
+     * Reads the next {@code length} bytes, failing without allocating them if the file isn't long
+     * enough, e.g. because the length is corrupted.
+     */
+    byte[] readFully(int length) throws IOException {
+      if (length > size - position) {
+        throw new EOFException();
+      }
+      byte[] b = new byte[length];
+      readFully(b);
+      return b;
+    }
+  }
+}
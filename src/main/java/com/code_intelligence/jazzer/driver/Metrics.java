@@ -0,0 +1,207 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import com.code_intelligence.jazzer.runtime.CoverageMap;
+import com.code_intelligence.jazzer.runtime.HookCounters;
+import com.code_intelligence.jazzer.utils.Log;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Collects latencies and allocations of the individual steps of every execution and mutation if
+ * {@code --metrics} is set, and publishes them together with the counts of certain hooks via JMX
+ * and periodic {@code METRICS} lines in the log.
+ *
+ * <p>The record methods must only be called from the thread that runs libFuzzer.
+ */
+final class Metrics implements FuzzerMetricsMXBean {
+  private static final String OBJECT_NAME = "com.code_intelligence.jazzer:type=FuzzerMetrics";
+
+  private static final LatencyHistogram input = new LatencyHistogram();
+  private static final LatencyHistogram target = new LatencyHistogram();
+  private static final LatencyHistogram finding = new LatencyHistogram();
+  private static final LatencyHistogram mutate = new LatencyHistogram();
+  private static final LatencyHistogram crossOver = new LatencyHistogram();
+  private static final AtomicLong executionAllocatedBytes = new AtomicLong();
+  private static final AtomicLong mutationAllocatedBytes = new AtomicLong();
+
+  // Null if the JVM can't measure the allocations of individual threads.
+  private static final com.sun.management.ThreadMXBean threadMXBean = allocationMeasuringMXBean();
+
+  private Metrics() {}
+
+  /**
+   * Registers the MBean, starts counting hooks and prints a {@code METRICS} line every {@code
+   * intervalSeconds} seconds (never if 0).
+   */
+  static void start(long intervalSeconds) {
+    HookCounters.enable();
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(
+          new Metrics(), new ObjectName(OBJECT_NAME));
+    } catch (JMException e) {
+      Log.warn("Failed to register metrics MBean", e);
+    }
+    if (intervalSeconds == 0) {
+      return;
+    }
+    ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "jazzer-metrics");
+      thread.setDaemon(true);
+      return thread;
+    });
+    reporter.scheduleAtFixedRate(
+        Metrics::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Prints the current metrics as a single line of JSON.
+   */
+  static void report() {
+    Log.metrics(String.format(Locale.ROOT,
+        "{\"timestamp_ms\":%d,\"input_ns\":%s,\"target_ns\":%s,\"finding_ns\":%s,"
+            + "\"mutate_ns\":%s,\"cross_over_ns\":%s,\"execution_allocated_bytes\":%d,"
+            + "\"mutation_allocated_bytes\":%d,\"string_compare_hooks\":%d,"
+            + "\"byte_array_compare_hooks\":%d,\"map_get_hooks\":%d,\"coverage_counters\":%d}",
+        System.currentTimeMillis(), input.summarize().toJson(), target.summarize().toJson(),
+        finding.summarize().toJson(), mutate.summarize().toJson(), crossOver.summarize().toJson(),
+        allocatedBytes(executionAllocatedBytes), allocatedBytes(mutationAllocatedBytes),
+        HookCounters.getStringCompares(), HookCounters.getByteArrayCompares(),
+        HookCounters.getMapGets(), CoverageMap.getNumCounters()));
+  }
+
+  /**
+   * Returns the total number of bytes allocated by the current thread so far, or 0 if the JVM
+   * can't measure it.
+   */
+  static long currentThreadAllocatedBytes() {
+    if (threadMXBean == null) {
+      return 0;
+    }
+    return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Records an execution of the fuzz target that started at {@code startTime}, with the target
+   * invoked at {@code invokeTime}, and has just finished.
+   */
+  static void recordExecution(long startTime, long invokeTime, long startAllocatedBytes) {
+    long endTime = System.nanoTime();
+    add(executionAllocatedBytes, currentThreadAllocatedBytes() - startAllocatedBytes);
+    input.record(invokeTime - startTime);
+    target.record(endTime - invokeTime);
+  }
+
+  static void recordFinding(long startTime) {
+    finding.record(System.nanoTime() - startTime);
+  }
+
+  static void recordMutation(long startTime, long startAllocatedBytes) {
+    mutate.record(System.nanoTime() - startTime);
+    add(mutationAllocatedBytes, currentThreadAllocatedBytes() - startAllocatedBytes);
+  }
+
+  static void recordCrossOver(long startTime, long startAllocatedBytes) {
+    crossOver.record(System.nanoTime() - startTime);
+    add(mutationAllocatedBytes, currentThreadAllocatedBytes() - startAllocatedBytes);
+  }
+
+  private static void add(AtomicLong counter, long delta) {
+    // Only written to by a single thread.
+    counter.lazySet(counter.get() + delta);
+  }
+
+  private static long allocatedBytes(AtomicLong counter) {
+    return threadMXBean != null ? counter.get() : -1;
+  }
+
+  private static com.sun.management.ThreadMXBean allocationMeasuringMXBean() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      return null;
+    }
+    com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+    if (!sunBean.isThreadAllocatedMemorySupported()) {
+      return null;
+    }
+    sunBean.setThreadAllocatedMemoryEnabled(true);
+    return sunBean;
+  }
+
+  @Override
+  public LatencyHistogram.Summary getInputNanos() {
+    return input.summarize();
+  }
+
+  @Override
+  public LatencyHistogram.Summary getTargetNanos() {
+    return target.summarize();
+  }
+
+  @Override
+  public LatencyHistogram.Summary getFindingNanos() {
+    return finding.summarize();
+  }
+
+  @Override
+  public LatencyHistogram.Summary getMutateNanos() {
+    return mutate.summarize();
+  }
+
+  @Override
+  public LatencyHistogram.Summary getCrossOverNanos() {
+    return crossOver.summarize();
+  }
+
+  @Override
+  public long getExecutionAllocatedBytes() {
+    return allocatedBytes(executionAllocatedBytes);
+  }
+
+  @Override
+  public long getMutationAllocatedBytes() {
+    return allocatedBytes(mutationAllocatedBytes);
+  }
+
+  @Override
+  public long getStringCompareHooks() {
+    return HookCounters.getStringCompares();
+  }
+
+  @Override
+  public long getByteArrayCompareHooks() {
+    return HookCounters.getByteArrayCompares();
+  }
+
+  @Override
+  public long getMapGetHooks() {
+    return HookCounters.getMapGets();
+  }
+
+  @Override
+  public int getCoverageCounters() {
+    return CoverageMap.getNumCounters();
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import java.io.InputStream;
+import sun.misc.Unsafe;
+
+/**
+ * An {@link InputStream} that reads directly from a region of native memory, e.g. an input passed
+ * in by libFuzzer, without first copying it into a {@code byte[]}.
+ *
+ * <p>Instances are meant to be reused across executions via {@link #reset(long, int)} and are not
+ * thread-safe. The caller is responsible for keeping the native memory alive while the stream is
+ * used. In contrast to most other streams, {@link #available()} is exact, which makes instances
+ * suitable for {@code ArgumentsMutator#read}.
+ */
+public final class NativeMemoryInputStream extends InputStream {
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+  private static final long BYTE_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+  private long address;
+  private int length;
+  private int position;
+
+  public NativeMemoryInputStream() {
+    this(0, 0);
+  }
+
+  public NativeMemoryInputStream(long address, int length) {
+    reset(address, length);
+  }
+
+  /**
+   * Points this stream at a new region of native memory and rewinds it to the beginning.
+   *
+   * @param address a native pointer to the first byte of the region
+   * @param length  the length of the region in bytes
+   * @return this stream
+   */
+  public NativeMemoryInputStream reset(long address, int length) {
+    if (length < 0) {
+      throw new IllegalArgumentException("length must be non-negative, got " + length);
+    }
+    this.address = address;
+    this.length = length;
+    this.position = 0;
+    return this;
+  }
+
+  @Override
+  public int read() {
+    if (position >= length) {
+      return -1;
+    }
+    return UNSAFE.getByte(address + position++) & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    int remaining = length - position;
+    if (remaining <= 0) {
+      return -1;
+    }
+    int toRead = Math.min(len, remaining);
+    UNSAFE.copyMemory(null, address + position, b, BYTE_ARRAY_OFFSET + off, toRead);
+    position += toRead;
+    return toRead;
+  }
+
+  @Override
+  public long skip(long n) {
+    if (n <= 0) {
+      return 0;
+    }
+    int toSkip = (int) Math.min(n, length - position);
+    position += toSkip;
+    return toSkip;
+  }
+
+  @Override
+  public int available() {
+    return length - position;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import java.io.OutputStream;
+import sun.misc.Unsafe;
+
+/**
+ * An {@link OutputStream} that writes directly into a fixed-size region of native memory, e.g. the
+ * output buffer of libFuzzer's custom mutator, without going through an intermediate
+ * {@code byte[]}.
+ *
+ * <p>Bytes written past the end of the region are silently dropped, which matches libFuzzer's
+ * semantics of truncating mutated inputs to the maximum allowed size. Instances are meant to be
+ * reused across executions via {@link #reset(long, int)} and are not thread-safe.
+ */
+public final class NativeMemoryOutputStream extends OutputStream {
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+  private static final long BYTE_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+  private long address;
+  private int capacity;
+  private int size;
+  private boolean truncated;
+
+  public NativeMemoryOutputStream() {
+    this(0, 0);
+  }
+
+  public NativeMemoryOutputStream(long address, int capacity) {
+    reset(address, capacity);
+  }
+
+  /**
+   * Points this stream at a new region of native memory and discards the previous size.
+   *
+   * @param address  a native pointer to the first byte of the region
+   * @param capacity the maximum number of bytes that will be written to the region
+   * @return this stream
+   */
+  public NativeMemoryOutputStream reset(long address, int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity must be non-negative, got " + capacity);
+    }
+    this.address = address;
+    this.capacity = capacity;
+    this.size = 0;
+    this.truncated = false;
+    return this;
+  }
+
+  /**
+   * @return the number of bytes written to native memory since the last call to
+   * {@link #reset(long, int)}, which never exceeds the capacity
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return whether bytes have been dropped since the last call to {@link #reset(long, int)}
+   * because the capacity was exceeded
+   */
+  public boolean isTruncated() {
+    return truncated;
+  }
+
+  @Override
+  public void write(int b) {
+    if (size < capacity) {
+      UNSAFE.putByte(address + size++, (byte) b);
+    } else {
+      truncated = true;
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    int toWrite = Math.min(len, capacity - size);
+    if (toWrite < len) {
+      truncated = true;
+    }
+    if (toWrite <= 0) {
+      return;
+    }
+    UNSAFE.copyMemory(b, BYTE_ARRAY_OFFSET + off, null, address + size, toWrite);
+    size += toWrite;
+  }
+}
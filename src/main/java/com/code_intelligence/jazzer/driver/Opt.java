@@ -79,10 +79,16 @@ public final class Opt {
       "asan", false, "Allow fuzzing of native libraries compiled with '-fsanitize=address'");
   public static final OptItem<List<String>> autofuzzIgnore = stringListSetting("autofuzz_ignore",
       ',', "Fully qualified names of exception classes to ignore during fuzzing");
+  public static final OptItem<String> coverageCounterUpdate = stringSetting(
+      "coverage_counter_update", "never_zero",
+      "How coverage counters are incremented (never_zero, never_zero_branchfree, saturating, wrapping)");
   public static final OptItem<String> coverageDump = stringSetting("coverage_dump", "",
       "Path to write a JaCoCo .exec file to when the fuzzer exits (if non-empty)");
   public static final OptItem<String> coverageReport = stringSetting("coverage_report", "",
       "Path to write a human-readable coverage report to when the fuzzer exits (if non-empty)");
+  public static final OptItem<Boolean> coverageInlineUnsafe = boolSetting("coverage_inline_unsafe",
+      false,
+      "Update coverage counters with Unsafe accesses inlined into the instrumented code instead of a static method call (not supported on Android)");
   public static final OptItem<List<String>> cp =
       stringListSetting("cp", "The class path to use for fuzzing (native launcher only)");
   public static final OptItem<List<String>> customHookExcludes = OptParser.stringListSetting(
@@ -99,6 +105,9 @@ public final class Opt {
       "Names of classes from which hooks (custom or built-in) should not be loaded from");
   public static final OptItem<String> dumpClassesDir = stringSetting(
       "dump_classes_dir", "", "Directory to dump instrumented .class files into (if non-empty)");
+  public static final OptItem<Boolean> eagerInstrumentation = boolSetting("eager_instrumentation",
+      false,
+      "Instrument all classes on the classpath selected by --instrumentation_includes in parallel at startup instead of when they are loaded");
   public static final OptItem<Boolean> experimentalMutator =
       boolSetting("experimental_mutator", false, "Use an experimental structured mutator");
   public static final OptItem<Long> experimentalCrossOverFrequency = uint64Setting(
@@ -118,11 +127,18 @@ public final class Opt {
           + "Jazzer will create a temporary file and pass it to subprocesses.");
   public static final OptItem<List<String>> ignore = stringListSetting("ignore", ',',
       "Hex strings representing deduplication tokens of findings that should be ignored");
+  public static final OptItem<Boolean> inProcessMerge = boolSetting("in_process_merge", false,
+      "Run -merge=1 in the current process: Run every input once, record its coverage in the merge "
+          + "index and copy a minimal subset of the inputs covering all features into the first "
+          + "corpus directory (honors -timeout, ignores the other libFuzzer merge flags)");
   public static final OptItem<List<String>> instrument = OptParser.stringListSetting("instrument",
       ',',
       "Glob patterns matching names of classes that should be instrumented for fuzzing. This "
           + "sets both instrumentation_includes and custom_hook_includes, depending on the mode "
           + "(regression test or fuzzing). Only used for JUnit fuzz tests");
+  public static final OptItem<String> instrumentationCacheDir =
+      stringSetting("instrumentation_cache_dir", "",
+          "Directory to cache instrumented classes in across runs and processes (if non-empty)");
   public static final OptItem<List<String>> instrumentationExcludes =
       OptParser.stringListSetting("instrumentation_excludes",
           "Glob patterns matching names of classes that should not be instrumented for fuzzing");
@@ -131,6 +147,16 @@ public final class Opt {
           "Glob patterns matching names of classes to instrument for fuzzing");
   public static final OptItem<Long> keepGoing = uint64Setting(
       "keep_going", 1, "Number of distinct findings after which the fuzzer should stop");
+  public static final OptItem<String> mergeIndex = stringSetting("merge_index", "",
+      "File in which --in_process_merge records the coverage of inputs so that an interrupted merge "
+          + "can be resumed (if empty, a file in the temporary directory derived from the corpus "
+          + "directories)");
+  public static final OptItem<Boolean> metrics = boolSetting("metrics", false,
+      "Measure the latencies and allocations of executions and mutations and count the string "
+          + "comparison and map lookup hooks fired, exposed via the JMX MBean "
+          + "com.code_intelligence.jazzer:type=FuzzerMetrics and METRICS lines in the log");
+  public static final OptItem<Long> metricsInterval = uint64Setting("metrics_interval", 60,
+      "Interval in seconds at which --metrics prints a METRICS line (0 = only at exit)");
   public static final OptItem<String> reproducerPath = stringSetting("reproducer_path", ".",
       "Directory in which stand-alone Java reproducers are stored for each finding");
   public static final OptItem<List<String>> targetArgs = stringListSetting(
@@ -142,6 +168,8 @@ public final class Opt {
       "The name of the @FuzzTest to execute in the class specified by --target_class");
   public static final OptItem<List<String>> trace = stringListSetting("trace",
       "Types of instrumentation to apply: cmp, cov, div, gep (disabled by default), indir, native");
+  public static final OptItem<Boolean> traceBuffering = boolSetting("trace_buffering", false,
+      "Buffer the data flow tracing callbacks of an execution and pass them to libFuzzer in batches");
   public static final OptItem<Boolean> ubsan = boolSetting(
       "ubsan", false, "Allow fuzzing of native libraries compiled with '-fsanitize=undefined'");
 
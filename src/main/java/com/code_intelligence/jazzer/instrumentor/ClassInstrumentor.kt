@@ -15,6 +15,10 @@
 package com.code_intelligence.jazzer.instrumentor
 
 import com.code_intelligence.jazzer.runtime.CoverageMap
+import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.instr.InstrSupport
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.tree.ClassNode
 
 fun extractClassFileMajorVersion(classfileBuffer: ByteArray): Int {
     return ((classfileBuffer[6].toInt() and 0xff) shl 8) or (classfileBuffer[7].toInt() and 0xff)
@@ -25,9 +29,9 @@ class ClassInstrumentor(private val internalClassName: String, bytecode: ByteArr
     var instrumentedBytecode = bytecode
         private set
 
-    fun coverage(initialEdgeId: Int): Int {
+    fun coverage(initialEdgeId: Int, edgeCoverageStrategy: EdgeCoverageStrategy = defaultEdgeCoverageStrategy): Int {
         val edgeCoverageInstrumentor = EdgeCoverageInstrumentor(
-            defaultEdgeCoverageStrategy,
+            edgeCoverageStrategy,
             defaultCoverageMap,
             initialEdgeId,
         )
@@ -40,16 +44,96 @@ class ClassInstrumentor(private val internalClassName: String, bytecode: ByteArr
             TraceDataFlowInstrumentor(instrumentations).instrument(internalClassName, instrumentedBytecode)
     }
 
-    fun hooks(hooks: Iterable<Hook>, classWithHooksEnabledField: String?) {
+    fun hooks(hooks: Iterable<Hook>, classWithHooksEnabledField: String?) =
+        hooks(HookIndex(hooks), classWithHooksEnabledField)
+
+    fun hooks(hookIndex: HookIndex, classWithHooksEnabledField: String?) {
         instrumentedBytecode = HookInstrumentor(
-            hooks,
+            hookIndex,
             java6Mode = extractClassFileMajorVersion(instrumentedBytecode) < 51,
             classWithHooksEnabledField = classWithHooksEnabledField,
         ).instrument(internalClassName, instrumentedBytecode)
     }
 
+    /**
+     * Applies the same instrumentation as [coverage], [traceDataFlow] and [hooks] called in this order, but decodes and
+     * encodes the class only once rather than once per step.
+     *
+     * @return the number of edge IDs used
+     */
+    fun fullInstrumentation(
+        initialEdgeId: Int,
+        edgeCoverageStrategy: EdgeCoverageStrategy,
+        instrumentations: Set<InstrumentationType>,
+        hooks: Iterable<Hook>,
+        classWithHooksEnabledField: String?,
+    ) = fullInstrumentation(
+        initialEdgeId,
+        edgeCoverageStrategy,
+        instrumentations,
+        HookIndex(hooks),
+        classWithHooksEnabledField,
+    )
+
+    fun fullInstrumentation(
+        initialEdgeId: Int,
+        edgeCoverageStrategy: EdgeCoverageStrategy,
+        instrumentations: Set<InstrumentationType>,
+        hookIndex: HookIndex,
+        classWithHooksEnabledField: String?,
+    ): Int {
+        val reader = InstrSupport.classReaderFor(instrumentedBytecode)
+        val edgeCoverageInstrumentor = EdgeCoverageInstrumentor(
+            edgeCoverageStrategy,
+            defaultCoverageMap,
+            initialEdgeId,
+        )
+        // Coverage instrumentation must be performed before any other code updates or there will be additional
+        // coverage points injected if any calls are inserted and JaCoCo will produce a broken coverage report. Data
+        // flow tracing operates on the tree API, so the intermediate result is collected in a ClassNode, which retains
+        // the expanded frames required by the hook instrumentation.
+        val node = ClassNode()
+        reader.accept(
+            edgeCoverageInstrumentor.classVisitor(node, InstrSupport.getMajorVersion(reader)),
+            ClassReader.EXPAND_FRAMES,
+        )
+        TraceDataFlowInstrumentor(instrumentations).instrument(node)
+        // Hook instrumentation must be performed after data flow tracing as the injected bytecode would trigger the GEP
+        // callbacks for byte[].
+        val hookInstrumentor = HookInstrumentor(
+            hookIndex,
+            java6Mode = extractClassFileMajorVersion(instrumentedBytecode) < 51,
+            classWithHooksEnabledField = classWithHooksEnabledField,
+        )
+        // Reusing the constant pool of the original class speeds up writing.
+        val writer = ClassWriter(reader, ClassWriter.COMPUTE_MAXS)
+        node.accept(hookInstrumentor.classVisitor(internalClassName, writer))
+        instrumentedBytecode = writer.toByteArray()
+        return edgeCoverageInstrumentor.numEdges
+    }
+
     companion object {
         val defaultEdgeCoverageStrategy = StaticMethodStrategy()
         val defaultCoverageMap = CoverageMap::class.java
+
+        /**
+         * Returns the number of edge IDs [coverage] would use for [bytecode].
+         */
+        fun countEdges(bytecode: ByteArray) = EdgeCoverageInstrumentor.countEdges(bytecode)
+
+        /**
+         * The number of edge IDs the coverage map can hold at most. The fuzzer exits if more are used.
+         */
+        val maxNumEdgeIds: Int
+            get() = CoverageMap.getMaxNumCounters()
+
+        /**
+         * Grows the coverage map so that all edge IDs below [nextEdgeId] can be used without growing it again.
+         */
+        fun reserveEdgeIds(nextEdgeId: Int) {
+            if (nextEdgeId > 0) {
+                CoverageMap.enlargeIfNeeded(nextEdgeId - 1)
+            }
+        }
     }
 }
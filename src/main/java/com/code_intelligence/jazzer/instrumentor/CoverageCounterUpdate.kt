@@ -0,0 +1,93 @@
+// Copyright 2023 Code Intelligence GmbH
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.code_intelligence.jazzer.instrumentor
+
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+
+/**
+ * The ways in which the 8-bit counter of a control flow edge can be updated when the edge is hit.
+ *
+ * libFuzzer only distinguishes counter values by the bucket they fall into (1, 2, 3, 4-7, 8-15,
+ * 16-31, 32-127, 128+), which is why the different strategies differ in cost, but hardly in the
+ * quality of the collected coverage. The exception is [WRAPPING], which loses the information that
+ * an edge has been hit when its counter overflows to zero.
+ */
+enum class CoverageCounterUpdate(
+    /**
+     * The name of the `public static void (int)` method of the coverage map that performs the
+     * update when it is not inlined into the instrumented code.
+     */
+    val recordCoverageMethodName: String,
+) {
+    /**
+     * Increment the counter, but skip zero on overflow.
+     */
+    NEVER_ZERO("recordCoverage"),
+
+    /**
+     * Same as [NEVER_ZERO], but without a conditional branch.
+     */
+    NEVER_ZERO_BRANCHFREE("recordCoverageNeverZeroBranchfree"),
+
+    /**
+     * Increment the counter until it reaches 255 and keep it there.
+     */
+    SATURATING("recordCoverageSaturating"),
+
+    /**
+     * Increment the counter and let it overflow to zero.
+     */
+    WRAPPING("recordCoverageWrapping"),
+    ;
+
+    /**
+     * Inject bytecode that replaces the counter value of type byte on top of the stack with its
+     * updated value. The injected bytecode does not contain branches and uses at most two additional
+     * stack elements.
+     */
+    fun emitUpdate(mv: MethodVisitor) = with(mv) {
+        if (this@CoverageCounterUpdate == WRAPPING) {
+            visitInsn(Opcodes.ICONST_1)
+            visitInsn(Opcodes.IADD)
+            visitInsn(Opcodes.I2B)
+            return@with
+        }
+        // Compute the incremented counter value in the range [1, 256] as an int...
+        visitIntInsn(Opcodes.SIPUSH, 0xFF)
+        visitInsn(Opcodes.IAND)
+        visitInsn(Opcodes.ICONST_1)
+        visitInsn(Opcodes.IADD)
+        // ...and map 256 to 1 (value ^ (value >>> 8)) or 255 (value - (value >>> 8)).
+        visitInsn(Opcodes.DUP)
+        visitIntInsn(Opcodes.BIPUSH, 8)
+        visitInsn(Opcodes.IUSHR)
+        visitInsn(if (this@CoverageCounterUpdate == SATURATING) Opcodes.ISUB else Opcodes.IXOR)
+        visitInsn(Opcodes.I2B)
+    }
+
+    companion object {
+        /**
+         * Parses the value of the `coverage_counter_update` option, e.g. `never_zero_branchfree`.
+         */
+        fun fromOptionValue(value: String): CoverageCounterUpdate = values().firstOrNull {
+            it.name.equals(value, ignoreCase = true)
+        } ?: throw IllegalArgumentException(
+            "Unknown coverage counter update '$value', expected one of: " +
+                values().joinToString { it.name.lowercase() },
+        )
+    }
+}
@@ -104,15 +104,20 @@ class EdgeCoverageInstrumentor(
     override fun instrument(internalClassName: String, bytecode: ByteArray): ByteArray {
         val reader = InstrSupport.classReaderFor(bytecode)
         val writer = ClassWriter(reader, 0)
-        val version = InstrSupport.getMajorVersion(reader)
-        val visitor = EdgeCoverageClassProbesAdapter(
-            ClassInstrumenter(edgeCoverageProbeArrayStrategy, edgeCoverageProbeInserterFactory, writer),
-            InstrSupport.needsFrames(version),
-        )
-        reader.accept(visitor, ClassReader.EXPAND_FRAMES)
+        reader.accept(classVisitor(writer, InstrSupport.getMajorVersion(reader)), ClassReader.EXPAND_FRAMES)
         return writer.toByteArray()
     }
 
+    /**
+     * Returns a [ClassVisitor] that applies the coverage instrumentation to a class with the given major class file
+     * [version] and passes the result on to [cv] with expanded frames. The class has to be read with
+     * [ClassReader.EXPAND_FRAMES].
+     */
+    fun classVisitor(cv: ClassVisitor, version: Int): ClassVisitor = EdgeCoverageClassProbesAdapter(
+        ClassInstrumenter(edgeCoverageProbeArrayStrategy, edgeCoverageProbeInserterFactory, cv),
+        InstrSupport.needsFrames(version),
+    )
+
     fun analyze(executionData: ExecutionDataStore, coverageVisitor: ICoverageVisitor, bytecode: ByteArray, internalClassName: String) {
         Analyzer(executionData, coverageVisitor, edgeCoverageClassProbesAdapterFactory).run {
             analyzeClass(bytecode, internalClassName)
@@ -180,6 +185,24 @@ class EdgeCoverageInstrumentor(
 
         override fun addMembers(cv: ClassVisitor, probeCount: Int) {}
     }
+
+    companion object {
+        /**
+         * Returns the number of edge IDs [instrument] would use for [bytecode] without instrumenting it.
+         */
+        fun countEdges(bytecode: ByteArray): Int {
+            var numEdges = 0
+            val probeCounter = object : ClassProbesVisitor() {
+                override fun visitTotalProbeCount(count: Int) {
+                    numEdges = count
+                }
+            }
+            // Probe IDs are assigned in the same order with and without frame tracking, which is why JaCoCo's Analyzer
+            // also doesn't track frames.
+            InstrSupport.classReaderFor(bytecode).accept(ClassProbesAdapter(probeCounter, false), 0)
+            return numEdges
+        }
+    }
 }
 
 fun MethodVisitor.push(value: Int) {
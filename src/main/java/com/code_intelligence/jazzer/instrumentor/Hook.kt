@@ -35,6 +35,7 @@ class Hook private constructor(
     val hookInternalClassName: String,
     val hookMethodName: String,
     val hookMethodDescriptor: String,
+    val hasTypedParameters: Boolean,
 ) {
 
     override fun toString(): String {
@@ -65,6 +66,7 @@ class Hook private constructor(
                 hookInternalClassName = hookClassName.replace('.', '/'),
                 hookMethodName = hookMethod.name,
                 hookMethodDescriptor = hookMethod.descriptor,
+                hasTypedParameters = hookMethod.parameterTypes.firstOrNull() != MethodHandle::class.java,
             )
         }
 
@@ -73,20 +75,12 @@ class Hook private constructor(
             require(Modifier.isPublic(hookMethod.modifiers)) { "$potentialHook: hook method must be public" }
             require(Modifier.isStatic(hookMethod.modifiers)) { "$potentialHook: hook method must be static" }
 
-            // Verify the hook method's parameter count.
-            val numParameters = hookMethod.parameters.size
-            when (potentialHook.hookType) {
-                HookType.BEFORE, HookType.REPLACE -> require(numParameters == 4) { "$potentialHook: incorrect number of parameters (expected 4)" }
-                HookType.AFTER -> require(numParameters == 5) { "$potentialHook: incorrect number of parameters (expected 5)" }
+            if (potentialHook.hasTypedParameters) {
+                verifyTypedParameters(hookMethod, potentialHook)
+            } else {
+                verifyGenericParameters(hookMethod, potentialHook)
             }
 
-            // Verify the hook method's parameter types.
-            val parameterTypes = hookMethod.parameterTypes
-            require(parameterTypes[0] == MethodHandle::class.java) { "$potentialHook: first parameter must have type MethodHandle" }
-            require(parameterTypes[1] == Object::class.java || parameterTypes[1].name == potentialHook.targetClassName) { "$potentialHook: second parameter must have type Object or ${potentialHook.targetClassName}" }
-            require(parameterTypes[2] == Array<Object>::class.java) { "$potentialHook: third parameter must have type Object[]" }
-            require(parameterTypes[3] == Int::class.javaPrimitiveType) { "$potentialHook: fourth parameter must have type int" }
-
             // Verify the hook method's return type if possible.
             when (potentialHook.hookType) {
                 HookType.BEFORE, HookType.AFTER -> require(hookMethod.returnType == Void.TYPE) {
@@ -110,6 +104,22 @@ class Hook private constructor(
                     }
                 }
             }
+        }
+
+        private fun verifyGenericParameters(hookMethod: Method, potentialHook: Hook) {
+            // Verify the hook method's parameter count.
+            val numParameters = hookMethod.parameters.size
+            when (potentialHook.hookType) {
+                HookType.BEFORE, HookType.REPLACE -> require(numParameters == 4) { "$potentialHook: incorrect number of parameters (expected 4)" }
+                HookType.AFTER -> require(numParameters == 5) { "$potentialHook: incorrect number of parameters (expected 5)" }
+            }
+
+            // Verify the hook method's parameter types.
+            val parameterTypes = hookMethod.parameterTypes
+            require(parameterTypes[0] == MethodHandle::class.java) { "$potentialHook: first parameter must have type MethodHandle" }
+            require(parameterTypes[1] == Object::class.java || parameterTypes[1].name == potentialHook.targetClassName) { "$potentialHook: second parameter must have type Object or ${potentialHook.targetClassName}" }
+            require(parameterTypes[2] == Array<Object>::class.java) { "$potentialHook: third parameter must have type Object[]" }
+            require(parameterTypes[3] == Int::class.javaPrimitiveType) { "$potentialHook: fourth parameter must have type int" }
 
             // AfterMethodHook only: Verify the type of the last parameter if known. Even if not
             // known, it must not be a primitive value.
@@ -128,5 +138,40 @@ class Hook private constructor(
                 }
             }
         }
+
+        // Hooks with typed parameters receive the arguments and return value of the target method with their original
+        // types, which requires the target method descriptor to be known:
+        // (thisObject, arg1, ..., argN, int hookId[, returnValue])
+        private fun verifyTypedParameters(hookMethod: Method, potentialHook: Hook) {
+            val targetMethodDescriptor = requireNotNull(potentialHook.targetMethodDescriptor) {
+                "$potentialHook: hooks with typed parameters require a targetMethodDescriptor"
+            }
+            val targetParameterDescriptors = extractParameterTypeDescriptors(targetMethodDescriptor)
+            val passesReturnValue = potentialHook.hookType == HookType.AFTER && potentialHook.targetReturnTypeDescriptor != "V"
+
+            // Verify the hook method's parameter count.
+            val expectedNumParameters = targetParameterDescriptors.size + if (passesReturnValue) 3 else 2
+            require(hookMethod.parameters.size == expectedNumParameters) { "$potentialHook: incorrect number of parameters (expected $expectedNumParameters)" }
+
+            // Verify the hook method's parameter types.
+            val parameterTypes = hookMethod.parameterTypes
+            require(parameterTypes[0] == Object::class.java || parameterTypes[0].name == potentialHook.targetClassName) { "$potentialHook: first parameter must have type Object or ${potentialHook.targetClassName}" }
+            for ((i, targetParameterDescriptor) in targetParameterDescriptors.withIndex()) {
+                require(acceptsValueOfType(parameterTypes[i + 1], targetParameterDescriptor)) {
+                    "$potentialHook: parameter ${i + 2} must have type Object or match the descriptor $targetParameterDescriptor"
+                }
+            }
+            val hookIdIndex = targetParameterDescriptors.size + 1
+            require(parameterTypes[hookIdIndex] == Int::class.javaPrimitiveType) { "$potentialHook: parameter ${hookIdIndex + 1} must have type int" }
+            if (passesReturnValue) {
+                require(acceptsValueOfType(parameterTypes.last(), potentialHook.targetReturnTypeDescriptor!!)) {
+                    "$potentialHook: last parameter must have type Object or match the descriptor ${potentialHook.targetReturnTypeDescriptor}"
+                }
+            }
+        }
+
+        private fun acceptsValueOfType(parameterType: Class<*>, typeDescriptor: String) =
+            parameterType.descriptor == typeDescriptor ||
+                (!isPrimitiveType(typeDescriptor) && parameterType == java.lang.Object::class.java)
     }
 }
@@ -0,0 +1,74 @@
+// Copyright 2023 Code Intelligence GmbH
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.code_intelligence.jazzer.instrumentor
+
+import com.code_intelligence.jazzer.api.HookType
+
+/**
+ * An immutable index of [hooks] by the methods they target, which can be shared across all classes instrumented with
+ * the same set of hooks.
+ *
+ * The index is keyed by method name first since only few method names are hooked at all, so that the vast majority of
+ * call sites are rejected with a single hash lookup on the name string provided by ASM, which doesn't allocate. The
+ * hooks matching a particular call site are computed ahead of time and in the order in which they have to be applied.
+ */
+class HookIndex(hooks: Iterable<Hook>) {
+
+    private class MethodHooks(hooks: List<Hook>) {
+        val withoutDescriptor: List<Hook>
+        val byDescriptor: Map<String, List<Hook>>
+
+        init {
+            val hooksWithoutDescriptor = hooks.filter { it.targetMethodDescriptor == null }
+            withoutDescriptor = inApplicationOrder(emptyList(), hooksWithoutDescriptor)
+            byDescriptor = hooks.filter { it.targetMethodDescriptor != null }
+                .groupBy { it.targetMethodDescriptor!! }
+                .mapValues { (_, hooksWithDescriptor) ->
+                    inApplicationOrder(hooksWithDescriptor, hooksWithoutDescriptor)
+                }
+        }
+
+        private fun inApplicationOrder(hooksWithDescriptor: List<Hook>, hooksWithoutDescriptor: List<Hook>) =
+            HookType.values().flatMap { hookType ->
+                hooksWithDescriptor.filter { it.hookType == hookType } +
+                    hooksWithoutDescriptor.filter { it.hookType == hookType }
+            }.sortedByDescending { it.toString() }
+    }
+
+    private val hooksByNameAndOwner: Map<String, Map<String, MethodHooks>> = hooks
+        .groupBy { it.targetMethodName }
+        .mapValues { (_, hooksWithName) ->
+            hooksWithName
+                .groupBy { it.targetInternalClassName }
+                .mapValues { (_, hooksWithNameAndOwner) -> MethodHooks(hooksWithNameAndOwner) }
+        }
+
+    /**
+     * Returns the hooks that apply to a call of the method [name] with descriptor [descriptor] on [owner], in the order
+     * in which they have to be applied.
+     */
+    fun findMatchingHooks(owner: String, name: String, descriptor: String): List<Hook> {
+        val methodHooks = hooksByNameAndOwner[name]?.get(owner) ?: return emptyList()
+        val result = methodHooks.byDescriptor[descriptor] ?: methodHooks.withoutDescriptor
+        val replaceHookCount = result.count { it.hookType == HookType.REPLACE }
+        check(
+            replaceHookCount == 0 ||
+                (replaceHookCount == 1 && result.size == 1),
+        ) {
+            "For a given method, You can either have a single REPLACE hook or BEFORE/AFTER hooks. Found:\n $result"
+        }
+        return result
+    }
+}
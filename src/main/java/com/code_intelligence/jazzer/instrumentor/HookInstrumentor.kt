@@ -20,18 +20,30 @@ import org.objectweb.asm.ClassWriter
 import org.objectweb.asm.MethodVisitor
 
 internal class HookInstrumentor(
-    private val hooks: Iterable<Hook>,
+    private val hookIndex: HookIndex,
     private val java6Mode: Boolean,
     private val classWithHooksEnabledField: String?,
 ) : Instrumentor {
 
+    constructor(hooks: Iterable<Hook>, java6Mode: Boolean, classWithHooksEnabledField: String?) :
+        this(HookIndex(hooks), java6Mode, classWithHooksEnabledField)
+
     private lateinit var random: DeterministicRandom
 
     override fun instrument(internalClassName: String, bytecode: ByteArray): ByteArray {
         val reader = ClassReader(bytecode)
         val writer = ClassWriter(reader, ClassWriter.COMPUTE_MAXS)
-        random = DeterministicRandom("hook", reader.className)
-        val interceptor = object : ClassVisitor(Instrumentor.ASM_API_VERSION, writer) {
+        reader.accept(classVisitor(internalClassName, writer), ClassReader.EXPAND_FRAMES)
+        return writer.toByteArray()
+    }
+
+    /**
+     * Returns a [ClassVisitor] that applies the hooks to the class and passes the result on to [next]. The class has to
+     * be visited with expanded frames and the maximum stack sizes have to be recomputed when writing it.
+     */
+    fun classVisitor(internalClassName: String, next: ClassVisitor): ClassVisitor {
+        random = DeterministicRandom("hook", internalClassName)
+        return object : ClassVisitor(Instrumentor.ASM_API_VERSION, next) {
             override fun visitMethod(
                 access: Int,
                 name: String?,
@@ -47,7 +59,7 @@ internal class HookInstrumentor(
                         name,
                         descriptor,
                         mv,
-                        hooks,
+                        hookIndex,
                         java6Mode,
                         random,
                         classWithHooksEnabledField,
@@ -57,7 +69,5 @@ internal class HookInstrumentor(
                 }
             }
         }
-        reader.accept(interceptor, ClassReader.EXPAND_FRAMES)
-        return writer.toByteArray()
     }
 }
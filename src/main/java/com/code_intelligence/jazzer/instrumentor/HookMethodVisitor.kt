@@ -30,7 +30,7 @@ internal fun makeHookMethodVisitor(
     name: String?,
     descriptor: String?,
     methodVisitor: MethodVisitor?,
-    hooks: Iterable<Hook>,
+    hookIndex: HookIndex,
     java6Mode: Boolean,
     random: DeterministicRandom,
     classWithHooksEnabledField: String?,
@@ -41,7 +41,7 @@ internal fun makeHookMethodVisitor(
         name,
         descriptor,
         methodVisitor,
-        hooks,
+        hookIndex,
         java6Mode,
         random,
         classWithHooksEnabledField,
@@ -54,7 +54,7 @@ private class HookMethodVisitor(
     val name: String?,
     descriptor: String?,
     methodVisitor: MethodVisitor?,
-    hooks: Iterable<Hook>,
+    private val hookIndex: HookIndex,
     private val java6Mode: Boolean,
     private val random: DeterministicRandom,
     private val classWithHooksEnabledField: String?,
@@ -96,14 +96,6 @@ private class HookMethodVisitor(
         }
     }
 
-    private val hooks = hooks.groupBy { hook ->
-        var hookKey = "${hook.hookType}#${hook.targetInternalClassName}#${hook.targetMethodName}"
-        if (hook.targetMethodDescriptor != null) {
-            hookKey += "#${hook.targetMethodDescriptor}"
-        }
-        hookKey
-    }
-
     override fun visitMethodInsn(
         opcode: Int,
         owner: String,
@@ -188,7 +180,15 @@ private class HookMethodVisitor(
         }
 
         val paramDescriptors = extractParameterTypeDescriptors(methodDescriptor)
-        val localObjArr = storeMethodArguments(paramDescriptors)
+        // Hooks with the generic signature receive the arguments in an Object[], which is also used to call the original
+        // method so that BEFORE hooks can modify the arguments. If only hooks with typed parameters apply, the arguments
+        // are instead kept in local variables of their own types, which avoids allocating the array and boxing.
+        val boxArguments = matchingHooks.any { !it.hasTypedParameters }
+        val argumentStorage = if (boxArguments) {
+            ArgumentStorage.Boxed(storeMethodArguments(paramDescriptors))
+        } else {
+            ArgumentStorage.Unboxed(storeMethodArgumentsInLocals(paramDescriptors))
+        }
         // If the method we're hooking is not static there is now a reference to
         // the object the method was invoked on at the top of the stack.
         // If the method is static, that object is missing. We make up for it by pushing a null ref.
@@ -204,8 +204,16 @@ private class HookMethodVisitor(
         // and saved them to local variables.
 
         val returnTypeDescriptor = extractReturnTypeDescriptor(methodDescriptor)
-        // Create a local variable to store the return value
-        val localReturnObj = lvs.newLocal(Type.getType(getWrapperTypeDescriptor(returnTypeDescriptor)))
+        // Create a local variable to store the return value, which only has to be boxed if an AFTER hook with the generic
+        // signature applies.
+        val boxReturnValue = matchingHooks.any { it.hookType == HookType.AFTER && !it.hasTypedParameters }
+        val localReturnObj = if (boxReturnValue) {
+            lvs.newLocal(Type.getType(getWrapperTypeDescriptor(returnTypeDescriptor)))
+        } else if (returnTypeDescriptor != "V") {
+            lvs.newLocal(Type.getType(returnTypeDescriptor))
+        } else {
+            -1
+        }
 
         matchingHooks.forEachIndexed { index, hook ->
             // The hookId is used to identify a call site.
@@ -219,9 +227,11 @@ private class HookMethodVisitor(
                 if (hook.hookType == HookType.REPLACE) {
                     mv.visitInsn(Opcodes.POP)
                 }
-                // Special case for constructors:
-                // We cannot create a MethodHandle for a constructor, so we push null instead.
-                mv.visitInsn(Opcodes.ACONST_NULL) // push nullref
+                if (!hook.hasTypedParameters) {
+                    // Special case for constructors:
+                    // We cannot create a MethodHandle for a constructor, so we push null instead.
+                    mv.visitInsn(Opcodes.ACONST_NULL) // push nullref
+                }
                 // Only pass the this object if it has been initialized by the time the hook is invoked.
                 if (hook.hookType == HookType.AFTER) {
                     mv.visitVarInsn(Opcodes.ALOAD, localOwnerObj)
@@ -229,39 +239,50 @@ private class HookMethodVisitor(
                     mv.visitInsn(Opcodes.ACONST_NULL) // push nullref
                 }
             } else {
-                // Push a MethodHandle representing the hooked method.
-                val handleOpcode = when (opcode) {
-                    Opcodes.INVOKEVIRTUAL -> Opcodes.H_INVOKEVIRTUAL
-                    Opcodes.INVOKEINTERFACE -> Opcodes.H_INVOKEINTERFACE
-                    Opcodes.INVOKESTATIC -> Opcodes.H_INVOKESTATIC
-                    Opcodes.INVOKESPECIAL -> Opcodes.H_INVOKESPECIAL
-                    else -> -1
-                }
-                if (java6Mode) {
-                    // MethodHandle constants (type 15) are not supported in Java 6 class files (major version 50).
-                    mv.visitInsn(Opcodes.ACONST_NULL) // push nullref
-                } else {
-                    mv.visitLdcInsn(
-                        Handle(
-                            handleOpcode,
-                            owner,
-                            methodName,
-                            methodDescriptor,
-                            isInterface,
-                        ),
-                    ) // push MethodHandle
+                if (!hook.hasTypedParameters) {
+                    // Push a MethodHandle representing the hooked method.
+                    val handleOpcode = when (opcode) {
+                        Opcodes.INVOKEVIRTUAL -> Opcodes.H_INVOKEVIRTUAL
+                        Opcodes.INVOKEINTERFACE -> Opcodes.H_INVOKEINTERFACE
+                        Opcodes.INVOKESTATIC -> Opcodes.H_INVOKESTATIC
+                        Opcodes.INVOKESPECIAL -> Opcodes.H_INVOKESPECIAL
+                        else -> -1
+                    }
+                    if (java6Mode) {
+                        // MethodHandle constants (type 15) are not supported in Java 6 class files (major version 50).
+                        mv.visitInsn(Opcodes.ACONST_NULL) // push nullref
+                    } else {
+                        mv.visitLdcInsn(
+                            Handle(
+                                handleOpcode,
+                                owner,
+                                methodName,
+                                methodDescriptor,
+                                isInterface,
+                            ),
+                        ) // push MethodHandle
+                    }
+                    // Stack layout: ... | MethodHandle (objectref)
                 }
-                // Stack layout: ... | MethodHandle (objectref)
                 // Push the owner object again
                 mv.visitVarInsn(Opcodes.ALOAD, localOwnerObj)
             }
-            // Stack layout: ... | MethodHandle (objectref) | owner (objectref)
-            // Push a reference to our object array with the saved arguments
-            mv.visitVarInsn(Opcodes.ALOAD, localObjArr)
-            // Stack layout: ... | MethodHandle (objectref) | owner (objectref) | object array (arrayref)
+            if (hook.hasTypedParameters) {
+                // Stack layout: ... | owner (objectref)
+                // Push the arguments with their original types
+                for (argIdx in paramDescriptors.indices) {
+                    loadMethodArgument(paramDescriptors, argIdx, argumentStorage)
+                }
+                // Stack layout: ... | owner (objectref) | arg1 (primitive/objectref) | arg2 (primitive/objectref) | ...
+            } else {
+                // Stack layout: ... | MethodHandle (objectref) | owner (objectref)
+                // Push a reference to our object array with the saved arguments
+                mv.visitVarInsn(Opcodes.ALOAD, (argumentStorage as ArgumentStorage.Boxed).localObjArr)
+                // Stack layout: ... | MethodHandle (objectref) | owner (objectref) | object array (arrayref)
+            }
             // Push the hook id
             mv.visitLdcInsn(hookId)
-            // Stack layout: ... | MethodHandle (objectref) | owner (objectref) | object array (arrayref) | hookId (int)
+            // Stack layout: ... | <hook arguments> | hookId (int)
             // How we proceed depends on the type of hook we want to implement
             when (hook.hookType) {
                 HookType.BEFORE -> {
@@ -282,7 +303,7 @@ private class HookMethodVisitor(
                         if (opcode != Opcodes.INVOKESTATIC) {
                             mv.visitVarInsn(Opcodes.ALOAD, localOwnerObj) // push owner object
                         }
-                        loadMethodArguments(paramDescriptors, localObjArr) // push all method arguments
+                        loadMethodArguments(paramDescriptors, argumentStorage) // push all method arguments
                         // Stack layout: ... | [owner (objectref)] | arg1 (primitive/objectref) | arg2 (primitive/objectref) | ...
                         mv.visitMethodInsn(opcode, owner, methodName, methodDescriptor, isInterface)
                     }
@@ -323,23 +344,30 @@ private class HookMethodVisitor(
                         if (opcode != Opcodes.INVOKESTATIC) {
                             mv.visitVarInsn(Opcodes.ALOAD, localOwnerObj) // push owner object
                         }
-                        loadMethodArguments(paramDescriptors, localObjArr) // push all method arguments
-                        // Stack layout: ... | MethodHandle (objectref) | owner (objectref) | object array (arrayref) | hookId (int)
+                        loadMethodArguments(paramDescriptors, argumentStorage) // push all method arguments
+                        // Stack layout: ... | <hook arguments> | hookId (int)
                         //                   | [owner (objectref)] | arg1 (primitive/objectref) | arg2 (primitive/objectref) | ...
                         mv.visitMethodInsn(opcode, owner, methodName, methodDescriptor, isInterface)
-                        if (returnTypeDescriptor == "V") {
-                            // If the method didn't return anything, we push a nullref as placeholder
-                            mv.visitInsn(Opcodes.ACONST_NULL) // push nullref
+                        if (boxReturnValue) {
+                            if (returnTypeDescriptor == "V") {
+                                // If the method didn't return anything, we push a nullref as placeholder
+                                mv.visitInsn(Opcodes.ACONST_NULL) // push nullref
+                            }
+                            // Wrap return value if it is a primitive type
+                            wrapTypeIfPrimitive(returnTypeDescriptor)
+                            mv.visitVarInsn(Opcodes.ASTORE, localReturnObj) // consume objectref
+                        } else if (returnTypeDescriptor != "V") {
+                            mv.visitVarInsn(Type.getType(returnTypeDescriptor).getOpcode(Opcodes.ISTORE), localReturnObj)
                         }
-                        // Wrap return value if it is a primitive type
-                        wrapTypeIfPrimitive(returnTypeDescriptor)
-                        mv.visitVarInsn(Opcodes.ASTORE, localReturnObj) // consume objectref
                     }
-                    mv.visitVarInsn(Opcodes.ALOAD, localReturnObj) // push objectref
-
-                    // Stack layout: ... | MethodHandle (objectref) | owner (objectref) | object array (arrayref) | hookId (int)
-                    //                   | return value (objectref)
-                    // Store the result value in a local variable (but keep it on the stack)
+                    // Stack layout: ... | <hook arguments> | hookId (int)
+                    // Push the return value (unless a hook with typed parameters hooks a void method)
+                    if (!hook.hasTypedParameters) {
+                        mv.visitVarInsn(Opcodes.ALOAD, localReturnObj) // push objectref
+                    } else if (returnTypeDescriptor != "V") {
+                        loadReturnValue(returnTypeDescriptor, localReturnObj, boxReturnValue)
+                    }
+                    // Stack layout: ... | <hook arguments> | hookId (int) | [return value (primitive/objectref)]
                     // Call the hook method
                     mv.visitMethodInsn(
                         Opcodes.INVOKESTATIC,
@@ -351,10 +379,7 @@ private class HookMethodVisitor(
                     // Stack layout: ...
                     // Push the return value on the stack after the last AFTER hook if the original method returns a value
                     if (index == matchingHooks.size - 1 && returnTypeDescriptor != "V") {
-                        // Push the return value again
-                        mv.visitVarInsn(Opcodes.ALOAD, localReturnObj) // push objectref
-                        // Unwrap it, if it was a primitive value
-                        unwrapTypeIfPrimitive(returnTypeDescriptor)
+                        loadReturnValue(returnTypeDescriptor, localReturnObj, boxReturnValue)
                         // Stack layout: ... | return value (primitive/objectref)
                     }
                 }
@@ -386,22 +411,12 @@ private class HookMethodVisitor(
     )
 
     private fun findMatchingHooks(owner: String, name: String, descriptor: String): List<Hook> {
-        val result = HookType.values().flatMap { hookType ->
-            val withoutDescriptorKey = "$hookType#$owner#$name"
-            val withDescriptorKey = "$withoutDescriptorKey#$descriptor"
-            hooks[withDescriptorKey].orEmpty() + hooks[withoutDescriptorKey].orEmpty()
-        }.sortedBy { it.hookType }
-        val replaceHookCount = result.count { it.hookType == HookType.REPLACE }
-        check(
-            replaceHookCount == 0 ||
-                (replaceHookCount == 1 && result.size == 1),
-        ) {
-            "For a given method, You can either have a single REPLACE hook or BEFORE/AFTER hooks. Found:\n $result"
+        val result = hookIndex.findMatchingHooks(owner, name, descriptor)
+        return if (java6Mode && result.isNotEmpty()) {
+            result.filter { !isReplaceHookInJava6mode(it) }
+        } else {
+            result
         }
-
-        return result
-            .filter { !isReplaceHookInJava6mode(it) }
-            .sortedByDescending { it.toString() }
     }
 
     private fun isReplaceHookInJava6mode(hook: Hook): Boolean {
@@ -451,31 +466,75 @@ private class HookMethodVisitor(
         return localObjArr
     }
 
-    // Loads all arguments for a method call from a local object array.
-    // argTypeSigs: The type signatures for all method arguments
-    // localObjArr: Index of a local variable containing an object array where the arguments will be loaded from
-    private fun loadMethodArguments(paramDescriptors: List<String>, localObjArr: Int) {
-        // Loop over all arguments
-        for ((argIdx, argDescriptor) in paramDescriptors.withIndex()) {
-            // Push a reference to the object array on the stack
-            mv.visitVarInsn(Opcodes.ALOAD, localObjArr)
-            // Stack layout: ... | object array (arrayref)
-            // Push the index of the current argument on the stack
-            mv.visitIntInsn(Opcodes.SIPUSH, argIdx)
-            // Stack layout: ... | object array (arrayref) | argument index (int)
-            // Load the argument from the array
-            mv.visitInsn(Opcodes.AALOAD)
-            // Stack layout: ... | method argument (objectref)
-            // Cast object to it's original type (or it's wrapper object)
-            val wrapperTypeDescriptor = getWrapperTypeDescriptor(argDescriptor)
-            mv.visitTypeInsn(Opcodes.CHECKCAST, extractInternalClassName(wrapperTypeDescriptor))
-            // If the argument is a supposed to be a primitive type, unwrap the wrapped type
-            unwrapTypeIfPrimitive(argDescriptor)
-            // Stack layout: ... | method argument (primitive/objectref)
-            // Continue with the remaining method arguments
+    // Stores all arguments for a method call in local variables of their own types.
+    // paramDescriptors: The type descriptors for all method arguments
+    private fun storeMethodArgumentsInLocals(paramDescriptors: List<String>): IntArray {
+        val locals = IntArray(paramDescriptors.size)
+        // Loop over all arguments in reverse order (because the last argument is on top).
+        for ((argIdx, argDescriptor) in paramDescriptors.withIndex().reversed()) {
+            val argType = Type.getType(argDescriptor)
+            locals[argIdx] = lvs.newLocal(argType)
+            mv.visitVarInsn(argType.getOpcode(Opcodes.ISTORE), locals[argIdx]) // consume argument
+        }
+        return locals
+    }
+
+    // Loads all arguments for a method call from where they have been stored.
+    // paramDescriptors: The type descriptors for all method arguments
+    private fun loadMethodArguments(paramDescriptors: List<String>, argumentStorage: ArgumentStorage) {
+        for (argIdx in paramDescriptors.indices) {
+            loadMethodArgument(paramDescriptors, argIdx, argumentStorage)
         }
     }
 
+    // Loads a single argument for a method call with its original type.
+    private fun loadMethodArgument(paramDescriptors: List<String>, argIdx: Int, argumentStorage: ArgumentStorage) {
+        val argDescriptor = paramDescriptors[argIdx]
+        when (argumentStorage) {
+            is ArgumentStorage.Unboxed -> {
+                val argType = Type.getType(argDescriptor)
+                mv.visitVarInsn(argType.getOpcode(Opcodes.ILOAD), argumentStorage.locals[argIdx])
+            }
+            is ArgumentStorage.Boxed -> {
+                // Push a reference to the object array on the stack
+                mv.visitVarInsn(Opcodes.ALOAD, argumentStorage.localObjArr)
+                // Stack layout: ... | object array (arrayref)
+                // Push the index of the current argument on the stack
+                mv.visitIntInsn(Opcodes.SIPUSH, argIdx)
+                // Stack layout: ... | object array (arrayref) | argument index (int)
+                // Load the argument from the array
+                mv.visitInsn(Opcodes.AALOAD)
+                // Stack layout: ... | method argument (objectref)
+                // Cast object to it's original type (or it's wrapper object)
+                val wrapperTypeDescriptor = getWrapperTypeDescriptor(argDescriptor)
+                mv.visitTypeInsn(Opcodes.CHECKCAST, extractInternalClassName(wrapperTypeDescriptor))
+                // If the argument is a supposed to be a primitive type, unwrap the wrapped type
+                unwrapTypeIfPrimitive(argDescriptor)
+            }
+        }
+        // Stack layout: ... | method argument (primitive/objectref)
+    }
+
+    // Loads the return value of the original method with its original type from a local variable that contains it
+    // either boxed or unboxed.
+    private fun loadReturnValue(returnTypeDescriptor: String, localReturnObj: Int, boxed: Boolean) {
+        if (boxed) {
+            mv.visitVarInsn(Opcodes.ALOAD, localReturnObj) // push objectref
+            // Unwrap it, if it was a primitive value
+            unwrapTypeIfPrimitive(returnTypeDescriptor)
+        } else {
+            mv.visitVarInsn(Type.getType(returnTypeDescriptor).getOpcode(Opcodes.ILOAD), localReturnObj)
+        }
+    }
+
+    private sealed class ArgumentStorage {
+        // The arguments are stored in an Object[], with primitive types wrapped into their wrapper types.
+        class Boxed(val localObjArr: Int) : ArgumentStorage()
+
+        // Each argument is stored in a local variable of its own type.
+        class Unboxed(val locals: IntArray) : ArgumentStorage()
+    }
+
     // Removes a primitive value from the top of the operand stack
     // and pushes it enclosed in its wrapper type (e.g. removes int, pushes Integer).
     // This is done by calling .valueOf(...) on the wrapper class.
@@ -0,0 +1,76 @@
+// Copyright 2023 Code Intelligence GmbH
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.code_intelligence.jazzer.instrumentor
+
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+
+/**
+ * Updates the coverage counters with [sun.misc.Unsafe] accesses emitted directly into the
+ * instrumented method instead of calling a static method of the coverage map.
+ *
+ * This avoids relying on the JIT to inline the call to the coverage map, which it may refuse to do
+ * in very large methods, at the cost of a larger bytecode footprint per edge. The coverage map class
+ * must have the following public static final members:
+ *  - field `UNSAFE_FOR_INSTRUMENTATION` of type `sun.misc.Unsafe`
+ *  - field `countersAddress` of type `long`: the address of the counter for edge ID 0
+ *
+ * Classes instrumented in this way need to be able to read the `jdk.unsupported` module. As the emitted code doesn't
+ * grow the coverage map on demand, it can't be used on Android.
+ */
+class InlineUnsafeStrategy(private val counterUpdate: CoverageCounterUpdate) : EdgeCoverageStrategy {
+
+    override fun instrumentControlFlowEdge(
+        mv: MethodVisitor,
+        edgeId: Int,
+        variable: Int,
+        coverageMapInternalClassName: String,
+    ) = with(mv) {
+        // Stack: unsafe
+        visitFieldInsn(Opcodes.GETSTATIC, coverageMapInternalClassName, UNSAFE_FIELD_NAME, UNSAFE_DESCRIPTOR)
+        // Stack: unsafe, address (= countersAddress + edgeId)
+        visitFieldInsn(Opcodes.GETSTATIC, coverageMapInternalClassName, "countersAddress", "J")
+        visitLdcInsn(edgeId.toLong())
+        visitInsn(Opcodes.LADD)
+        // Stack: unsafe, address, address
+        visitInsn(Opcodes.DUP2)
+        // Stack: unsafe, address, address, unsafe
+        visitFieldInsn(Opcodes.GETSTATIC, coverageMapInternalClassName, UNSAFE_FIELD_NAME, UNSAFE_DESCRIPTOR)
+        // Stack: unsafe, address, unsafe, address, unsafe (7 slots, the maximum)
+        visitInsn(Opcodes.DUP_X2)
+        // Stack: unsafe, address, unsafe, address
+        visitInsn(Opcodes.POP)
+        // Stack: unsafe, address, counter
+        visitMethodInsn(Opcodes.INVOKEVIRTUAL, UNSAFE_INTERNAL_NAME, "getByte", "(J)B", false)
+        // Stack: unsafe, address, updated counter
+        counterUpdate.emitUpdate(mv)
+        visitMethodInsn(Opcodes.INVOKEVIRTUAL, UNSAFE_INTERNAL_NAME, "putByte", "(JB)V", false)
+    }
+
+    override val instrumentControlFlowEdgeStackSize = 7
+
+    override val localVariableType: Any? = null
+
+    override fun loadLocalVariable(mv: MethodVisitor, variable: Int, coverageMapInternalClassName: String) = Unit
+
+    override val loadLocalVariableStackSize = 0
+
+    companion object {
+        private const val UNSAFE_FIELD_NAME = "UNSAFE_FOR_INSTRUMENTATION"
+        private const val UNSAFE_INTERNAL_NAME = "sun/misc/Unsafe"
+        private const val UNSAFE_DESCRIPTOR = "L$UNSAFE_INTERNAL_NAME;"
+    }
+}
@@ -18,13 +18,27 @@ import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.instr.I
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
+/**
+ * Updates the coverage counters by calling a static method of the coverage map, which the JIT is
+ * expected to inline.
+ */
 public class StaticMethodStrategy implements EdgeCoverageStrategy {
+  private final String recordCoverageMethodName;
+
+  public StaticMethodStrategy() {
+    this(CoverageCounterUpdate.NEVER_ZERO);
+  }
+
+  public StaticMethodStrategy(CoverageCounterUpdate counterUpdate) {
+    this.recordCoverageMethodName = counterUpdate.getRecordCoverageMethodName();
+  }
+
   @Override
   public void instrumentControlFlowEdge(
       MethodVisitor mv, int edgeId, int variable, String coverageMapInternalClassName) {
     InstrSupport.push(mv, edgeId);
     mv.visitMethodInsn(
-        Opcodes.INVOKESTATIC, coverageMapInternalClassName, "recordCoverage", "(I)V", false);
+        Opcodes.INVOKESTATIC, coverageMapInternalClassName, recordCoverageMethodName, "(I)V", false);
   }
 
   @Override
@@ -39,16 +39,24 @@ internal class TraceDataFlowInstrumentor(
         val node = ClassNode()
         val reader = ClassReader(bytecode)
         reader.accept(node, 0)
+        instrument(node)
+
+        val writer = ClassWriter(ClassWriter.COMPUTE_MAXS)
+        node.accept(writer)
+        return writer.toByteArray()
+    }
+
+    /**
+     * Adds the data flow instrumentation to [node] in place. The maximum stack sizes of its methods are not updated and
+     * have to be recomputed when writing the class.
+     */
+    fun instrument(node: ClassNode) {
         random = DeterministicRandom("trace", node.name)
         for (method in node.methods) {
             if (shouldInstrument(method)) {
                 addDataFlowInstrumentation(method)
             }
         }
-
-        val writer = ClassWriter(ClassWriter.COMPUTE_MAXS)
-        node.accept(writer)
-        return writer.toByteArray()
     }
 
     private fun addDataFlowInstrumentation(method: MethodNode) {
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.junit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A corpus of inputs stored in a few large files rather than one file per input, which makes
+ * reading and writing large corpora much cheaper than with corpus directories.
+ *
+ * <p>The store is a directory containing:
+ * <ul>
+ *   <li>{@code segment-<n>}: The contents of the inputs, appended one after the other. A new segment
+ *   is started once a segment would grow larger than 1 GiB so that each segment can be memory
+ *   mapped as a whole.</li>
+ *   <li>{@code index}: A header followed by one fixed-size record per input, consisting of the
+ *   SHA-1 hash of the input followed by the segment, offset and length of its contents.</li>
+ * </ul>
+ * Inputs are identified by the hex encoding of their SHA-1 hash, which is also the file name
+ * libFuzzer uses for inputs it adds to a corpus directory. Adding an input that is already
+ * contained in the store has no effect.
+ *
+ * <p>The contents of an input are written before its index record, so that a store left behind by
+ * a crashed process contains all inputs whose records are complete. A store can be opened for
+ * writing by at most one process at a time. Instances are not thread-safe.
+ */
+public final class CorpusStore implements Closeable {
+  private static final byte[] MAGIC = "JZCORPS1".getBytes(US_ASCII);
+  private static final String INDEX_FILE = "index";
+  private static final String SEGMENT_FILE_PREFIX = "segment-";
+  private static final long DEFAULT_MAX_SEGMENT_SIZE = 1L << 30;
+
+  private static final int HASH_LENGTH = 20;
+  private static final int SEGMENT_OFFSET = HASH_LENGTH;
+  private static final int POSITION_OFFSET = SEGMENT_OFFSET + Integer.BYTES;
+  private static final int LENGTH_OFFSET = POSITION_OFFSET + Integer.BYTES;
+  private static final int RECORD_LENGTH = LENGTH_OFFSET + Integer.BYTES;
+
+  private final Path dir;
+  private final long maxSegmentSize;
+  private final FileChannel index;
+  // Only held if the store has been opened for writing.
+  private final FileLock lock;
+  private final MessageDigest sha1;
+
+  // The index records of all inputs in the order in which they have been added.
+  private byte[] records = new byte[0];
+  private int size;
+  // An open addressing hash table of the indices of the records plus 1, keyed by their hashes.
+  private int[] slots = new int[16];
+
+  // Read-only mappings of the segments, which are remapped when they don't cover inputs added after
+  // they were created.
+  private final List<ByteBuffer> segments = new ArrayList<>();
+  private FileChannel appendSegment;
+  private int appendSegmentNumber;
+  private long appendPosition;
+
+  private CorpusStore(Path dir, long maxSegmentSize, FileChannel index, FileLock lock) {
+    this.dir = dir;
+    this.maxSegmentSize = maxSegmentSize;
+    this.index = index;
+    this.lock = lock;
+    try {
+      this.sha1 = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      // Always available.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns whether {@code dir} contains a corpus store.
+   */
+  public static boolean exists(Path dir) {
+    return Files.isRegularFile(dir.resolve(INDEX_FILE));
+  }
+
+  /**
+   * Opens the store in {@code dir}, creating it if {@code writable} is true and it doesn't exist.
+   * Records left incomplete by a crash are discarded if the store is opened for writing and ignored
+   * otherwise.
+   */
+  public static CorpusStore open(Path dir, boolean writable) throws IOException {
+    return open(dir, writable, DEFAULT_MAX_SEGMENT_SIZE);
+  }
+
+  static CorpusStore open(Path dir, boolean writable, long maxSegmentSize) throws IOException {
+    FileChannel index;
+    if (writable) {
+      Files.createDirectories(dir);
+      index = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+    } else {
+      index = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.READ);
+    }
+    try {
+      FileLock lock = null;
+      if (writable) {
+        lock = index.tryLock();
+        if (lock == null) {
+          throw new IOException(dir + " is in use by another process");
+        }
+      }
+      CorpusStore store = new CorpusStore(dir, maxSegmentSize, index, lock);
+      store.load();
+      return store;
+    } catch (IOException | RuntimeException e) {
+      index.close();
+      throw e;
+    }
+  }
+
+  private void load() throws IOException {
+    long indexSize = index.size();
+    if (indexSize == 0 && lock != null) {
+      writeFully(index, ByteBuffer.wrap(MAGIC), 0);
+      indexSize = MAGIC.length;
+    }
+    if (indexSize < MAGIC.length || indexSize - MAGIC.length > Integer.MAX_VALUE) {
+      throw new IOException("Invalid corpus store index in " + dir);
+    }
+    ByteBuffer contents = ByteBuffer.allocate((int) indexSize);
+    while (contents.hasRemaining()) {
+      if (index.read(contents, contents.position()) == -1) {
+        break;
+      }
+    }
+    if (!Arrays.equals(Arrays.copyOf(contents.array(), MAGIC.length), MAGIC)) {
+      throw new IOException("Invalid corpus store index in " + dir);
+    }
+
+    int numRecords = (contents.position() - MAGIC.length) / RECORD_LENGTH;
+    records = Arrays.copyOfRange(
+        contents.array(), MAGIC.length, MAGIC.length + numRecords * RECORD_LENGTH);
+    List<Long> segmentSizes = new ArrayList<>();
+    for (int i = 0; i < numRecords; i++) {
+      int segment = segment(i);
+      if (segment < 0) {
+        break;
+      }
+      while (segmentSizes.size() <= segment) {
+        Path segmentPath = segmentPath(segmentSizes.size());
+        segmentSizes.add(Files.exists(segmentPath) ? Files.size(segmentPath) : -1);
+      }
+      if ((long) position(i) + length(i) > segmentSizes.get(segment)) {
+        // The contents of this input are missing, which can only happen if the segment has been
+        // truncated externally. Discard this and all later records to be safe.
+        break;
+      }
+      size = i + 1;
+      insert(i);
+    }
+
+    if (lock != null) {
+      index.truncate(MAGIC.length + (long) size * RECORD_LENGTH);
+      if (size > 0) {
+        appendSegmentNumber = segment(size - 1);
+        appendPosition = (long) position(size - 1) + length(size - 1);
+      }
+      appendSegment = openAppendSegment(appendSegmentNumber);
+      // Discard the contents of inputs whose records haven't been written.
+      appendSegment.truncate(appendPosition);
+    }
+  }
+
+  /**
+   * Returns the number of inputs in the store.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the name of the {@code i}-th input added to the store, i.e., the hex encoding of its
+   * SHA-1 hash.
+   */
+  public String name(int i) {
+    StringBuilder name = new StringBuilder(2 * HASH_LENGTH);
+    for (int j = 0; j < HASH_LENGTH; j++) {
+      int b = records[i * RECORD_LENGTH + j] & 0xFF;
+      name.append(Character.forDigit(b >>> 4, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return name.toString();
+  }
+
+  /**
+   * Returns the contents of the {@code i}-th input added to the store.
+   */
+  public byte[] read(int i) throws IOException {
+    int position = position(i);
+    byte[] contents = new byte[length(i)];
+    ByteBuffer segment = mappedSegment(segment(i), (long) position + contents.length).duplicate();
+    segment.position(position);
+    segment.get(contents);
+    return contents;
+  }
+
+  /**
+   * Returns all inputs as pairs of name and contents, ordered by name.
+   */
+  public Stream<Map.Entry<String, byte[]>> inputs() {
+    return IntStream.range(0, size)
+        .boxed()
+        .sorted(this::compareHashes)
+        .map(i -> {
+          try {
+            return new SimpleImmutableEntry<>(name(i), read(i));
+          } catch (IOException e) {
+            throw new IllegalStateException(e);
+          }
+        });
+  }
+
+  /**
+   * Adds {@code input} to the store.
+   *
+   * @return {@code true} if the input was added, {@code false} if it was already contained in the
+   *     store
+   */
+  public boolean add(byte[] input) throws IOException {
+    if (lock == null) {
+      throw new IllegalStateException("The corpus store has been opened read-only");
+    }
+    byte[] hash = sha1.digest(input);
+    if (find(hash) != -1) {
+      return false;
+    }
+    if (appendPosition > 0 && appendPosition + input.length > maxSegmentSize) {
+      appendSegment.close();
+      appendSegmentNumber++;
+      appendPosition = 0;
+      appendSegment = openAppendSegment(appendSegmentNumber);
+      appendSegment.truncate(0);
+    }
+    writeFully(appendSegment, ByteBuffer.wrap(input), appendPosition);
+
+    if ((size + 1) * RECORD_LENGTH > records.length) {
+      records = Arrays.copyOf(records, Math.max(16 * RECORD_LENGTH, 2 * records.length));
+    }
+    ByteBuffer record = ByteBuffer.wrap(records, size * RECORD_LENGTH, RECORD_LENGTH).slice();
+    record.put(hash);
+    record.putInt(appendSegmentNumber);
+    record.putInt((int) appendPosition);
+    record.putInt(input.length);
+    record.flip();
+    writeFully(index, record, MAGIC.length + (long) size * RECORD_LENGTH);
+
+    appendPosition += input.length;
+    insert(size++);
+    return true;
+  }
+
+  /**
+   * Adds all files in {@code corpusDir} and its subdirectories to the store.
+   *
+   * @param deleteAdded whether to delete files after they have been added
+   * @return the number of inputs that were not yet contained in the store
+   */
+  public int addAll(Path corpusDir, boolean deleteAdded) throws IOException {
+    List<Path> files;
+    try (Stream<Path> walk = Files.walk(corpusDir)) {
+      files = walk.filter(Files::isRegularFile).sorted().collect(toList());
+    }
+    int numAdded = 0;
+    for (Path file : files) {
+      if (add(Files.readAllBytes(file))) {
+        numAdded++;
+      }
+      if (deleteAdded) {
+        Files.delete(file);
+      }
+    }
+    return numAdded;
+  }
+
+  /**
+   * Writes every input in the store into {@code corpusDir} as a file named after the input, unless
+   * such a file exists already. Exporting into the same directory repeatedly thus only writes the
+   * inputs added in the meantime.
+   */
+  public void exportTo(Path corpusDir) throws IOException {
+    Files.createDirectories(corpusDir);
+    // Listing the directory once is much cheaper than checking for every input individually.
+    Set<String> existingFiles;
+    try (Stream<Path> files = Files.list(corpusDir)) {
+      existingFiles = files.map(file -> file.getFileName().toString()).collect(toSet());
+    }
+    for (int i = 0; i < size; i++) {
+      String name = name(i);
+      if (!existingFiles.contains(name)) {
+        Files.write(corpusDir.resolve(name), read(i));
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (appendSegment != null) {
+        appendSegment.close();
+      }
+    } finally {
+      // Also releases the lock.
+      index.close();
+    }
+  }
+
+  private Path segmentPath(int segment) {
+    return dir.resolve(SEGMENT_FILE_PREFIX + segment);
+  }
+
+  private FileChannel openAppendSegment(int segment) throws IOException {
+    return FileChannel.open(
+        segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+  }
+
+  private ByteBuffer mappedSegment(int segment, long end) throws IOException {
+    while (segments.size() <= segment) {
+      segments.add(null);
+    }
+    ByteBuffer mapping = segments.get(segment);
+    if (mapping == null || mapping.capacity() < end) {
+      // The mapping remains valid after the channel has been closed.
+      try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+        mapping = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      }
+      segments.set(segment, mapping);
+    }
+    return mapping;
+  }
+
+  private int segment(int i) {
+    return recordInt(i, SEGMENT_OFFSET);
+  }
+
+  private int position(int i) {
+    return recordInt(i, POSITION_OFFSET);
+  }
+
+  private int length(int i) {
+    return recordInt(i, LENGTH_OFFSET);
+  }
+
+  private int recordInt(int i, int offset) {
+    return ByteBuffer.wrap(records).getInt(i * RECORD_LENGTH + offset);
+  }
+
+  private int compareHashes(int i, int j) {
+    for (int k = 0; k < HASH_LENGTH; k++) {
+      int result = Integer.compare(
+          records[i * RECORD_LENGTH + k] & 0xFF, records[j * RECORD_LENGTH + k] & 0xFF);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  private static int slotHash(byte[] bytes, int offset) {
+    // SHA-1 hashes are uniformly distributed, so their first bytes can be used directly.
+    return ByteBuffer.wrap(bytes).getInt(offset);
+  }
+
+  private int find(byte[] hash) {
+    int mask = slots.length - 1;
+    for (int slot = slotHash(hash, 0) & mask;; slot = (slot + 1) & mask) {
+      int i = slots[slot] - 1;
+      if (i == -1) {
+        return -1;
+      }
+      if (hashEquals(i, hash)) {
+        return i;
+      }
+    }
+  }
+
+  private boolean hashEquals(int i, byte[] hash) {
+    for (int k = 0; k < HASH_LENGTH; k++) {
+      if (records[i * RECORD_LENGTH + k] != hash[k]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void insert(int i) {
+    // Keep the load factor at or below 1/2.
+    if (2 * (i + 1) > slots.length) {
+      int[] oldSlots = slots;
+      slots = new int[2 * oldSlots.length];
+      for (int slot : oldSlots) {
+        if (slot != 0) {
+          insertIntoSlots(slot - 1);
+        }
+      }
+    }
+    insertIntoSlots(i);
+  }
+
+  private void insertIntoSlots(int i) {
+    int mask = slots.length - 1;
+    int slot = slotHash(records, i * RECORD_LENGTH) & mask;
+    while (slots[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    slots[slot] = i + 1;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+}
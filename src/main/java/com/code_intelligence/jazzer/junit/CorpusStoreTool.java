@@ -0,0 +1,63 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.junit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts between corpus directories and {@link CorpusStore}s.
+ *
+ * <pre>
+ * CorpusStoreTool import &lt;store dir&gt; &lt;corpus dir&gt;...
+ * CorpusStoreTool export &lt;store dir&gt; &lt;corpus dir&gt;
+ * </pre>
+ */
+public final class CorpusStoreTool {
+  private static final String USAGE = "Usage:\n"
+      + "  CorpusStoreTool import <store dir> <corpus dir>...\n"
+      + "  CorpusStoreTool export <store dir> <corpus dir>";
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3 || (args[0].equals("export") && args.length != 3)) {
+      System.err.println(USAGE);
+      System.exit(1);
+    }
+    Path storeDir = Paths.get(args[1]);
+    switch (args[0]) {
+      case "import":
+        try (CorpusStore store = CorpusStore.open(storeDir, true)) {
+          for (int i = 2; i < args.length; i++) {
+            int numAdded = store.addAll(Paths.get(args[i]), false);
+            System.err.printf("Added %d new inputs from %s%n", numAdded, args[i]);
+          }
+          System.err.printf("%s contains %d inputs%n", storeDir, store.size());
+        }
+        break;
+      case "export":
+        try (CorpusStore store = CorpusStore.open(storeDir, false)) {
+          store.exportTo(Paths.get(args[2]));
+          System.err.printf("Exported %d inputs to %s%n", store.size(), args[2]);
+        }
+        break;
+      default:
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+  }
+}
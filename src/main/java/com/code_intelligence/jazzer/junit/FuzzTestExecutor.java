@@ -16,6 +16,7 @@ package com.code_intelligence.jazzer.junit;
 
 import static com.code_intelligence.jazzer.junit.Utils.durationStringToSeconds;
 import static com.code_intelligence.jazzer.junit.Utils.generatedCorpusPath;
+import static com.code_intelligence.jazzer.junit.Utils.generatedCorpusStorePath;
 import static com.code_intelligence.jazzer.junit.Utils.inputsDirectoryResourcePath;
 import static com.code_intelligence.jazzer.junit.Utils.inputsDirectorySourcePath;
 
@@ -60,12 +61,17 @@ class FuzzTestExecutor {
   private final List<String> libFuzzerArgs;
   private final Path javaSeedsDir;
   private final boolean isRunFromCommandLine;
+  // Only set if the generated corpus is kept in a corpus store.
+  private final CorpusStore corpusStore;
+  private final Path pendingCorpusDir;
 
-  private FuzzTestExecutor(
-      List<String> libFuzzerArgs, Path javaSeedsDir, boolean isRunFromCommandLine) {
+  private FuzzTestExecutor(List<String> libFuzzerArgs, Path javaSeedsDir,
+      boolean isRunFromCommandLine, CorpusStore corpusStore, Path pendingCorpusDir) {
     this.libFuzzerArgs = libFuzzerArgs;
     this.javaSeedsDir = javaSeedsDir;
     this.isRunFromCommandLine = isRunFromCommandLine;
+    this.corpusStore = corpusStore;
+    this.pendingCorpusDir = pendingCorpusDir;
   }
 
   public static FuzzTestExecutor prepare(ExtensionContext context, String maxDuration)
@@ -114,8 +120,24 @@ class FuzzTestExecutor {
     // The path is specified relative to the current working directory, which with JUnit is the
     // project directory.
     Path generatedCorpusDir = baseDir.resolve(generatedCorpusPath(fuzzTestClass, fuzzTestMethod));
-    Files.createDirectories(generatedCorpusDir);
-    libFuzzerArgs.add(generatedCorpusDir.toAbsolutePath().toString());
+    Path storeDir = null;
+    Path pendingCorpusDir = null;
+    if (Utils.permissivelyParseBoolean(
+            context.getConfigurationParameter("jazzer.corpus_store").orElse("false"))) {
+      // libFuzzer can only add inputs to a directory. They are collected in a directory inside the
+      // store and added to the store after fuzzing or, if the fuzzer didn't shut down cleanly, the
+      // next time the store is used.
+      storeDir = baseDir.resolve(generatedCorpusStorePath(fuzzTestClass, fuzzTestMethod));
+      pendingCorpusDir = storeDir.resolve("pending");
+      libFuzzerArgs.add(pendingCorpusDir.toAbsolutePath().toString());
+      // Inputs generated before the store was used are still used as seeds.
+      if (Files.isDirectory(generatedCorpusDir)) {
+        libFuzzerArgs.add(generatedCorpusDir.toAbsolutePath().toString());
+      }
+    } else {
+      Files.createDirectories(generatedCorpusDir);
+      libFuzzerArgs.add(generatedCorpusDir.toAbsolutePath().toString());
+    }
 
     // We can only emit findings into the source tree version of the inputs directory, not e.g. the
     // copy under Maven's target directory. If it doesn't exist, collect the inputs in the current
@@ -176,7 +198,28 @@ class FuzzTestExecutor {
     // Prefer original libFuzzerArgs set via command line by appending them last.
     libFuzzerArgs.addAll(originalLibFuzzerArgs);
 
-    return new FuzzTestExecutor(libFuzzerArgs, javaSeedsDir, Utils.runFromCommandLine(context));
+    // Open the store last as it stays locked until fuzzing has finished.
+    CorpusStore corpusStore = null;
+    if (storeDir != null) {
+      corpusStore = CorpusStore.open(storeDir, true);
+      try {
+        Files.createDirectories(pendingCorpusDir);
+        corpusStore.addAll(pendingCorpusDir, true);
+        // libFuzzer can also only read seeds from directories, so the inputs are exported into the
+        // temporary seed directory, which is deleted after fuzzing.
+        corpusStore.exportTo(javaSeedsDir);
+      } catch (IOException | RuntimeException e) {
+        try {
+          corpusStore.close();
+        } catch (IOException closeException) {
+          e.addSuppressed(closeException);
+        }
+        throw e;
+      }
+    }
+
+    return new FuzzTestExecutor(libFuzzerArgs, javaSeedsDir, Utils.runFromCommandLine(context),
+        corpusStore, pendingCorpusDir);
   }
 
   /**
@@ -269,9 +312,12 @@ class FuzzTestExecutor {
 
     int exitCode = FuzzTargetRunner.startLibFuzzer(libFuzzerArgs);
     deleteJavaSeedsDir();
+    Optional<IOException> corpusStoreError = addPendingInputsToCorpusStore();
     Throwable finding = atomicFinding.get();
     if (finding != null) {
       return Optional.of(finding);
+    } else if (corpusStoreError.isPresent()) {
+      return Optional.of(corpusStoreError.get());
     } else if (exitCode != 0) {
       return Optional.of(
           new ExitCodeException("Jazzer exited with exit code " + exitCode, exitCode));
@@ -280,6 +326,18 @@ class FuzzTestExecutor {
     }
   }
 
+  private Optional<IOException> addPendingInputsToCorpusStore() {
+    if (corpusStore == null) {
+      return Optional.empty();
+    }
+    try (CorpusStore store = corpusStore) {
+      store.addAll(pendingCorpusDir, true);
+      return Optional.empty();
+    } catch (IOException e) {
+      return Optional.of(e);
+    }
+  }
+
   private void deleteJavaSeedsDir() {
     // The directory only consists of files, which we need to delete before deleting the directory
     // itself.
@@ -59,7 +59,15 @@ class FuzzTestExtensions
         // JUnit verifies that the arguments for this invocation are valid.
         recordSeedForFuzzing(invocationContext.getArguments(), extensionContext);
       }
-      runWithHooks(invocation);
+      Optional<ParallelRegressionReplay> parallelReplay =
+          getParallelRegressionReplay(extensionContext);
+      if (parallelReplay.isPresent()
+          && parallelReplay.get().passed(invocationContext, extensionContext)) {
+        // The seed has already been executed without a finding in parallel with other seeds.
+        invocation.skip();
+      } else {
+        runWithHooks(invocation);
+      }
     }
   }
 
@@ -148,6 +156,21 @@ class FuzzTestExtensions
             SeedSerializer.class, unused -> SeedSerializer.of(method), SeedSerializer.class);
   }
 
+  static void putParallelRegressionReplay(
+      ExtensionContext extensionContext, ParallelRegressionReplay parallelReplay) {
+    Method method = extensionContext.getRequiredTestMethod();
+    extensionContext.getStore(Namespace.create(FuzzTestExtensions.class, method))
+        .put(ParallelRegressionReplay.class, parallelReplay);
+  }
+
+  private static Optional<ParallelRegressionReplay> getParallelRegressionReplay(
+      ExtensionContext extensionContext) {
+    Method method = extensionContext.getRequiredTestMethod();
+    return Optional.ofNullable(
+        extensionContext.getStore(Namespace.create(FuzzTestExtensions.class, method))
+            .get(ParallelRegressionReplay.class, ParallelRegressionReplay.class));
+  }
+
   private static Field getLastFindingField() throws ClassNotFoundException, NoSuchFieldException {
     if (lastFindingField == null) {
       Class<?> jazzerInternal = Class.forName(JAZZER_INTERNAL);
@@ -164,7 +187,7 @@ class FuzzTestExtensions
     return hooksEnabledField;
   }
 
-  private static AutoCloseable withHooksEnabled()
+  static AutoCloseable withHooksEnabled()
       throws NoSuchFieldException, ClassNotFoundException, IllegalAccessException {
     Field hooksEnabledField = getHooksEnabledField();
     hooksEnabledField.setBoolean(null, true);
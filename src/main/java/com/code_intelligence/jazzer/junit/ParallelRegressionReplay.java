@@ -0,0 +1,160 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.junit;
+
+import com.code_intelligence.jazzer.mutation.mutator.Mutators;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+
+/**
+ * Executes the seeds of a fuzz test in regression mode on a pool of threads before JUnit invokes
+ * the test for each seed in order.
+ *
+ * <p>JUnit still reports every seed as an individual invocation in seed order: Invocations for
+ * seeds that passed in parallel are skipped, all others are executed serially as usual so that
+ * failures are reproduced and reported exactly as without this mode. The parallel executions reuse
+ * the test instance of the first invocation and don't run per-invocation lifecycle methods, so this
+ * mode is only enabled via the {@code jazzer.regression_threads} configuration parameter for fuzz
+ * tests that are safe to execute concurrently.
+ */
+final class ParallelRegressionReplay {
+  private static final String JAZZER_INTERNAL =
+      "com.code_intelligence.jazzer.runtime.JazzerInternal";
+  // Published with the number of threads once the seeds have been executed in parallel.
+  static final String REPORT_ENTRY_KEY = "jazzer.regression_threads";
+
+  private final Method testMethod;
+  private final List<Map.Entry<String, byte[]>> seeds;
+  private final int numThreads;
+  // Null until the seeds have been executed.
+  private boolean[] passed;
+  // The index of the seed expected to be passed to the next invocation.
+  private int nextSeed;
+
+  ParallelRegressionReplay(
+      Method testMethod, List<Map.Entry<String, byte[]>> seeds, int numThreads) {
+    this.testMethod = testMethod;
+    this.seeds = seeds;
+    this.numThreads = numThreads;
+  }
+
+  /**
+   * Returns the number of threads to replay seeds with if more than one has been configured.
+   */
+  static Optional<Integer> configuredThreads(ExtensionContext extensionContext) {
+    return extensionContext.getConfigurationParameter("jazzer.regression_threads")
+        .map(value -> {
+          try {
+            return Integer.parseInt(value.trim());
+          } catch (NumberFormatException e) {
+            throw new FuzzTestConfigurationError(
+                "jazzer.regression_threads must be a positive integer, got: " + value, e);
+          }
+        })
+        .filter(numThreads -> numThreads > 1);
+  }
+
+  /**
+   * Returns whether the seed passed to the current invocation has already been executed without a
+   * finding, in which case the invocation can be skipped. All seeds are executed in parallel when
+   * this is called for the first time.
+   */
+  boolean passed(ReflectiveInvocationContext<Method> invocationContext,
+      ExtensionContext extensionContext) throws Throwable {
+    // Invocations with arguments from other sources than the seeds are executed serially.
+    if (nextSeed == seeds.size()
+        || !extensionContext.getDisplayName().equals(seeds.get(nextSeed).getKey())) {
+      return false;
+    }
+    if (passed == null) {
+      passed = executeAll(invocationContext.getTarget().orElse(null));
+      extensionContext.publishReportEntry(REPORT_ENTRY_KEY, String.valueOf(numThreads));
+    }
+    return passed[nextSeed++];
+  }
+
+  private boolean[] executeAll(Object testInstance) throws Throwable {
+    testMethod.setAccessible(true);
+    Class<?> jazzerInternal = Class.forName(JAZZER_INTERNAL);
+    Field lastFindingField = jazzerInternal.getField("lastFinding");
+    Method enableThreadLocalFinding = jazzerInternal.getMethod("enableThreadLocalFinding");
+    Method takeThreadLocalFinding = jazzerInternal.getMethod("takeThreadLocalFinding");
+
+    boolean[] results = new boolean[seeds.size()];
+    AtomicInteger next = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads, runnable -> {
+      Thread thread = new Thread(runnable, "jazzer-regression-replay");
+      thread.setDaemon(true);
+      return thread;
+    });
+    lastFindingField.set(null, null);
+    try (AutoCloseable ignored = FuzzTestExtensions.withHooksEnabled()) {
+      List<Future<?>> workers = new ArrayList<>();
+      for (int i = 0; i < numThreads; i++) {
+        workers.add(executor.submit(() -> {
+          enableThreadLocalFinding.invoke(null);
+          // Deserializers may not be thread-safe, so every worker uses its own mutators rather than
+          // those shared between fuzz tests.
+          SeedSerializer serializer = SeedSerializer.of(testMethod, Mutators.newFactory());
+          for (int seed = next.getAndIncrement(); seed < seeds.size();
+               seed = next.getAndIncrement()) {
+            boolean returned = execute(testInstance, serializer, seeds.get(seed).getValue());
+            results[seed] = takeThreadLocalFinding.invoke(null) == null && returned;
+          }
+          return null;
+        }));
+      }
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    } finally {
+      executor.shutdownNow();
+    }
+    // A finding reported on a thread other than the workers can't be attributed to a particular
+    // seed, so all seeds are executed again serially.
+    if (lastFindingField.get(null) != null) {
+      lastFindingField.set(null, null);
+      return new boolean[seeds.size()];
+    }
+    return results;
+  }
+
+  private boolean execute(Object testInstance, SeedSerializer serializer, byte[] seed) {
+    try {
+      // Serializers may return the given array as an argument, which the test may modify.
+      testMethod.invoke(testInstance, serializer.read(seed.clone()));
+      return true;
+    } catch (Throwable t) {
+      // The serial execution of the seed reports the failure. This includes Errors thrown by the
+      // serializer, which would otherwise abort the worker and be reported for the wrong seed.
+      return false;
+    }
+  }
+}
@@ -16,6 +16,7 @@ package com.code_intelligence.jazzer.junit;
 
 import static com.code_intelligence.jazzer.junit.Utils.isFuzzing;
 import static com.code_intelligence.jazzer.junit.Utils.runFromCommandLine;
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Named.named;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
@@ -33,7 +34,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.BiPredicate;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.extension.ExtensionContext;
@@ -63,6 +66,23 @@ class SeedArgumentsProvider implements ArgumentsProvider {
       rawSeeds = Stream.concat(rawSeeds,
           walkInputsInPath(Utils.generatedCorpusPath(testClass, testMethod), Integer.MAX_VALUE));
     }
+    if (Utils.isCoverageAgentPresent()
+        && CorpusStore.exists(Utils.generatedCorpusStorePath(testClass, testMethod))) {
+      rawSeeds = Stream.concat(
+          rawSeeds, readInputsFromStore(Utils.generatedCorpusStorePath(testClass, testMethod)));
+    }
+
+    Optional<Integer> regressionThreads =
+        ParallelRegressionReplay.configuredThreads(extensionContext);
+    if (!isFuzzing(extensionContext) && regressionThreads.isPresent()) {
+      List<Map.Entry<String, byte[]>> seeds;
+      try (Stream<Map.Entry<String, byte[]>> seedStream = rawSeeds) {
+        seeds = seedStream.collect(toList());
+      }
+      FuzzTestExtensions.putParallelRegressionReplay(extensionContext,
+          new ParallelRegressionReplay(testMethod, seeds, regressionThreads.get()));
+      rawSeeds = seeds.stream();
+    }
 
     SeedSerializer serializer = SeedSerializer.of(testMethod);
     return rawSeeds
@@ -215,6 +235,27 @@ class SeedArgumentsProvider implements ArgumentsProvider {
                 file.getFileName().toString(), readAllBytesUnchecked(file)));
   }
 
+  /**
+   * Reads the inputs in the corpus store in {@code storePath}, including those that a fuzzing run
+   * that didn't shut down cleanly has not yet added to the store.
+   */
+  private static Stream<Map.Entry<String, byte[]>> readInputsFromStore(Path storePath)
+      throws IOException {
+    CorpusStore store = CorpusStore.open(storePath, false);
+    Stream<Map.Entry<String, byte[]>> inputs = store.inputs().onClose(() -> {
+      try {
+        store.close();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    Path pendingPath = storePath.resolve("pending");
+    if (Files.isDirectory(pendingPath)) {
+      inputs = Stream.concat(inputs, walkInputsInPath(pendingPath, Integer.MAX_VALUE));
+    }
+    return inputs;
+  }
+
   private static byte[] readAllBytesUnchecked(Path path) {
     try {
       return Files.readAllBytes(path);
@@ -21,6 +21,8 @@ import com.code_intelligence.jazzer.autofuzz.Meta;
 import com.code_intelligence.jazzer.driver.FuzzedDataProviderImpl;
 import com.code_intelligence.jazzer.driver.Opt;
 import com.code_intelligence.jazzer.mutation.ArgumentsMutator;
+import com.code_intelligence.jazzer.mutation.api.MutatorFactory;
+import com.code_intelligence.jazzer.mutation.mutator.Mutators;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.lang.reflect.Method;
@@ -46,6 +48,14 @@ interface SeedSerializer {
    * </ul>
    */
   static SeedSerializer of(Method method) {
+    return of(method, Mutators.sharedFactory());
+  }
+
+  /**
+   * Like {@link #of(Method)}, but creates the mutators used with the experimental mutator framework
+   * with the given factory.
+   */
+  static SeedSerializer of(Method method, MutatorFactory mutatorFactory) {
     if (method.getParameterCount() == 0) {
       throw new FuzzTestConfigurationError(
           "Methods annotated with @FuzzTest must take at least one parameter");
@@ -57,7 +67,9 @@ interface SeedSerializer {
       return new FuzzedDataProviderSeedSerializer();
     } else {
       Optional<ArgumentsMutator> argumentsMutator =
-          Opt.experimentalMutator.get() ? ArgumentsMutator.forMethod(method) : Optional.empty();
+          Opt.experimentalMutator.get()
+          ? ArgumentsMutator.forMethod(mutatorFactory, null, method)
+          : Optional.empty();
       return argumentsMutator.<SeedSerializer>map(ArgumentsMutatorSeedSerializer::new)
           .orElseGet(() -> new AutofuzzSeedSerializer(method));
     }
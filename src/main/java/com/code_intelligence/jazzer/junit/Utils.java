@@ -105,6 +105,14 @@ class Utils {
     return Paths.get(".cifuzz-corpus", testClass.getName(), testMethod.getName());
   }
 
+  /**
+   * Returns the path of the {@link CorpusStore} used instead of the directory returned by
+   * {@link #generatedCorpusPath(Class, Method)} if {@code jazzer.corpus_store} is enabled.
+   */
+  static Path generatedCorpusStorePath(Class<?> testClass, Method testMethod) {
+    return Paths.get(".cifuzz-corpus", testClass.getName(), testMethod.getName() + ".store");
+  }
+
   /**
    * Returns a heuristic default value for jazzer.instrument based on the test class.
    */
@@ -49,6 +49,8 @@ public final class ArgumentsMutator {
   private final Object instance;
   private final Method method;
   private final ProductMutator productMutator;
+  // Reseeded for every mutation rather than allocated anew, as mutations happen in a hot loop.
+  private final SeededPseudoRandom prng = new SeededPseudoRandom(0);
   private Object[] arguments;
 
   /**
@@ -61,6 +63,14 @@ public final class ArgumentsMutator {
    */
   private boolean argumentsExposed;
 
+  /**
+   * Identifies the serialized form of {@link #arguments} as last written to libFuzzer, see
+   * {@link #rememberSerializedArguments(int, long)}. A negative length means that no serialized
+   * form is known, e.g. because the arguments have been mutated or exposed since.
+   */
+  private int serializedLength = -1;
+  private long serializedFingerprint;
+
   private ArgumentsMutator(Object instance, Method method, ProductMutator productMutator) {
     this.instance = instance;
     this.method = method;
@@ -73,21 +83,21 @@ public final class ArgumentsMutator {
   }
 
   public static ArgumentsMutator forInstanceMethodOrThrow(Object instance, Method method) {
-    return forInstanceMethod(Mutators.newFactory(), instance, method)
+    return forInstanceMethod(Mutators.sharedFactory(), instance, method)
         .orElseThrow(()
                          -> new IllegalArgumentException(
                              "Failed to construct mutator for " + prettyPrintMethod(method)));
   }
 
   public static ArgumentsMutator forStaticMethodOrThrow(Method method) {
-    return forStaticMethod(Mutators.newFactory(), method)
+    return forStaticMethod(Mutators.sharedFactory(), method)
         .orElseThrow(()
                          -> new IllegalArgumentException(
                              "Failed to construct mutator for " + prettyPrintMethod(method)));
   }
 
   public static Optional<ArgumentsMutator> forMethod(Method method) {
-    return forMethod(Mutators.newFactory(), null, method);
+    return forMethod(Mutators.sharedFactory(), null, method);
   }
 
   public static Optional<ArgumentsMutator> forInstanceMethod(
@@ -136,23 +146,27 @@ public final class ArgumentsMutator {
     try {
       Object[] objects1 = productMutator.readExclusive(data1);
       Object[] objects2 = productMutator.readExclusive(data2);
-      PseudoRandom prng = new SeededPseudoRandom(seed);
+      prng.reseed(seed);
       arguments = productMutator.crossOver(objects1, objects2, prng);
       argumentsExposed = false;
+      forgetSerializedArguments();
     } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
   }
 
   /**
+   * @param data a stream with an exact implementation of {@link InputStream#available()}, such as
+   *             {@link ByteArrayInputStream}
    * @return if the given input stream was consumed exactly
    * @throws UncheckedIOException if the underlying InputStream throws
    */
-  public boolean read(ByteArrayInputStream data) {
+  public boolean read(InputStream data) {
     try {
       ReadExactlyInputStream is = extendWithReadExactly(data);
       arguments = productMutator.readExclusive(is);
       argumentsExposed = false;
+      forgetSerializedArguments();
       return is.isConsumedExactly();
     } catch (IOException e) {
       throw new UncheckedIOException(e);
@@ -179,25 +193,63 @@ public final class ArgumentsMutator {
   }
 
   public void init(long seed) {
-    init(new SeededPseudoRandom(seed));
+    prng.reseed(seed);
+    init(prng);
   }
 
   void init(PseudoRandom prng) {
     arguments = productMutator.init(prng);
     argumentsExposed = false;
+    forgetSerializedArguments();
   }
 
   public void mutate(long seed) {
-    mutate(new SeededPseudoRandom(seed));
+    prng.reseed(seed);
+    mutate(prng);
   }
 
   void mutate(PseudoRandom prng) {
     failIfArgumentsExposed();
+    forgetSerializedArguments();
     // TODO: Sometimes mutate the entire byte representation of the current value with libFuzzer's
     //  dictionary and TORC mutations.
     productMutator.mutate(arguments, prng);
   }
 
+  /**
+   * Records that the current arguments serialize to an input of the given length and fingerprint,
+   * e.g. after they have been written to libFuzzer's mutation buffer.
+   *
+   * <p>If libFuzzer subsequently executes exactly that input, {@link
+   * #reuseArgumentsIfSerializedAs(int, long)} can be used to skip deserializing it again.
+   *
+   * @param length      the length of the serialized arguments
+   * @param fingerprint a hash of the serialized arguments, which should be sensitive to every byte
+   */
+  public void rememberSerializedArguments(int length, long fingerprint) {
+    require(length >= 0, "length must be non-negative");
+    failIfArgumentsExposed();
+    serializedLength = length;
+    serializedFingerprint = fingerprint;
+  }
+
+  /**
+   * Checks whether the current arguments have been recorded via {@link
+   * #rememberSerializedArguments(int, long)} with the same length and fingerprint and have neither
+   * been changed nor exposed since. In this case, they are kept as the current arguments and the
+   * caller can skip reading the input.
+   *
+   * @return whether the current arguments can be used instead of reading the given input
+   */
+  public boolean reuseArgumentsIfSerializedAs(int length, long fingerprint) {
+    return !argumentsExposed && serializedLength >= 0 && serializedLength == length
+        && serializedFingerprint == fingerprint;
+  }
+
+  private void forgetSerializedArguments() {
+    serializedLength = -1;
+  }
+
   public void invoke(boolean detach) throws Throwable {
     Object[] invokeArguments;
     if (detach) {
@@ -205,6 +257,7 @@ public final class ArgumentsMutator {
     } else {
       invokeArguments = arguments;
       argumentsExposed = true;
+      forgetSerializedArguments();
     }
     try {
       method.invoke(instance, invokeArguments);
@@ -217,6 +270,7 @@ public final class ArgumentsMutator {
 
   public Object[] getArguments() {
     argumentsExposed = true;
+    forgetSerializedArguments();
     return arguments;
   }
 
@@ -25,7 +25,8 @@ import java.lang.annotation.Target;
 
 @Target(TYPE_USE)
 @Retention(RUNTIME)
-@AppliesTo(byte[].class)
+@AppliesTo({byte[].class, int[].class, long[].class, short[].class, char[].class, float[].class,
+    double[].class})
 public @interface WithLength {
   int min() default 0;
 
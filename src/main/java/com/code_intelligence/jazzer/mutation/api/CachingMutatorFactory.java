@@ -0,0 +1,146 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.mutation.api;
+
+import static java.util.Arrays.asList;
+import static java.util.Objects.requireNonNull;
+
+import com.google.errorprone.annotations.CheckReturnValue;
+import java.lang.reflect.AnnotatedArrayType;
+import java.lang.reflect.AnnotatedParameterizedType;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe {@link MutatorFactory} that remembers the mutators created by the given factory,
+ * including those for the component types it requests recursively, and returns them again for
+ * equal types.
+ *
+ * <p>Two types are equal if they consist of the same classes with equal annotations in the same
+ * places. Types containing wildcards or type variables are not cached.
+ *
+ * <p>Mutators for recursive types, such as protobuf messages that transitively contain themselves,
+ * form cycles that are closed by the underlying factory while the outermost mutator is still being
+ * constructed. Mutators are only shared with other threads once the outermost construction has
+ * completed, and not at all if it failed.
+ *
+ * <p>Sharing mutators between callers and threads is only safe because mutators keep no mutable
+ * state across calls. Mutators that reuse scratch space, such as the protobuf serializers, must
+ * keep it per thread.
+ */
+public final class CachingMutatorFactory extends MutatorFactory {
+  private final MutatorFactory factory;
+  private final ConcurrentHashMap<List<Object>, Optional<SerializingMutator<?>>> cache =
+      new ConcurrentHashMap<>();
+  // Mutators created during the current outermost construction. Guarded by this.
+  private final Map<List<Object>, Optional<SerializingMutator<?>>> pending = new HashMap<>();
+  // Guarded by this.
+  private int constructionDepth;
+
+  /**
+   * Creates a {@link MutatorFactory} that caches the mutators created by {@code factory}.
+   *
+   * @param factory a factory that does not have to be thread-safe
+   */
+  public CachingMutatorFactory(MutatorFactory factory) {
+    this.factory = requireNonNull(factory);
+  }
+
+  @Override
+  @CheckReturnValue
+  public Optional<SerializingMutator<?>> tryCreate(AnnotatedType type, MutatorFactory parent) {
+    // Mutators created with a different parent factory may depend on it and thus aren't cached.
+    List<Object> key = parent == this ? keyOf(type) : null;
+    if (key != null) {
+      Optional<SerializingMutator<?>> cached = cache.get(key);
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    synchronized (this) {
+      if (key != null) {
+        Optional<SerializingMutator<?>> cached = cache.get(key);
+        if (cached == null) {
+          cached = pending.get(key);
+        }
+        if (cached != null) {
+          return cached;
+        }
+      }
+
+      constructionDepth++;
+      boolean success = false;
+      try {
+        Optional<SerializingMutator<?>> mutator = factory.tryCreate(type, parent);
+        if (key != null) {
+          pending.put(key, mutator);
+        }
+        success = true;
+        return mutator;
+      } finally {
+        if (--constructionDepth == 0) {
+          if (success) {
+            cache.putAll(pending);
+          }
+          pending.clear();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns a key that is equal for types consisting of the same classes with equal annotations, or
+   * {@code null} if the type contains wildcards or type variables.
+   */
+  private static List<Object> keyOf(AnnotatedType type) {
+    List<Object> key = new ArrayList<>();
+    key.add(asList(type.getDeclaredAnnotations()));
+    key.add(asList(type.getAnnotations()));
+    if (type instanceof AnnotatedParameterizedType) {
+      // The ParameterizedType itself may not implement hashCode, but its raw type always does.
+      key.add(((ParameterizedType) type.getType()).getRawType());
+      for (AnnotatedType typeArgument :
+          ((AnnotatedParameterizedType) type).getAnnotatedActualTypeArguments()) {
+        List<Object> typeArgumentKey = keyOf(typeArgument);
+        if (typeArgumentKey == null) {
+          return null;
+        }
+        key.add(typeArgumentKey);
+      }
+    } else if (type instanceof AnnotatedArrayType) {
+      List<Object> componentKey =
+          keyOf(((AnnotatedArrayType) type).getAnnotatedGenericComponentType());
+      if (componentKey == null) {
+        return null;
+      }
+      key.add(AnnotatedArrayType.class);
+      key.add(componentKey);
+    } else if (type.getType() instanceof Class<?>) {
+      key.add(type.getType());
+    } else {
+      return null;
+    }
+    return key;
+  }
+}
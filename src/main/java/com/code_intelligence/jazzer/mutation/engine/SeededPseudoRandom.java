@@ -17,26 +17,71 @@
 package com.code_intelligence.jazzer.mutation.engine;
 
 import static com.code_intelligence.jazzer.mutation.support.Preconditions.require;
+import static java.util.Objects.requireNonNull;
 
 import com.code_intelligence.jazzer.mutation.api.PseudoRandom;
 import com.code_intelligence.jazzer.mutation.support.Preconditions;
-import com.code_intelligence.jazzer.mutation.support.RandomSupport;
 import java.util.List;
 import java.util.SplittableRandom;
 import java.util.function.Supplier;
 
+/**
+ * A {@link PseudoRandom} backed by a fast, non-cryptographic generator that can be reseeded, so that
+ * a single instance can be reused for every mutation instead of allocating a new one per seed.
+ */
 public final class SeededPseudoRandom implements PseudoRandom {
-  // We use SplittableRandom instead of Random since it doesn't incur unnecessary synchronization
-  // overhead and uses a much better RNG under the hood that can generate all long values.
-  private final SplittableRandom random;
+  /** The algorithm used to generate the underlying stream of random longs. */
+  public enum Generator {
+    /**
+     * SplitMix64 with the same constants as {@link SplittableRandom}, so that {@link #nextLong()}
+     * returns the same values as {@code new SplittableRandom(seed).nextLong()}.
+     */
+    SPLITMIX64,
+    /**
+     * xoshiro256**, which needs a few more state updates per value than SplitMix64, but has a much
+     * larger state and a longer period. Seeded via SplitMix64 as recommended by its authors.
+     */
+    XOSHIRO256_STAR_STAR,
+  }
+
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private final Generator generator;
+  // SPLITMIX64 only uses state0.
+  private long state0;
+  private long state1;
+  private long state2;
+  private long state3;
 
   public SeededPseudoRandom(long seed) {
-    this.random = new SplittableRandom(seed);
+    this(seed, Generator.SPLITMIX64);
+  }
+
+  public SeededPseudoRandom(long seed, Generator generator) {
+    this.generator = requireNonNull(generator);
+    reseed(seed);
+  }
+
+  /**
+   * Resets this instance to the state of a newly created {@link SeededPseudoRandom} with the given
+   * seed and the same {@link Generator}.
+   */
+  public void reseed(long seed) {
+    if (generator == Generator.SPLITMIX64) {
+      state0 = seed;
+    } else {
+      // mix64 is a bijection, so at most one of the four consecutive values can be zero and the
+      // state is never all zero.
+      state0 = mix64(seed += GOLDEN_GAMMA);
+      state1 = mix64(seed += GOLDEN_GAMMA);
+      state2 = mix64(seed += GOLDEN_GAMMA);
+      state3 = mix64(seed + GOLDEN_GAMMA);
+    }
   }
 
   @Override
   public boolean choice() {
-    return random.nextBoolean();
+    return nextLong() < 0;
   }
 
   @Override
@@ -69,11 +114,7 @@ public final class SeededPseudoRandom implements PseudoRandom {
   @Override
   public int indexIn(int range) {
     require(range >= 1);
-    // TODO: Replace random.nextInt(length) with the fast version of
-    //  https://lemire.me/blog/2016/06/30/fast-random-shuffling/, which avoids a modulo operation.
-    //  It's slightly more biased for large bounds, but indices and choices tend to be small and
-    //  are generated frequently (e.g. when picking a submutator).
-    return random.nextInt(range);
+    return nextInt(range);
   }
 
   @Override
@@ -96,15 +137,15 @@ public final class SeededPseudoRandom implements PseudoRandom {
     require(lowerInclusive <= upperInclusive);
     int range = upperInclusive - lowerInclusive + 1;
     if (range > 0) {
-      return lowerInclusive + random.nextInt(range);
+      return lowerInclusive + nextInt(range);
     } else {
       // The interval [lowerInclusive, upperInclusive] covers at least half of the
       // [Integer.MIN_VALUE, Integer.MAX_VALUE] range, fall back to rejection sampling with an
       // expected number of samples <= 2.
       int r;
       do {
-        r = random.nextInt();
-      } while (r < lowerInclusive);
+        r = (int) (nextLong() >>> 32);
+      } while (r < lowerInclusive || r > upperInclusive);
       return r;
     }
   }
@@ -112,20 +153,17 @@ public final class SeededPseudoRandom implements PseudoRandom {
   @Override
   public long closedRange(long lowerInclusive, long upperInclusive) {
     require(lowerInclusive <= upperInclusive);
-    if (upperInclusive < Long.MAX_VALUE) {
-      // upperInclusive + 1 <= Long.MAX_VALUE
-      return random.nextLong(lowerInclusive, upperInclusive + 1);
-    } else if (lowerInclusive > 0) {
-      // upperInclusive + 1 - lowerInclusive <= Long.MAX_VALUE
-      return lowerInclusive + random.nextLong(upperInclusive + 1 - lowerInclusive);
+    long range = upperInclusive - lowerInclusive + 1;
+    if (range > 0) {
+      return lowerInclusive + nextLong(range);
     } else {
-      // The interval [lowerInclusive, Long.MAX_VALUE] covers at least half of the
+      // The interval [lowerInclusive, upperInclusive] covers at least half of the
       // [Long.MIN_VALUE, Long.MAX_VALUE] range, fall back to rejection sampling with an expected
       // number of samples <= 2.
       long r;
       do {
-        r = random.nextLong();
-      } while (r < lowerInclusive);
+        r = nextLong();
+      } while (r < lowerInclusive || r > upperInclusive);
       return r;
     }
   }
@@ -152,7 +190,7 @@ public final class SeededPseudoRandom implements PseudoRandom {
     // nextDouble(start, bound) is exclusive of bound, so we use Math.nextUp to extend the bound to
     // the next representable double. The maximal possible range of a float is always finite when
     // represented as a double. Therefore, we can safely use nextDouble and convert it to a float.
-    return (float) random.nextDouble((double) limitedLower, Math.nextUp((double) limitedUpper));
+    return (float) nextDouble((double) limitedLower, Math.nextUp((double) limitedUpper));
   }
 
   // This function always returns a finite value
@@ -180,7 +218,7 @@ public final class SeededPseudoRandom implements PseudoRandom {
     if (limitedLower == limitedUpper)
       return limitedLower;
 
-    // random.nextDouble() is exclusive of the upper bound. To include the upper bound,
+    // nextDouble() is exclusive of the upper bound. To include the upper bound,
     // we extend the bound to the next double value by using Math.nextUp(limitedUpper).
     double nextUpper =
         (limitedUpper == Double.MAX_VALUE) ? limitedUpper : Math.nextUp(limitedUpper);
@@ -192,11 +230,9 @@ public final class SeededPseudoRandom implements PseudoRandom {
 
     // nextDouble(start, bound) can only deal with finite ranges
     if (Double.isFinite(nextUpper - limitedLower) && couldExtendRange) {
-      double result = random.nextDouble(limitedLower, nextUpper);
-      // Clamp random.nextDouble() to the upper bound.
-      // This is a workaround for RandomSupport.nextDouble() that causes it to
-      // return values greater than upper bound.
-      // See https://bugs.openjdk.org/browse/JDK-8281183 for a list of affected JDK versions.
+      double result = nextDouble(limitedLower, nextUpper);
+      // Clamp nextDouble() to the upper bound, which it can exceed after rounding if nextUpper is
+      // the result of Math.nextUp.
       if (result > limitedUpper)
         result = limitedUpper;
       return result;
@@ -206,14 +242,27 @@ public final class SeededPseudoRandom implements PseudoRandom {
       // limitedLower * (1 - n) + limitedUpper * n            - is the same as:
       // limitedLower + (limitedUpper - limitedLower) * n
       // limitedLower + range * n
-      double n = random.nextDouble(0.0, Math.nextUp(1.0));
+      double n = nextDouble(0.0, Math.nextUp(1.0));
       return limitedLower * (1 - n) + limitedUpper * n;
     }
   }
 
   @Override
   public void bytes(byte[] bytes) {
-    RandomSupport.nextBytes(random, bytes);
+    // Use all eight bytes of every generated long.
+    int i = 0;
+    for (int words = bytes.length >> 3; words > 0; words--) {
+      long r = nextLong();
+      for (int n = 0; n < 8; n++) {
+        bytes[i++] = (byte) r;
+        r >>>= 8;
+      }
+    }
+    if (i < bytes.length) {
+      for (long r = nextLong(); i < bytes.length; r >>>= 8) {
+        bytes[i++] = (byte) r;
+      }
+    }
   }
 
   @Override
@@ -233,7 +282,7 @@ public final class SeededPseudoRandom implements PseudoRandom {
     final double s = 0.46153846153846123;
     double k;
     while (true) {
-      final double v = random.nextDouble();
+      final double v = nextDouble();
       final double u = hxm + v * hx0_minus_hxm;
       final double x = zipf_hinv(u);
       k = Math.floor(x + 0.5);
@@ -283,6 +332,68 @@ public final class SeededPseudoRandom implements PseudoRandom {
 
   @Override
   public long nextLong() {
-    return random.nextLong();
+    if (generator == Generator.SPLITMIX64) {
+      return mix64(state0 += GOLDEN_GAMMA);
+    }
+    long s0 = state0;
+    long s1 = state1;
+    long s2 = state2;
+    long s3 = state3;
+    long result = Long.rotateLeft(s1 * 5, 7) * 9;
+    long t = s1 << 17;
+    s2 ^= s0;
+    s3 ^= s1;
+    state1 = s1 ^ s2;
+    state0 = s0 ^ s3;
+    state2 = s2 ^ t;
+    state3 = Long.rotateLeft(s3, 45);
+    return result;
+  }
+
+  // Returns a uniformly distributed int in [0, bound) for bound > 0 using Lemire's nearly
+  // divisionless method (https://arxiv.org/abs/1805.10941): the upper 32 bits of the product of a
+  // random 32-bit value and bound are the result, the lower 32 bits reveal whether it has to be
+  // rejected to avoid bias. The modulo is only computed in the rare case that this is possible.
+  private int nextInt(int bound) {
+    long product = (nextLong() >>> 32) * bound;
+    long low = product & 0xFFFFFFFFL;
+    if (low < bound) {
+      long threshold = (1L << 32) % bound;
+      while (low < threshold) {
+        product = (nextLong() >>> 32) * bound;
+        low = product & 0xFFFFFFFFL;
+      }
+    }
+    return (int) (product >>> 32);
+  }
+
+  // Returns a uniformly distributed long in [0, bound) for bound > 0.
+  private long nextLong(long bound) {
+    long mask = bound - 1;
+    long r = nextLong();
+    if ((bound & mask) == 0) {
+      return r & mask;
+    }
+    // Rejection sampling on the non-negative longs, as in SplittableRandom.
+    for (long u = r >>> 1; u + mask - (r = u % bound) < 0; u = nextLong() >>> 1) {
+    }
+    return r;
+  }
+
+  // Returns a uniformly distributed double in [0, 1).
+  private double nextDouble() {
+    return (nextLong() >>> 11) * 0x1.0p-53;
+  }
+
+  // Returns a double in [origin, bound) for a finite bound - origin.
+  private double nextDouble(double origin, double bound) {
+    double r = nextDouble() * (bound - origin) + origin;
+    return r < bound ? r : Math.nextDown(bound);
+  }
+
+  private static long mix64(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
   }
 }
@@ -22,6 +22,7 @@ import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.joining;
 
 import com.code_intelligence.jazzer.mutation.annotation.AppliesTo;
+import com.code_intelligence.jazzer.mutation.api.CachingMutatorFactory;
 import com.code_intelligence.jazzer.mutation.api.ChainedMutatorFactory;
 import com.code_intelligence.jazzer.mutation.api.MutatorFactory;
 import com.code_intelligence.jazzer.mutation.mutator.collection.CollectionMutators;
@@ -38,6 +39,18 @@ public final class Mutators {
         LangMutators.newFactory(), CollectionMutators.newFactory(), ProtoMutators.newFactory());
   }
 
+  /**
+   * Returns a thread-safe factory shared by all callers that reuses the mutators it has already
+   * created for equal types, which avoids walking large protobuf schemas for every fuzz test.
+   */
+  public static MutatorFactory sharedFactory() {
+    return SharedFactoryHolder.FACTORY;
+  }
+
+  private static final class SharedFactoryHolder {
+    static final MutatorFactory FACTORY = new CachingMutatorFactory(newFactory());
+  }
+
   /**
    * Throws an exception if any annotation on {@code type} violates the restrictions of its
    * {@link AppliesTo} meta-annotation.
@@ -25,6 +25,7 @@ public final class LangMutators {
   public static MutatorFactory newFactory() {
     return new ChainedMutatorFactory(new NullableMutatorFactory(), new BooleanMutatorFactory(),
         new FloatingPointMutatorFactory(), new IntegralMutatorFactory(),
-        new ByteArrayMutatorFactory(), new StringMutatorFactory(), new EnumMutatorFactory());
+        new ByteArrayMutatorFactory(), new PrimitiveArrayMutatorFactory(),
+        new StringMutatorFactory(), new EnumMutatorFactory());
   }
 }
@@ -0,0 +1,600 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator.lang;
+
+import static com.code_intelligence.jazzer.mutation.support.Preconditions.require;
+import static com.code_intelligence.jazzer.mutation.support.TypeSupport.asAnnotatedType;
+import static java.lang.String.format;
+
+import com.code_intelligence.jazzer.mutation.annotation.WithLength;
+import com.code_intelligence.jazzer.mutation.api.Debuggable;
+import com.code_intelligence.jazzer.mutation.api.MutatorFactory;
+import com.code_intelligence.jazzer.mutation.api.PseudoRandom;
+import com.code_intelligence.jazzer.mutation.api.SerializingMutator;
+import com.code_intelligence.jazzer.mutation.mutator.lang.FloatingPointMutatorFactory.DoubleMutator;
+import com.code_intelligence.jazzer.mutation.mutator.lang.FloatingPointMutatorFactory.FloatMutator;
+import com.code_intelligence.jazzer.mutation.mutator.lang.IntegralMutatorFactory.AbstractIntegralMutator;
+import com.code_intelligence.jazzer.mutation.support.RandomSupport;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.AnnotatedArrayType;
+import java.lang.reflect.AnnotatedType;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Mutates arrays of the primitive types {@code int}, {@code long}, {@code short}, {@code char},
+ * {@code float} and {@code double}. {@code byte[]} is handled by {@link ByteArrayMutatorFactory}.
+ *
+ * <p>Compared to {@code List<Integer>} and friends, elements are serialized in bulk and chunks are
+ * inserted and deleted with {@link System#arraycopy}, so that elements are only boxed when they are
+ * passed to the element mutator. Annotations on the component type, such as {@code @InRange(min =
+ * 0, max = 10) int[]}, apply to every element.
+ */
+final class PrimitiveArrayMutatorFactory extends MutatorFactory {
+  @Override
+  public Optional<SerializingMutator<?>> tryCreate(AnnotatedType type, MutatorFactory factory) {
+    if (!(type instanceof AnnotatedArrayType)) {
+      return Optional.empty();
+    }
+    AnnotatedType componentType = ((AnnotatedArrayType) type).getAnnotatedGenericComponentType();
+    Optional<WithLength> withLength = Optional.ofNullable(type.getAnnotation(WithLength.class));
+    int minLength =
+        withLength.map(WithLength::min).orElse(PrimitiveArrayMutator.DEFAULT_MIN_LENGTH);
+    int maxLength =
+        withLength.map(WithLength::max).orElse(PrimitiveArrayMutator.DEFAULT_MAX_LENGTH);
+
+    Class<?> arrayClass = (Class<?>) type.getType();
+    if (arrayClass == int[].class) {
+      return Optional.of(
+          new IntArrayMutator(integralMutator(componentType), minLength, maxLength));
+    } else if (arrayClass == long[].class) {
+      return Optional.of(
+          new LongArrayMutator(integralMutator(componentType), minLength, maxLength));
+    } else if (arrayClass == short[].class) {
+      return Optional.of(
+          new ShortArrayMutator(integralMutator(componentType), minLength, maxLength));
+    } else if (arrayClass == char[].class) {
+      // There is no mutator for char, but mutating the bits of a short has the same effect.
+      return Optional.of(new CharArrayMutator(
+          integralMutator(asAnnotatedType(short.class)), minLength, maxLength));
+    } else if (arrayClass == float[].class) {
+      return Optional.of(new FloatArrayMutator(
+          (FloatMutator) new FloatingPointMutatorFactory().createOrThrow(componentType), minLength,
+          maxLength));
+    } else if (arrayClass == double[].class) {
+      return Optional.of(new DoubleArrayMutator(
+          (DoubleMutator) new FloatingPointMutatorFactory().createOrThrow(componentType),
+          minLength, maxLength));
+    } else {
+      return Optional.empty();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends Number> AbstractIntegralMutator<T> integralMutator(
+      AnnotatedType componentType) {
+    return (AbstractIntegralMutator<T>) new IntegralMutatorFactory().createOrThrow(componentType);
+  }
+
+  /**
+   * Base class for mutators of arrays of type {@code A} that access their elements only through
+   * the index-based methods implemented by subclasses.
+   */
+  private static abstract class PrimitiveArrayMutator<A> extends SerializingMutator<A> {
+    private static final int DEFAULT_MIN_LENGTH = 0;
+    private static final int DEFAULT_MAX_LENGTH = 1000;
+    // Serialized elements are read in chunks of at most this many bytes so that a length prefix
+    // that isn't backed by actual data can't trigger a huge allocation.
+    private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+    private final String componentName;
+    private final int elementSize;
+    private final int minLength;
+    private final int maxLength;
+
+    PrimitiveArrayMutator(String componentName, int elementSize, int minLength, int maxLength) {
+      this.componentName = componentName;
+      this.elementSize = elementSize;
+      require(maxLength >= 1, format("WithLength#max=%d needs to be greater than 0", maxLength));
+      require(minLength >= 0, format("WithLength#min=%d needs to be positive", minLength));
+      require(minLength <= maxLength,
+          format("WithLength#min=%d needs to be smaller or equal than WithLength#max=%d",
+              minLength, maxLength));
+      // The serialized form of an array has to fit into a single byte[], so the size in bytes of
+      // every array this mutator reads or writes must not overflow an int.
+      this.maxLength = Math.min(maxLength, Integer.MAX_VALUE / elementSize);
+      this.minLength = Math.min(minLength, this.maxLength);
+    }
+
+    protected abstract A newArray(int length);
+
+    protected abstract int length(A array);
+
+    /**
+     * Fills {@code array} with big-endian elements read from {@code buffer}, forcing them into the
+     * range of the element mutator.
+     */
+    protected abstract void readElements(ByteBuffer buffer, A array);
+
+    protected abstract void writeElements(A array, ByteBuffer buffer);
+
+    protected abstract void initElement(A array, int index, PseudoRandom prng);
+
+    protected abstract void mutateElement(A array, int index, PseudoRandom prng);
+
+    protected abstract void crossOverElement(
+        A array, int index, A otherArray, int otherIndex, PseudoRandom prng);
+
+    @Override
+    public final A read(DataInputStream in) throws IOException {
+      int length = RandomSupport.clamp(in.readInt(), minLength, maxLength);
+      // Can't overflow as maxLength is capped in the constructor.
+      byte[] bytes = readBytes(in, length * elementSize);
+      A array = newArray(length);
+      readElements(ByteBuffer.wrap(bytes), array);
+      return array;
+    }
+
+    private static byte[] readBytes(DataInputStream in, int size) throws IOException {
+      if (size <= READ_CHUNK_SIZE) {
+        byte[] bytes = new byte[size];
+        in.readFully(bytes);
+        return bytes;
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream(READ_CHUNK_SIZE);
+      byte[] chunk = new byte[READ_CHUNK_SIZE];
+      int remaining = size;
+      while (remaining > 0) {
+        int chunkSize = Math.min(remaining, READ_CHUNK_SIZE);
+        in.readFully(chunk, 0, chunkSize);
+        out.write(chunk, 0, chunkSize);
+        remaining -= chunkSize;
+      }
+      return out.toByteArray();
+    }
+
+    @Override
+    public final void write(A value, DataOutputStream out) throws IOException {
+      int length = length(value);
+      ByteBuffer buffer = ByteBuffer.allocate(Math.multiplyExact(length, elementSize));
+      writeElements(value, buffer);
+      out.writeInt(length);
+      out.write(buffer.array());
+    }
+
+    @Override
+    public final A detach(A value) {
+      int length = length(value);
+      A copy = newArray(length);
+      System.arraycopy(value, 0, copy, 0, length);
+      return copy;
+    }
+
+    @Override
+    public final A init(PseudoRandom prng) {
+      // Keep the initial length small for the same reasons as List<T> does.
+      A array = newArray(prng.closedRange(minLength, Math.min(maxLength, minLength + 1)));
+      for (int i = 0; i < length(array); i++) {
+        initElement(array, i, prng);
+      }
+      return array;
+    }
+
+    @Override
+    public final A mutate(A value, PseudoRandom prng) {
+      int length = length(value);
+      // Same choice of actions as ChunkMutations#pickRandomMutationAction, without allocating a
+      // list of them for every mutation.
+      boolean canDelete = length > minLength;
+      boolean canInsert = length < maxLength;
+      boolean canMutate = length != 0;
+      int numActions = (canDelete ? 1 : 0) + (canInsert ? 1 : 0) + (canMutate ? 1 : 0);
+      int action = prng.indexIn(numActions);
+      if (canDelete && action-- == 0) {
+        return deleteRandomChunk(value, length, prng);
+      } else if (canInsert && action-- == 0) {
+        return insertRandomChunk(value, length, prng);
+      } else {
+        mutateRandomChunk(value, length, prng);
+        return value;
+      }
+    }
+
+    private A deleteRandomChunk(A value, int length, PseudoRandom prng) {
+      int minFinalLength = Math.max(minLength, length / 2);
+      int chunkSize = prng.closedRangeBiasedTowardsSmall(1, length - minFinalLength);
+      int chunkOffset = prng.closedRange(0, length - chunkSize);
+
+      A result = newArray(length - chunkSize);
+      System.arraycopy(value, 0, result, 0, chunkOffset);
+      System.arraycopy(value, chunkOffset + chunkSize, result, chunkOffset,
+          length - chunkOffset - chunkSize);
+      return result;
+    }
+
+    private A insertRandomChunk(A value, int length, PseudoRandom prng) {
+      int chunkSize = prng.closedRangeBiasedTowardsSmall(1, maxLength - length);
+      int chunkOffset = prng.closedRange(0, length);
+
+      A result = newArray(length + chunkSize);
+      System.arraycopy(value, 0, result, 0, chunkOffset);
+      System.arraycopy(value, chunkOffset, result, chunkOffset + chunkSize, length - chunkOffset);
+      // Fill the chunk with copies of a single base element, doubling the filled part each time.
+      initElement(result, chunkOffset, prng);
+      for (int filled = 1; filled < chunkSize; filled *= 2) {
+        System.arraycopy(result, chunkOffset, result, chunkOffset + filled,
+            Math.min(filled, chunkSize - filled));
+      }
+      return result;
+    }
+
+    private void mutateRandomChunk(A value, int length, PseudoRandom prng) {
+      int chunkSize = prng.closedRangeBiasedTowardsSmall(1, length);
+      int chunkOffset = prng.closedRange(0, length - chunkSize);
+      for (int i = chunkOffset; i < chunkOffset + chunkSize; i++) {
+        mutateElement(value, i, prng);
+      }
+    }
+
+    @Override
+    public final A crossOver(A value, A otherValue, PseudoRandom prng) {
+      int length = length(value);
+      int otherLength = length(otherValue);
+      if (otherLength == 0) {
+        return value;
+      }
+      // Same choice of actions as ChunkCrossOvers#pickRandomCrossOverAction. Chunks are never
+      // removed, that is handled by the mutations on the result.
+      boolean canInsert = length < maxLength;
+      boolean canOverwrite = length != 0;
+      int numActions = (canInsert ? 1 : 0) + (canOverwrite ? 2 : 0);
+      if (numActions == 0) {
+        return value;
+      }
+      int action = prng.indexIn(numActions);
+      if (canInsert && action-- == 0) {
+        return insertChunk(value, length, otherValue, otherLength, prng);
+      }
+      int chunkSize = prng.closedRangeBiasedTowardsSmall(1, Math.min(length, otherLength));
+      int fromPos = prng.closedRange(0, otherLength - chunkSize);
+      int toPos = prng.closedRange(0, length - chunkSize);
+      if (action == 0) {
+        System.arraycopy(otherValue, fromPos, value, toPos, chunkSize);
+      } else {
+        for (int i = 0; i < chunkSize; i++) {
+          crossOverElement(value, toPos + i, otherValue, fromPos + i, prng);
+        }
+      }
+      return value;
+    }
+
+    private A insertChunk(A value, int length, A otherValue, int otherLength, PseudoRandom prng) {
+      int maxChunkSize = Math.min(maxLength - length, Math.min(length, otherLength));
+      if (maxChunkSize == 0) {
+        return value;
+      }
+      int chunkSize = prng.closedRangeBiasedTowardsSmall(1, maxChunkSize);
+      int fromPos = prng.closedRange(0, otherLength - chunkSize);
+      int toPos = prng.closedRange(0, length - chunkSize);
+
+      A result = newArray(length + chunkSize);
+      System.arraycopy(value, 0, result, 0, toPos);
+      System.arraycopy(otherValue, fromPos, result, toPos, chunkSize);
+      System.arraycopy(value, toPos, result, toPos + chunkSize, length - toPos);
+      return result;
+    }
+
+    @Override
+    public final String toDebugString(Predicate<Debuggable> isInCycle) {
+      return componentName + "[]";
+    }
+  }
+
+  private static final class IntArrayMutator extends PrimitiveArrayMutator<int[]> {
+    private final AbstractIntegralMutator<Integer> elementMutator;
+
+    IntArrayMutator(AbstractIntegralMutator<Integer> elementMutator, int minLength, int maxLength) {
+      super("int", Integer.BYTES, minLength, maxLength);
+      this.elementMutator = elementMutator;
+    }
+
+    @Override
+    protected int[] newArray(int length) {
+      return new int[length];
+    }
+
+    @Override
+    protected int length(int[] array) {
+      return array.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buffer, int[] array) {
+      buffer.asIntBuffer().get(array);
+      for (int i = 0; i < array.length; i++) {
+        array[i] = (int) elementMutator.forceInRange(array[i]);
+      }
+    }
+
+    @Override
+    protected void writeElements(int[] array, ByteBuffer buffer) {
+      buffer.asIntBuffer().put(array);
+    }
+
+    @Override
+    protected void initElement(int[] array, int index, PseudoRandom prng) {
+      array[index] = elementMutator.init(prng);
+    }
+
+    @Override
+    protected void mutateElement(int[] array, int index, PseudoRandom prng) {
+      array[index] = elementMutator.mutate(array[index], prng);
+    }
+
+    @Override
+    protected void crossOverElement(
+        int[] array, int index, int[] otherArray, int otherIndex, PseudoRandom prng) {
+      array[index] = elementMutator.crossOver(array[index], otherArray[otherIndex], prng);
+    }
+  }
+
+  private static final class LongArrayMutator extends PrimitiveArrayMutator<long[]> {
+    private final AbstractIntegralMutator<Long> elementMutator;
+
+    LongArrayMutator(AbstractIntegralMutator<Long> elementMutator, int minLength, int maxLength) {
+      super("long", Long.BYTES, minLength, maxLength);
+      this.elementMutator = elementMutator;
+    }
+
+    @Override
+    protected long[] newArray(int length) {
+      return new long[length];
+    }
+
+    @Override
+    protected int length(long[] array) {
+      return array.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buffer, long[] array) {
+      buffer.asLongBuffer().get(array);
+      for (int i = 0; i < array.length; i++) {
+        array[i] = elementMutator.forceInRange(array[i]);
+      }
+    }
+
+    @Override
+    protected void writeElements(long[] array, ByteBuffer buffer) {
+      buffer.asLongBuffer().put(array);
+    }
+
+    @Override
+    protected void initElement(long[] array, int index, PseudoRandom prng) {
+      array[index] = elementMutator.init(prng);
+    }
+
+    @Override
+    protected void mutateElement(long[] array, int index, PseudoRandom prng) {
+      array[index] = elementMutator.mutate(array[index], prng);
+    }
+
+    @Override
+    protected void crossOverElement(
+        long[] array, int index, long[] otherArray, int otherIndex, PseudoRandom prng) {
+      array[index] = elementMutator.crossOver(array[index], otherArray[otherIndex], prng);
+    }
+  }
+
+  private static final class ShortArrayMutator extends PrimitiveArrayMutator<short[]> {
+    private final AbstractIntegralMutator<Short> elementMutator;
+
+    ShortArrayMutator(AbstractIntegralMutator<Short> elementMutator, int minLength, int maxLength) {
+      super("short", Short.BYTES, minLength, maxLength);
+      this.elementMutator = elementMutator;
+    }
+
+    @Override
+    protected short[] newArray(int length) {
+      return new short[length];
+    }
+
+    @Override
+    protected int length(short[] array) {
+      return array.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buffer, short[] array) {
+      buffer.asShortBuffer().get(array);
+      for (int i = 0; i < array.length; i++) {
+        array[i] = (short) elementMutator.forceInRange(array[i]);
+      }
+    }
+
+    @Override
+    protected void writeElements(short[] array, ByteBuffer buffer) {
+      buffer.asShortBuffer().put(array);
+    }
+
+    @Override
+    protected void initElement(short[] array, int index, PseudoRandom prng) {
+      array[index] = elementMutator.init(prng);
+    }
+
+    @Override
+    protected void mutateElement(short[] array, int index, PseudoRandom prng) {
+      array[index] = elementMutator.mutate(array[index], prng);
+    }
+
+    @Override
+    protected void crossOverElement(
+        short[] array, int index, short[] otherArray, int otherIndex, PseudoRandom prng) {
+      array[index] = elementMutator.crossOver(array[index], otherArray[otherIndex], prng);
+    }
+  }
+
+  private static final class CharArrayMutator extends PrimitiveArrayMutator<char[]> {
+    // Operates on the bits of the chars reinterpreted as shorts.
+    private final AbstractIntegralMutator<Short> elementMutator;
+
+    CharArrayMutator(AbstractIntegralMutator<Short> elementMutator, int minLength, int maxLength) {
+      super("char", Character.BYTES, minLength, maxLength);
+      this.elementMutator = elementMutator;
+    }
+
+    @Override
+    protected char[] newArray(int length) {
+      return new char[length];
+    }
+
+    @Override
+    protected int length(char[] array) {
+      return array.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buffer, char[] array) {
+      // Every char is valid, so there is no range to force elements into.
+      buffer.asCharBuffer().get(array);
+    }
+
+    @Override
+    protected void writeElements(char[] array, ByteBuffer buffer) {
+      buffer.asCharBuffer().put(array);
+    }
+
+    @Override
+    protected void initElement(char[] array, int index, PseudoRandom prng) {
+      array[index] = (char) (short) elementMutator.init(prng);
+    }
+
+    @Override
+    protected void mutateElement(char[] array, int index, PseudoRandom prng) {
+      array[index] = (char) (short) elementMutator.mutate((short) array[index], prng);
+    }
+
+    @Override
+    protected void crossOverElement(
+        char[] array, int index, char[] otherArray, int otherIndex, PseudoRandom prng) {
+      array[index] = (char) (short) elementMutator.crossOver(
+          (short) array[index], (short) otherArray[otherIndex], prng);
+    }
+  }
+
+  private static final class FloatArrayMutator extends PrimitiveArrayMutator<float[]> {
+    private final FloatMutator elementMutator;
+
+    FloatArrayMutator(FloatMutator elementMutator, int minLength, int maxLength) {
+      super("float", Float.BYTES, minLength, maxLength);
+      this.elementMutator = elementMutator;
+    }
+
+    @Override
+    protected float[] newArray(int length) {
+      return new float[length];
+    }
+
+    @Override
+    protected int length(float[] array) {
+      return array.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buffer, float[] array) {
+      buffer.asFloatBuffer().get(array);
+      for (int i = 0; i < array.length; i++) {
+        array[i] = FloatMutator.forceInRange(array[i], elementMutator.minValue,
+            elementMutator.maxValue, elementMutator.allowNaN);
+      }
+    }
+
+    @Override
+    protected void writeElements(float[] array, ByteBuffer buffer) {
+      buffer.asFloatBuffer().put(array);
+    }
+
+    @Override
+    protected void initElement(float[] array, int index, PseudoRandom prng) {
+      array[index] = elementMutator.init(prng);
+    }
+
+    @Override
+    protected void mutateElement(float[] array, int index, PseudoRandom prng) {
+      array[index] = elementMutator.mutate(array[index], prng);
+    }
+
+    @Override
+    protected void crossOverElement(
+        float[] array, int index, float[] otherArray, int otherIndex, PseudoRandom prng) {
+      array[index] = elementMutator.crossOver(array[index], otherArray[otherIndex], prng);
+    }
+  }
+
+  private static final class DoubleArrayMutator extends PrimitiveArrayMutator<double[]> {
+    private final DoubleMutator elementMutator;
+
+    DoubleArrayMutator(DoubleMutator elementMutator, int minLength, int maxLength) {
+      super("double", Double.BYTES, minLength, maxLength);
+      this.elementMutator = elementMutator;
+    }
+
+    @Override
+    protected double[] newArray(int length) {
+      return new double[length];
+    }
+
+    @Override
+    protected int length(double[] array) {
+      return array.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buffer, double[] array) {
+      buffer.asDoubleBuffer().get(array);
+      for (int i = 0; i < array.length; i++) {
+        array[i] = DoubleMutator.forceInRange(array[i], elementMutator.minValue,
+            elementMutator.maxValue, elementMutator.allowNaN);
+      }
+    }
+
+    @Override
+    protected void writeElements(double[] array, ByteBuffer buffer) {
+      buffer.asDoubleBuffer().put(array);
+    }
+
+    @Override
+    protected void initElement(double[] array, int index, PseudoRandom prng) {
+      array[index] = elementMutator.init(prng);
+    }
+
+    @Override
+    protected void mutateElement(double[] array, int index, PseudoRandom prng) {
+      array[index] = elementMutator.mutate(array[index], prng);
+    }
+
+    @Override
+    protected void crossOverElement(
+        double[] array, int index, double[] otherArray, int otherIndex, PseudoRandom prng) {
+      array[index] = elementMutator.crossOver(array[index], otherArray[otherIndex], prng);
+    }
+  }
+}
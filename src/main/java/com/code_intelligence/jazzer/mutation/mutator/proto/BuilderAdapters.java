@@ -34,23 +34,33 @@ final class BuilderAdapters {
 
   static <T extends Builder, U> List<U> makeMutableRepeatedFieldView(
       T builder, FieldDescriptor field) {
+    return makeMutableRepeatedFieldView(builder, field, null);
+  }
+
+  /**
+   * Returns a mutable view of a repeated field that uses {@code accessors}, if non-null and
+   * applicable to {@code builder}, instead of the reflection API of {@link Builder}.
+   */
+  static <T extends Builder, U> List<U> makeMutableRepeatedFieldView(
+      T builder, FieldDescriptor field, GeneratedFieldAccessors accessors) {
+    boolean useAccessors = accessors != null && accessors.appliesTo(builder);
     return new AbstractList<U>() {
       // O(1)
       @Override
       public U get(int index) {
-        return (U) builder.getRepeatedField(field, index);
+        return getElement(index);
       }
 
       // O(1)
       @Override
       public int size() {
-        return builder.getRepeatedFieldCount(field);
+        return useAccessors ? accessors.count(builder) : builder.getRepeatedFieldCount(field);
       }
 
       // O(1)
       @Override
       public boolean add(U element) {
-        builder.addRepeatedField(field, element);
+        addElement(element);
         return true;
       }
 
@@ -77,7 +87,7 @@ final class BuilderAdapters {
         int originalSize = size();
         if (index == originalSize) {
           for (U element : other) {
-            builder.addRepeatedField(field, element);
+            addElement(element);
           }
           return true;
         }
@@ -85,11 +95,11 @@ final class BuilderAdapters {
         int newSize = originalSize + otherSize;
         ArrayList<U> temp = new ArrayList<>(newSize);
         for (int i = 0; i < index; i++) {
-          temp.add((U) builder.getRepeatedField(field, i));
+          temp.add(getElement(i));
         }
         temp.addAll(other);
         for (int i = index; i < originalSize; i++) {
-          temp.add((U) builder.getRepeatedField(field, i));
+          temp.add(getElement(i));
         }
 
         replaceWith(temp);
@@ -100,7 +110,11 @@ final class BuilderAdapters {
       @Override
       public U set(int index, U element) {
         U previous = get(index);
-        builder.setRepeatedField(field, index, element);
+        if (useAccessors) {
+          accessors.set(builder, index, element);
+        } else {
+          builder.setRepeatedField(field, index, element);
+        }
         return previous;
       }
 
@@ -118,7 +132,7 @@ final class BuilderAdapters {
         int originalSize = size();
         int newSize = originalSize - (toIndex - fromIndex);
         if (newSize == 0) {
-          builder.clearField(field);
+          clearElements();
           return;
         }
 
@@ -126,21 +140,45 @@ final class BuilderAdapters {
         // field, so we have to iterate over all entries and keep them in a temporary list.
         ArrayList<U> temp = new ArrayList<>(newSize);
         for (int i = 0; i < fromIndex; i++) {
-          temp.add((U) builder.getRepeatedField(field, i));
+          temp.add(getElement(i));
         }
         for (int i = toIndex; i < originalSize; i++) {
-          temp.add((U) builder.getRepeatedField(field, i));
+          temp.add(getElement(i));
         }
 
         replaceWith(temp);
       }
 
       private void replaceWith(ArrayList<U> temp) {
-        builder.clearField(field);
+        clearElements();
         for (U element : temp) {
+          addElement(element);
+        }
+      }
+
+      private U getElement(int index) {
+        if (useAccessors) {
+          return (U) accessors.get(builder, index);
+        } else {
+          return (U) builder.getRepeatedField(field, index);
+        }
+      }
+
+      private void addElement(U element) {
+        if (useAccessors) {
+          accessors.add(builder, element);
+        } else {
           builder.addRepeatedField(field, element);
         }
       }
+
+      private void clearElements() {
+        if (useAccessors) {
+          accessors.clear(builder);
+        } else {
+          builder.clearField(field);
+        }
+      }
     };
   }
 
@@ -152,6 +190,18 @@ final class BuilderAdapters {
     }
   }
 
+  static <T extends Builder, U> U getPresentFieldOrNull(
+      T builder, FieldDescriptor field, GeneratedFieldAccessors accessors) {
+    if (!accessors.appliesTo(builder)) {
+      return getPresentFieldOrNull(builder, field);
+    }
+    if (accessors.has(builder)) {
+      return (U) accessors.get(builder);
+    } else {
+      return null;
+    }
+  }
+
   static <T extends Builder, U> void setFieldWithPresence(
       T builder, FieldDescriptor field, U value) {
     if (value == null) {
@@ -161,6 +211,35 @@ final class BuilderAdapters {
     }
   }
 
+  static <T extends Builder, U> void setFieldWithPresence(
+      T builder, FieldDescriptor field, U value, GeneratedFieldAccessors accessors) {
+    if (!accessors.appliesTo(builder)) {
+      setFieldWithPresence(builder, field, value);
+    } else if (value == null) {
+      accessors.clear(builder);
+    } else {
+      accessors.set(builder, value);
+    }
+  }
+
+  static <T extends Builder, U> U getField(
+      T builder, FieldDescriptor field, GeneratedFieldAccessors accessors) {
+    if (accessors.appliesTo(builder)) {
+      return (U) accessors.get(builder);
+    } else {
+      return (U) builder.getField(field);
+    }
+  }
+
+  static <T extends Builder, U> void setField(
+      T builder, FieldDescriptor field, U value, GeneratedFieldAccessors accessors) {
+    if (accessors.appliesTo(builder)) {
+      accessors.set(builder, value);
+    } else {
+      builder.setField(field, value);
+    }
+  }
+
   static <T extends Builder, K, V> Map<K, V> getMapField(T builder, FieldDescriptor field) {
     int size = builder.getRepeatedFieldCount(field);
     FieldDescriptor keyField = field.getMessageType().getFields().get(0);
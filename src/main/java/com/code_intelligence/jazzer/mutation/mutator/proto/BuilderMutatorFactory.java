@@ -24,9 +24,11 @@ import static com.code_intelligence.jazzer.mutation.combinator.MutatorCombinator
 import static com.code_intelligence.jazzer.mutation.combinator.MutatorCombinators.mutateSumInPlace;
 import static com.code_intelligence.jazzer.mutation.combinator.MutatorCombinators.mutateThenMapToImmutable;
 import static com.code_intelligence.jazzer.mutation.combinator.MutatorCombinators.mutateViaView;
+import static com.code_intelligence.jazzer.mutation.mutator.proto.BuilderAdapters.getField;
 import static com.code_intelligence.jazzer.mutation.mutator.proto.BuilderAdapters.getMapField;
 import static com.code_intelligence.jazzer.mutation.mutator.proto.BuilderAdapters.getPresentFieldOrNull;
 import static com.code_intelligence.jazzer.mutation.mutator.proto.BuilderAdapters.makeMutableRepeatedFieldView;
+import static com.code_intelligence.jazzer.mutation.mutator.proto.BuilderAdapters.setField;
 import static com.code_intelligence.jazzer.mutation.mutator.proto.BuilderAdapters.setFieldWithPresence;
 import static com.code_intelligence.jazzer.mutation.mutator.proto.BuilderAdapters.setMapField;
 import static com.code_intelligence.jazzer.mutation.mutator.proto.TypeLibrary.getDefaultInstance;
@@ -83,11 +85,28 @@ import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public final class BuilderMutatorFactory extends MutatorFactory {
-  private <T extends Builder, U> InPlaceMutator<T> mutatorForField(
-      FieldDescriptor field, Annotation[] annotations, MutatorFactory factory) {
+  private final boolean useGeneratedAccessors;
+
+  public BuilderMutatorFactory() {
+    this(true);
+  }
+
+  /**
+   * @param useGeneratedAccessors whether fields of generated messages should be accessed via their
+   *     generated accessors rather than the slower reflection API of {@link Builder} where possible
+   */
+  BuilderMutatorFactory(boolean useGeneratedAccessors) {
+    this.useGeneratedAccessors = useGeneratedAccessors;
+  }
+
+  private <T extends Builder, U> InPlaceMutator<T> mutatorForField(FieldDescriptor field,
+      Annotation[] annotations, MutatorFactory factory, Class<? extends Builder> builderClass) {
     factory = withDescriptorDependentMutatorFactoryIfNeeded(factory, field, annotations);
     AnnotatedType typeToMutate = TypeLibrary.getTypeToMutate(field);
     requireNonNull(typeToMutate, () -> "Java class not specified for " + field);
+    GeneratedFieldAccessors accessors = builderClass == null
+        ? null
+        : GeneratedFieldAccessors.forField(builderClass, field).orElse(null);
 
     InPlaceMutator<T> mutator;
     if (field.isMapField()) {
@@ -99,20 +118,33 @@ public final class BuilderMutatorFactory extends MutatorFactory {
     } else if (field.isRepeated()) {
       SerializingInPlaceMutator<List<U>> underlyingMutator =
           (SerializingInPlaceMutator<List<U>>) factory.createInPlaceOrThrow(typeToMutate);
-      mutator =
-          mutateViaView(builder -> makeMutableRepeatedFieldView(builder, field), underlyingMutator);
+      mutator = mutateViaView(
+          builder -> makeMutableRepeatedFieldView(builder, field, accessors), underlyingMutator);
     } else if (field.hasPresence()) {
       SerializingMutator<U> underlyingMutator =
           (SerializingMutator<U>) factory.createOrThrow(typeToMutate);
-      mutator = mutateProperty(builder
-          -> getPresentFieldOrNull(builder, field),
-          underlyingMutator, (builder, value) -> setFieldWithPresence(builder, field, value));
+      if (accessors != null) {
+        mutator = mutateProperty(builder
+            -> getPresentFieldOrNull(builder, field, accessors),
+            underlyingMutator,
+            (builder, value) -> setFieldWithPresence(builder, field, value, accessors));
+      } else {
+        mutator = mutateProperty(builder
+            -> getPresentFieldOrNull(builder, field),
+            underlyingMutator, (builder, value) -> setFieldWithPresence(builder, field, value));
+      }
     } else {
       SerializingMutator<U> underlyingMutator =
           (SerializingMutator<U>) factory.createOrThrow(typeToMutate);
-      mutator = mutateProperty(builder
-          -> (U) builder.getField(field),
-          underlyingMutator, (builder, value) -> builder.setField(field, value));
+      if (accessors != null) {
+        mutator = mutateProperty(builder
+            -> getField(builder, field, accessors),
+            underlyingMutator, (builder, value) -> setField(builder, field, value, accessors));
+      } else {
+        mutator = mutateProperty(builder
+            -> (U) builder.getField(field),
+            underlyingMutator, (builder, value) -> builder.setField(field, value));
+      }
     }
 
     // If recursive message fields (i.e. those that have themselves as transitive subfields) are
@@ -186,7 +218,7 @@ public final class BuilderMutatorFactory extends MutatorFactory {
 
   private <T extends Builder> Stream<InPlaceMutator<T>> mutatorsForFields(
       Optional<OneofDescriptor> oneofField, List<FieldDescriptor> fields, Annotation[] annotations,
-      MutatorFactory factory) {
+      MutatorFactory factory, Class<? extends Builder> builderClass) {
     if (oneofField.isPresent()) {
       // oneof fields are mutated as one as mutating them independently would cause the mutator to
       // erratically switch between the different states. The individual fields are kept in the
@@ -212,36 +244,46 @@ public final class BuilderMutatorFactory extends MutatorFactory {
           // Mutating to the unset (-1) state is handled by the individual field mutators, which
           // are created nullable as oneof fields report that they track presence.
           fields.stream()
-              .map(field -> mutatorForField(field, annotations, factory))
+              .map(field -> mutatorForField(field, annotations, factory, builderClass))
               .toArray(InPlaceMutator[] ::new)));
     } else {
       // All non-oneof fields are mutated independently, using the order in which they are declared
       // in the .proto file (which may not coincide with the order by field number).
-      return fields.stream().map(field -> mutatorForField(field, annotations, factory));
+      return fields.stream().map(
+          field -> mutatorForField(field, annotations, factory, builderClass));
     }
   }
 
   private static <M extends Message, B extends Builder> Serializer<B> makeBuilderSerializer(
       M defaultInstance) {
     return new Serializer<B>() {
+      private final ThreadLocal<WireFormatBuffer> buffer = WireFormatBuffer.perThread();
+
       @Override
       public B read(DataInputStream in) throws IOException {
         int length = Math.max(in.readInt(), 0);
-        return (B) parseLeniently(cap(in, length));
+        // The stream is endless, so it must not be buffered in full.
+        Builder builder = defaultInstance.toBuilder();
+        try {
+          builder.mergeFrom(cap(in, length));
+        } catch (InvalidProtocolBufferException ignored) {
+          // builder has been partially modified with what could be decoded before the parser error.
+        }
+        return (B) sanitize(builder);
       }
 
       @Override
       public B readExclusive(InputStream in) throws IOException {
-        return (B) parseLeniently(in);
-      }
-
-      private Builder parseLeniently(InputStream in) throws IOException {
         Builder builder = defaultInstance.toBuilder();
         try {
-          builder.mergeFrom(in);
+          buffer.get().mergeFromExclusive(builder, in);
         } catch (InvalidProtocolBufferException ignored) {
           // builder has been partially modified with what could be decoded before the parser error.
         }
+        return (B) sanitize(builder);
+      }
+
+      private Builder sanitize(Builder builder) {
         // We never want the fuzz test to see unknown fields and our mutations should never produce
         // them.
         builder.setUnknownFields(UnknownFieldSet.getDefaultInstance());
@@ -269,14 +311,12 @@ public final class BuilderMutatorFactory extends MutatorFactory {
 
       @Override
       public void write(Builder builder, DataOutputStream out) throws IOException {
-        Message message = builder.build();
-        out.writeInt(message.getSerializedSize());
-        message.writeTo(out);
+        buffer.get().write(builder.build(), out);
       }
 
       @Override
       public void writeExclusive(Builder builder, OutputStream out) throws IOException {
-        builder.build().writeTo(out);
+        buffer.get().writeExclusive(builder.build(), out);
       }
 
       @Override
@@ -393,6 +433,11 @@ public final class BuilderMutatorFactory extends MutatorFactory {
       return mutatorForAny(anySource, factory);
     }
 
+    Class<? extends Builder> builderClass =
+        useGeneratedAccessors && !(defaultInstance instanceof DynamicMessage)
+        ? defaultInstance.newBuilderForType().getClass()
+        : null;
+
     // assemble inserts the instance of the newly created builder mutator into the
     // internedMutators map *before* recursively creating the mutators for its fields, which
     // ensures that the recursion is finite (bounded by the total number of distinct message types
@@ -418,7 +463,7 @@ public final class BuilderMutatorFactory extends MutatorFactory {
                     .flatMap(entry
                         -> mutatorsForFields(entry.getKey(), entry.getValue(),
                             anySource == null ? new Annotation[0] : new Annotation[] {anySource},
-                            factory))
+                            factory, builderClass))
                     .toArray(InPlaceMutator[] ::new)));
   }
 
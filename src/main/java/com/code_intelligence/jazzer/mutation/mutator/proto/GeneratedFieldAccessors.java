@@ -0,0 +1,242 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator.proto;
+
+import static com.code_intelligence.jazzer.mutation.support.ExceptionSupport.asUnchecked;
+import static java.lang.invoke.MethodType.methodType;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor.JavaType;
+import com.google.protobuf.Message.Builder;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Optional;
+
+/**
+ * Accessors for a field of a generated message that call the generated builder methods (e.g.
+ * {@code getFoo}, {@code setFoo} and {@code addFoo}) directly. This is considerably faster than the
+ * descriptor-based reflection API of {@link Builder}, which generated messages implement by looking
+ * up and reflectively invoking the very same methods on every call.
+ *
+ * <p>Only fields with a scalar, string or bytes type are supported: The values of enum and message
+ * fields are represented differently by the mutators and the generated methods.
+ */
+final class GeneratedFieldAccessors {
+  private static final EnumMap<JavaType, Class<?>> VALUE_CLASSES = new EnumMap<>(JavaType.class);
+
+  static {
+    VALUE_CLASSES.put(JavaType.BOOLEAN, boolean.class);
+    VALUE_CLASSES.put(JavaType.BYTE_STRING, ByteString.class);
+    VALUE_CLASSES.put(JavaType.DOUBLE, double.class);
+    VALUE_CLASSES.put(JavaType.FLOAT, float.class);
+    VALUE_CLASSES.put(JavaType.INT, int.class);
+    VALUE_CLASSES.put(JavaType.LONG, long.class);
+    VALUE_CLASSES.put(JavaType.STRING, String.class);
+  }
+
+  private final Class<? extends Builder> builderClass;
+  // Singular fields.
+  private final MethodHandle get;
+  private final MethodHandle set;
+  // Singular fields with presence.
+  private final MethodHandle has;
+  private final MethodHandle clear;
+  // Repeated fields.
+  private final MethodHandle getAt;
+  private final MethodHandle setAt;
+  private final MethodHandle count;
+  private final MethodHandle add;
+
+  private GeneratedFieldAccessors(Class<? extends Builder> builderClass, MethodHandle get,
+      MethodHandle set, MethodHandle has, MethodHandle clear, MethodHandle getAt,
+      MethodHandle setAt, MethodHandle count, MethodHandle add) {
+    this.builderClass = builderClass;
+    this.get = get;
+    this.set = set;
+    this.has = has;
+    this.clear = clear;
+    this.getAt = getAt;
+    this.setAt = setAt;
+    this.count = count;
+    this.add = add;
+  }
+
+  /**
+   * Binds the generated accessors of {@code field} on {@code builderClass}, or returns {@link
+   * Optional#empty()} if the field type isn't supported or the accessors can't be found.
+   */
+  static Optional<GeneratedFieldAccessors> forField(
+      Class<? extends Builder> builderClass, FieldDescriptor field) {
+    Class<?> valueClass = VALUE_CLASSES.get(field.getJavaType());
+    if (valueClass == null || field.isMapField() || field.isExtension()) {
+      return Optional.empty();
+    }
+    String name = capitalizedCamelCaseName(field.getName());
+    // protoc disambiguates accessors that would clash with those of other fields (e.g. a repeated
+    // field foo and a field foo_count) in ways we don't want to replicate, so we conservatively
+    // leave all fields with similar names to the reflection API.
+    for (FieldDescriptor otherField : field.getContainingType().getFields()) {
+      String otherName = capitalizedCamelCaseName(otherField.getName());
+      if (otherField != field && (otherName.startsWith(name) || name.startsWith(otherName))) {
+        return Optional.empty();
+      }
+    }
+
+    try {
+      if (field.isRepeated()) {
+        return Optional.of(new GeneratedFieldAccessors(builderClass, null, null, null,
+            find(builderClass, "clear" + name, builderClass)
+                .asType(methodType(void.class, Builder.class)),
+            find(builderClass, "get" + name, valueClass, int.class)
+                .asType(methodType(Object.class, Builder.class, int.class)),
+            find(builderClass, "set" + name, builderClass, int.class, valueClass)
+                .asType(methodType(void.class, Builder.class, int.class, Object.class)),
+            find(builderClass, "get" + name + "Count", int.class)
+                .asType(methodType(int.class, Builder.class)),
+            find(builderClass, "add" + name, builderClass, valueClass)
+                .asType(methodType(void.class, Builder.class, Object.class))));
+      }
+      MethodHandle has = null;
+      MethodHandle clear = null;
+      if (field.hasPresence()) {
+        has = find(builderClass, "has" + name, boolean.class)
+                  .asType(methodType(boolean.class, Builder.class));
+        clear = find(builderClass, "clear" + name, builderClass)
+                    .asType(methodType(void.class, Builder.class));
+      }
+      return Optional.of(new GeneratedFieldAccessors(builderClass,
+          find(builderClass, "get" + name, valueClass)
+              .asType(methodType(Object.class, Builder.class)),
+          find(builderClass, "set" + name, builderClass, valueClass)
+              .asType(methodType(void.class, Builder.class, Object.class)),
+          has, clear, null, null, null, null));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static MethodHandle find(Class<?> builderClass, String name, Class<?> returnType,
+      Class<?>... parameterTypes) throws NoSuchMethodException, IllegalAccessException {
+    Method method = builderClass.getMethod(name, parameterTypes);
+    // Only accept the methods generated for the field, not methods with a matching signature that
+    // are inherited from the protobuf runtime.
+    if (method.getDeclaringClass() != builderClass || method.getReturnType() != returnType) {
+      throw new NoSuchMethodException(builderClass.getName() + "." + name);
+    }
+    return MethodHandles.publicLookup().unreflect(method);
+  }
+
+  /**
+   * Mirrors the conversion of field names to the names used in generated Java accessors performed
+   * by protoc.
+   */
+  static String capitalizedCamelCaseName(String fieldName) {
+    StringBuilder result = new StringBuilder(fieldName.length());
+    boolean capitalizeNext = true;
+    for (int i = 0; i < fieldName.length(); i++) {
+      char c = fieldName.charAt(i);
+      if ('a' <= c && c <= 'z') {
+        result.append(capitalizeNext ? Character.toUpperCase(c) : c);
+        capitalizeNext = false;
+      } else if ('A' <= c && c <= 'Z') {
+        result.append(c);
+        capitalizeNext = false;
+      } else if ('0' <= c && c <= '9') {
+        result.append(c);
+        capitalizeNext = true;
+      } else {
+        capitalizeNext = true;
+      }
+    }
+    return result.toString();
+  }
+
+  /**
+   * Returns whether the accessors can be used on {@code builder}. Mutators are shared between
+   * generated and dynamic messages of the same type, so this has to be checked on every access.
+   */
+  boolean appliesTo(Builder builder) {
+    return builder.getClass() == builderClass;
+  }
+
+  Object get(Builder builder) {
+    try {
+      return (Object) get.invokeExact(builder);
+    } catch (Throwable t) {
+      throw asUnchecked(t);
+    }
+  }
+
+  void set(Builder builder, Object value) {
+    try {
+      set.invokeExact(builder, value);
+    } catch (Throwable t) {
+      throw asUnchecked(t);
+    }
+  }
+
+  boolean has(Builder builder) {
+    try {
+      return (boolean) has.invokeExact(builder);
+    } catch (Throwable t) {
+      throw asUnchecked(t);
+    }
+  }
+
+  void clear(Builder builder) {
+    try {
+      clear.invokeExact(builder);
+    } catch (Throwable t) {
+      throw asUnchecked(t);
+    }
+  }
+
+  Object get(Builder builder, int index) {
+    try {
+      return (Object) getAt.invokeExact(builder, index);
+    } catch (Throwable t) {
+      throw asUnchecked(t);
+    }
+  }
+
+  void set(Builder builder, int index, Object value) {
+    try {
+      setAt.invokeExact(builder, index, value);
+    } catch (Throwable t) {
+      throw asUnchecked(t);
+    }
+  }
+
+  int count(Builder builder) {
+    try {
+      return (int) count.invokeExact(builder);
+    } catch (Throwable t) {
+      throw asUnchecked(t);
+    }
+  }
+
+  void add(Builder builder, Object value) {
+    try {
+      add.invokeExact(builder, value);
+    } catch (Throwable t) {
+      throw asUnchecked(t);
+    }
+  }
+}
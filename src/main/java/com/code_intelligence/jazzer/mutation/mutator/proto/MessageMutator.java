@@ -0,0 +1,92 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator.proto;
+
+import static java.util.Objects.requireNonNull;
+
+import com.code_intelligence.jazzer.mutation.api.Debuggable;
+import com.code_intelligence.jazzer.mutation.api.PseudoRandom;
+import com.code_intelligence.jazzer.mutation.api.SerializingMutator;
+import com.google.protobuf.Message;
+import com.google.protobuf.Message.Builder;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Predicate;
+
+/**
+ * Mutates an immutable {@link Message} via a mutator for its {@link Builder}.
+ *
+ * <p>Messages are written in the same format as their builders, but directly rather than after a
+ * round trip through {@link Message#toBuilder()} and {@link Builder#build()}, which would copy the
+ * entire message twice.
+ */
+final class MessageMutator extends SerializingMutator<Message> {
+  private final SerializingMutator<Builder> builderMutator;
+  private final ThreadLocal<WireFormatBuffer> buffer = WireFormatBuffer.perThread();
+
+  MessageMutator(SerializingMutator<Builder> builderMutator) {
+    this.builderMutator = requireNonNull(builderMutator);
+  }
+
+  @Override
+  public Message init(PseudoRandom prng) {
+    return builderMutator.init(prng).build();
+  }
+
+  @Override
+  public Message mutate(Message value, PseudoRandom prng) {
+    return builderMutator.mutate(value.toBuilder(), prng).build();
+  }
+
+  @Override
+  public Message crossOver(Message value, Message otherValue, PseudoRandom prng) {
+    return builderMutator.crossOver(value.toBuilder(), otherValue.toBuilder(), prng).build();
+  }
+
+  @Override
+  public Message detach(Message value) {
+    return value;
+  }
+
+  @Override
+  public Message read(DataInputStream in) throws IOException {
+    return builderMutator.read(in).build();
+  }
+
+  @Override
+  public void write(Message value, DataOutputStream out) throws IOException {
+    buffer.get().write(value, out);
+  }
+
+  @Override
+  public Message readExclusive(InputStream in) throws IOException {
+    return builderMutator.readExclusive(in).build();
+  }
+
+  @Override
+  public void writeExclusive(Message value, OutputStream out) throws IOException {
+    buffer.get().writeExclusive(value, out);
+  }
+
+  @Override
+  public String toDebugString(Predicate<Debuggable> isInCycle) {
+    return builderMutator.toDebugString(isInCycle) + " -> Message";
+  }
+}
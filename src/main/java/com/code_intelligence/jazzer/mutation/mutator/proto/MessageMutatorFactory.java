@@ -16,7 +16,6 @@
 
 package com.code_intelligence.jazzer.mutation.mutator.proto;
 
-import static com.code_intelligence.jazzer.mutation.combinator.MutatorCombinators.mutateThenMapToImmutable;
 import static com.code_intelligence.jazzer.mutation.support.TypeSupport.asAnnotatedType;
 import static com.code_intelligence.jazzer.mutation.support.TypeSupport.asSubclassOrEmpty;
 import static com.code_intelligence.jazzer.mutation.support.TypeSupport.withExtraAnnotations;
@@ -45,8 +44,6 @@ public final class MessageMutatorFactory extends MutatorFactory {
             // Forward the annotations (e.g. @NotNull) on the Message type to the Builder type.
             factory.tryCreateInPlace(
                 withExtraAnnotations(asAnnotatedType(builderClass), messageType.getAnnotations())))
-        .map(builderMutator
-            -> mutateThenMapToImmutable(
-                (SerializingMutator<Builder>) builderMutator, Builder::build, Message::toBuilder));
+        .map(builderMutator -> new MessageMutator((SerializingMutator<Builder>) builderMutator));
   }
 }
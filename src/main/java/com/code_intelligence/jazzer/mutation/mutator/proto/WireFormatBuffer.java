@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator.proto;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Message;
+import com.google.protobuf.Message.Builder;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Reads and writes messages in the protobuf wire format through a buffer that is reused across
+ * calls.
+ *
+ * <p>{@link Message#writeTo(OutputStream)} and {@link Builder#mergeFrom(InputStream)} allocate a
+ * fresh buffer for every message and encode or decode it in chunks of at most 4 KiB, whereas
+ * messages are written to and parsed from a single array here.
+ *
+ * <p>Instances are not thread-safe. Mutators are shared between threads, so they must obtain their
+ * buffer from a {@link #perThread()} holder on every call.
+ */
+final class WireFormatBuffer {
+  private static final int INITIAL_CAPACITY = 256;
+
+  private byte[] buffer = new byte[INITIAL_CAPACITY];
+
+  private WireFormatBuffer() {}
+
+  /** Returns a holder that provides every thread with its own buffer. */
+  static ThreadLocal<WireFormatBuffer> perThread() {
+    return ThreadLocal.withInitial(WireFormatBuffer::new);
+  }
+
+  /**
+   * Merges the wire format representation of a message read from the remainder of the finite
+   * stream {@code in} into {@code builder}.
+   *
+   * @throws com.google.protobuf.InvalidProtocolBufferException if the stream does not contain a
+   *     valid message, in which case {@code builder} contains all fields decoded up to the error
+   */
+  void mergeFromExclusive(Builder builder, InputStream in) throws IOException {
+    int length = readRemaining(in);
+    // CodedInputStream copies bytes fields out of the array unless aliasing is enabled explicitly,
+    // so the buffer can be reused afterwards.
+    builder.mergeFrom(CodedInputStream.newInstance(buffer, 0, length));
+  }
+
+  /** Writes the length of {@code message} as a 4-byte int followed by its wire format. */
+  void write(Message message, DataOutputStream out) throws IOException {
+    int size = message.getSerializedSize();
+    out.writeInt(size);
+    writeTo(message, size, out);
+  }
+
+  /** Writes the wire format of {@code message} without a length prefix. */
+  void writeExclusive(Message message, OutputStream out) throws IOException {
+    writeTo(message, message.getSerializedSize(), out);
+  }
+
+  private void writeTo(Message message, int size, OutputStream out) throws IOException {
+    ensureCapacity(size);
+    CodedOutputStream codedOut = CodedOutputStream.newInstance(buffer, 0, size);
+    message.writeTo(codedOut);
+    codedOut.checkNoSpaceLeft();
+    out.write(buffer, 0, size);
+  }
+
+  private int readRemaining(InputStream in) throws IOException {
+    ensureCapacity(in.available());
+    int length = 0;
+    int read;
+    while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+      length += read;
+      if (length == buffer.length) {
+        ensureCapacity(length + 1);
+      }
+    }
+    return length;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(capacity, 2 * buffer.length));
+    }
+  }
+}
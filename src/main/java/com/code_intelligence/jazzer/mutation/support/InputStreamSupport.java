@@ -196,11 +196,11 @@ public final class InputStreamSupport {
   /**
    * Wraps a given stream with the functionality to detect if it was read exactly.
    * To do so, the stream must provide an accurate implementation of {@link
-   * InputStream#available()}, hence it's restricted to {@link ByteArrayInputStream} for now.
+   * InputStream#available()}, such as {@link ByteArrayInputStream} does.
    *
    * @return {@code stream} extended that detects if it was consumed exactly
    */
-  public static ReadExactlyInputStream extendWithReadExactly(ByteArrayInputStream stream) {
+  public static ReadExactlyInputStream extendWithReadExactly(InputStream stream) {
     return new ReadExactlyInputStream(requireNonNull(stream));
   }
 
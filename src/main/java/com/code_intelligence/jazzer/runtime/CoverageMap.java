@@ -24,6 +24,7 @@ import java.lang.invoke.MethodType;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.IntConsumer;
 import sun.misc.Unsafe;
 
 /**
@@ -42,6 +43,12 @@ final public class CoverageMap {
       : 1 << 20;
 
   private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+
+  /**
+   * Read by the bytecode emitted by {@code InlineUnsafeStrategy}, which can't obtain an instance of
+   * {@link Unsafe} itself.
+   */
+  public static final Unsafe UNSAFE_FOR_INSTRUMENTATION = UNSAFE;
   private static final Class<?> LOG;
   private static final MethodHandle LOG_INFO;
   private static final MethodHandle LOG_ERROR;
@@ -82,31 +89,62 @@ final public class CoverageMap {
    * The number of coverage counters that are currently registered with libFuzzer. This number grows
    * dynamically as classes are instrumented and should be kept as low as possible as libFuzzer has
    * to iterate over the whole map for every execution.
+   *
+   * <p>Only visiting the parts of the map touched by an execution would require changes to how
+   * libFuzzer's TracePC collects features from and clears the registered counters. Such changes
+   * belong in Jazzer's libFuzzer fork (see {@code jazzer_libfuzzer} in repositories.bzl) rather
+   * than into this class, see CoverageMapScanBenchmark for a prototype.
    */
   private static int currentNumCounters = INITIAL_NUM_COUNTERS;
 
+  /**
+   * Every registration of new counters creates a new module in libFuzzer, of which there can only
+   * be a limited number, so the map is grown geometrically. A small growth factor keeps the number
+   * of registered but unused counters, which libFuzzer still has to scan after every execution, at
+   * a fraction of the used ones. With 1 / 8, growing from the initial size to the maximum size
+   * requires about 65 registrations.
+   */
+  private static final int GROWTH_DIVISOR = 8;
+
+  /**
+   * libFuzzer scans the counters in 8-byte words, the registered size is kept a multiple of a
+   * cache line.
+   */
+  private static final int COUNTERS_ALIGNMENT = 64;
+
+  /** Returns the number of coverage counters beyond which {@link #enlargeIfNeeded(int)} exits. */
+  public static int getMaxNumCounters() {
+    return MAX_NUM_COUNTERS;
+  }
+
+  /** Returns the number of coverage counters that are currently registered with libFuzzer. */
+  public static int getNumCounters() {
+    return currentNumCounters;
+  }
+
   // Called via reflection.
   @SuppressWarnings("unused")
   public static void enlargeIfNeeded(int nextId) {
-    int newNumCounters = currentNumCounters;
-    while (nextId >= newNumCounters) {
-      newNumCounters = 2 * newNumCounters;
-      if (newNumCounters > MAX_NUM_COUNTERS) {
-        logError(
-            String.format(
-                "Maximum number (%s) of coverage counters exceeded. Try to limit the scope of a single fuzz target as "
-                    + "much as possible to keep the fuzzer fast. If that is not possible, the maximum number of "
-                    + "counters can be increased via the %s environment variable.",
-                MAX_NUM_COUNTERS, ENV_MAX_NUM_COUNTERS),
-            null);
-        System.exit(1);
-      }
+    if (nextId < currentNumCounters) {
+      return;
     }
-    if (newNumCounters > currentNumCounters) {
-      registerNewCounters(currentNumCounters, newNumCounters);
-      currentNumCounters = newNumCounters;
-      logInfo("New number of coverage counters: " + currentNumCounters);
+    if (nextId >= MAX_NUM_COUNTERS) {
+      logError(
+          String.format(
+              "Maximum number (%s) of coverage counters exceeded. Try to limit the scope of a single fuzz target as "
+                  + "much as possible to keep the fuzzer fast. If that is not possible, the maximum number of "
+                  + "counters can be increased via the %s environment variable.",
+              MAX_NUM_COUNTERS, ENV_MAX_NUM_COUNTERS),
+          null);
+      System.exit(1);
     }
+    long newNumCounters =
+        Math.max(nextId + 1L, currentNumCounters + (long) currentNumCounters / GROWTH_DIVISOR);
+    newNumCounters = (newNumCounters + COUNTERS_ALIGNMENT - 1) & -COUNTERS_ALIGNMENT;
+    newNumCounters = Math.min(newNumCounters, MAX_NUM_COUNTERS);
+    registerNewCounters(currentNumCounters, (int) newNumCounters);
+    currentNumCounters = (int) newNumCounters;
+    logInfo("New number of coverage counters: " + currentNumCounters);
   }
 
   // Called by the coverage instrumentation.
@@ -121,10 +159,46 @@ final public class CoverageMap {
     UNSAFE.putByte(address, (byte) (counter == -1 ? 1 : counter + 1));
   }
 
+  // The following methods are called by the coverage instrumentation if selected via
+  // --coverage_counter_update. See CoverageCounterUpdate for the semantics.
+
+  @SuppressWarnings("unused")
+  public static void recordCoverageNeverZeroBranchfree(final int id) {
+    if (IS_ANDROID) {
+      enlargeIfNeeded(id);
+    }
+
+    final long address = countersAddress + id;
+    final int incremented = (UNSAFE.getByte(address) & 0xFF) + 1;
+    UNSAFE.putByte(address, (byte) (incremented ^ (incremented >>> 8)));
+  }
+
+  @SuppressWarnings("unused")
+  public static void recordCoverageSaturating(final int id) {
+    if (IS_ANDROID) {
+      enlargeIfNeeded(id);
+    }
+
+    final long address = countersAddress + id;
+    final int incremented = (UNSAFE.getByte(address) & 0xFF) + 1;
+    UNSAFE.putByte(address, (byte) (incremented - (incremented >>> 8)));
+  }
+
+  @SuppressWarnings("unused")
+  public static void recordCoverageWrapping(final int id) {
+    if (IS_ANDROID) {
+      enlargeIfNeeded(id);
+    }
+
+    final long address = countersAddress + id;
+    UNSAFE.putByte(address, (byte) (UNSAFE.getByte(address) + 1));
+  }
+
   public static Set<Integer> getCoveredIds() {
     Set<Integer> coveredIds = new HashSet<>();
     for (int id = 0; id < currentNumCounters; id++) {
-      if (UNSAFE.getByte(countersAddress + id) > 0) {
+      // Counters are unsigned, values >= 128 are negative as a byte.
+      if (UNSAFE.getByte(countersAddress + id) != 0) {
         coveredIds.add(id);
       }
     }
@@ -137,6 +211,49 @@ final public class CoverageMap {
     }
   }
 
+  /**
+   * Passes the features covered since the counters were last cleared to {@code consumer} in
+   * increasing order and clears the counters.
+   *
+   * <p>Features are derived from the counters in the same way as libFuzzer derives them from its 8
+   * bit counters: Every non-zero counter with ID {@code id} contributes the feature
+   * {@code 8 * id + bucket}, where the bucket is determined by the magnitude of the counter (1, 2,
+   * 3, 4-7, 8-15, 16-31, 32-127, 128-255).
+   */
+  public static void drainFeatures(IntConsumer consumer) {
+    // currentNumCounters is a multiple of COUNTERS_ALIGNMENT, so the counters can be scanned in
+    // words.
+    for (int wordId = 0; wordId < currentNumCounters; wordId += Long.BYTES) {
+      long wordAddress = countersAddress + wordId;
+      if (UNSAFE.getLong(wordAddress) == 0) {
+        continue;
+      }
+      for (int id = wordId; id < wordId + Long.BYTES; id++) {
+        int counter = UNSAFE.getByte(countersAddress + id) & 0xFF;
+        if (counter != 0) {
+          consumer.accept(8 * id + counterBucket(counter));
+        }
+      }
+      UNSAFE.putLong(wordAddress, 0);
+    }
+  }
+
+  private static int counterBucket(int counter) {
+    if (counter >= 128) {
+      return 7;
+    } else if (counter >= 32) {
+      return 6;
+    } else if (counter >= 16) {
+      return 5;
+    } else if (counter >= 8) {
+      return 4;
+    } else if (counter >= 4) {
+      return 3;
+    } else {
+      return counter - 1;
+    }
+  }
+
   private static void logInfo(String message) {
     try {
       LOG_INFO.invokeExact(message);
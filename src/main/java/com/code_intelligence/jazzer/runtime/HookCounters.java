@@ -0,0 +1,54 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how often the data flow hooks for string and byte array comparisons and for map lookups
+ * have fired. Counting is disabled until {@link #enable()} is called, which the driver does when
+ * collecting metrics.
+ */
+public final class HookCounters {
+  // Read by the hooks on every invocation. Not volatile as the driver enables counting before
+  // fuzzing starts and a stale value only delays it.
+  static boolean enabled;
+  static final LongAdder stringCompares = new LongAdder();
+  static final LongAdder byteArrayCompares = new LongAdder();
+  static final LongAdder mapGets = new LongAdder();
+
+  private HookCounters() {}
+
+  public static void enable() {
+    enabled = true;
+  }
+
+  /** Returns the number of string comparisons and substring searches reported to libFuzzer. */
+  public static long getStringCompares() {
+    return stringCompares.sum();
+  }
+
+  /** Returns the number of byte array comparisons reported to libFuzzer. */
+  public static long getByteArrayCompares() {
+    return byteArrayCompares.sum();
+  }
+
+  /** Returns the number of failed {@link java.util.Map#get(Object)} lookups that were hooked. */
+  public static long getMapGets() {
+    return mapGets.sum();
+  }
+}
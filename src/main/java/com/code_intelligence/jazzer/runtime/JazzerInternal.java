@@ -28,17 +28,40 @@ final public class JazzerInternal {
   // annotated with @Isolated.
   @SuppressWarnings("unused") public static boolean hooksEnabled = true;
 
+  // Set on the threads that replay regression test inputs in parallel so that a finding reported
+  // from a hook can be attributed to the input executed on the current thread. Findings reported on
+  // all other threads are stored in lastFinding.
+  private static final ThreadLocal<Throwable[]> threadLocalFinding = new ThreadLocal<>();
+
   private static final ArrayList<Runnable> onFuzzTargetReadyCallbacks = new ArrayList<>();
 
   // Accessed from api.Jazzer via reflection.
   public static void reportFindingFromHook(Throwable finding) {
-    lastFinding = finding;
+    Throwable[] threadFinding = threadLocalFinding.get();
+    if (threadFinding != null) {
+      threadFinding[0] = finding;
+    } else {
+      lastFinding = finding;
+    }
     // Throw an Error that is hard to catch (short of outright ignoring it) in order to quickly
     // terminate the execution of the fuzz target. The finding will be reported as soon as the fuzz
     // target returns even if this Error is swallowed.
     throw new HardToCatchError();
   }
 
+  // Accessed from junit.ParallelRegressionReplay via reflection.
+  public static void enableThreadLocalFinding() {
+    threadLocalFinding.set(new Throwable[1]);
+  }
+
+  // Accessed from junit.ParallelRegressionReplay via reflection.
+  public static Throwable takeThreadLocalFinding() {
+    Throwable[] threadFinding = threadLocalFinding.get();
+    Throwable finding = threadFinding[0];
+    threadFinding[0] = null;
+    return finding;
+  }
+
   public static void registerOnFuzzTargetReadyCallback(Runnable callback) {
     onFuzzTargetReadyCallbacks.add(callback);
   }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+/**
+ * Encodes the prefix of a string that libFuzzer's string hooks look at into a caller-provided
+ * buffer without allocating.
+ *
+ * <p>The result is byte-for-byte identical to {@code str.substring(0, min(str.length(),
+ * MAX_CHARS)).getBytes("CESU8")}, including the replacement of unpaired surrogates with {@code
+ * '?'}.
+ */
+final class LibFuzzerStringEncoder {
+  // libFuzzer string hooks only ever consume the first 64 bytes, so we can definitely cut the
+  // string off after 64 characters.
+  static final int MAX_CHARS = 64;
+  // Every char, including each half of a surrogate pair, is encoded on at most three bytes.
+  static final int MAX_BYTES = 3 * MAX_CHARS;
+
+  private static final byte REPLACEMENT = (byte) '?';
+
+  private LibFuzzerStringEncoder() {}
+
+  /**
+   * Encodes up to the first {@link #MAX_CHARS} chars of {@code str} as CESU-8.
+   *
+   * @param buffer a buffer of at least {@link #MAX_BYTES} bytes
+   * @return the number of bytes written to {@code buffer}
+   */
+  static int encode(String str, byte[] buffer) {
+    int length = Math.min(str.length(), MAX_CHARS);
+    // Fast path: Most strings compared in fuzz targets are ASCII-only.
+    int i = 0;
+    for (; i < length; i++) {
+      char c = str.charAt(i);
+      if (c >= 0x80) {
+        break;
+      }
+      buffer[i] = (byte) c;
+    }
+    if (i == length) {
+      return length;
+    }
+    return encodeSlow(str, length, buffer, i, i);
+  }
+
+  private static int encodeSlow(String str, int length, byte[] buffer, int i, int pos) {
+    for (; i < length; i++) {
+      char c = str.charAt(i);
+      if (c < 0x80) {
+        buffer[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[pos++] = (byte) (0xC0 | (c >> 6));
+        buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else if (!Character.isSurrogate(c)) {
+        pos = encodeThreeBytes(c, buffer, pos);
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(str.charAt(i + 1))) {
+        // CESU-8 encodes the two halves of a surrogate pair separately.
+        pos = encodeThreeBytes(c, buffer, pos);
+        pos = encodeThreeBytes(str.charAt(++i), buffer, pos);
+      } else {
+        buffer[pos++] = REPLACEMENT;
+      }
+    }
+    return pos;
+  }
+
+  private static int encodeThreeBytes(char c, byte[] buffer, int pos) {
+    buffer[pos++] = (byte) (0xE0 | (c >> 12));
+    buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+    buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+    return pos;
+  }
+}
@@ -19,16 +19,28 @@ import com.code_intelligence.jazzer.api.MethodHook;
 import java.lang.invoke.MethodHandle;
 import java.util.*;
 
+// Hooks on hot JDK methods use typed parameters, which avoids allocating an argument array and
+// boxing primitive values on every invocation of the hooked method.
 @SuppressWarnings("unused")
 final public class TraceCmpHooks {
   @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Byte", targetMethod = "compare",
       targetMethodDescriptor = "(BB)I")
   @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Byte",
       targetMethod = "compareUnsigned", targetMethodDescriptor = "(BB)I")
+  public static void
+  byteCompare(Object alwaysNull, byte x, byte y, int hookId) {
+    TraceDataFlowNativeCallbacks.traceCmpInt(x, y, hookId);
+  }
+
   @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Short", targetMethod = "compare",
       targetMethodDescriptor = "(SS)I")
   @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Short",
       targetMethod = "compareUnsigned", targetMethodDescriptor = "(SS)I")
+  public static void
+  shortCompare(Object alwaysNull, short x, short y, int hookId) {
+    TraceDataFlowNativeCallbacks.traceCmpInt(x, y, hookId);
+  }
+
   @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Integer",
       targetMethod = "compare", targetMethodDescriptor = "(II)I")
   @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Integer",
@@ -36,9 +48,8 @@ final public class TraceCmpHooks {
   @MethodHook(type = HookType.BEFORE, targetClassName = "kotlin.jvm.internal.Intrinsics ",
       targetMethod = "compare", targetMethodDescriptor = "(II)I")
   public static void
-  integerCompare(MethodHandle method, Object alwaysNull, Object[] arguments, int hookId) {
-    TraceDataFlowNativeCallbacks.traceCmpInt(
-        ((Number) arguments[0]).intValue(), ((Number) arguments[1]).intValue(), hookId);
+  integerCompare(Object alwaysNull, int x, int y, int hookId) {
+    TraceDataFlowNativeCallbacks.traceCmpInt(x, y, hookId);
   }
 
   @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Byte",
@@ -48,56 +59,52 @@ final public class TraceCmpHooks {
   @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Integer",
       targetMethod = "compareTo", targetMethodDescriptor = "(Ljava/lang/Integer;)I")
   public static void
-  integerCompareTo(MethodHandle method, Object thisObject, Object[] arguments, int hookId) {
+  integerCompareTo(Object thisObject, Object other, int hookId) {
     TraceDataFlowNativeCallbacks.traceCmpInt(
-        ((Number) thisObject).intValue(), ((Number) arguments[0]).intValue(), hookId);
+        ((Number) thisObject).intValue(), ((Number) other).intValue(), hookId);
   }
 
   @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Long", targetMethod = "compare",
       targetMethodDescriptor = "(JJ)I")
   @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Long",
       targetMethod = "compareUnsigned", targetMethodDescriptor = "(JJ)I")
+  @MethodHook(type = HookType.BEFORE, targetClassName = "kotlin.jvm.internal.Intrinsics ",
+      targetMethod = "compare", targetMethodDescriptor = "(JJ)I")
   public static void
-  longCompare(MethodHandle method, Object thisObject, Object[] arguments, int hookId) {
-    TraceDataFlowNativeCallbacks.traceCmpLong((long) arguments[0], (long) arguments[1], hookId);
+  longCompare(Object alwaysNull, long x, long y, int hookId) {
+    TraceDataFlowNativeCallbacks.traceCmpLong(x, y, hookId);
   }
 
   @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.Long",
       targetMethod = "compareTo", targetMethodDescriptor = "(Ljava/lang/Long;)I")
   public static void
-  longCompareTo(MethodHandle method, Long thisObject, Object[] arguments, int hookId) {
-    TraceDataFlowNativeCallbacks.traceCmpLong(thisObject, (long) arguments[0], hookId);
-  }
-
-  @MethodHook(type = HookType.BEFORE, targetClassName = "kotlin.jvm.internal.Intrinsics ",
-      targetMethod = "compare", targetMethodDescriptor = "(JJ)I")
-  public static void
-  longCompareKt(MethodHandle method, Object alwaysNull, Object[] arguments, int hookId) {
-    TraceDataFlowNativeCallbacks.traceCmpLong((long) arguments[0], (long) arguments[1], hookId);
+  longCompareTo(Long thisObject, Long other, int hookId) {
+    TraceDataFlowNativeCallbacks.traceCmpLong(thisObject, other, hookId);
   }
 
-  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "equals")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "equals",
+      targetMethodDescriptor = "(Ljava/lang/Object;)Z")
   @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
-      targetMethod = "equalsIgnoreCase")
+      targetMethod = "equalsIgnoreCase", targetMethodDescriptor = "(Ljava/lang/String;)Z")
   public static void
-  equals(MethodHandle method, String thisObject, Object[] arguments, int hookId, Boolean areEqual) {
-    if (!areEqual && arguments.length == 1 && arguments[0] instanceof String) {
+  equals(String thisObject, Object other, int hookId, boolean areEqual) {
+    if (!areEqual && other instanceof String) {
       // The precise value of the result of the comparison is not used by libFuzzer as long as it is
       // non-zero.
-      TraceDataFlowNativeCallbacks.traceStrcmp(thisObject, (String) arguments[0], 1, hookId);
+      TraceDataFlowNativeCallbacks.traceStrcmp(thisObject, (String) other, 1, hookId);
     }
   }
 
-  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.Object", targetMethod = "equals")
-  @MethodHook(
-      type = HookType.AFTER, targetClassName = "java.lang.CharSequence", targetMethod = "equals")
-  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.Number", targetMethod = "equals")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.Object", targetMethod = "equals",
+      targetMethodDescriptor = "(Ljava/lang/Object;)Z")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.CharSequence",
+      targetMethod = "equals", targetMethodDescriptor = "(Ljava/lang/Object;)Z")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.Number", targetMethod = "equals",
+      targetMethodDescriptor = "(Ljava/lang/Object;)Z")
   public static void
-  genericEquals(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Boolean areEqual) {
-    if (!areEqual && arguments.length == 1 && arguments[0] != null
-        && thisObject.getClass() == arguments[0].getClass()) {
-      TraceDataFlowNativeCallbacks.traceGenericCmp(thisObject, arguments[0], hookId);
+  genericEquals(Object thisObject, Object other, int hookId, boolean areEqual) {
+    if (!areEqual && other != null && thisObject.getClass() == other.getClass()) {
+      TraceDataFlowNativeCallbacks.traceGenericCmp(thisObject, other, hookId);
     }
   }
 
@@ -110,55 +117,47 @@ final public class TraceCmpHooks {
     }
   }
 
-  @MethodHook(
-      type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "compareTo")
   @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
-      targetMethod = "compareToIgnoreCase")
+      targetMethod = "compareTo", targetMethodDescriptor = "(Ljava/lang/String;)I")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "compareTo", targetMethodDescriptor = "(Ljava/lang/Object;)I")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "compareToIgnoreCase", targetMethodDescriptor = "(Ljava/lang/String;)I")
   public static void
-  compareTo(
-      MethodHandle method, String thisObject, Object[] arguments, int hookId, Integer returnValue) {
-    if (returnValue != 0 && arguments.length == 1 && arguments[0] instanceof String) {
-      TraceDataFlowNativeCallbacks.traceStrcmp(
-          thisObject, (String) arguments[0], returnValue, hookId);
+  compareTo(String thisObject, Object other, int hookId, int returnValue) {
+    if (returnValue != 0 && other instanceof String) {
+      TraceDataFlowNativeCallbacks.traceStrcmp(thisObject, (String) other, returnValue, hookId);
     }
   }
 
-  @MethodHook(
-      type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "contentEquals")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "contentEquals", targetMethodDescriptor = "(Ljava/lang/CharSequence;)Z")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "contentEquals", targetMethodDescriptor = "(Ljava/lang/StringBuffer;)Z")
   public static void
-  contentEquals(MethodHandle method, String thisObject, Object[] arguments, int hookId,
-      Boolean areEqualContents) {
-    if (!areEqualContents && arguments.length == 1 && arguments[0] instanceof CharSequence) {
-      TraceDataFlowNativeCallbacks.traceStrcmp(
-          thisObject, ((CharSequence) arguments[0]).toString(), 1, hookId);
+  contentEquals(String thisObject, Object other, int hookId, boolean areEqualContents) {
+    if (!areEqualContents && other != null) {
+      TraceDataFlowNativeCallbacks.traceStrcmp(thisObject, other.toString(), 1, hookId);
     }
   }
 
   @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
       targetMethod = "regionMatches", targetMethodDescriptor = "(ZILjava/lang/String;II)Z")
   public static void
-  regionsMatches5(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Boolean returnValue) {
+  regionsMatches5(String thisObject, boolean ignoreCase, int toffset, String other, int ooffset,
+      int len, int hookId, boolean returnValue) {
     if (!returnValue) {
-      int toffset = (int) arguments[1];
-      String other = (String) arguments[2];
-      int ooffset = (int) arguments[3];
-      int len = (int) arguments[4];
-      regionMatchesInternal((String) thisObject, toffset, other, ooffset, len, hookId);
+      regionMatchesInternal(thisObject, toffset, other, ooffset, len, hookId);
     }
   }
 
   @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
       targetMethod = "regionMatches", targetMethodDescriptor = "(ILjava/lang/String;II)Z")
   public static void
-  regionMatches4(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Boolean returnValue) {
+  regionMatches4(String thisObject, int toffset, String other, int ooffset, int len, int hookId,
+      boolean returnValue) {
     if (!returnValue) {
-      int toffset = (int) arguments[0];
-      String other = (String) arguments[1];
-      int ooffset = (int) arguments[2];
-      int len = (int) arguments[3];
-      regionMatchesInternal((String) thisObject, toffset, other, ooffset, len, hookId);
+      regionMatchesInternal(thisObject, toffset, other, ooffset, len, hookId);
     }
   }
 
@@ -173,60 +172,88 @@ final public class TraceCmpHooks {
     TraceDataFlowNativeCallbacks.traceStrcmp(thisPart, otherPart, 1, hookId);
   }
 
-  @MethodHook(
-      type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "contains")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "contains", targetMethodDescriptor = "(Ljava/lang/CharSequence;)Z")
   public static void
-  contains(
-      MethodHandle method, String thisObject, Object[] arguments, int hookId, Boolean doesContain) {
-    if (!doesContain && arguments.length == 1 && arguments[0] instanceof CharSequence) {
-      TraceDataFlowNativeCallbacks.traceStrstr(
-          thisObject, ((CharSequence) arguments[0]).toString(), hookId);
+  contains(String thisObject, CharSequence other, int hookId, boolean doesContain) {
+    if (!doesContain && other != null) {
+      TraceDataFlowNativeCallbacks.traceStrstr(thisObject, other.toString(), hookId);
     }
   }
 
-  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "indexOf")
-  @MethodHook(
-      type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "lastIndexOf")
-  @MethodHook(
-      type = HookType.AFTER, targetClassName = "java.lang.StringBuffer", targetMethod = "indexOf")
+  // Only the overloads of indexOf and lastIndexOf that search for a String are hooked.
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "indexOf", targetMethodDescriptor = "(Ljava/lang/String;)I")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "lastIndexOf", targetMethodDescriptor = "(Ljava/lang/String;)I")
   @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.StringBuffer",
-      targetMethod = "lastIndexOf")
-  @MethodHook(
-      type = HookType.AFTER, targetClassName = "java.lang.StringBuilder", targetMethod = "indexOf")
+      targetMethod = "indexOf", targetMethodDescriptor = "(Ljava/lang/String;)I")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.StringBuffer",
+      targetMethod = "lastIndexOf", targetMethodDescriptor = "(Ljava/lang/String;)I")
   @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.StringBuilder",
-      targetMethod = "lastIndexOf")
+      targetMethod = "indexOf", targetMethodDescriptor = "(Ljava/lang/String;)I")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.StringBuilder",
+      targetMethod = "lastIndexOf", targetMethodDescriptor = "(Ljava/lang/String;)I")
   public static void
-  indexOf(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Integer returnValue) {
-    if (returnValue == -1 && arguments.length >= 1 && arguments[0] instanceof String) {
-      TraceDataFlowNativeCallbacks.traceStrstr(
-          thisObject.toString(), (String) arguments[0], hookId);
+  indexOf(Object thisObject, String str, int hookId, int returnValue) {
+    if (returnValue == -1 && str != null) {
+      TraceDataFlowNativeCallbacks.traceStrstr(thisObject.toString(), str, hookId);
     }
   }
 
-  @MethodHook(
-      type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "startsWith")
-  @MethodHook(
-      type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "endsWith")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "indexOf", targetMethodDescriptor = "(Ljava/lang/String;I)I")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "lastIndexOf", targetMethodDescriptor = "(Ljava/lang/String;I)I")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.StringBuffer",
+      targetMethod = "indexOf", targetMethodDescriptor = "(Ljava/lang/String;I)I")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.StringBuffer",
+      targetMethod = "lastIndexOf", targetMethodDescriptor = "(Ljava/lang/String;I)I")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.StringBuilder",
+      targetMethod = "indexOf", targetMethodDescriptor = "(Ljava/lang/String;I)I")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.StringBuilder",
+      targetMethod = "lastIndexOf", targetMethodDescriptor = "(Ljava/lang/String;I)I")
   public static void
-  startsWith(MethodHandle method, String thisObject, Object[] arguments, int hookId,
-      Boolean doesStartOrEndsWith) {
-    if (!doesStartOrEndsWith && arguments.length >= 1 && arguments[0] instanceof String) {
-      TraceDataFlowNativeCallbacks.traceStrstr(thisObject, (String) arguments[0], hookId);
+  indexOfFromIndex(Object thisObject, String str, int fromIndex, int hookId, int returnValue) {
+    indexOf(thisObject, str, hookId, returnValue);
+  }
+
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "indexOf", targetMethodDescriptor = "(Ljava/lang/String;II)I")
+  public static void
+  indexOfRange(Object thisObject, String str, int beginIndex, int endIndex, int hookId,
+      int returnValue) {
+    indexOf(thisObject, str, hookId, returnValue);
+  }
+
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "startsWith", targetMethodDescriptor = "(Ljava/lang/String;)Z")
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "endsWith", targetMethodDescriptor = "(Ljava/lang/String;)Z")
+  public static void
+  startsWith(String thisObject, String str, int hookId, boolean doesStartOrEndsWith) {
+    if (!doesStartOrEndsWith && str != null) {
+      TraceDataFlowNativeCallbacks.traceStrstr(thisObject, str, hookId);
     }
   }
 
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String",
+      targetMethod = "startsWith", targetMethodDescriptor = "(Ljava/lang/String;I)Z")
+  public static void
+  startsWithOffset(
+      String thisObject, String str, int toffset, int hookId, boolean doesStartOrEndsWith) {
+    startsWith(thisObject, str, hookId, doesStartOrEndsWith);
+  }
+
   @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "replace",
       targetMethodDescriptor =
           "(Ljava/lang/CharSequence;Ljava/lang/CharSequence;)Ljava/lang/String;")
   public static void
-  replace(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, String returnValue) {
-    String original = (String) thisObject;
+  replace(String thisObject, CharSequence target, CharSequence replacement, int hookId,
+      String returnValue) {
     // Report only if the replacement was not successful.
-    if (original.equals(returnValue)) {
-      String target = arguments[0].toString();
-      TraceDataFlowNativeCallbacks.traceStrstr(original, target, hookId);
+    if (thisObject.equals(returnValue)) {
+      TraceDataFlowNativeCallbacks.traceStrstr(thisObject, target.toString(), hookId);
     }
   }
 
@@ -449,26 +476,21 @@ final public class TraceCmpHooks {
   @MethodHook(type = HookType.AFTER, targetClassName = "java.util.Arrays", targetMethod = "equals",
       targetMethodDescriptor = "([B[B)Z")
   public static void
-  arraysEquals(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Boolean returnValue) {
+  arraysEquals(Object alwaysNull, byte[] first, byte[] second, int hookId, boolean returnValue) {
     if (returnValue)
       return;
-    byte[] first = (byte[]) arguments[0];
-    byte[] second = (byte[]) arguments[1];
     TraceDataFlowNativeCallbacks.traceMemcmp(first, second, 1, hookId);
   }
 
   @MethodHook(type = HookType.AFTER, targetClassName = "java.util.Arrays", targetMethod = "equals",
       targetMethodDescriptor = "([BII[BII)Z")
   public static void
-  arraysEqualsRange(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Boolean returnValue) {
+  arraysEqualsRange(Object alwaysNull, byte[] a, int aFromIndex, int aToIndex, byte[] b,
+      int bFromIndex, int bToIndex, int hookId, boolean returnValue) {
     if (returnValue)
       return;
-    byte[] first =
-        Arrays.copyOfRange((byte[]) arguments[0], (int) arguments[1], (int) arguments[2]);
-    byte[] second =
-        Arrays.copyOfRange((byte[]) arguments[3], (int) arguments[4], (int) arguments[5]);
+    byte[] first = Arrays.copyOfRange(a, aFromIndex, aToIndex);
+    byte[] second = Arrays.copyOfRange(b, bFromIndex, bToIndex);
     TraceDataFlowNativeCallbacks.traceMemcmp(first, second, 1, hookId);
   }
 
@@ -477,12 +499,9 @@ final public class TraceCmpHooks {
   @MethodHook(type = HookType.AFTER, targetClassName = "java.util.Arrays",
       targetMethod = "compareUnsigned", targetMethodDescriptor = "([B[B)I")
   public static void
-  arraysCompare(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Integer returnValue) {
+  arraysCompare(Object alwaysNull, byte[] first, byte[] second, int hookId, int returnValue) {
     if (returnValue == 0)
       return;
-    byte[] first = (byte[]) arguments[0];
-    byte[] second = (byte[]) arguments[1];
     TraceDataFlowNativeCallbacks.traceMemcmp(first, second, returnValue, hookId);
   }
 
@@ -491,14 +510,12 @@ final public class TraceCmpHooks {
   @MethodHook(type = HookType.AFTER, targetClassName = "java.util.Arrays",
       targetMethod = "compareUnsigned", targetMethodDescriptor = "([BII[BII)I")
   public static void
-  arraysCompareRange(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Integer returnValue) {
+  arraysCompareRange(Object alwaysNull, byte[] a, int aFromIndex, int aToIndex, byte[] b,
+      int bFromIndex, int bToIndex, int hookId, int returnValue) {
     if (returnValue == 0)
       return;
-    byte[] first =
-        Arrays.copyOfRange((byte[]) arguments[0], (int) arguments[1], (int) arguments[2]);
-    byte[] second =
-        Arrays.copyOfRange((byte[]) arguments[3], (int) arguments[4], (int) arguments[5]);
+    byte[] first = Arrays.copyOfRange(a, aFromIndex, aToIndex);
+    byte[] second = Arrays.copyOfRange(b, bFromIndex, bToIndex);
     TraceDataFlowNativeCallbacks.traceMemcmp(first, second, returnValue, hookId);
   }
 
@@ -507,20 +524,20 @@ final public class TraceCmpHooks {
   private static final int MAX_NUM_KEYS_TO_ENUMERATE = 100;
 
   @SuppressWarnings({"rawtypes", "unchecked"})
-  @MethodHook(type = HookType.AFTER, targetClassName = "java.util.Map", targetMethod = "get")
-  public static void mapGet(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Object returnValue) {
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.util.Map", targetMethod = "get",
+      targetMethodDescriptor = "(Ljava/lang/Object;)Ljava/lang/Object;")
+  public static void
+  mapGet(Object thisObject, Object currentKey, int hookId, Object returnValue) {
     if (returnValue != null)
       return;
-    if (arguments.length != 1) {
-      return;
-    }
     if (thisObject == null)
       return;
+    if (HookCounters.enabled) {
+      HookCounters.mapGets.increment();
+    }
     final Map map = (Map) thisObject;
     if (map.size() == 0)
       return;
-    final Object currentKey = arguments[0];
     if (currentKey == null)
       return;
     // Find two valid map keys that bracket currentKey.
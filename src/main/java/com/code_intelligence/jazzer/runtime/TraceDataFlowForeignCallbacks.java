@@ -0,0 +1,158 @@
+// Copyright 2023 Code Intelligence GmbH
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.code_intelligence.jazzer.runtime;
+
+import com.code_intelligence.jazzer.utils.ForeignDowncalls;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Invokes the libFuzzer callbacks behind {@link TraceDataFlowNativeCallbacks} via downcall handles
+ * of the Foreign Function & Memory API instead of JNI.
+ *
+ * <p>The callbacks are short, never block and never call back into Java, which makes them eligible
+ * for critical downcalls that skip the thread state transitions of a JNI call and can access heap
+ * arrays without pinning them. See {@link ForeignDowncalls} for the requirements on the JVM.
+ */
+final class TraceDataFlowForeignCallbacks {
+  // The indices of the function pointers returned by
+  // TraceDataFlowNativeCallbacks#getCallbackAddresses.
+  private static final int CMP4 = 0;
+  private static final int CMP8 = 1;
+  private static final int DIV4 = 2;
+  private static final int DIV8 = 3;
+  private static final int GEP = 4;
+  private static final int PC_INDIR = 5;
+  private static final int COMPARE_BYTES = 6;
+  private static final int NUM_CALLBACKS = 7;
+
+  private static final MethodHandle[] HANDLES = bindHandles();
+  // Kept in separate static final fields so that the JIT can treat them as constants.
+  private static final MethodHandle traceCmp4 = handle(CMP4);
+  private static final MethodHandle traceCmp8 = handle(CMP8);
+  private static final MethodHandle traceDiv4 = handle(DIV4);
+  private static final MethodHandle traceDiv8 = handle(DIV8);
+  private static final MethodHandle traceGep = handle(GEP);
+  private static final MethodHandle tracePcIndir = handle(PC_INDIR);
+  private static final MethodHandle compareBytes = handle(COMPARE_BYTES);
+
+  private TraceDataFlowForeignCallbacks() {}
+
+  static boolean isAvailable() {
+    return HANDLES != null;
+  }
+
+  // libFuzzer receives the fake PCs as pointers, which are sign-extended from the int IDs on the
+  // native side of the JNI callbacks. The same is done here to get the same PCs.
+
+  static void traceCmp4(int arg1, int arg2, int pc) {
+    try {
+      traceCmp4.invokeExact((long) pc, arg1, arg2);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static void traceCmp8(long arg1, long arg2, int pc) {
+    try {
+      traceCmp8.invokeExact((long) pc, arg1, arg2);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static void traceDiv4(int val, int pc) {
+    try {
+      traceDiv4.invokeExact((long) pc, val);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static void traceDiv8(long val, int pc) {
+    try {
+      traceDiv8.invokeExact((long) pc, val);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static void traceGep(long idx, int pc) {
+    try {
+      traceGep.invokeExact((long) pc, idx);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static void tracePcIndir(int callee, int caller) {
+    try {
+      // Same argument order as TraceDataFlowNativeCallbacks#tracePcIndir0, which reports callee as
+      // the pc.
+      tracePcIndir.invokeExact((long) callee, (long) caller);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  static void traceMemcmp(byte[] b1, byte[] b2, int result, int pc) {
+    traceMemcmp(b1, b1.length, b2, b2.length, result, pc);
+  }
+
+  static void traceMemcmp(byte[] b1, int length1, byte[] b2, int length2, int result, int pc) {
+    try {
+      compareBytes.invokeExact((long) pc, b1, b2, (long) length1, (long) length2, result);
+    } catch (Throwable t) {
+      throw ForeignDowncalls.rethrow(t);
+    }
+  }
+
+  private static MethodHandle handle(int index) {
+    return HANDLES != null ? HANDLES[index] : null;
+  }
+
+  /**
+   * Returns the downcall handles indexed by the constants above, or {@code null} if the running JVM
+   * doesn't support critical downcalls or native access hasn't been enabled.
+   */
+  private static MethodHandle[] bindHandles() {
+    ForeignDowncalls downcalls = ForeignDowncalls.forCaller(TraceDataFlowForeignCallbacks.class);
+    if (downcalls == null) {
+      return null;
+    }
+    try {
+      // The fake PCs and the lengths of arrays are pointer-sized and passed as longs.
+      long[] addresses = TraceDataFlowNativeCallbacks.getCallbackAddresses();
+      MethodHandle[] handles = new MethodHandle[NUM_CALLBACKS];
+      handles[CMP4] =
+          downcalls.bind(addresses[CMP4], false, null, "JAVA_LONG", "JAVA_INT", "JAVA_INT");
+      handles[CMP8] =
+          downcalls.bind(addresses[CMP8], false, null, "JAVA_LONG", "JAVA_LONG", "JAVA_LONG");
+      handles[DIV4] = downcalls.bind(addresses[DIV4], false, null, "JAVA_LONG", "JAVA_INT");
+      handles[DIV8] = downcalls.bind(addresses[DIV8], false, null, "JAVA_LONG", "JAVA_LONG");
+      handles[GEP] = downcalls.bind(addresses[GEP], false, null, "JAVA_LONG", "JAVA_LONG");
+      handles[PC_INDIR] =
+          downcalls.bind(addresses[PC_INDIR], false, null, "JAVA_LONG", "JAVA_LONG");
+      // Heap access allows passing the byte arrays to native code without copying or pinning them.
+      MethodHandle compareBytes = downcalls.bind(addresses[COMPARE_BYTES], true, null,
+          "JAVA_LONG", "ADDRESS", "ADDRESS", "JAVA_LONG", "JAVA_LONG", "JAVA_INT");
+      MethodHandle ofArray = downcalls.ofArray(byte[].class);
+      handles[COMPARE_BYTES] = MethodHandles.filterArguments(compareBytes, 1, ofArray, ofArray);
+      return handles;
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      return null;
+    }
+  }
+}
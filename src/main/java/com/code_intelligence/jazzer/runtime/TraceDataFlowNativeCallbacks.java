@@ -14,22 +14,27 @@
 
 package com.code_intelligence.jazzer.runtime;
 
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
 import com.github.fmeum.rules_jni.RulesJni;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
-import java.nio.charset.Charset;
 import java.util.Arrays;
 import org.objectweb.asm.Type;
+import sun.misc.Unsafe;
 
 @SuppressWarnings("unused")
 final public class TraceDataFlowNativeCallbacks {
-  // Note that we are not encoding as modified UTF-8 here: The FuzzedDataProvider transparently
-  // converts CESU8 into modified UTF-8 by coding null bytes on two bytes. Since the fuzzer is more
-  // likely to insert literal null bytes, having both the fuzzer input and the reported string
-  // comparisons be CESU8 should perform even better than the current implementation using modified
-  // UTF-8.
-  private static final Charset FUZZED_DATA_CHARSET = Charset.forName("CESU8");
+  // Strings are reported to libFuzzer encoded as CESU8, not as modified UTF-8: The
+  // FuzzedDataProvider transparently converts CESU8 into modified UTF-8 by coding null bytes on two
+  // bytes. Since the fuzzer is more likely to insert literal null bytes, having both the fuzzer
+  // input and the reported string comparisons be CESU8 should perform even better than the current
+  // implementation using modified UTF-8.
+  //
+  // The encoding is performed by LibFuzzerStringEncoder, which writes into per-thread scratch
+  // buffers so that hooked string comparisons don't allocate.
+  private static final ThreadLocal<ScratchBuffers> SCRATCH_BUFFERS =
+      ThreadLocal.withInitial(ScratchBuffers::new);
 
   static {
     RulesJni.loadLibrary("jazzer_driver", "/com/code_intelligence/jazzer/driver");
@@ -46,17 +51,68 @@ final public class TraceDataFlowNativeCallbacks {
   // completed yet.
   private static final boolean NATIVE_INITIALIZED = true;
 
-  public static native void traceMemcmp(byte[] b1, byte[] b2, int result, int pc);
+  // Initialized after the native library has been loaded as binding the Foreign Function & Memory
+  // API downcall handles requires the addresses of the native callbacks.
+  private static final boolean USE_FOREIGN_CALLBACKS = TraceDataFlowForeignCallbacks.isAvailable();
+
+  // In buffered mode, the fixed-size trace-cmp, trace-div, trace-gep and indirect call callbacks
+  // invoked on a single thread (usually the one executing the fuzz target) are appended to an
+  // off-heap buffer instead of being passed to libFuzzer one JNI call at a time. The buffer is
+  // flushed to libFuzzer in a single JNI call when it is full and via flushBuffer, which has to be
+  // called before libFuzzer evaluates the data flow information collected during an execution.
+  // Callbacks invoked on any other thread are passed to libFuzzer directly.
+  //
+  // Every record has the layout of struct TraceRecord in jazzer_fuzzer_callbacks.cpp:
+  // int type, int pc, long arg1, long arg2 (all in native byte order)
+  private static final int RECORD_SIZE = 24;
+  private static final int BUFFER_CAPACITY = 4096;
+  private static final int TYPE_CMP4 = 0;
+  private static final int TYPE_CMP8 = 1;
+  private static final int TYPE_DIV4 = 2;
+  private static final int TYPE_DIV8 = 3;
+  private static final int TYPE_GEP = 4;
+  private static final int TYPE_PC_INDIR = 5;
+
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+  private static Thread bufferingThread;
+  private static long bufferAddress;
+  private static int numBufferedRecords;
+
+  public static void traceMemcmp(byte[] b1, byte[] b2, int result, int pc) {
+    if (HookCounters.enabled) {
+      HookCounters.byteArrayCompares.increment();
+    }
+    if (USE_FOREIGN_CALLBACKS) {
+      TraceDataFlowForeignCallbacks.traceMemcmp(b1, b2, result, pc);
+    } else {
+      traceMemcmp0(b1, b2, result, pc);
+    }
+  }
 
   public static void traceStrcmp(String s1, String s2, int result, int pc) {
     if (NATIVE_INITIALIZED) {
-      traceMemcmp(encodeForLibFuzzer(s1), encodeForLibFuzzer(s2), result, pc);
+      if (HookCounters.enabled) {
+        HookCounters.stringCompares.increment();
+      }
+      ScratchBuffers buffers = SCRATCH_BUFFERS.get();
+      int length1 = LibFuzzerStringEncoder.encode(s1, buffers.first);
+      int length2 = LibFuzzerStringEncoder.encode(s2, buffers.second);
+      if (USE_FOREIGN_CALLBACKS) {
+        TraceDataFlowForeignCallbacks.traceMemcmp(
+            buffers.first, length1, buffers.second, length2, result, pc);
+      } else {
+        traceStrcmp0(buffers.first, length1, buffers.second, length2, result, pc);
+      }
     }
   }
 
   public static void traceStrstr(String s1, String s2, int pc) {
     if (NATIVE_INITIALIZED) {
-      traceStrstr0(encodeForLibFuzzer(s2), pc);
+      if (HookCounters.enabled) {
+        HookCounters.stringCompares.increment();
+      }
+      byte[] needle = SCRATCH_BUFFERS.get().first;
+      traceStrstr0(needle, LibFuzzerStringEncoder.encode(s2, needle), pc);
     }
   }
 
@@ -101,25 +157,158 @@ final public class TraceDataFlowNativeCallbacks {
   }
 
   /* trace-cmp */
-  public static native void traceCmpInt(int arg1, int arg2, int pc);
-  public static native void traceConstCmpInt(int arg1, int arg2, int pc);
-  public static native void traceCmpLong(long arg1, long arg2, int pc);
+  public static void traceCmpInt(int arg1, int arg2, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      appendRecord(TYPE_CMP4, pc, arg1, arg2);
+    } else if (USE_FOREIGN_CALLBACKS) {
+      TraceDataFlowForeignCallbacks.traceCmp4(arg1, arg2, pc);
+    } else {
+      traceCmpInt0(arg1, arg2, pc);
+    }
+  }
+
+  public static void traceConstCmpInt(int arg1, int arg2, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      appendRecord(TYPE_CMP4, pc, arg1, arg2);
+    } else if (USE_FOREIGN_CALLBACKS) {
+      TraceDataFlowForeignCallbacks.traceCmp4(arg1, arg2, pc);
+    } else {
+      traceConstCmpInt0(arg1, arg2, pc);
+    }
+  }
+
+  public static void traceCmpLong(long arg1, long arg2, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      appendRecord(TYPE_CMP8, pc, arg1, arg2);
+    } else if (USE_FOREIGN_CALLBACKS) {
+      TraceDataFlowForeignCallbacks.traceCmp8(arg1, arg2, pc);
+    } else {
+      traceCmpLong0(arg1, arg2, pc);
+    }
+  }
+
+  // Not buffered as the number of cases is unbounded.
   public static native void traceSwitch(long val, long[] cases, int pc);
+
   /* trace-div */
-  public static native void traceDivInt(int val, int pc);
-  public static native void traceDivLong(long val, int pc);
+  public static void traceDivInt(int val, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      appendRecord(TYPE_DIV4, pc, val, 0);
+    } else if (USE_FOREIGN_CALLBACKS) {
+      TraceDataFlowForeignCallbacks.traceDiv4(val, pc);
+    } else {
+      traceDivInt0(val, pc);
+    }
+  }
+
+  public static void traceDivLong(long val, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      appendRecord(TYPE_DIV8, pc, val, 0);
+    } else if (USE_FOREIGN_CALLBACKS) {
+      TraceDataFlowForeignCallbacks.traceDiv8(val, pc);
+    } else {
+      traceDivLong0(val, pc);
+    }
+  }
+
   /* trace-gep */
-  public static native void traceGep(long val, int pc);
+  public static void traceGep(long val, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      appendRecord(TYPE_GEP, pc, val, 0);
+    } else if (USE_FOREIGN_CALLBACKS) {
+      TraceDataFlowForeignCallbacks.traceGep(val, pc);
+    } else {
+      traceGep0(val, pc);
+    }
+  }
+
   /* indirect-calls */
-  public static native void tracePcIndir(int callee, int caller);
+  public static void tracePcIndir(int callee, int caller) {
+    if (Thread.currentThread() == bufferingThread) {
+      // Same argument order as tracePcIndir0, which reports callee as the pc.
+      appendRecord(TYPE_PC_INDIR, callee, caller, 0);
+    } else if (USE_FOREIGN_CALLBACKS) {
+      TraceDataFlowForeignCallbacks.tracePcIndir(callee, caller);
+    } else {
+      tracePcIndir0(callee, caller);
+    }
+  }
 
   public static native void handleLibraryLoad();
 
-  private static byte[] encodeForLibFuzzer(String str) {
-    // libFuzzer string hooks only ever consume the first 64 bytes, so we can definitely cut the
-    // string off after 64 characters.
-    return str.substring(0, Math.min(str.length(), 64)).getBytes(FUZZED_DATA_CHARSET);
+  /**
+   * Buffers the fixed-size callbacks invoked on the current thread from now on until {@link
+   * #flushBuffer()} is called. Must only be called once.
+   */
+  public static void enableBuffering() {
+    if (bufferingThread != null) {
+      throw new IllegalStateException("Buffering has already been enabled");
+    }
+    bufferAddress = UNSAFE.allocateMemory((long) BUFFER_CAPACITY * RECORD_SIZE);
+    bufferingThread = Thread.currentThread();
+  }
+
+  /**
+   * Passes all callbacks buffered so far to libFuzzer. Must be called on the thread that enabled
+   * buffering, but is a no-op if buffering is not enabled.
+   */
+  public static void flushBuffer() {
+    if (numBufferedRecords != 0) {
+      flushBuffer0(bufferAddress, numBufferedRecords);
+      numBufferedRecords = 0;
+    }
+  }
+
+  /**
+   * Discards all callbacks buffered so far without passing them to libFuzzer. Must be called on the
+   * thread that enabled buffering before an execution starts so that callbacks invoked in between
+   * executions, e.g. by static initializers, aren't attributed to the next execution.
+   */
+  public static void clearBuffer() {
+    numBufferedRecords = 0;
+  }
+
+  private static void appendRecord(int type, int pc, long arg1, long arg2) {
+    long address = bufferAddress + (long) numBufferedRecords * RECORD_SIZE;
+    UNSAFE.putInt(address, type);
+    UNSAFE.putInt(address + 4, pc);
+    UNSAFE.putLong(address + 8, arg1);
+    UNSAFE.putLong(address + 16, arg2);
+    if (++numBufferedRecords == BUFFER_CAPACITY) {
+      flushBuffer();
+    }
+  }
+
+  private static final class ScratchBuffers {
+    final byte[] first = new byte[LibFuzzerStringEncoder.MAX_BYTES];
+    final byte[] second = new byte[LibFuzzerStringEncoder.MAX_BYTES];
   }
 
-  private static native void traceStrstr0(byte[] needle, int pc);
+  // Only the first length bytes of needle are passed to libFuzzer.
+  private static native void traceStrstr0(byte[] needle, int length, int pc);
+
+  private static native void traceMemcmp0(byte[] b1, byte[] b2, int result, int pc);
+
+  // Only the first length1 bytes of b1 and length2 bytes of b2 are passed to libFuzzer.
+  private static native void traceStrcmp0(
+      byte[] b1, int length1, byte[] b2, int length2, int result, int pc);
+
+  private static native void traceCmpInt0(int arg1, int arg2, int pc);
+
+  private static native void traceConstCmpInt0(int arg1, int arg2, int pc);
+
+  private static native void traceCmpLong0(long arg1, long arg2, int pc);
+
+  private static native void traceDivInt0(int val, int pc);
+
+  private static native void traceDivLong0(long val, int pc);
+
+  private static native void traceGep0(long val, int pc);
+
+  private static native void tracePcIndir0(int callee, int caller);
+
+  private static native void flushBuffer0(long address, int numRecords);
+
+  // Returns the addresses of the native functions that are bound by TraceDataFlowForeignCallbacks.
+  static native long[] getCallbackAddresses();
 }
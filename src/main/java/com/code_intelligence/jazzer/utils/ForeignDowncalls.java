@@ -0,0 +1,133 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.utils;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+
+/**
+ * Creates critical downcall handles of the Foreign Function & Memory API for native functions
+ * whose addresses have been obtained via JNI.
+ *
+ * <p>Critical downcalls skip the thread state transitions of a JNI call, but may only be used for
+ * functions that are short, never block and never call back into Java. They have been added in
+ * JDK 22, but Jazzer is compiled for Java 8, so the API is only accessed via reflection while the
+ * handles are created. The resulting handles should be stored in static final fields so that the
+ * JIT can inline them.
+ */
+public final class ForeignDowncalls {
+  private final Class<?> memorySegment = Class.forName("java.lang.foreign.MemorySegment");
+  private final Class<?> memoryLayout = Class.forName("java.lang.foreign.MemoryLayout");
+  private final Class<?> valueLayout = Class.forName("java.lang.foreign.ValueLayout");
+  private final Class<?> functionDescriptor = Class.forName("java.lang.foreign.FunctionDescriptor");
+  private final Class<?> linkerOption = Class.forName("java.lang.foreign.Linker$Option");
+  private final Class<?> linkerClass = Class.forName("java.lang.foreign.Linker");
+  private final Object linker = linkerClass.getMethod("nativeLinker").invoke(null);
+  private final Method of =
+      functionDescriptor.getMethod("of", memoryLayout, arrayClass(memoryLayout));
+  private final Method ofVoid = functionDescriptor.getMethod("ofVoid", arrayClass(memoryLayout));
+  private final Method ofAddress = memorySegment.getMethod("ofAddress", long.class);
+  private final Method critical = linkerOption.getMethod("critical", boolean.class);
+  private final Method downcallHandle = linkerClass.getMethod(
+      "downcallHandle", memorySegment, functionDescriptor, arrayClass(linkerOption));
+
+  private ForeignDowncalls() throws ReflectiveOperationException {}
+
+  /**
+   * Returns an instance that binds downcall handles on behalf of {@code caller}, or {@code null}
+   * if the running JVM doesn't support critical downcalls or native access hasn't been enabled for
+   * the module of {@code caller}, e.g. with {@code --enable-native-access=ALL-UNNAMED}, as the JVM
+   * prints a warning otherwise.
+   *
+   * <p>Pointers and pointer-sized values are passed to the handles as {@code long}s, so {@code
+   * null} is also returned on platforms with addresses of a different size.
+   */
+  public static ForeignDowncalls forCaller(Class<?> caller) {
+    try {
+      Object module = Class.class.getMethod("getModule").invoke(caller);
+      // Added in JDK 22 together with Linker.Option#critical.
+      if (!(boolean) module.getClass().getMethod("isNativeAccessEnabled").invoke(module)) {
+        return null;
+      }
+      ForeignDowncalls downcalls = new ForeignDowncalls();
+      if (downcalls.addressByteSize() != Long.BYTES) {
+        return null;
+      }
+      return downcalls;
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a critical downcall handle for the function at {@code address}.
+   *
+   * @param returnLayoutName the name of the {@code ValueLayout} constant describing the return
+   *     value, or {@code null} if the function returns {@code void}
+   * @param argLayoutNames the names of the {@code ValueLayout} constants describing the arguments
+   */
+  public MethodHandle bind(long address, boolean allowHeapAccess, String returnLayoutName,
+      String... argLayoutNames) throws ReflectiveOperationException {
+    Object argLayouts = Array.newInstance(memoryLayout, argLayoutNames.length);
+    for (int i = 0; i < argLayoutNames.length; i++) {
+      Array.set(argLayouts, i, layout(argLayoutNames[i]));
+    }
+    Object descriptor = returnLayoutName == null
+        ? ofVoid.invoke(null, argLayouts)
+        : of.invoke(null, layout(returnLayoutName), argLayouts);
+    Object options = Array.newInstance(linkerOption, 1);
+    Array.set(options, 0, critical.invoke(null, allowHeapAccess));
+    return (MethodHandle) downcallHandle.invoke(
+        linker, ofAddress.invoke(null, address), descriptor, options);
+  }
+
+  /**
+   * Returns a handle that wraps an array of type {@code arrayClass}, e.g. {@code byte[].class},
+   * into a heap segment.
+   */
+  public MethodHandle ofArray(Class<?> arrayClass) throws ReflectiveOperationException {
+    return MethodHandles.publicLookup().findStatic(
+        memorySegment, "ofArray", methodType(memorySegment, arrayClass));
+  }
+
+  /** Rethrows a {@link Throwable} thrown by {@link MethodHandle#invokeExact}. */
+  public static RuntimeException rethrow(Throwable t) {
+    if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    throw new IllegalStateException(t);
+  }
+
+  private long addressByteSize() throws ReflectiveOperationException {
+    return (long) memoryLayout.getMethod("byteSize").invoke(layout("ADDRESS"));
+  }
+
+  private Object layout(String name) throws ReflectiveOperationException {
+    return valueLayout.getField(name).get(null);
+  }
+
+  private static Class<?> arrayClass(Class<?> componentType) {
+    return Array.newInstance(componentType, 0).getClass();
+  }
+}
@@ -79,6 +79,13 @@ public class Log {
     println("ERROR: ", message, t);
   }
 
+  /**
+   * Prints a line of machine-readable metrics, prefixed with {@code METRICS: }.
+   */
+  public static void metrics(String json) {
+    println("METRICS: ", json, null);
+  }
+
   public static void finding(Throwable t) {
     println("\n== Java Exception: ", null, t);
   }
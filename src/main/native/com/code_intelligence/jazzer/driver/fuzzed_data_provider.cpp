@@ -117,16 +117,16 @@ jbyteArray JNICALL ConsumeRemainingAsArray(JNIEnv &env, jobject self) {
   return ConsumeIntegralArray<T>(env, self, std::numeric_limits<jint>::max());
 }
 
+// Consumes an integral value from the end of the data pointed to by dataPtr,
+// which has remainingBytes bytes left. Only updates remainingBytes as dataPtr
+// doesn't change.
 template <typename T>
-T JNICALL ConsumeIntegralInRange(JNIEnv &env, jobject self, T min, T max) {
+T ConsumeIntegralInRangeImpl(const uint8_t *dataPtr, jint &remainingBytes,
+                             T min, T max) {
   uint64_t range = static_cast<uint64_t>(max) - min;
   uint64_t result = 0;
   jint offset = 0;
 
-  const auto *dataPtr =
-      reinterpret_cast<const uint8_t *>(env.GetLongField(self, gDataPtrField));
-  jint remainingBytes = env.GetIntField(self, gRemainingBytesField);
-
   while (offset < 8 * sizeof(T) && (range >> offset) > 0 &&
          remainingBytes != 0) {
     --remainingBytes;
@@ -134,9 +134,6 @@ T JNICALL ConsumeIntegralInRange(JNIEnv &env, jobject self, T min, T max) {
     offset += 8;
   }
 
-  env.SetIntField(self, gRemainingBytesField, remainingBytes);
-  // dataPtr hasn't been modified, so we don't need to update gDataPtrField.
-
   if (range != std::numeric_limits<T>::max())
     // We accept modulo bias in favor of reading a dynamic number of bytes as
     // this would make it harder for the fuzzer to mutate towards values from
@@ -147,7 +144,7 @@ T JNICALL ConsumeIntegralInRange(JNIEnv &env, jobject self, T min, T max) {
 }
 
 template <typename T>
-T JNICALL ConsumeIntegral(JNIEnv &env, jobject self) {
+T ConsumeIntegralImpl(const uint8_t *dataPtr, jint &remainingBytes) {
   // First generate an unsigned value and then (safely) cast it to a signed
   // integral type. By doing this rather than calling ConsumeIntegralInRange
   // with bounds [signed_min, signed_max], we ensure that there is a direct
@@ -158,8 +155,49 @@ T JNICALL ConsumeIntegral(JNIEnv &env, jobject self) {
   static_assert(
       std::numeric_limits<UnsignedT>::is_modulo,
       "Unsigned to signed conversion requires modulo-based overflow handling");
-  return static_cast<T>(ConsumeIntegralInRange<UnsignedT>(
-      env, self, 0, std::numeric_limits<UnsignedT>::max()));
+  return static_cast<T>(ConsumeIntegralInRangeImpl<UnsignedT>(
+      dataPtr, remainingBytes, 0, std::numeric_limits<UnsignedT>::max()));
+}
+
+template <typename T>
+T JNICALL ConsumeIntegralInRange(JNIEnv &env, jobject self, T min, T max) {
+  const auto *dataPtr =
+      reinterpret_cast<const uint8_t *>(env.GetLongField(self, gDataPtrField));
+  jint remainingBytes = env.GetIntField(self, gRemainingBytesField);
+
+  T result = ConsumeIntegralInRangeImpl<T>(dataPtr, remainingBytes, min, max);
+
+  env.SetIntField(self, gRemainingBytesField, remainingBytes);
+  // dataPtr hasn't been modified, so we don't need to update gDataPtrField.
+  return result;
+}
+
+template <typename T>
+T JNICALL ConsumeIntegral(JNIEnv &env, jobject self) {
+  const auto *dataPtr =
+      reinterpret_cast<const uint8_t *>(env.GetLongField(self, gDataPtrField));
+  jint remainingBytes = env.GetIntField(self, gRemainingBytesField);
+
+  T result = ConsumeIntegralImpl<T>(dataPtr, remainingBytes);
+
+  env.SetIntField(self, gRemainingBytesField, remainingBytes);
+  return result;
+}
+
+// Variants of the functions above that are called via downcall handles of the
+// Foreign Function & Memory API by FuzzedDataProviderForeignCalls. They can't
+// access the fields of FuzzedDataProviderImpl and thus receive them as
+// arguments. The caller updates remainingBytes itself, which is possible as
+// the number of consumed bytes only depends on the range.
+template <typename T>
+T ForeignConsumeIntegralInRange(const uint8_t *dataPtr, jint remainingBytes,
+                                T min, T max) {
+  return ConsumeIntegralInRangeImpl<T>(dataPtr, remainingBytes, min, max);
+}
+
+template <typename T>
+T ForeignConsumeIntegral(const uint8_t *dataPtr, jint remainingBytes) {
+  return ConsumeIntegralImpl<T>(dataPtr, remainingBytes);
 }
 
 bool JNICALL ConsumeBool(JNIEnv &env, jobject self) {
@@ -624,19 +662,40 @@ std::size_t RemainingBytes(JNIEnv &env, jobject self) {
   return env.GetIntField(self, gRemainingBytesField);
 }
 
+jlongArray JNICALL GetForeignFunctionAddresses(JNIEnv &env, jclass clazz) {
+  // Must be kept in sync with the indices in FuzzedDataProviderForeignCalls.
+  const jlong addresses[] = {
+      reinterpret_cast<jlong>(&ForeignConsumeIntegral<jbyte>),
+      reinterpret_cast<jlong>(&ForeignConsumeIntegralInRange<jbyte>),
+      reinterpret_cast<jlong>(&ForeignConsumeIntegral<jshort>),
+      reinterpret_cast<jlong>(&ForeignConsumeIntegralInRange<jshort>),
+      reinterpret_cast<jlong>(&ForeignConsumeIntegral<jchar>),
+      reinterpret_cast<jlong>(&ForeignConsumeIntegralInRange<jchar>),
+      reinterpret_cast<jlong>(&ForeignConsumeIntegral<jint>),
+      reinterpret_cast<jlong>(&ForeignConsumeIntegralInRange<jint>),
+      reinterpret_cast<jlong>(&ForeignConsumeIntegral<jlong>),
+      reinterpret_cast<jlong>(&ForeignConsumeIntegralInRange<jlong>),
+  };
+  constexpr jsize num_addresses = sizeof(addresses) / sizeof(addresses[0]);
+  jlongArray result = env.NewLongArray(num_addresses);
+  if (result == nullptr) return nullptr;
+  env.SetLongArrayRegion(result, 0, num_addresses, addresses);
+  return result;
+}
+
 const JNINativeMethod kFuzzedDataMethods[]{
-    {(char *)"consumeBoolean", (char *)"()Z", (void *)&ConsumeBool},
-    {(char *)"consumeByte", (char *)"()B", (void *)&ConsumeIntegral<jbyte>},
-    {(char *)"consumeByteUnchecked", (char *)"(BB)B",
+    {(char *)"consumeBoolean0", (char *)"()Z", (void *)&ConsumeBool},
+    {(char *)"consumeByte0", (char *)"()B", (void *)&ConsumeIntegral<jbyte>},
+    {(char *)"consumeByteUnchecked0", (char *)"(BB)B",
      (void *)&ConsumeIntegralInRange<jbyte>},
-    {(char *)"consumeShort", (char *)"()S", (void *)&ConsumeIntegral<jshort>},
-    {(char *)"consumeShortUnchecked", (char *)"(SS)S",
+    {(char *)"consumeShort0", (char *)"()S", (void *)&ConsumeIntegral<jshort>},
+    {(char *)"consumeShortUnchecked0", (char *)"(SS)S",
      (void *)&ConsumeIntegralInRange<jshort>},
-    {(char *)"consumeInt", (char *)"()I", (void *)&ConsumeIntegral<jint>},
-    {(char *)"consumeIntUnchecked", (char *)"(II)I",
+    {(char *)"consumeInt0", (char *)"()I", (void *)&ConsumeIntegral<jint>},
+    {(char *)"consumeIntUnchecked0", (char *)"(II)I",
      (void *)&ConsumeIntegralInRange<jint>},
-    {(char *)"consumeLong", (char *)"()J", (void *)&ConsumeIntegral<jlong>},
-    {(char *)"consumeLongUnchecked", (char *)"(JJ)J",
+    {(char *)"consumeLong0", (char *)"()J", (void *)&ConsumeIntegral<jlong>},
+    {(char *)"consumeLongUnchecked0", (char *)"(JJ)J",
      (void *)&ConsumeIntegralInRange<jlong>},
     {(char *)"consumeFloat", (char *)"()F", (void *)&ConsumeFloat<jfloat>},
     {(char *)"consumeRegularFloat", (char *)"()F",
@@ -652,10 +711,10 @@ const JNINativeMethod kFuzzedDataMethods[]{
      (void *)&ConsumeFloatInRange<jdouble>},
     {(char *)"consumeProbabilityDouble", (char *)"()D",
      (void *)&ConsumeProbability<jdouble>},
-    {(char *)"consumeChar", (char *)"()C", (void *)&ConsumeChar},
-    {(char *)"consumeCharUnchecked", (char *)"(CC)C",
+    {(char *)"consumeChar0", (char *)"()C", (void *)&ConsumeChar},
+    {(char *)"consumeCharUnchecked0", (char *)"(CC)C",
      (void *)&ConsumeIntegralInRange<jchar>},
-    {(char *)"consumeCharNoSurrogates", (char *)"()C",
+    {(char *)"consumeCharNoSurrogates0", (char *)"()C",
      (void *)&ConsumeCharNoSurrogates},
     {(char *)"consumeAsciiString", (char *)"(I)Ljava/lang/String;",
      (void *)&ConsumeAsciiString},
@@ -678,6 +737,8 @@ const JNINativeMethod kFuzzedDataMethods[]{
     {(char *)"consumeRemainingAsBytes", (char *)"()[B",
      (void *)&ConsumeRemainingAsArray<jbyte>},
     {(char *)"remainingBytes", (char *)"()I", (void *)&RemainingBytes},
+    {(char *)"getForeignFunctionAddresses", (char *)"()[J",
+     (void *)&GetForeignFunctionAddresses},
 };
 const jint kNumFuzzedDataMethods =
     sizeof(kFuzzedDataMethods) / sizeof(kFuzzedDataMethods[0]);
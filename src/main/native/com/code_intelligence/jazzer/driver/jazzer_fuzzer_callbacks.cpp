@@ -33,12 +33,64 @@ void __sanitizer_weak_hook_memmem(void *called_pc, const void *s1, size_t len1,
 inline __attribute__((always_inline)) void *idToPc(jint id) {
   return reinterpret_cast<void *>(static_cast<uintptr_t>(id));
 }
+
+// Must be kept in sync with the TYPE_* constants in
+// TraceDataFlowNativeCallbacks.
+enum TraceRecordType : jint {
+  kCmp4 = 0,
+  kCmp8 = 1,
+  kDiv4 = 2,
+  kDiv8 = 3,
+  kGep = 4,
+  kPcIndir = 5,
+};
+
+// The layout of a record written by TraceDataFlowNativeCallbacks#appendRecord.
+struct TraceRecord {
+  jint type;
+  jint id;
+  jlong arg1;
+  jlong arg2;
+};
+static_assert(sizeof(TraceRecord) == 24,
+              "TraceRecord must match RECORD_SIZE in Java");
+
+void flushTraceRecords(const TraceRecord *records, jint num_records) {
+  for (jint i = 0; i < num_records; ++i) {
+    const TraceRecord &record = records[i];
+    switch (record.type) {
+      case kCmp4:
+        __sanitizer_cov_trace_cmp4_with_pc(idToPc(record.id), record.arg1,
+                                           record.arg2);
+        break;
+      case kCmp8:
+        __sanitizer_cov_trace_cmp8_with_pc(idToPc(record.id), record.arg1,
+                                           record.arg2);
+        break;
+      case kDiv4:
+        __sanitizer_cov_trace_div4_with_pc(idToPc(record.id), record.arg1);
+        break;
+      case kDiv8:
+        __sanitizer_cov_trace_div8_with_pc(idToPc(record.id), record.arg1);
+        break;
+      case kGep:
+        __sanitizer_cov_trace_gep_with_pc(idToPc(record.id),
+                                          static_cast<uintptr_t>(record.arg1));
+        break;
+      case kPcIndir:
+        __sanitizer_cov_trace_pc_indir_with_pc(
+            idToPc(record.id), static_cast<uintptr_t>(record.arg1));
+        break;
+      default:
+        break;
+    }
+  }
+}
 }  // namespace
 
 [[maybe_unused]] void
 Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceStrstr0(
-    JNIEnv *env, jclass cls, jbyteArray needle, jint id) {
-  jint needle_length = env->GetArrayLength(needle);
+    JNIEnv *env, jclass cls, jbyteArray needle, jint needle_length, jint id) {
   auto *needle_native =
       static_cast<jbyte *>(env->GetPrimitiveArrayCritical(needle, nullptr));
   __sanitizer_weak_hook_memmem(idToPc(id), nullptr, 0, needle_native,
@@ -48,13 +100,14 @@ Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceStr
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
 JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceStrstr0(
-    jint needle_length, jbyte *needle_native, jint id) {
+    jint needle_array_length, jbyte *needle_native, jint needle_length,
+    jint id) {
   __sanitizer_weak_hook_memmem(idToPc(id), nullptr, 0, needle_native,
                                needle_length, nullptr);
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceMemcmp(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceMemcmp0(
     JNIEnv *env, jclass cls, jbyteArray b1, jbyteArray b2, jint result,
     jint id) {
   jint b1_length = env->GetArrayLength(b1);
@@ -70,45 +123,69 @@ Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceMem
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceMemcmp(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceMemcmp0(
     jint b1_length, jbyte *b1, jint b2_length, jbyte *b2, jint result,
     jint id) {
   __sanitizer_weak_hook_compare_bytes(idToPc(id), b1, b2, b1_length, b2_length,
                                       result);
 }
 
+// Like traceMemcmp0, but only passes prefixes of the given lengths to libFuzzer
+// so that the Java side can reuse scratch buffers.
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpLong(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceStrcmp0(
+    JNIEnv *env, jclass cls, jbyteArray b1, jint b1_length, jbyteArray b2,
+    jint b2_length, jint result, jint id) {
+  auto *b1_native =
+      static_cast<jbyte *>(env->GetPrimitiveArrayCritical(b1, nullptr));
+  auto *b2_native =
+      static_cast<jbyte *>(env->GetPrimitiveArrayCritical(b2, nullptr));
+  __sanitizer_weak_hook_compare_bytes(idToPc(id), b1_native, b2_native,
+                                      b1_length, b2_length, result);
+  env->ReleasePrimitiveArrayCritical(b1, b1_native, JNI_ABORT);
+  env->ReleasePrimitiveArrayCritical(b2, b2_native, JNI_ABORT);
+}
+
+extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceStrcmp0(
+    jint b1_array_length, jbyte *b1, jint b1_length, jint b2_array_length,
+    jbyte *b2, jint b2_length, jint result, jint id) {
+  __sanitizer_weak_hook_compare_bytes(idToPc(id), b1, b2, b1_length, b2_length,
+                                      result);
+}
+
+[[maybe_unused]] void
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpLong0(
     JNIEnv *env, jclass cls, jlong value1, jlong value2, jint id) {
   __sanitizer_cov_trace_cmp8_with_pc(idToPc(id), value1, value2);
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpLong(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpLong0(
     jlong value1, jlong value2, jint id) {
   __sanitizer_cov_trace_cmp8_with_pc(idToPc(id), value1, value2);
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpInt(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpInt0(
     JNIEnv *env, jclass cls, jint value1, jint value2, jint id) {
   __sanitizer_cov_trace_cmp4_with_pc(idToPc(id), value1, value2);
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpInt(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpInt0(
     jint value1, jint value2, jint id) {
   __sanitizer_cov_trace_cmp4_with_pc(idToPc(id), value1, value2);
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceConstCmpInt(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceConstCmpInt0(
     JNIEnv *env, jclass cls, jint value1, jint value2, jint id) {
   __sanitizer_cov_trace_cmp4_with_pc(idToPc(id), value1, value2);
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceConstCmpInt(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceConstCmpInt0(
     jint value1, jint value2, jint id) {
   __sanitizer_cov_trace_cmp4_with_pc(idToPc(id), value1, value2);
 }
@@ -134,51 +211,85 @@ JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivLong(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivLong0(
     JNIEnv *env, jclass cls, jlong value, jint id) {
   __sanitizer_cov_trace_div8_with_pc(idToPc(id), value);
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivLong(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivLong0(
     jlong value, jint id) {
   __sanitizer_cov_trace_div8_with_pc(idToPc(id), value);
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivInt(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivInt0(
     JNIEnv *env, jclass cls, jint value, jint id) {
   __sanitizer_cov_trace_div4_with_pc(idToPc(id), value);
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivInt(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivInt0(
     jint value, jint id) {
   __sanitizer_cov_trace_div4_with_pc(idToPc(id), value);
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceGep(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceGep0(
     JNIEnv *env, jclass cls, jlong idx, jint id) {
   __sanitizer_cov_trace_gep_with_pc(idToPc(id), static_cast<uintptr_t>(idx));
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceGep(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceGep0(
     jlong idx, jint id) {
   __sanitizer_cov_trace_gep_with_pc(idToPc(id), static_cast<uintptr_t>(idx));
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_tracePcIndir(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_tracePcIndir0(
     JNIEnv *env, jclass cls, jint caller_id, jint callee_id) {
   __sanitizer_cov_trace_pc_indir_with_pc(idToPc(caller_id),
                                          static_cast<uintptr_t>(callee_id));
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_tracePcIndir(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_tracePcIndir0(
     jint caller_id, jint callee_id) {
   __sanitizer_cov_trace_pc_indir_with_pc(idToPc(caller_id),
                                          static_cast<uintptr_t>(callee_id));
 }
+
+[[maybe_unused]] void
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_flushBuffer0(
+    JNIEnv *env, jclass cls, jlong address, jint num_records) {
+  flushTraceRecords(reinterpret_cast<const TraceRecord *>(address),
+                    num_records);
+}
+
+extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_flushBuffer0(
+    jlong address, jint num_records) {
+  flushTraceRecords(reinterpret_cast<const TraceRecord *>(address),
+                    num_records);
+}
+
+[[maybe_unused]] jlongArray
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_getCallbackAddresses(
+    JNIEnv *env, jclass cls) {
+  // Must be kept in sync with the indices in TraceDataFlowForeignCallbacks.
+  const jlong addresses[] = {
+      reinterpret_cast<jlong>(&__sanitizer_cov_trace_cmp4_with_pc),
+      reinterpret_cast<jlong>(&__sanitizer_cov_trace_cmp8_with_pc),
+      reinterpret_cast<jlong>(&__sanitizer_cov_trace_div4_with_pc),
+      reinterpret_cast<jlong>(&__sanitizer_cov_trace_div8_with_pc),
+      reinterpret_cast<jlong>(&__sanitizer_cov_trace_gep_with_pc),
+      reinterpret_cast<jlong>(&__sanitizer_cov_trace_pc_indir_with_pc),
+      reinterpret_cast<jlong>(&__sanitizer_weak_hook_compare_bytes),
+  };
+  constexpr jsize num_addresses = sizeof(addresses) / sizeof(addresses[0]);
+  jlongArray result = env->NewLongArray(num_addresses);
+  if (result == nullptr) return nullptr;
+  env->SetLongArrayRegion(result, 0, num_addresses, addresses);
+  return result;
+}
@@ -0,0 +1,180 @@
+// Copyright 2023 Code Intelligence GmbH
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.code_intelligence.jazzer.agent
+
+import com.code_intelligence.jazzer.instrumentor.ClassInstrumentor
+import com.code_intelligence.jazzer.runtime.CoverageMap
+import com.code_intelligence.jazzer.utils.ClassNameGlobber
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.lang.instrument.Instrumentation
+import java.lang.reflect.Proxy
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.stream.Collectors
+import kotlin.test.assertContentEquals
+import kotlin.test.assertEquals
+import kotlin.test.assertNotEquals
+import kotlin.test.assertNotNull
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+
+class InstrumentationCacheTest {
+    @get:Rule
+    val temp = TemporaryFolder()
+
+    private val bytecode = byteArrayOf(0xCA.toByte(), 0xFE.toByte(), 0xBA.toByte(), 0xBE.toByte(), 1, 2, 3)
+
+    private fun newCache(configFingerprint: String = "config") =
+        InstrumentationCache(temp.root.toPath(), configFingerprint)
+
+    private fun onlyEntryFile(): Path {
+        val files = Files.list(temp.root.toPath()).use { it.collect(Collectors.toList()) }
+        assertEquals(1, files.size)
+        return files.single()
+    }
+
+    @Test
+    fun testKey() {
+        val cache = newCache()
+        val key = cache.keyFor("com/example/Foo", bytecode, true)
+        assertEquals(key, newCache().keyFor("com/example/Foo", bytecode, true))
+        assertEquals(64, key.length)
+
+        assertNotEquals(key, newCache("other config").keyFor("com/example/Foo", bytecode, true))
+        assertNotEquals(key, cache.keyFor("com/example/Bar", bytecode, true))
+        assertNotEquals(key, cache.keyFor("com/example/Foo", bytecode, false))
+        assertNotEquals(key, cache.keyFor("com/example/Foo", bytecode + 4, true))
+    }
+
+    @Test
+    fun testRoundTrip() {
+        val cache = newCache()
+        val key = cache.keyFor("com/example/Foo", bytecode, true)
+        assertNull(cache.load(key, 42))
+
+        cache.store(key, 42, InstrumentationCache.Entry(7, bytecode))
+        val entry = assertNotNull(cache.load(key, 42))
+        assertEquals(7, entry.numEdgeIds)
+        assertContentEquals(bytecode, entry.bytecode)
+        // Entries are specific to the first edge ID.
+        assertNull(cache.load(key, 43))
+        // Entries are visible to other instances using the same directory.
+        assertNotNull(newCache().load(key, 42))
+        // No temporary files are left behind.
+        onlyEntryFile()
+    }
+
+    @Test
+    fun testEmptyBytecode() {
+        val cache = newCache()
+        val key = cache.keyFor("com/example/Foo", bytecode, false)
+        cache.store(key, -1, InstrumentationCache.Entry(0, ByteArray(0)))
+        val entry = assertNotNull(cache.load(key, -1))
+        assertEquals(0, entry.numEdgeIds)
+        assertContentEquals(ByteArray(0), entry.bytecode)
+    }
+
+    private fun assertRejected(corrupt: (ByteArray) -> ByteArray) {
+        val cache = newCache()
+        val key = cache.keyFor("com/example/Foo", bytecode, true)
+        cache.store(key, 0, InstrumentationCache.Entry(7, bytecode))
+        val entryFile = onlyEntryFile()
+        Files.write(entryFile, corrupt(Files.readAllBytes(entryFile)))
+        assertNull(cache.load(key, 0))
+    }
+
+    @Test
+    fun testTruncatedBytecode() {
+        assertRejected { it.copyOf(it.size - 1) }
+    }
+
+    @Test
+    fun testTruncatedHeader() {
+        assertRejected { it.copyOf(5) }
+    }
+
+    @Test
+    fun testEmptyFile() {
+        assertRejected { ByteArray(0) }
+    }
+
+    @Test
+    fun testTrailingGarbage() {
+        assertRejected { it + 0 }
+    }
+
+    @Test
+    fun testWrongMagic() {
+        assertRejected { it.copyOf().apply { this[0] = (this[0] + 1).toByte() } }
+    }
+
+    @Test
+    fun testNegativeNumEdgeIds() {
+        assertRejected { ByteBuffer.wrap(it.copyOf()).putInt(Int.SIZE_BYTES, -1).array() }
+    }
+
+    @Test
+    fun testOversizedBytecodeLength() {
+        assertRejected { ByteBuffer.wrap(it.copyOf()).putInt(2 * Int.SIZE_BYTES, Int.MAX_VALUE).array() }
+    }
+
+    @Test
+    @kotlin.time.ExperimentalTime
+    fun testCacheHitReservesEdgeIds() {
+        // Edge IDs beyond the counters currently registered with libFuzzer.
+        val firstEdgeId = CoverageMap.getNumCounters() + 1000
+        val numEdgeIds = 7
+        val cachedBytecode = bytecode + 4
+        val cache = newCache()
+        cache.store(
+            cache.keyFor("com/example/Cached", bytecode, true),
+            firstEdgeId,
+            InstrumentationCache.Entry(numEdgeIds, cachedBytecode),
+        )
+        val instrumentor = RuntimeInstrumentor(
+            Proxy.newProxyInstance(javaClass.classLoader, arrayOf(Instrumentation::class.java)) { _, _, _ ->
+                throw UnsupportedOperationException()
+            } as Instrumentation,
+            ClassNameGlobber(emptyList(), emptyList()),
+            ClassNameGlobber(emptyList(), emptyList()),
+            false,
+            emptySet(),
+            emptyList(),
+            emptyList(),
+            false,
+            ClassNameGlobber(emptyList(), emptyList()),
+            object : CoverageIdStrategy {
+                override fun withIdForClass(className: String, block: (Int) -> Int) {
+                    block(firstEdgeId)
+                }
+            },
+            ClassInstrumentor.defaultEdgeCoverageStrategy,
+            cache,
+            null,
+        )
+
+        assertContentEquals(cachedBytecode, instrumentor.transformInternal("com/example/Cached", bytecode))
+        assertTrue(CoverageMap.getNumCounters() >= firstEdgeId + numEdgeIds)
+    }
+
+    @Test
+    fun testJazzerFingerprint() {
+        // The agent is loaded from a jar in tests.
+        assertNotNull(InstrumentationCache.jazzerFingerprint())
+    }
+}
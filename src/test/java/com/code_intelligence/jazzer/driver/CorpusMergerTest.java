@@ -0,0 +1,123 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import com.code_intelligence.jazzer.agent.AgentInstaller;
+import com.code_intelligence.jazzer.runtime.CoverageMap;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CorpusMergerTest {
+  private static final List<String> executedInputs = new ArrayList<>();
+
+  public static void fuzzerTestOneInput(byte[] data) {
+    String input = new String(data, StandardCharsets.UTF_8);
+    executedInputs.add(input);
+    switch (input) {
+      case "kept":
+        CoverageMap.recordCoverage(0);
+        CoverageMap.recordCoverage(1);
+        return;
+      case "redundant":
+        CoverageMap.recordCoverage(1);
+        return;
+      case "new":
+        CoverageMap.recordCoverage(2);
+        return;
+      case "crash":
+        CoverageMap.recordCoverage(3);
+        return;
+      case "added later":
+        CoverageMap.recordCoverage(4);
+        return;
+    }
+  }
+
+  private static List<String> outputContents(Path outputDir) throws IOException {
+    try (Stream<Path> files = Files.list(outputDir)) {
+      return files
+          .map(file -> {
+            try {
+              return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+              throw new IllegalStateException(e);
+            }
+          })
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static Path write(Path file, String contents) throws IOException {
+    return Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path tempDir = Files.createTempDirectory("jazzer-merge-test");
+    Path outputDir = Files.createDirectory(tempDir.resolve("out"));
+    Path inputDir = Files.createDirectory(tempDir.resolve("in"));
+    Path indexPath = tempDir.resolve("merge.idx");
+    write(outputDir.resolve("kept"), "kept");
+    write(inputDir.resolve("a"), "redundant");
+    write(inputDir.resolve("b"), "new");
+    Path crash = write(inputDir.resolve("c"), "crash");
+
+    // Do not instrument any classes.
+    System.setProperty("jazzer.instrumentation_excludes", "**");
+    System.setProperty("jazzer.custom_hook_excludes", "**");
+    System.setProperty("jazzer.target_class", CorpusMergerTest.class.getName());
+    System.setProperty("jazzer.merge_index", indexPath.toString());
+    List<String> libFuzzerArgs =
+        Arrays.asList("fake_argv0", "-merge=1", outputDir.toString(), inputDir.toString());
+
+    CorpusMerger merger = CorpusMerger.create(libFuzzerArgs).get();
+    // Simulate a previous run of the merge that was brought down by the "crash" input.
+    try (MergeIndex index = MergeIndex.open(indexPath)) {
+      index.recordStarted(crash.toAbsolutePath().normalize().toString(), Files.size(crash),
+          Files.getLastModifiedTime(crash).toMillis());
+    }
+
+    AgentInstaller.install(true);
+    FuzzTargetHolder.fuzzTarget =
+        FuzzTargetFinder.findFuzzTarget(CorpusMergerTest.class.getName());
+
+    int exitCode = merger.merge();
+    assert exitCode == 0;
+    assert executedInputs.equals(Arrays.asList("kept", "redundant", "new"))
+        : "Unexpected inputs executed: " + executedInputs;
+    assert outputContents(outputDir).equals(Arrays.asList("kept", "new"))
+        : "Unexpected output corpus: " + outputContents(outputDir);
+
+    // Resuming the merge only executes the inputs that haven't been recorded yet, which includes
+    // the copy of "new" in the output directory.
+    executedInputs.clear();
+    write(inputDir.resolve("d"), "added later");
+    exitCode = CorpusMerger.create(libFuzzerArgs).get().merge();
+    assert exitCode == 0;
+    assert executedInputs.equals(Arrays.asList("new", "added later"))
+        : "Unexpected inputs executed on resume: " + executedInputs;
+    assert outputContents(outputDir).equals(Arrays.asList("added later", "kept", "new"))
+        : "Unexpected output corpus on resume: " + outputContents(outputDir);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class ExceptionUtilsTest {
+  private static RuntimeException finding(int line) {
+    RuntimeException finding = new RuntimeException("message " + line);
+    finding.setStackTrace(new StackTraceElement[] {
+        new StackTraceElement("com.example.Parser", "parse", "Parser.java", line),
+        new StackTraceElement("java.lang.reflect.Method", "invoke", "Method.java", 498),
+        new StackTraceElement("com.example.FuzzTest", "fuzz", "FuzzTest.java", 7),
+        new StackTraceElement("com.code_intelligence.jazzer.driver.FuzzTargetRunner", "runOne",
+            "FuzzTargetRunner.java", 1),
+        new StackTraceElement("com.example.Main", "main", "Main.java", 3),
+    });
+    return finding;
+  }
+
+  private static IllegalStateException wrappedFinding() {
+    IllegalStateException wrapper = new IllegalStateException("wrapper", finding(42));
+    wrapper.setStackTrace(new StackTraceElement[] {
+        new StackTraceElement("com.example.FuzzTest", "fuzz", "FuzzTest.java", 8),
+    });
+    IllegalArgumentException suppressed = new IllegalArgumentException();
+    suppressed.setStackTrace(new StackTraceElement[] {
+        new StackTraceElement("com.example.Closer", "close", "Closer.java", 12),
+    });
+    wrapper.addSuppressed(suppressed);
+    return wrapper;
+  }
+
+  @Test
+  public void testDedupTokenIsStable() {
+    // Dedup tokens are persisted, e.g. in --ignore arguments, and thus must not change.
+    assertThat(Long.toHexString(ExceptionUtils.computeDedupToken(finding(42))))
+        .isEqualTo("174c84063183fad3");
+    assertThat(Long.toHexString(ExceptionUtils.computeDedupToken(wrappedFinding())))
+        .isEqualTo("469a80957f49a64e");
+    // Computed again, the tokens are served from the cache.
+    assertThat(Long.toHexString(ExceptionUtils.computeDedupToken(finding(42))))
+        .isEqualTo("174c84063183fad3");
+    assertThat(Long.toHexString(ExceptionUtils.computeDedupToken(wrappedFinding())))
+        .isEqualTo("469a80957f49a64e");
+  }
+
+  @Test
+  public void testDedupTokenDependsOnFrames() {
+    assertThat(ExceptionUtils.computeDedupToken(finding(43)))
+        .isNotEqualTo(ExceptionUtils.computeDedupToken(finding(42)));
+    assertThat(ExceptionUtils.computeDedupToken(wrappedFinding()))
+        .isNotEqualTo(ExceptionUtils.computeDedupToken(finding(42)));
+  }
+
+  @Test
+  public void testDedupTokenBeforePreprocessing() {
+    Throwable finding = wrappedFinding();
+    finding.addSuppressed(new IllegalStateException());
+    long tokenBeforePreprocessing = ExceptionUtils.computeDedupTokenBeforePreprocessing(finding);
+    assertThat(ExceptionUtils.computeDedupToken(ExceptionUtils.preprocessThrowable(finding)))
+        .isEqualTo(tokenBeforePreprocessing);
+
+    assertThat(ExceptionUtils.computeDedupTokenBeforePreprocessing(new StackOverflowError()))
+        .isNull();
+  }
+}
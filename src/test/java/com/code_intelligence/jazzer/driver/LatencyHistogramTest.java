@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+  @Test
+  void testBucketsCoverAllValues() {
+    int previousIndex = -1;
+    for (long value : new long[] {0, 1, 15, 16, 17, 31, 32, 33, 1000, 1L << 40, Long.MAX_VALUE}) {
+      int index = LatencyHistogram.bucketIndex(value);
+      assertThat(index).isAtLeast(previousIndex);
+      assertThat(LatencyHistogram.highestEquivalentValue(index)).isAtLeast(value);
+      if (index > 0) {
+        assertThat(LatencyHistogram.highestEquivalentValue(index - 1)).isLessThan(value);
+      }
+      previousIndex = index;
+    }
+    int lastIndex = LatencyHistogram.bucketIndex(Long.MAX_VALUE);
+    assertThat(LatencyHistogram.highestEquivalentValue(lastIndex)).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  void testEmpty() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertThat(histogram.getCount()).isEqualTo(0);
+    assertThat(histogram.getMean()).isEqualTo(0.0);
+    assertThat(histogram.getValueAtPercentile(99)).isEqualTo(0);
+  }
+
+  @Test
+  void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 1000; value++) {
+      histogram.record(value);
+    }
+    histogram.record(-5);
+
+    assertThat(histogram.getCount()).isEqualTo(1001);
+    assertThat(histogram.getMax()).isEqualTo(1000);
+    assertThat(histogram.getMean()).isWithin(0.01).of(500500.0 / 1001);
+    assertThat(histogram.getValueAtPercentile(0)).isEqualTo(0);
+    assertThat(histogram.getValueAtPercentile(100)).isEqualTo(1000);
+    // Values are reported with a relative error of at most 1/16.
+    assertThat((double) histogram.getValueAtPercentile(50)).isWithin(500 / 16.0).of(500);
+    assertThat((double) histogram.getValueAtPercentile(90)).isWithin(900 / 16.0).of(900);
+    assertThat(histogram.getValueAtPercentile(90)).isAtLeast(900);
+
+    LatencyHistogram.Summary summary = histogram.summarize();
+    assertThat(summary.getCount()).isEqualTo(1001);
+    assertThat(summary.getP50()).isEqualTo(histogram.getValueAtPercentile(50));
+    assertThat(summary.getP999()).isEqualTo(1000);
+    assertThat(summary.getMax()).isEqualTo(1000);
+  }
+
+  @Test
+  void testInvalidPercentile() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+    assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(-1));
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MergeIndexTest {
+  @TempDir Path tempDir;
+
+  private static MergeIndex.Entry record(MergeIndex index, String path, long size, int... features)
+      throws IOException {
+    MergeIndex.Entry entry = index.recordStarted(path, size, 1234);
+    index.recordFeatures(entry, features, features.length);
+    return entry;
+  }
+
+  private static List<Integer> features(MergeIndex.Entry entry) {
+    List<Integer> features = new ArrayList<>();
+    entry.forEachFeature(features::add);
+    return features;
+  }
+
+  @Test
+  public void testResume() throws IOException {
+    Path indexPath = tempDir.resolve("index");
+    try (MergeIndex index = MergeIndex.open(indexPath)) {
+      record(index, "/corpus/a", 10, 1, 5, 200, 1 << 23);
+      record(index, "/corpus/b", 20);
+      index.recordStarted("/corpus/crash", 30, 1234);
+    }
+
+    try (MergeIndex index = MergeIndex.open(indexPath)) {
+      MergeIndex.Entry a = index.lookup("/corpus/a", 10, 1234);
+      assertThat(a.isComplete()).isTrue();
+      assertThat(a.numFeatures()).isEqualTo(4);
+      assertThat(features(a)).containsExactly(1, 5, 200, 1 << 23).inOrder();
+      MergeIndex.Entry b = index.lookup("/corpus/b", 20, 1234);
+      assertThat(b.isComplete()).isTrue();
+      assertThat(features(b)).isEmpty();
+      assertThat(index.lookup("/corpus/crash", 30, 1234).isComplete()).isFalse();
+
+      // Modified inputs have to be executed again.
+      assertThat(index.lookup("/corpus/a", 10, 5678)).isNull();
+      assertThat(index.lookup("/corpus/b", 21, 1234)).isNull();
+      assertThat(index.lookup("/corpus/c", 10, 1234)).isNull();
+    }
+  }
+
+  @Test
+  public void testTruncatedRecords() throws IOException {
+    Path indexPath = tempDir.resolve("index");
+    try (MergeIndex index = MergeIndex.open(indexPath)) {
+      record(index, "/corpus/a", 10, 1, 2, 3);
+      record(index, "/corpus/b", 10, 4, 5, 6);
+    }
+    // Cut off the last byte of the features of b.
+    try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+      channel.truncate(Files.size(indexPath) - 1);
+    }
+
+    try (MergeIndex index = MergeIndex.open(indexPath)) {
+      assertThat(features(index.lookup("/corpus/a", 10, 1234))).containsExactly(1, 2, 3);
+      // b has to be executed again rather than being skipped as crashing.
+      assertThat(index.lookup("/corpus/b", 10, 1234)).isNull();
+      record(index, "/corpus/b", 10, 4, 5, 6);
+      // Cut off in the middle of a start record.
+      index.recordStarted("/corpus/c", 10, 1234);
+    }
+    try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+      channel.truncate(Files.size(indexPath) - 3);
+    }
+
+    try (MergeIndex index = MergeIndex.open(indexPath)) {
+      assertThat(features(index.lookup("/corpus/a", 10, 1234))).containsExactly(1, 2, 3);
+      assertThat(features(index.lookup("/corpus/b", 10, 1234))).containsExactly(4, 5, 6);
+      assertThat(index.lookup("/corpus/c", 10, 1234)).isNull();
+    }
+  }
+
+  @Test
+  public void testMalformedRecords() throws IOException {
+    Path indexPath = tempDir.resolve("index");
+    try (MergeIndex index = MergeIndex.open(indexPath)) {
+      record(index, "/corpus/a", 10, 1, 2, 3);
+    }
+    // A start record whose path length is a varint that never terminates.
+    append(indexPath, 'S', 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF);
+
+    try (MergeIndex index = MergeIndex.open(indexPath)) {
+      assertThat(features(index.lookup("/corpus/a", 10, 1234))).containsExactly(1, 2, 3);
+      record(index, "/corpus/b", 10, 4, 5, 6);
+      index.recordStarted("/corpus/c", 10, 1234);
+    }
+    // A features record whose length exceeds the size of the file.
+    append(indexPath, 'F', 0x03, 0xFF, 0xFF, 0xFF, 0x7F);
+
+    try (MergeIndex index = MergeIndex.open(indexPath)) {
+      assertThat(features(index.lookup("/corpus/a", 10, 1234))).containsExactly(1, 2, 3);
+      assertThat(features(index.lookup("/corpus/b", 10, 1234))).containsExactly(4, 5, 6);
+      // c has to be executed again rather than being skipped as crashing.
+      assertThat(index.lookup("/corpus/c", 10, 1234)).isNull();
+      record(index, "/corpus/c", 10, 7);
+    }
+    try (MergeIndex index = MergeIndex.open(indexPath)) {
+      assertThat(features(index.lookup("/corpus/c", 10, 1234))).containsExactly(7);
+    }
+  }
+
+  private static void append(Path path, int... bytes) throws IOException {
+    byte[] data = new byte[bytes.length];
+    for (int i = 0; i < bytes.length; i++) {
+      data[i] = (byte) bytes[i];
+    }
+    Files.write(path, data, StandardOpenOption.APPEND);
+  }
+
+  @Test
+  public void testSelectCover() throws IOException {
+    try (MergeIndex index = MergeIndex.open(tempDir.resolve("index"))) {
+      MergeIndex.Entry kept = record(index, "/out/kept", 1, 1, 2);
+      MergeIndex.Entry a = record(index, "/in/a", 10, 1, 2, 3);
+      MergeIndex.Entry b = record(index, "/in/b", 5, 3, 4);
+      MergeIndex.Entry c = record(index, "/in/c", 10, 4, 5, 6);
+      MergeIndex.Entry d = record(index, "/in/d", 1, 5);
+      MergeIndex.Entry crashed = index.recordStarted("/in/crashed", 1, 1234);
+
+      // c adds the most new features, then a and b both only add feature 3, but b is smaller.
+      assertThat(MergeIndex.selectCover(singletonList(kept), asList(a, b, c, d, crashed))
+                     .stream()
+                     .map(entry -> entry.path)
+                     .collect(toList()))
+          .containsExactly("/in/c", "/in/b")
+          .inOrder();
+      assertThat(MergeIndex.selectCover(singletonList(c), singletonList(d))).isEmpty();
+    }
+  }
+}
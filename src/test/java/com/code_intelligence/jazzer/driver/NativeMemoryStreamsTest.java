@@ -0,0 +1,92 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import sun.misc.Unsafe;
+
+public class NativeMemoryStreamsTest {
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+
+  private long ptr;
+
+  @Before
+  public void setUp() {
+    ptr = UNSAFE.allocateMemory(8);
+    for (int i = 0; i < 8; i++) {
+      UNSAFE.putByte(ptr + i, (byte) (i + 250));
+    }
+  }
+
+  @After
+  public void tearDown() {
+    UNSAFE.freeMemory(ptr);
+  }
+
+  @Test
+  public void testInputStream() {
+    NativeMemoryInputStream in = new NativeMemoryInputStream(ptr, 6);
+    Assert.assertEquals(6, in.available());
+    Assert.assertEquals(250, in.read());
+    Assert.assertEquals(2, in.skip(2));
+
+    byte[] buf = new byte[] {9, 9, 9, 9, 9};
+    Assert.assertEquals(3, in.read(buf, 1, 4));
+    Assert.assertArrayEquals(new byte[] {9, (byte) 253, (byte) 254, (byte) 255, 9}, buf);
+    Assert.assertEquals(0, in.available());
+    Assert.assertEquals(-1, in.read());
+    Assert.assertEquals(-1, in.read(buf, 0, 1));
+    Assert.assertEquals(0, in.read(buf, 0, 0));
+
+    in.reset(ptr + 6, 2);
+    Assert.assertEquals(2, in.available());
+    Assert.assertEquals(0, in.read());
+    Assert.assertEquals(1, in.read());
+    Assert.assertEquals(-1, in.read());
+  }
+
+  @Test
+  public void testOutputStream() {
+    NativeMemoryOutputStream out = new NativeMemoryOutputStream(ptr, 4);
+    out.write(1);
+    Assert.assertEquals(1, out.size());
+    out.write(new byte[] {2, 3, 4, 5, 6}, 1, 3);
+    Assert.assertEquals(4, out.size());
+    Assert.assertFalse(out.isTruncated());
+    out.write(7);
+    Assert.assertEquals(4, out.size());
+    Assert.assertTrue(out.isTruncated());
+
+    Assert.assertEquals(1, UNSAFE.getByte(ptr));
+    Assert.assertEquals(3, UNSAFE.getByte(ptr + 1));
+    Assert.assertEquals(4, UNSAFE.getByte(ptr + 2));
+    Assert.assertEquals(5, UNSAFE.getByte(ptr + 3));
+    // Bytes past the capacity are left untouched.
+    Assert.assertEquals((byte) 254, UNSAFE.getByte(ptr + 4));
+
+    out.reset(ptr + 4, 0);
+    Assert.assertFalse(out.isTruncated());
+    out.write(new byte[] {8}, 0, 1);
+    Assert.assertEquals(0, out.size());
+    Assert.assertTrue(out.isTruncated());
+    Assert.assertEquals((byte) 254, UNSAFE.getByte(ptr + 4));
+  }
+}
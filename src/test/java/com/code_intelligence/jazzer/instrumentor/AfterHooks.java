@@ -51,6 +51,15 @@ public class AfterHooks {
     ((AfterHooksTargetContract) thisObject).verifyFirstSecret(returnValue);
   }
 
+  // Verify that a hook with typed parameters can be combined with one with the generic signature.
+  @MethodHook(type = HookType.AFTER,
+      targetClassName = "com.code_intelligence.jazzer.instrumentor.AfterHooksTarget",
+      targetMethod = "getFirstSecret", targetMethodDescriptor = "()Ljava/lang/String;")
+  public static void
+  patchGetFirstSecretTyped(Object thisObject, int hookId, String returnValue) {
+    ((AfterHooksTargetContract) thisObject).verifyFirstSecret(returnValue);
+  }
+
   @MethodHook(type = HookType.AFTER,
       targetClassName = "com.code_intelligence.jazzer.instrumentor.AfterHooksTarget",
       targetMethod = "getSecondSecret")
@@ -61,6 +70,18 @@ public class AfterHooks {
     ((AfterHooksTargetContract) thisObject).verifySecondSecret((String) returnValue);
   }
 
+  @MethodHook(type = HookType.AFTER,
+      targetClassName = "com.code_intelligence.jazzer.instrumentor.AfterHooksTarget",
+      targetMethod = "getFourthSecret", targetMethodDescriptor = "(IJ)J")
+  public static void
+  patchGetFourthSecret(
+      Object thisObject, int base, long offset, int hookId, long returnValue) {
+    // Only pass the test if the arguments and the return value are passed through unchanged.
+    if (base == 1300 && offset == 37) {
+      ((AfterHooksTargetContract) thisObject).verifyFourthSecret(returnValue);
+    }
+  }
+
   // Verify the interaction of a BEFORE and an AFTER hook. The BEFORE hook modifies the argument of
   // the StringBuilder constructor.
   @MethodHook(
@@ -48,6 +48,9 @@ public class AfterHooksTarget implements AfterHooksTargetContract {
     verifyThirdSecret("not_the_secret");
     new StringBuilder("not_hunter3");
 
+    verifyFourthSecret(0);
+    getFourthSecret(1300, 37);
+
     return results;
   }
 
@@ -82,4 +85,13 @@ public class AfterHooksTarget implements AfterHooksTargetContract {
   public void verifyThirdSecret(String secret) {
     results.put("verifyThirdSecret", secret.equals("hunter3"));
   }
+
+  @SuppressWarnings("UnusedReturnValue")
+  long getFourthSecret(int base, long offset) {
+    return base + offset + 1;
+  }
+
+  public void verifyFourthSecret(long secret) {
+    results.put("verifyFourthSecret", secret == 1338);
+  }
 }
@@ -26,4 +26,6 @@ public interface AfterHooksTargetContract extends DynamicTestContract {
   void verifySecondSecret(String secret);
 
   void verifyThirdSecret(String secret);
+
+  void verifyFourthSecret(long secret);
 }
@@ -50,4 +50,18 @@ public class BeforeHooks {
       ((BeforeHooksTargetContract) thisObject).setFuncWithArgsCalled((Boolean) arguments[0]);
     }
   }
+
+  @MethodHook(type = HookType.BEFORE,
+      targetClassName = "com.code_intelligence.jazzer.instrumentor.BeforeHooksTarget",
+      targetMethod = "hasFuncWithPrimitiveArgsBeenCalled",
+      targetMethodDescriptor = "(BCDLjava/lang/String;)Z")
+  public static void
+  patchHasFuncWithPrimitiveArgsBeenCalled(Object thisObject, byte byteArgument,
+      char charArgument, double doubleArgument, String stringArgument, int hookId) {
+    // Only pass the test if the arguments are passed through unchanged.
+    if (byteArgument == 42 && charArgument == 'x' && doubleArgument == 1.5
+        && stringArgument.equals("bar")) {
+      ((BeforeHooksTargetContract) thisObject).setFuncWithPrimitiveArgsCalled(true);
+    }
+  }
 }
@@ -23,6 +23,7 @@ public class BeforeHooksTarget implements BeforeHooksTargetContract {
   Map<String, Boolean> results = new HashMap<>();
   Boolean func1Called = false;
   Boolean funcWithArgsCalled = false;
+  boolean funcWithPrimitiveArgsCalled = false;
 
   static Integer getTimesCalled() {
     return ++timesCalled;
@@ -40,6 +41,9 @@ public class BeforeHooksTarget implements BeforeHooksTargetContract {
       results.put("hasBeenCalledWithArgs", hasFuncWithArgsBeenCalled(true, "foo"));
     }
 
+    results.put("hasBeenCalledWithPrimitiveArgs",
+        hasFuncWithPrimitiveArgsBeenCalled((byte) 42, 'x', 1.5, "bar"));
+
     return results;
   }
 
@@ -58,4 +62,13 @@ public class BeforeHooksTarget implements BeforeHooksTargetContract {
   private boolean hasFuncWithArgsBeenCalled(Boolean boolArgument, String stringArgument) {
     return funcWithArgsCalled;
   }
+
+  public void setFuncWithPrimitiveArgsCalled(boolean val) {
+    funcWithPrimitiveArgsCalled = val;
+  }
+
+  private boolean hasFuncWithPrimitiveArgsBeenCalled(
+      byte byteArgument, char charArgument, double doubleArgument, String stringArgument) {
+    return funcWithPrimitiveArgsCalled;
+  }
 }
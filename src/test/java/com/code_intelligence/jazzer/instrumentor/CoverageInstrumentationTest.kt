@@ -43,10 +43,12 @@ private fun getOriginalInstrumentationTargetInstance(): DynamicTestContract {
     return CoverageInstrumentationTarget()
 }
 
-private fun getInstrumentedInstrumentationTargetInstance(): DynamicTestContract {
+private fun getInstrumentedInstrumentationTargetInstance(
+    strategy: EdgeCoverageStrategy = ClassInstrumentor.defaultEdgeCoverageStrategy,
+): DynamicTestContract {
     val originalBytecode = classToBytecode(CoverageInstrumentationTarget::class.java)
     val patchedBytecode = EdgeCoverageInstrumentor(
-        makeTestable(ClassInstrumentor.defaultEdgeCoverageStrategy),
+        makeTestable(strategy),
         MockCoverageMap::class.java,
         0,
     ).instrument(CoverageInstrumentationTarget::class.java.name.replace('.', '/'), originalBytecode)
@@ -132,11 +134,14 @@ class CoverageInstrumentationTest {
         )
     }
 
-    @Test
-    fun testCounters() {
+    /**
+     * Runs the instrumented target repeatedly and verifies that the counter of an edge taken on every
+     * run evolves according to [nextCounter].
+     */
+    private fun assertCounters(strategy: EdgeCoverageStrategy, nextCounter: (UByte) -> UByte) {
         MockCoverageMap.clear()
 
-        val target = getInstrumentedInstrumentationTargetInstance()
+        val target = getInstrumentedInstrumentationTargetInstance(strategy)
         // The constructor of the target is run only once.
         val takenOnceEdge = constructorReturn
         // Control flows through the first if branch once per run.
@@ -146,20 +151,73 @@ class CoverageInstrumentationTest {
         for (i in 1..600) {
             assertSelfCheck(target)
             assertEquals(1, MockCoverageMap.counters[takenOnceEdge])
-            // Verify that the counter increments, but is never zero.
-            val expectedCounter = (lastCounter + 1U).toUByte().takeUnless { it == 0.toUByte() }
-                ?: (lastCounter + 2U).toUByte()
+            val expectedCounter = nextCounter(lastCounter)
             lastCounter = expectedCounter
             val actualCounter = MockCoverageMap.counters[takenOnEveryRunEdge].toUByte()
             assertEquals(expectedCounter, actualCounter, "After $i runs:")
         }
     }
 
+    // Verify that the counter increments, but is never zero.
+    private val neverZero = { lastCounter: UByte ->
+        (lastCounter + 1U).toUByte().takeUnless { it == 0.toUByte() } ?: (lastCounter + 2U).toUByte()
+    }
+    private val saturating = { lastCounter: UByte ->
+        if (lastCounter == UByte.MAX_VALUE) lastCounter else (lastCounter + 1U).toUByte()
+    }
+    private val wrapping = { lastCounter: UByte -> (lastCounter + 1U).toUByte() }
+
+    @Test
+    fun testCounters() {
+        assertCounters(ClassInstrumentor.defaultEdgeCoverageStrategy, neverZero)
+    }
+
+    @Test
+    fun testCountersStaticMethod() {
+        assertCounters(StaticMethodStrategy(CoverageCounterUpdate.NEVER_ZERO_BRANCHFREE), neverZero)
+        assertCounters(StaticMethodStrategy(CoverageCounterUpdate.SATURATING), saturating)
+        assertCounters(StaticMethodStrategy(CoverageCounterUpdate.WRAPPING), wrapping)
+    }
+
+    @Test
+    fun testCountersInlineUnsafe() {
+        assertCounters(InlineUnsafeStrategy(CoverageCounterUpdate.NEVER_ZERO), neverZero)
+        assertCounters(InlineUnsafeStrategy(CoverageCounterUpdate.NEVER_ZERO_BRANCHFREE), neverZero)
+        assertCounters(InlineUnsafeStrategy(CoverageCounterUpdate.SATURATING), saturating)
+        assertCounters(InlineUnsafeStrategy(CoverageCounterUpdate.WRAPPING), wrapping)
+    }
+
     @Test
     fun testSpecialCases() {
+        assertSpecialCasesInstrumentable(ClassInstrumentor.defaultEdgeCoverageStrategy)
+    }
+
+    @Test
+    fun testSpecialCasesInlineUnsafe() {
+        assertSpecialCasesInstrumentable(InlineUnsafeStrategy(CoverageCounterUpdate.NEVER_ZERO))
+    }
+
+    @Test
+    fun testCountEdges() {
+        for (targetClass in listOf(
+            CoverageInstrumentationTarget::class.java,
+            CoverageInstrumentationSpecialCasesTarget::class.java,
+        )) {
+            val originalBytecode = classToBytecode(targetClass)
+            val instrumentor = EdgeCoverageInstrumentor(
+                ClassInstrumentor.defaultEdgeCoverageStrategy,
+                MockCoverageMap::class.java,
+                0,
+            )
+            instrumentor.instrument(targetClass.name.replace('.', '/'), originalBytecode)
+            assertEquals(instrumentor.numEdges, EdgeCoverageInstrumentor.countEdges(originalBytecode))
+        }
+    }
+
+    private fun assertSpecialCasesInstrumentable(strategy: EdgeCoverageStrategy) {
         val originalBytecode = classToBytecode(CoverageInstrumentationSpecialCasesTarget::class.java)
         val patchedBytecode = EdgeCoverageInstrumentor(
-            makeTestable(ClassInstrumentor.defaultEdgeCoverageStrategy),
+            makeTestable(strategy),
             MockCoverageMap::class.java,
             0,
         ).instrument(CoverageInstrumentationSpecialCasesTarget::class.java.name.replace('.', '/'), originalBytecode)
@@ -0,0 +1,153 @@
+// Copyright 2023 Code Intelligence GmbH
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.code_intelligence.jazzer.instrumentor
+
+import com.code_intelligence.jazzer.instrumentor.PatchTestUtils.classToBytecode
+import org.junit.Test
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.tree.AbstractInsnNode
+import org.objectweb.asm.tree.ClassNode
+import org.objectweb.asm.tree.FieldInsnNode
+import org.objectweb.asm.tree.FrameNode
+import org.objectweb.asm.tree.IincInsnNode
+import org.objectweb.asm.tree.InsnNode
+import org.objectweb.asm.tree.IntInsnNode
+import org.objectweb.asm.tree.InvokeDynamicInsnNode
+import org.objectweb.asm.tree.JumpInsnNode
+import org.objectweb.asm.tree.LabelNode
+import org.objectweb.asm.tree.LdcInsnNode
+import org.objectweb.asm.tree.LineNumberNode
+import org.objectweb.asm.tree.LookupSwitchInsnNode
+import org.objectweb.asm.tree.MethodInsnNode
+import org.objectweb.asm.tree.MultiANewArrayInsnNode
+import org.objectweb.asm.tree.TableSwitchInsnNode
+import org.objectweb.asm.tree.TypeInsnNode
+import org.objectweb.asm.tree.VarInsnNode
+import kotlin.test.assertEquals
+
+private val instrumentations = setOf(
+    InstrumentationType.CMP,
+    InstrumentationType.DIV,
+    InstrumentationType.GEP,
+)
+
+/**
+ * Renders the fields and methods of [bytecode] as text that is independent of the layout of the constant pool and of
+ * the encoding of stack map frames, which legitimately differ between the fused and the sequential instrumentation.
+ */
+private fun disassemble(bytecode: ByteArray): List<String> {
+    val node = ClassNode()
+    ClassReader(bytecode).accept(node, ClassReader.EXPAND_FRAMES)
+    val lines = mutableListOf("class ${node.access} ${node.name} ${node.superName} ${node.interfaces}")
+    node.fields.mapTo(lines) { "field ${it.access} ${it.name} ${it.desc} ${it.value}" }
+    for (method in node.methods) {
+        lines.add("method ${method.access} ${method.name}${method.desc} ${method.maxStack} ${method.maxLocals}")
+        val labels =
+            method.instructions.filterIsInstance<LabelNode>().withIndex().associate { it.value to "L${it.index}" }
+        method.tryCatchBlocks.mapTo(lines) {
+            "try ${labels.getValue(it.start)} ${labels.getValue(it.end)} ${labels.getValue(it.handler)} ${it.type}"
+        }
+        method.instructions.mapTo(lines) { "  ${it.opcode} ${render(it, labels)}" }
+    }
+    return lines
+}
+
+private fun render(insn: AbstractInsnNode, labels: Map<LabelNode, String>): String = when (insn) {
+    is LabelNode -> labels.getValue(insn)
+    is LineNumberNode -> "line ${insn.line} ${labels.getValue(insn.start)}"
+    // Uninitialized types in frames are represented by the label of the corresponding NEW instruction.
+    is FrameNode -> "frame ${insn.type} ${insn.local?.map { renderFrameValue(it, labels) }} " +
+        "${insn.stack?.map { renderFrameValue(it, labels) }}"
+    is InsnNode -> ""
+    is IntInsnNode -> "${insn.operand}"
+    is VarInsnNode -> "${insn.`var`}"
+    is TypeInsnNode -> insn.desc
+    is FieldInsnNode -> "${insn.owner}.${insn.name} ${insn.desc}"
+    is MethodInsnNode -> "${insn.owner}.${insn.name}${insn.desc} ${insn.itf}"
+    is InvokeDynamicInsnNode -> "${insn.name}${insn.desc} ${insn.bsm} ${insn.bsmArgs.contentToString()}"
+    is JumpInsnNode -> labels.getValue(insn.label)
+    is LdcInsnNode -> "${insn.cst}"
+    is IincInsnNode -> "${insn.`var`} ${insn.incr}"
+    is TableSwitchInsnNode ->
+        "${insn.min} ${insn.max} ${labels.getValue(insn.dflt)} ${insn.labels.map(labels::getValue)}"
+    is LookupSwitchInsnNode -> "${insn.keys} ${labels.getValue(insn.dflt)} ${insn.labels.map(labels::getValue)}"
+    is MultiANewArrayInsnNode -> "${insn.desc} ${insn.dims}"
+    else -> throw IllegalArgumentException("Unexpected instruction: $insn")
+}
+
+private fun renderFrameValue(value: Any?, labels: Map<LabelNode, String>) =
+    if (value is LabelNode) labels.getValue(value) else value
+
+/**
+ * Verifies that [ClassInstrumentor.fullInstrumentation] produces the same bytecode as [ClassInstrumentor.coverage],
+ * [ClassInstrumentor.traceDataFlow] and [ClassInstrumentor.hooks] applied one after another.
+ */
+class FusedInstrumentationTest {
+
+    private fun assertFusedMatchesSequential(targetClass: Class<*>, hooks: List<Hook> = emptyList()) {
+        val internalClassName = targetClass.name.replace('.', '/')
+        val originalBytecode = classToBytecode(targetClass)
+        for (classWithHooksEnabledField in listOf(null, "com/example/HooksEnabled")) {
+            val sequential = ClassInstrumentor(internalClassName, originalBytecode)
+            val sequentialEdges = sequential.coverage(0, ClassInstrumentor.defaultEdgeCoverageStrategy)
+            sequential.traceDataFlow(instrumentations)
+            sequential.hooks(hooks, classWithHooksEnabledField)
+
+            val fused = ClassInstrumentor(internalClassName, originalBytecode)
+            val fusedEdges = fused.fullInstrumentation(
+                0,
+                ClassInstrumentor.defaultEdgeCoverageStrategy,
+                instrumentations,
+                hooks,
+                classWithHooksEnabledField,
+            )
+
+            assertEquals(sequentialEdges, fusedEdges)
+            assertEquals(disassemble(sequential.instrumentedBytecode), disassemble(fused.instrumentedBytecode))
+        }
+    }
+
+    private fun loadHooks(hooksClass: Class<*>) = Hooks.loadHooks(emptyList(), setOf(hooksClass.name)).first().hooks
+
+    @Test
+    fun testCoverageTarget() {
+        assertFusedMatchesSequential(CoverageInstrumentationTarget::class.java)
+    }
+
+    @Test
+    fun testCoverageSpecialCasesTarget() {
+        assertFusedMatchesSequential(CoverageInstrumentationSpecialCasesTarget::class.java)
+    }
+
+    @Test
+    fun testTraceDataFlowTarget() {
+        assertFusedMatchesSequential(TraceDataFlowInstrumentationTarget::class.java)
+    }
+
+    @Test
+    fun testBeforeHooksTarget() {
+        assertFusedMatchesSequential(BeforeHooksTarget::class.java, loadHooks(BeforeHooks::class.java))
+    }
+
+    @Test
+    fun testAfterHooksTarget() {
+        assertFusedMatchesSequential(AfterHooksTarget::class.java, loadHooks(AfterHooks::class.java))
+    }
+
+    @Test
+    fun testReplaceHooksTarget() {
+        assertFusedMatchesSequential(ReplaceHooksTarget::class.java, loadHooks(ReplaceHooks::class.java))
+    }
+}
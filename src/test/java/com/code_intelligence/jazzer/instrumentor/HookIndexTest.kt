@@ -0,0 +1,51 @@
+// Copyright 2023 Code Intelligence GmbH
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.code_intelligence.jazzer.instrumentor
+
+import com.code_intelligence.jazzer.api.HookType
+import org.junit.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+
+class HookIndexTest {
+    private val index = HookIndex(Hooks.loadHooks(emptyList(), setOf(ValidHookMocks::class.java.name)).first().hooks)
+
+    @Test
+    fun testNoMatch() {
+        assertTrue(index.findMatchingHooks("java/lang/String", "length", "()I").isEmpty())
+        assertTrue(index.findMatchingHooks("java/lang/Object", "equals", "(Ljava/lang/Object;)Z").isEmpty())
+    }
+
+    @Test
+    fun testDescriptor() {
+        val hooks = index.findMatchingHooks("java/lang/String", "regionMatches", "(ILjava/lang/String;II)Z")
+        assertEquals(listOf("validTypedBeforeHook"), hooks.map { it.hookMethodName })
+        assertTrue(index.findMatchingHooks("java/lang/String", "regionMatches", "(ZILjava/lang/String;II)Z").isEmpty())
+    }
+
+    @Test
+    fun testWithoutDescriptor() {
+        val hooks = index.findMatchingHooks("java/lang/String", "equalsIgnoreCase", "(Ljava/lang/String;)Z")
+        assertEquals(listOf(HookType.REPLACE), hooks.map { it.hookType })
+    }
+
+    @Test
+    fun testConflictingHooks() {
+        assertFailsWith<IllegalStateException> {
+            index.findMatchingHooks("java/lang/String", "equals", "(Ljava/lang/Object;)Z")
+        }
+    }
+}
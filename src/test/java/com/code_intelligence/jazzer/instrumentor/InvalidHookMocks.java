@@ -84,4 +84,21 @@ class InvalidHookMocks {
   @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "equals")
   public static void primitiveReturnType(MethodHandle method, String thisObject, Object[] arguments,
       int hookId, boolean returnValue) {}
+
+  @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.String", targetMethod = "equals")
+  public static void typedHookWithoutDescriptor(String thisObject, Object other, int hookId) {}
+
+  @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.String",
+      targetMethod = "charAt", targetMethodDescriptor = "(I)C")
+  public static void typedHookWithBoxedArgument(String thisObject, Integer index, int hookId) {}
+
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "equals",
+      targetMethodDescriptor = "(Ljava/lang/Object;)Z")
+  public static void
+  typedAfterHookWithBoxedReturnValue(
+      String thisObject, Object other, int hookId, Boolean returnValue) {}
+
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "equals",
+      targetMethodDescriptor = "(Ljava/lang/Object;)Z")
+  public static void typedAfterHookWithoutReturnValue(String thisObject, Object other, int hookId) {}
 }
@@ -14,13 +14,19 @@
 
 package com.code_intelligence.jazzer.instrumentor;
 
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import sun.misc.Unsafe;
 
 public class MockCoverageMap {
   public static final int SIZE = 65536;
-  public static final ByteBuffer counters = ByteBuffer.allocate(SIZE);
+  // A direct buffer so that the counters can also be updated by InlineUnsafeStrategy.
+  public static final ByteBuffer counters = ByteBuffer.allocateDirect(SIZE);
+  public static final Unsafe UNSAFE_FOR_INSTRUMENTATION = UnsafeProvider.getUnsafe();
+  public static final long countersAddress = directBufferAddress(counters);
 
   private static final ByteBuffer previous_mem = ByteBuffer.allocate(SIZE);
   public static ArrayList<Integer> locations = new ArrayList<>();
@@ -31,9 +37,9 @@ public class MockCoverageMap {
       if (previous_mem.get(i) != counters.get(i)) {
         updated_pos = i;
       }
+      previous_mem.put(i, counters.get(i));
     }
     locations.add(updated_pos);
-    System.arraycopy(counters.array(), 0, previous_mem.array(), 0, SIZE);
   }
 
   public static void enlargeIfNeeded(int nextId) {
@@ -45,9 +51,34 @@ public class MockCoverageMap {
     counters.put(id, (byte) (counter == -1 ? 1 : counter + 1));
   }
 
+  public static void recordCoverageNeverZeroBranchfree(int id) {
+    int incremented = (counters.get(id) & 0xFF) + 1;
+    counters.put(id, (byte) (incremented ^ (incremented >>> 8)));
+  }
+
+  public static void recordCoverageSaturating(int id) {
+    int incremented = (counters.get(id) & 0xFF) + 1;
+    counters.put(id, (byte) (incremented - (incremented >>> 8)));
+  }
+
+  public static void recordCoverageWrapping(int id) {
+    counters.put(id, (byte) (counters.get(id) + 1));
+  }
+
   public static void clear() {
-    Arrays.fill(counters.array(), (byte) 0);
+    for (int i = 0; i < SIZE; i++) {
+      counters.put(i, (byte) 0);
+    }
     Arrays.fill(previous_mem.array(), (byte) 0);
     locations.clear();
   }
+
+  private static long directBufferAddress(ByteBuffer buffer) {
+    try {
+      return UNSAFE_FOR_INSTRUMENTATION.getLong(buffer,
+          UNSAFE_FOR_INSTRUMENTATION.objectFieldOffset(Buffer.class.getDeclaredField("address")));
+    } catch (NoSuchFieldException e) {
+      throw new IllegalStateException(e);
+    }
+  }
 }
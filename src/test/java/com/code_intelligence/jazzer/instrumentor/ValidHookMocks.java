@@ -42,4 +42,15 @@ class ValidHookMocks {
   validReplaceHook2(MethodHandle method, String thisObject, Object[] arguments, int hookId) {
     return true;
   }
+
+  @MethodHook(type = HookType.BEFORE, targetClassName = "java.lang.String",
+      targetMethod = "regionMatches", targetMethodDescriptor = "(ILjava/lang/String;II)Z")
+  public static void
+  validTypedBeforeHook(String thisObject, int toffset, Object other, int ooffset, int len,
+      int hookId) {}
+
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "equals",
+      targetMethodDescriptor = "(Ljava/lang/Object;)Z")
+  public static void
+  validTypedAfterHook(Object thisObject, Object other, int hookId, boolean returnValue) {}
 }
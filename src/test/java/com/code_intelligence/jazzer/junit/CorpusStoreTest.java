@@ -0,0 +1,193 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.junit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CorpusStoreTest {
+  // SHA-1 of "foo".
+  private static final String FOO_NAME = "0beec7b5ea3f0fdbc95d0dd47f3c5bc275da8a33";
+
+  @TempDir Path tempDir;
+
+  private static Map<String, String> contents(CorpusStore store) {
+    try (Stream<Map.Entry<String, byte[]>> inputs = store.inputs()) {
+      return inputs.collect(toMap(Map.Entry::getKey, entry -> new String(entry.getValue(), UTF_8)));
+    }
+  }
+
+  @Test
+  public void testAddAndReopen() throws IOException {
+    Path storeDir = tempDir.resolve("store");
+    assertThat(CorpusStore.exists(storeDir)).isFalse();
+    try (CorpusStore store = CorpusStore.open(storeDir, true)) {
+      assertThat(store.add("foo".getBytes(UTF_8))).isTrue();
+      assertThat(store.add("bar".getBytes(UTF_8))).isTrue();
+      assertThat(store.add("foo".getBytes(UTF_8))).isFalse();
+      assertThat(store.add(new byte[0])).isTrue();
+      assertThat(store.size()).isEqualTo(3);
+      assertThat(store.name(0)).isEqualTo(FOO_NAME);
+      assertThat(new String(store.read(1), UTF_8)).isEqualTo("bar");
+    }
+
+    assertThat(CorpusStore.exists(storeDir)).isTrue();
+    try (CorpusStore store = CorpusStore.open(storeDir, false)) {
+      assertThat(store.size()).isEqualTo(3);
+      assertThat(contents(store)).containsEntry(FOO_NAME, "foo");
+      assertThat(contents(store).values()).containsExactly("foo", "bar", "");
+      assertThrows(IllegalStateException.class, () -> store.add("baz".getBytes(UTF_8)));
+    }
+
+    try (CorpusStore store = CorpusStore.open(storeDir, true)) {
+      assertThat(store.add("bar".getBytes(UTF_8))).isFalse();
+      assertThat(store.add("baz".getBytes(UTF_8))).isTrue();
+      assertThat(contents(store).values()).containsExactly("foo", "bar", "", "baz");
+    }
+  }
+
+  @Test
+  public void testManyInputs() throws IOException {
+    Path storeDir = tempDir.resolve("store");
+    try (CorpusStore store = CorpusStore.open(storeDir, true)) {
+      for (int i = 0; i < 1000; i++) {
+        assertThat(store.add(Integer.toString(i).getBytes(UTF_8))).isTrue();
+      }
+      for (int i = 0; i < 1000; i++) {
+        assertThat(store.add(Integer.toString(i).getBytes(UTF_8))).isFalse();
+      }
+    }
+    try (CorpusStore store = CorpusStore.open(storeDir, false)) {
+      assertThat(store.size()).isEqualTo(1000);
+      assertThat(new String(store.read(999), UTF_8)).isEqualTo("999");
+    }
+  }
+
+  @Test
+  public void testIncompleteRecordIsDiscarded() throws IOException {
+    Path storeDir = tempDir.resolve("store");
+    try (CorpusStore store = CorpusStore.open(storeDir, true)) {
+      store.add("foo".getBytes(UTF_8));
+      store.add("bar".getBytes(UTF_8));
+    }
+    // Simulate a crash while the index record of "bar" was written.
+    Path index = storeDir.resolve("index");
+    try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE)) {
+      channel.truncate(Files.size(index) - 1);
+    }
+
+    try (CorpusStore store = CorpusStore.open(storeDir, false)) {
+      assertThat(contents(store).values()).containsExactly("foo");
+    }
+    try (CorpusStore store = CorpusStore.open(storeDir, true)) {
+      assertThat(store.add("baz".getBytes(UTF_8))).isTrue();
+      assertThat(store.add("bar".getBytes(UTF_8))).isTrue();
+      assertThat(contents(store).values()).containsExactly("foo", "bar", "baz");
+    }
+    assertThat(Files.size(storeDir.resolve("segment-0"))).isEqualTo(9);
+  }
+
+  @Test
+  public void testSegmentRollover() throws IOException {
+    Path storeDir = tempDir.resolve("store");
+    try (CorpusStore store = CorpusStore.open(storeDir, true, 8)) {
+      store.add("aaaa".getBytes(UTF_8));
+      store.add("bbbb".getBytes(UTF_8));
+      store.add("cccc".getBytes(UTF_8));
+      // Larger than a segment, but still stored in a single segment of its own.
+      store.add("dddddddddd".getBytes(UTF_8));
+      store.add("e".getBytes(UTF_8));
+    }
+    assertThat(Files.size(storeDir.resolve("segment-0"))).isEqualTo(8);
+    assertThat(Files.size(storeDir.resolve("segment-1"))).isEqualTo(4);
+    assertThat(Files.size(storeDir.resolve("segment-2"))).isEqualTo(10);
+    assertThat(Files.size(storeDir.resolve("segment-3"))).isEqualTo(1);
+
+    try (CorpusStore store = CorpusStore.open(storeDir, true, 8)) {
+      assertThat(contents(store).values())
+          .containsExactly("aaaa", "bbbb", "cccc", "dddddddddd", "e");
+      store.add("ff".getBytes(UTF_8));
+      assertThat(new String(store.read(5), UTF_8)).isEqualTo("ff");
+    }
+    assertThat(Files.size(storeDir.resolve("segment-3"))).isEqualTo(3);
+  }
+
+  @Test
+  public void testImportExport() throws IOException {
+    Path corpusDir = Files.createDirectories(tempDir.resolve("corpus").resolve("nested"));
+    Files.write(corpusDir.resolve("a"), "foo".getBytes(UTF_8));
+    Files.write(corpusDir.resolve("b"), "foo".getBytes(UTF_8));
+    Files.write(corpusDir.getParent().resolve("c"), "bar".getBytes(UTF_8));
+
+    Path storeDir = tempDir.resolve("store");
+    try (CorpusStore store = CorpusStore.open(storeDir, true)) {
+      assertThat(store.addAll(corpusDir.getParent(), true)).isEqualTo(2);
+    }
+    try (Stream<Path> remaining = Files.walk(corpusDir.getParent())) {
+      assertThat(remaining.filter(Files::isRegularFile).collect(toList())).isEmpty();
+    }
+
+    Path exportDir = tempDir.resolve("export");
+    try (CorpusStore store = CorpusStore.open(storeDir, false)) {
+      store.exportTo(exportDir);
+    }
+    List<String> exported;
+    try (Stream<Path> files = Files.list(exportDir)) {
+      exported = files.map(file -> file.getFileName().toString()).collect(toList());
+    }
+    assertThat(exported).hasSize(2);
+    assertThat(exported).contains(FOO_NAME);
+    assertThat(new String(Files.readAllBytes(exportDir.resolve(FOO_NAME)), UTF_8))
+        .isEqualTo("foo");
+  }
+
+  @Test
+  public void testExportOnlyWritesMissingInputs() throws IOException {
+    Path storeDir = tempDir.resolve("store");
+    Path exportDir = tempDir.resolve("export");
+    try (CorpusStore store = CorpusStore.open(storeDir, true)) {
+      store.add("foo".getBytes(UTF_8));
+      store.exportTo(exportDir);
+      // Marks the existing file so that it can be told apart from a rewritten one.
+      Files.write(exportDir.resolve(FOO_NAME), "unchanged".getBytes(UTF_8));
+
+      store.add("bar".getBytes(UTF_8));
+      store.exportTo(exportDir);
+    }
+    List<String> exported;
+    try (Stream<Path> files = Files.list(exportDir)) {
+      exported = files.map(file -> file.getFileName().toString()).collect(toList());
+    }
+    assertThat(exported).hasSize(2);
+    assertThat(new String(Files.readAllBytes(exportDir.resolve(FOO_NAME)), UTF_8))
+        .isEqualTo("unchanged");
+  }
+}
@@ -15,6 +15,7 @@
 package com.code_intelligence.jazzer.junit;
 
 import static com.google.common.truth.Truth8.assertThat;
+import static java.util.Collections.singletonMap;
 import static org.junit.Assume.assumeTrue;
 import static org.junit.platform.engine.discovery.DiscoverySelectors.selectPackage;
 import static org.junit.platform.testkit.engine.EventConditions.container;
@@ -22,6 +23,7 @@ import static org.junit.platform.testkit.engine.EventConditions.displayName;
 import static org.junit.platform.testkit.engine.EventConditions.event;
 import static org.junit.platform.testkit.engine.EventConditions.finishedSuccessfully;
 import static org.junit.platform.testkit.engine.EventConditions.finishedWithFailure;
+import static org.junit.platform.testkit.engine.EventConditions.reportEntry;
 import static org.junit.platform.testkit.engine.EventConditions.test;
 import static org.junit.platform.testkit.engine.EventConditions.type;
 import static org.junit.platform.testkit.engine.EventConditions.uniqueIdSubstrings;
@@ -48,11 +50,13 @@ import org.opentest4j.AssertionFailedError;
 public class RegressionTestTest {
   private static final String ENGINE = "engine:junit-jupiter";
   private static final String BYTE_FUZZ_TEST = "class:com.example.ByteFuzzTest";
+  private static final String ERROR_FUZZ_TEST = "class:com.example.ErrorFuzzTest";
   private static final String VALID_FUZZ_TESTS = "class:com.example.ValidFuzzTests";
   private static final String INVALID_FUZZ_TESTS = "class:com.example.InvalidFuzzTests";
   private static final String AUTOFUZZ_WITH_CORPUS_FUZZ_TEST =
       "class:com.example.AutofuzzWithCorpusFuzzTest";
   private static final String BYTE_FUZZ = "test-template:byteFuzz([B)";
+  private static final String ERROR_FUZZ = "test-template:errorFuzz([B)";
   private static final String NO_CRASH_FUZZ = "test-template:noCrashFuzz([B)";
   private static final String DATA_FUZZ =
       "test-template:dataFuzz(com.code_intelligence.jazzer.api.FuzzedDataProvider)";
@@ -64,24 +68,56 @@ public class RegressionTestTest {
       "test-template:autofuzzWithCorpus(java.lang.String, int)";
   private static final String INVOCATION = "test-template-invocation:#";
 
-  private static EngineExecutionResults executeTests() {
+  private static EngineExecutionResults executeTests(String regressionThreads) {
     return EngineTestKit.engine("junit-jupiter")
         .selectors(selectPackage("com.example"))
         .configurationParameter(
             "jazzer.instrument", "com.other.package.**,com.example.**,com.yet.another.package.*")
+        .configurationParameter("jazzer.regression_threads", regressionThreads)
         .execute();
   }
 
   @Test
   public void regressionTestEnabled() {
     assumeTrue(System.getenv("JAZZER_FUZZ") == null);
+    verifyRegressionTests("1");
+  }
+
+  @Test
+  public void regressionTestEnabledInParallel() {
+    assumeTrue(System.getenv("JAZZER_FUZZ") == null);
+    // Findings have to be reported for the same seeds and in the same order as without parallelism.
+    EngineExecutionResults results = verifyRegressionTests("4");
 
+    // Seeds are silently executed serially if the invocations can't be matched to them, so verify
+    // that they have actually been executed in parallel.
+    results.testEvents().assertEventsMatchLoosely(
+        event(type(REPORTING_ENTRY_PUBLISHED),
+            test(uniqueIdSubstrings(ENGINE, VALID_FUZZ_TESTS, DATA_FUZZ, INVOCATION)),
+            displayName("<empty input>"),
+            reportEntry(singletonMap("jazzer.regression_threads", "4"))),
+        event(type(REPORTING_ENTRY_PUBLISHED),
+            test(uniqueIdSubstrings(ENGINE, BYTE_FUZZ_TEST, BYTE_FUZZ, INVOCATION)),
+            displayName("<empty input>"),
+            reportEntry(singletonMap("jazzer.regression_threads", "4"))),
+        event(type(REPORTING_ENTRY_PUBLISHED),
+            test(uniqueIdSubstrings(ENGINE, ERROR_FUZZ_TEST, ERROR_FUZZ, INVOCATION)),
+            displayName("<empty input>"),
+            reportEntry(singletonMap("jazzer.regression_threads", "4"))),
+        event(type(REPORTING_ENTRY_PUBLISHED),
+            test(uniqueIdSubstrings(
+                ENGINE, AUTOFUZZ_WITH_CORPUS_FUZZ_TEST, AUTOFUZZ_WITH_CORPUS, INVOCATION)),
+            displayName("<empty input>"),
+            reportEntry(singletonMap("jazzer.regression_threads", "4"))));
+  }
+
+  private static EngineExecutionResults verifyRegressionTests(String regressionThreads) {
     // Record Jazzer's stderr.
     PrintStream stderr = System.err;
     ByteArrayOutputStream recordedStderr = new ByteArrayOutputStream();
     System.setErr(new PrintStream(recordedStderr));
 
-    EngineExecutionResults results = executeTests();
+    EngineExecutionResults results = executeTests(regressionThreads);
     System.setErr(stderr);
 
     // Verify that Jazzer doesn't print any warning or errors.
@@ -235,6 +271,16 @@ public class RegressionTestTest {
         event(type(FINISHED),
             test(uniqueIdSubstrings(ENGINE, BYTE_FUZZ_TEST, BYTE_FUZZ, INVOCATION)),
             displayName("fails"), finishedWithFailure(instanceOf(AssertionFailedError.class))),
+        event(type(FINISHED),
+            test(uniqueIdSubstrings(ENGINE, ERROR_FUZZ_TEST, ERROR_FUZZ, INVOCATION)),
+            displayName("<empty input>"), finishedSuccessfully()),
+        event(type(FINISHED),
+            test(uniqueIdSubstrings(ENGINE, ERROR_FUZZ_TEST, ERROR_FUZZ, INVOCATION)),
+            displayName("error"),
+            finishedWithFailure(instanceOf(Error.class), message("Thrown for the error seed"))),
+        event(type(FINISHED),
+            test(uniqueIdSubstrings(ENGINE, ERROR_FUZZ_TEST, ERROR_FUZZ, INVOCATION)),
+            displayName("succeeds"), finishedSuccessfully()),
         event(type(DYNAMIC_TEST_REGISTERED),
             test(uniqueIdSubstrings(
                 ENGINE, AUTOFUZZ_WITH_CORPUS_FUZZ_TEST, AUTOFUZZ_WITH_CORPUS, INVOCATION)),
@@ -260,5 +306,6 @@ public class RegressionTestTest {
                 ENGINE, AUTOFUZZ_WITH_CORPUS_FUZZ_TEST, AUTOFUZZ_WITH_CORPUS, INVOCATION)),
             displayName("crashing_input"),
             finishedWithFailure(instanceOf(RuntimeException.class))));
+    return results;
   }
 }
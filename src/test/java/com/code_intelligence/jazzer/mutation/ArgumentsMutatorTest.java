@@ -247,6 +247,38 @@ class ArgumentsMutatorTest {
     assertThat(mutableFuzzThisFunctionArgument2).containsExactly(false);
   }
 
+  @Test
+  void testReuseSerializedArguments() throws Throwable {
+    Method method = ArgumentsMutatorTest.class.getMethod("crossOverFunction", List.class);
+    Optional<ArgumentsMutator> maybeMutator =
+        ArgumentsMutator.forInstanceMethod(Mutators.newFactory(), this, method);
+    assertThat(maybeMutator).isPresent();
+    ArgumentsMutator mutator = maybeMutator.get();
+
+    mutator.init(1337);
+    assertThat(mutator.reuseArgumentsIfSerializedAs(0, 0)).isFalse();
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    mutator.write(baos);
+    mutator.rememberSerializedArguments(baos.size(), 12345);
+    assertThat(mutator.reuseArgumentsIfSerializedAs(baos.size(), 12345)).isTrue();
+    assertThat(mutator.reuseArgumentsIfSerializedAs(baos.size(), 54321)).isFalse();
+    assertThat(mutator.reuseArgumentsIfSerializedAs(baos.size() + 1, 12345)).isFalse();
+
+    // Mutating the arguments invalidates the serialized form.
+    mutator.mutate(1);
+    assertThat(mutator.reuseArgumentsIfSerializedAs(baos.size(), 12345)).isFalse();
+
+    mutator.rememberSerializedArguments(baos.size(), 12345);
+    mutator.read(new ByteArrayInputStream(baos.toByteArray()));
+    assertThat(mutator.reuseArgumentsIfSerializedAs(baos.size(), 12345)).isFalse();
+
+    // Exposing the arguments to the fuzz target invalidates the serialized form.
+    mutator.rememberSerializedArguments(baos.size(), 12345);
+    mutator.invoke(false);
+    assertThat(mutator.reuseArgumentsIfSerializedAs(baos.size(), 12345)).isFalse();
+  }
+
   @SuppressWarnings("unused")
   public void crossOverFunction(List<Boolean> list) {}
 
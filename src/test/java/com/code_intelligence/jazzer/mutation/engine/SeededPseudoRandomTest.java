@@ -23,12 +23,15 @@ import static java.util.stream.Collectors.groupingBy;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
+import com.code_intelligence.jazzer.mutation.engine.SeededPseudoRandom.Generator;
 import com.google.common.truth.Correspondence;
 import java.util.Map;
+import java.util.SplittableRandom;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 
 public class SeededPseudoRandomTest {
@@ -140,4 +143,111 @@ public class SeededPseudoRandomTest {
         .containsExactly(0, 0.645, 1, 0.161, 2, 0.072, 3, 0.040, 4, 0.026, 5, 0.018, 6, 0.013, 7,
             0.01, 8, 0.008, 9, 0.006);
   }
+
+  @Test
+  void testSplitMix64MatchesSplittableRandom() {
+    SeededPseudoRandom prng = new SeededPseudoRandom(1337);
+    SplittableRandom random = new SplittableRandom(1337);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(prng.nextLong()).isEqualTo(random.nextLong());
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Generator.class)
+  void testReseed(Generator generator) {
+    SeededPseudoRandom prng = new SeededPseudoRandom(1337, generator);
+    long[] expected = new long[100];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = prng.nextLong();
+    }
+
+    prng.reseed(42);
+    long[] other = new long[100];
+    for (int i = 0; i < other.length; i++) {
+      other[i] = prng.nextLong();
+    }
+    assertThat(other).isNotEqualTo(expected);
+
+    prng.reseed(1337);
+    long[] actual = new long[100];
+    for (int i = 0; i < actual.length; i++) {
+      actual[i] = prng.nextLong();
+    }
+    assertThat(actual).isEqualTo(expected);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Generator.class)
+  void testIndexIn_distribution(Generator generator) {
+    int num = 3000000;
+    SeededPseudoRandom prng = new SeededPseudoRandom(1337133371337L, generator);
+    Map<Integer, Double> frequencies =
+        Stream.generate(() -> prng.indexIn(3))
+            .limit(num)
+            .collect(
+                groupingBy(i -> i, collectingAndThen(counting(), count -> ((double) count) / num)));
+    assertThat(frequencies)
+        .comparingValuesUsing(Correspondence.tolerance(0.002))
+        .containsExactly(0, 1.0 / 3, 1, 1.0 / 3, 2, 1.0 / 3);
+  }
+
+  static Stream<Arguments> intClosedRange() {
+    return Stream.of(arguments(0, 0), arguments(-1, 1), arguments(0, 1000),
+        arguments(Integer.MIN_VALUE, 0), arguments(-1, Integer.MAX_VALUE),
+        arguments(Integer.MIN_VALUE, Integer.MAX_VALUE),
+        arguments(Integer.MIN_VALUE / 2, Integer.MAX_VALUE / 2 + 1),
+        arguments(Integer.MAX_VALUE - 1, Integer.MAX_VALUE));
+  }
+
+  @ParameterizedTest
+  @MethodSource("intClosedRange")
+  void testIntClosedRange(int minValue, int maxValue) {
+    for (Generator generator : Generator.values()) {
+      SeededPseudoRandom prng = new SeededPseudoRandom(1337, generator);
+      for (int i = 0; i < 1000; i++) {
+        int inClosedRange = prng.closedRange(minValue, maxValue);
+        assertThat(inClosedRange).isAtLeast(minValue);
+        assertThat(inClosedRange).isAtMost(maxValue);
+      }
+    }
+  }
+
+  static Stream<Arguments> longClosedRange() {
+    return Stream.of(arguments(0L, 0L), arguments(-1L, 1L), arguments(0L, 1L << 40),
+        arguments(0L, 1000L), arguments(Long.MIN_VALUE, 0L), arguments(-1L, Long.MAX_VALUE),
+        arguments(1L, Long.MAX_VALUE), arguments(Long.MIN_VALUE, Long.MAX_VALUE),
+        arguments(Long.MAX_VALUE - 1, Long.MAX_VALUE));
+  }
+
+  @ParameterizedTest
+  @MethodSource("longClosedRange")
+  void testLongClosedRange(long minValue, long maxValue) {
+    for (Generator generator : Generator.values()) {
+      SeededPseudoRandom prng = new SeededPseudoRandom(1337, generator);
+      for (int i = 0; i < 1000; i++) {
+        long inClosedRange = prng.closedRange(minValue, maxValue);
+        assertThat(inClosedRange).isAtLeast(minValue);
+        assertThat(inClosedRange).isAtMost(maxValue);
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Generator.class)
+  void testBytes(Generator generator) {
+    SeededPseudoRandom prng = new SeededPseudoRandom(1337, generator);
+    long first = prng.nextLong();
+    long second = prng.nextLong();
+
+    prng.reseed(1337);
+    byte[] bytes = new byte[11];
+    prng.bytes(bytes);
+    for (int i = 0; i < 8; i++) {
+      assertThat(bytes[i]).isEqualTo((byte) (first >>> (8 * i)));
+    }
+    for (int i = 8; i < bytes.length; i++) {
+      assertThat(bytes[i]).isEqualTo((byte) (second >>> (8 * (i - 8))));
+    }
+  }
 }
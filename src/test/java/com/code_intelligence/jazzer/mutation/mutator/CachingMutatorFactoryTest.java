@@ -0,0 +1,124 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator;
+
+import static com.code_intelligence.jazzer.mutation.support.TypeSupport.notNull;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.code_intelligence.jazzer.mutation.annotation.InRange;
+import com.code_intelligence.jazzer.mutation.annotation.NotNull;
+import com.code_intelligence.jazzer.mutation.api.CachingMutatorFactory;
+import com.code_intelligence.jazzer.mutation.api.MutatorFactory;
+import com.code_intelligence.jazzer.mutation.api.SerializingMutator;
+import com.code_intelligence.jazzer.mutation.support.TypeHolder;
+import com.code_intelligence.jazzer.protobuf.Proto2.RecursiveMessageField2;
+import com.code_intelligence.jazzer.protobuf.Proto2.TestProtobuf;
+import java.lang.reflect.AnnotatedType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class CachingMutatorFactoryTest {
+  private static final class CountingMutatorFactory extends MutatorFactory {
+    private final MutatorFactory factory = Mutators.newFactory();
+    private final AtomicInteger numCreated = new AtomicInteger();
+
+    @Override
+    public Optional<SerializingMutator<?>> tryCreate(AnnotatedType type, MutatorFactory parent) {
+      numCreated.incrementAndGet();
+      return factory.tryCreate(type, parent);
+    }
+  }
+
+  @Test
+  void testEqualTypesShareMutators() {
+    CountingMutatorFactory countingFactory = new CountingMutatorFactory();
+    MutatorFactory factory = new CachingMutatorFactory(countingFactory);
+
+    SerializingMutator<?> mutator = factory.createOrThrow(
+        new TypeHolder<@NotNull List<@NotNull Integer>>() {}.annotatedType());
+    assertThat(mutator.toString()).isEqualTo("List<Integer>");
+    int numCreated = countingFactory.numCreated.get();
+
+    assertThat(factory.createOrThrow(
+                   new TypeHolder<@NotNull List<@NotNull Integer>>() {}.annotatedType()))
+        .isSameInstanceAs(mutator);
+    // The element mutator has been cached while creating the list mutator.
+    assertThat(factory.createOrThrow(new TypeHolder<@NotNull Integer>() {}.annotatedType()))
+        .isSameInstanceAs(factory.createOrThrow(notNull(
+            new TypeHolder<Integer>() {}.annotatedType())));
+    assertThat(countingFactory.numCreated.get()).isEqualTo(numCreated);
+  }
+
+  @Test
+  void testAnnotationValuesDistinguishTypes() {
+    MutatorFactory factory = new CachingMutatorFactory(Mutators.newFactory());
+
+    SerializingMutator<?> small =
+        factory.createOrThrow(new TypeHolder<@InRange(max = 10) Integer>() {}.annotatedType());
+    SerializingMutator<?> large =
+        factory.createOrThrow(new TypeHolder<@InRange(max = 100) Integer>() {}.annotatedType());
+    SerializingMutator<?> nullable =
+        factory.createOrThrow(new TypeHolder<List<Integer>>() {}.annotatedType());
+    SerializingMutator<?> notNull =
+        factory.createOrThrow(new TypeHolder<@NotNull List<Integer>>() {}.annotatedType());
+
+    assertThat(small).isNotSameInstanceAs(large);
+    assertThat(nullable).isNotSameInstanceAs(notNull);
+    assertThat(factory.createOrThrow(
+                   new TypeHolder<@InRange(max = 100) Integer>() {}.annotatedType()))
+        .isSameInstanceAs(large);
+  }
+
+  @Test
+  void testRecursiveMessage() {
+    MutatorFactory factory = new CachingMutatorFactory(Mutators.newFactory());
+
+    SerializingMutator<?> mutator = factory.createOrThrow(
+        new TypeHolder<RecursiveMessageField2.@NotNull Builder>() {}.annotatedType());
+    assertThat(mutator.toString())
+        .isEqualTo("{Builder.Boolean, WithoutInit(Builder.Nullable<(cycle) -> Message>)}");
+    assertThat(factory.createOrThrow(
+                   new TypeHolder<RecursiveMessageField2.@NotNull Builder>() {}.annotatedType()))
+        .isSameInstanceAs(mutator);
+  }
+
+  @Test
+  void testConcurrentCreation() throws Exception {
+    MutatorFactory factory = new CachingMutatorFactory(Mutators.newFactory());
+    AnnotatedType type = new TypeHolder<@NotNull TestProtobuf>() {}.annotatedType();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<SerializingMutator<?>>> futures = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        futures.add(executor.submit(() -> factory.createOrThrow(type)));
+      }
+      SerializingMutator<?> mutator = futures.get(0).get();
+      for (Future<SerializingMutator<?>> future : futures) {
+        assertThat(future.get()).isSameInstanceAs(mutator);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
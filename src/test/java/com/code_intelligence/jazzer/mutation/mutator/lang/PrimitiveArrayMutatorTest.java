@@ -0,0 +1,237 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator.lang;
+
+import static com.code_intelligence.jazzer.mutation.support.TestSupport.anyPseudoRandom;
+import static com.code_intelligence.jazzer.mutation.support.TestSupport.mockPseudoRandom;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.code_intelligence.jazzer.mutation.annotation.DoubleInRange;
+import com.code_intelligence.jazzer.mutation.annotation.InRange;
+import com.code_intelligence.jazzer.mutation.annotation.NotNull;
+import com.code_intelligence.jazzer.mutation.annotation.WithLength;
+import com.code_intelligence.jazzer.mutation.api.PseudoRandom;
+import com.code_intelligence.jazzer.mutation.api.SerializingMutator;
+import com.code_intelligence.jazzer.mutation.support.TestSupport.MockPseudoRandom;
+import com.code_intelligence.jazzer.mutation.support.TypeHolder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("unchecked")
+class PrimitiveArrayMutatorTest {
+  private static <T> byte[] write(SerializingMutator<T> mutator, T value) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    mutator.write(value, new DataOutputStream(out));
+    return out.toByteArray();
+  }
+
+  private static <T> T read(SerializingMutator<T> mutator, byte[] bytes) throws IOException {
+    return mutator.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+  }
+
+  @Test
+  void testDebugString() {
+    assertThat(LangMutators.newFactory().createOrThrow(new TypeHolder<int[]>() {}.annotatedType())
+                   .toString())
+        .isEqualTo("Nullable<int[]>");
+    assertThat(LangMutators.newFactory()
+                   .createOrThrow(new TypeHolder<char @NotNull[]>() {}.annotatedType())
+                   .toString())
+        .isEqualTo("char[]");
+  }
+
+  @Test
+  void testInit() {
+    SerializingMutator<int[]> mutator =
+        (SerializingMutator<int[]>) LangMutators.newFactory().createOrThrow(
+            new TypeHolder<int @NotNull @WithLength(min = 2)[]>() {}.annotatedType());
+
+    int[] arr;
+    try (MockPseudoRandom prng = mockPseudoRandom(
+             // length
+             3,
+             // special values Integer.MIN_VALUE, 0 and Integer.MAX_VALUE
+             0, 1, 3)) {
+      arr = mutator.init(prng);
+    }
+    assertThat(arr).isEqualTo(new int[] {Integer.MIN_VALUE, 0, Integer.MAX_VALUE});
+  }
+
+  @Test
+  void testDeleteChunk() {
+    SerializingMutator<int[]> mutator =
+        (SerializingMutator<int[]>) LangMutators.newFactory().createOrThrow(
+            new TypeHolder<int @NotNull[]>() {}.annotatedType());
+
+    int[] arr;
+    try (MockPseudoRandom prng = mockPseudoRandom(
+             // delete action
+             0,
+             // chunk size
+             2,
+             // chunk offset
+             1)) {
+      arr = mutator.mutate(new int[] {1, 2, 3, 4, 5, 6}, prng);
+    }
+    assertThat(arr).isEqualTo(new int[] {1, 4, 5, 6});
+  }
+
+  @Test
+  void testInsertChunk() {
+    SerializingMutator<long[]> mutator =
+        (SerializingMutator<long[]>) LangMutators.newFactory().createOrThrow(
+            new TypeHolder<long @NotNull @WithLength(max = 6)[]>() {}.annotatedType());
+
+    long[] arr;
+    try (MockPseudoRandom prng = mockPseudoRandom(
+             // insert action
+             1,
+             // chunk size
+             3,
+             // chunk offset
+             1,
+             // special value Long.MAX_VALUE
+             3)) {
+      arr = mutator.mutate(new long[] {1, 2, 3}, prng);
+    }
+    assertThat(arr).isEqualTo(new long[] {1, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, 2, 3});
+
+    try (MockPseudoRandom prng = mockPseudoRandom(
+             // mutate action, as inserting is not possible at the maximum length
+             1,
+             // chunk size
+             1,
+             // chunk offset
+             5,
+             // random value
+             2,
+             7L)) {
+      arr = mutator.mutate(arr, prng);
+    }
+    assertThat(arr).isEqualTo(new long[] {1, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, 2, 7});
+  }
+
+  @Test
+  void testCrossOver() {
+    SerializingMutator<short[]> mutator =
+        (SerializingMutator<short[]>) LangMutators.newFactory().createOrThrow(
+            new TypeHolder<short @NotNull[]>() {}.annotatedType());
+
+    short[] value = {1, 2, 3, 4};
+    short[] otherValue = {10, 20, 30};
+
+    short[] crossedOver;
+    try (MockPseudoRandom prng = mockPseudoRandom(
+             // insert action
+             0,
+             // chunk size
+             2,
+             // from position
+             0,
+             // to position
+             2)) {
+      crossedOver = mutator.crossOver(value, otherValue, prng);
+    }
+    assertThat(crossedOver).isEqualTo(new short[] {1, 2, 10, 20, 3, 4});
+
+    try (MockPseudoRandom prng = mockPseudoRandom(
+             // overwrite action
+             1,
+             // chunk size
+             2,
+             // from position
+             1,
+             // to position
+             0)) {
+      crossedOver = mutator.crossOver(value, otherValue, prng);
+    }
+    assertThat(crossedOver).isEqualTo(new short[] {20, 30, 3, 4});
+  }
+
+  @Test
+  void testSerializationMatchesList() throws IOException {
+    SerializingMutator<int[]> mutator =
+        (SerializingMutator<int[]>) LangMutators.newFactory().createOrThrow(
+            new TypeHolder<int @NotNull[]>() {}.annotatedType());
+
+    byte[] bytes = write(mutator, new int[] {1, -2});
+    assertThat(bytes).isEqualTo(new byte[] {0, 0, 0, 2, 0, 0, 0, 1, -1, -1, -1, -2});
+    assertThat(read(mutator, bytes)).isEqualTo(new int[] {1, -2});
+  }
+
+  @Test
+  void testReadForcesElementsInRange() throws IOException {
+    SerializingMutator<int[]> mutator =
+        (SerializingMutator<int[]>) LangMutators.newFactory().createOrThrow(
+            new TypeHolder<@InRange(min = 1, max = 10) int @NotNull[]>() {}.annotatedType());
+
+    int[] arr = read(mutator, new byte[] {0, 0, 0, 3, 0, 0, 0, 0, 0, 0, 0, 5, 0, 0, 0, 100});
+    assertThat(arr).hasLength(3);
+    assertThat(arr[1]).isEqualTo(5);
+    for (int element : arr) {
+      assertThat(element).isAtLeast(1);
+      assertThat(element).isAtMost(10);
+    }
+  }
+
+  @Test
+  void testReadHugeLengthDoesNotOverflow() {
+    SerializingMutator<long[]> mutator =
+        (SerializingMutator<long[]>) LangMutators.newFactory().createOrThrow(
+            new TypeHolder<long @NotNull @WithLength(max = Integer.MAX_VALUE)[]>() {
+            }.annotatedType());
+
+    // Integer.MAX_VALUE * 8 bytes would overflow an int, the clamped length must not. As the
+    // input ends after two elements, this mustn't allocate a buffer for all elements upfront.
+    byte[] bytes = {0x7F, -1, -1, -1, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 2};
+    assertThrows(EOFException.class, () -> read(mutator, bytes));
+  }
+
+  @Test
+  void testMutationsRespectConstraints() throws IOException {
+    SerializingMutator<double[]> mutator =
+        (SerializingMutator<double[]>) LangMutators.newFactory().createOrThrow(
+            new TypeHolder<@DoubleInRange(min = 0, max = 1, allowNaN = false)
+                double @NotNull @WithLength(min = 2, max = 20)[]>() {}.annotatedType());
+    PseudoRandom prng = anyPseudoRandom();
+
+    double[] value = mutator.init(prng);
+    double[] otherValue = mutator.init(prng);
+    for (int i = 0; i < 1000; i++) {
+      if (prng.choice()) {
+        value = mutator.mutate(value, prng);
+      } else {
+        value = mutator.crossOver(value, otherValue, prng);
+      }
+      otherValue = mutator.detach(value);
+
+      assertThat(value.length).isAtLeast(2);
+      assertThat(value.length).isAtMost(20);
+      for (double element : value) {
+        assertThat(element).isAtLeast(0.0);
+        assertThat(element).isAtMost(1.0);
+      }
+      assertThat(read(mutator, write(mutator, value))).isEqualTo(value);
+    }
+  }
+}
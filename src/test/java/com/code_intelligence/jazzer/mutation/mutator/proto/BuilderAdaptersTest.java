@@ -25,16 +25,25 @@ import com.google.protobuf.Descriptors.FieldDescriptor;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 class BuilderAdaptersTest {
-  @Test
-  void testMakeMutableRepeatedFieldView() {
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testMakeMutableRepeatedFieldView(boolean useGeneratedAccessors) {
     RepeatedIntegralField3.Builder builder = RepeatedIntegralField3.newBuilder();
     FieldDescriptor someField = builder.getDescriptorForType().findFieldByNumber(1);
     assertThat(someField).isNotNull();
 
-    List<Integer> view = makeMutableRepeatedFieldView(builder, someField);
+    List<Integer> view;
+    if (useGeneratedAccessors) {
+      GeneratedFieldAccessors accessors =
+          GeneratedFieldAccessors.forField(RepeatedIntegralField3.Builder.class, someField).get();
+      view = makeMutableRepeatedFieldView(builder, someField, accessors);
+    } else {
+      view = makeMutableRepeatedFieldView(builder, someField);
+    }
     assertThat(builder.build().getSomeFieldList()).isEmpty();
 
     assertThat(view.add(1)).isTrue();
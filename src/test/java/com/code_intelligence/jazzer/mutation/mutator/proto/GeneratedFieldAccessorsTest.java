@@ -0,0 +1,86 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator.proto;
+
+import static com.code_intelligence.jazzer.mutation.mutator.proto.BuilderAdapters.getPresentFieldOrNull;
+import static com.code_intelligence.jazzer.mutation.mutator.proto.BuilderAdapters.setFieldWithPresence;
+import static com.code_intelligence.jazzer.mutation.mutator.proto.GeneratedFieldAccessors.capitalizedCamelCaseName;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.code_intelligence.jazzer.protobuf.Proto2.TestProtobuf;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.DynamicMessage;
+import org.junit.jupiter.api.Test;
+
+class GeneratedFieldAccessorsTest {
+  private static GeneratedFieldAccessors accessorsFor(String fieldName) {
+    FieldDescriptor field = TestProtobuf.getDescriptor().findFieldByName(fieldName);
+    return GeneratedFieldAccessors.forField(TestProtobuf.Builder.class, field).orElse(null);
+  }
+
+  @Test
+  void testCapitalizedCamelCaseName() {
+    assertThat(capitalizedCamelCaseName("foo")).isEqualTo("Foo");
+    assertThat(capitalizedCamelCaseName("foo_bar")).isEqualTo("FooBar");
+    assertThat(capitalizedCamelCaseName("rep_i32")).isEqualTo("RepI32");
+    assertThat(capitalizedCamelCaseName("foo2bar")).isEqualTo("Foo2Bar");
+    assertThat(capitalizedCamelCaseName("fooBar_baz")).isEqualTo("FooBarBaz");
+  }
+
+  @Test
+  void testSupportedFields() {
+    for (String fieldName : new String[] {"b", "i32", "u32", "i64", "u64", "f", "d", "str",
+             "rep_b", "rep_i32", "rep_u32", "rep_i64", "rep_u64", "rep_f", "rep_d", "rep_str",
+             "oneof_i32", "oneof_i64", "oneof_u32"}) {
+      assertWithMessage(fieldName).that(accessorsFor(fieldName)).isNotNull();
+    }
+  }
+
+  @Test
+  void testUnsupportedFields() {
+    // Enum and message values are represented differently by the generated methods.
+    for (String fieldName : new String[] {"e", "subproto", "rep_e", "rep_subproto", "map_field"}) {
+      assertWithMessage(fieldName).that(accessorsFor(fieldName)).isNull();
+    }
+  }
+
+  @Test
+  void testFieldWithPresence() {
+    FieldDescriptor field = TestProtobuf.getDescriptor().findFieldByName("i64");
+    GeneratedFieldAccessors accessors = accessorsFor("i64");
+    TestProtobuf.Builder builder = TestProtobuf.newBuilder();
+
+    assertThat((Long) getPresentFieldOrNull(builder, field, accessors)).isNull();
+    setFieldWithPresence(builder, field, 42L, accessors);
+    assertThat(builder.getI64()).isEqualTo(42L);
+    assertThat((Long) getPresentFieldOrNull(builder, field, accessors)).isEqualTo(42L);
+    setFieldWithPresence(builder, field, null, accessors);
+    assertThat(builder.hasI64()).isFalse();
+  }
+
+  @Test
+  void testFallbackForDynamicMessage() {
+    FieldDescriptor field = TestProtobuf.getDescriptor().findFieldByName("str");
+    GeneratedFieldAccessors accessors = accessorsFor("str");
+    DynamicMessage.Builder builder = DynamicMessage.newBuilder(TestProtobuf.getDescriptor());
+
+    assertThat(accessors.appliesTo(builder)).isFalse();
+    setFieldWithPresence(builder, field, "foo", accessors);
+    assertThat((String) getPresentFieldOrNull(builder, field, accessors)).isEqualTo("foo");
+  }
+}
@@ -31,10 +31,24 @@ import com.code_intelligence.jazzer.protobuf.Proto2.ExtendedMessage2;
 import com.code_intelligence.jazzer.protobuf.Proto2.ExtendedSubmessage2;
 import com.code_intelligence.jazzer.protobuf.Proto2.OriginalMessage2;
 import com.code_intelligence.jazzer.protobuf.Proto2.OriginalSubmessage2;
+import com.code_intelligence.jazzer.protobuf.Proto2.TestProtobuf;
+import com.code_intelligence.jazzer.protobuf.Proto2.TestSubProtobuf;
 import com.code_intelligence.jazzer.protobuf.Proto3.PrimitiveField3;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 
 class MessageMutatorTest {
@@ -89,4 +103,68 @@ class MessageMutatorTest {
                        .setFloatField(0)
                        .build());
   }
+
+  @Test
+  void testWritesWireFormat() throws IOException {
+    // Large enough to require growing the serialization buffer.
+    TestProtobuf msg =
+        TestProtobuf.newBuilder()
+            .setStr(String.join("", Collections.nCopies(1000, "a")))
+            .addRepSubproto(TestSubProtobuf.newBuilder().setSubprotoI32(42).setParent(
+                TestProtobuf.newBuilder().addRepI64(1337).setSubproto(
+                    TestSubProtobuf.newBuilder().addSubprotoRepI32(7))))
+            .build();
+    SerializingMutator<TestProtobuf> mutator =
+        (SerializingMutator<TestProtobuf>) FACTORY.createOrThrow(
+            new TypeHolder<@NotNull TestProtobuf>() {}.annotatedType());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    mutator.writeExclusive(msg, out);
+    assertThat(out.toByteArray()).isEqualTo(msg.toByteArray());
+    assertThat(mutator.readExclusive(new ByteArrayInputStream(out.toByteArray())))
+        .isEqualTo(msg);
+
+    out.reset();
+    mutator.write(msg, new DataOutputStream(out));
+    byte[] bytes = out.toByteArray();
+    assertThat(ByteBuffer.wrap(bytes).getInt()).isEqualTo(msg.getSerializedSize());
+    assertThat(Arrays.copyOfRange(bytes, Integer.BYTES, bytes.length))
+        .isEqualTo(msg.toByteArray());
+    assertThat(mutator.read(new DataInputStream(new ByteArrayInputStream(bytes)))).isEqualTo(msg);
+  }
+
+  @Test
+  void testConcurrentSerialization() throws Exception {
+    SerializingMutator<TestProtobuf> mutator =
+        (SerializingMutator<TestProtobuf>) FACTORY.createOrThrow(
+            new TypeHolder<@NotNull TestProtobuf>() {}.annotatedType());
+
+    // Messages of different sizes so that threads sharing a buffer would overwrite each other.
+    List<Callable<Void>> tasks =
+        IntStream.range(1, 9)
+            .mapToObj(i
+                -> TestProtobuf.newBuilder()
+                       .setStr(String.join("", Collections.nCopies(i * 100, "a")))
+                       .addRepI64(i)
+                       .build())
+            .map(msg -> (Callable<Void>) () -> {
+              for (int j = 0; j < 1000; j++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                mutator.writeExclusive(msg, out);
+                assertThat(out.toByteArray()).isEqualTo(msg.toByteArray());
+                assertThat(mutator.readExclusive(new ByteArrayInputStream(out.toByteArray())))
+                    .isEqualTo(msg);
+              }
+              return null;
+            })
+            .collect(Collectors.toList());
+    ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+    try {
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LibFuzzerStringEncoderTest {
+  private static final Charset CESU8 = Charset.forName("CESU8");
+
+  private static void assertEncodesLikeCharset(String str) {
+    byte[] expected =
+        str.substring(0, Math.min(str.length(), LibFuzzerStringEncoder.MAX_CHARS)).getBytes(CESU8);
+    byte[] buffer = new byte[LibFuzzerStringEncoder.MAX_BYTES];
+    int length = LibFuzzerStringEncoder.encode(str, buffer);
+    Assert.assertArrayEquals(str, expected, Arrays.copyOf(buffer, length));
+  }
+
+  @Test
+  public void testSpecialCases() {
+    assertEncodesLikeCharset("");
+    assertEncodesLikeCharset("foo\0bar");
+    assertEncodesLikeCharset("\u007f\u0080\u07ff\u0800\uffff");
+    assertEncodesLikeCharset("caf\u00e9 \u20ac");
+    // A surrogate pair, unpaired surrogates and reversed surrogates.
+    assertEncodesLikeCharset("\uD83D\uDE00");
+    assertEncodesLikeCharset("\uD800x\uDC00\uDC00\uD800");
+    // Strings longer than the prefix, including one whose 64th char is a high surrogate.
+    char[] longString = new char[100];
+    Arrays.fill(longString, 'a');
+    assertEncodesLikeCharset(new String(longString));
+    Arrays.fill(longString, '\u20ac');
+    assertEncodesLikeCharset(new String(longString));
+    longString[63] = '\uD83D';
+    longString[64] = '\uDE00';
+    assertEncodesLikeCharset(new String(longString));
+  }
+
+  @Test
+  public void testRandomStrings() {
+    SplittableRandom random = new SplittableRandom(1337);
+    for (int i = 0; i < 10000; i++) {
+      char[] chars = new char[random.nextInt(80)];
+      for (int j = 0; j < chars.length; j++) {
+        switch (random.nextInt(4)) {
+          case 0:
+            chars[j] = (char) random.nextInt(0x80);
+            break;
+          case 1:
+            chars[j] = (char) random.nextInt(0x800);
+            break;
+          case 2:
+            chars[j] = (char) (Character.MIN_SURROGATE
+                + random.nextInt(Character.MAX_SURROGATE - Character.MIN_SURROGATE + 1));
+            break;
+          default:
+            chars[j] = (char) random.nextInt(0x10000);
+            break;
+        }
+      }
+      assertEncodesLikeCharset(new String(chars));
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023 Code Intelligence GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import java.lang.reflect.Field;
+import org.junit.Test;
+import sun.misc.Unsafe;
+
+public class TraceDataFlowNativeCallbacksTest {
+  @Test
+  public void bufferedRecordsMatchUnbufferedCallbacks() throws Exception {
+    TraceDataFlowNativeCallbacks.enableBuffering();
+    TraceDataFlowNativeCallbacks.traceCmpInt(1, 2, 3);
+    TraceDataFlowNativeCallbacks.traceConstCmpInt(4, 5, 6);
+    TraceDataFlowNativeCallbacks.traceCmpLong(7, 8, 9);
+    TraceDataFlowNativeCallbacks.traceDivInt(10, 11);
+    TraceDataFlowNativeCallbacks.traceDivLong(12, 13);
+    TraceDataFlowNativeCallbacks.traceGep(14, 15);
+    TraceDataFlowNativeCallbacks.tracePcIndir(16, 17);
+
+    // Every record has to describe the same libFuzzer hook invocation as the corresponding
+    // unbuffered JNI callback, i.e. {type, pc, arg1, arg2} where e.g. traceCmpInt0(arg1, arg2, pc)
+    // calls __sanitizer_cov_trace_cmp4_with_pc(pc, arg1, arg2) and tracePcIndir0(callee, caller)
+    // calls __sanitizer_cov_trace_pc_indir_with_pc(callee, caller).
+    assertArrayEquals(new long[][] {
+                          {0, 3, 1, 2},
+                          {0, 6, 4, 5},
+                          {1, 9, 7, 8},
+                          {2, 11, 10, 0},
+                          {3, 13, 12, 0},
+                          {4, 15, 14, 0},
+                          {5, 16, 17, 0},
+                      },
+        bufferedRecords());
+
+    TraceDataFlowNativeCallbacks.flushBuffer();
+    assertArrayEquals(new long[0][], bufferedRecords());
+
+    // Callbacks invoked between executions are dropped rather than attributed to the next one.
+    TraceDataFlowNativeCallbacks.traceCmpInt(18, 19, 20);
+    assertArrayEquals(new long[][] {{0, 20, 18, 19}}, bufferedRecords());
+    TraceDataFlowNativeCallbacks.clearBuffer();
+    assertArrayEquals(new long[0][], bufferedRecords());
+  }
+
+  private static long[][] bufferedRecords() throws ReflectiveOperationException {
+    Unsafe unsafe = UnsafeProvider.getUnsafe();
+    long address = getStaticField("bufferAddress").getLong(null);
+    long[][] records = new long[getStaticField("numBufferedRecords").getInt(null)][];
+    for (int i = 0; i < records.length; i++) {
+      long record = address + 24L * i;
+      records[i] = new long[] {unsafe.getInt(record), unsafe.getInt(record + 4),
+          unsafe.getLong(record + 8), unsafe.getLong(record + 16)};
+    }
+    return records;
+  }
+
+  private static Field getStaticField(String name) throws NoSuchFieldException {
+    Field field = TraceDataFlowNativeCallbacks.class.getDeclaredField(name);
+    field.setAccessible(true);
+    return field;
+  }
+}